@@ -0,0 +1,38 @@
+package de.anton.pv.analyser.pv_analyzer.algorithms;
+
+import de.anton.pv.analyser.pv_analyzer.model.CalculatedDataPoint;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Distance between two points addressed by their position in the point list of a clustering run.
+ * Avoids boxing and the per-call point lookups of a {@code BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double>}.
+ * Invalid pairs return {@link Double#POSITIVE_INFINITY} (or NaN).
+ */
+@FunctionalInterface
+public interface IndexedDistance {
+
+    double distance(int i, int j);
+
+    /**
+     * Euclidean distance over precomputed coordinates.
+     * @param coordinates {x, y} per point position; points with a NaN coordinate are infinitely far from all others.
+     */
+    static IndexedDistance euclidean(double[][] coordinates) {
+        int n = coordinates.length;
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) { xs[i] = coordinates[i][0]; ys[i] = coordinates[i][1]; }
+        return (i, j) -> {
+            double dx = xs[i] - xs[j], dy = ys[i] - ys[j];
+            double dist = Math.sqrt(dx * dx + dy * dy);
+            return Double.isNaN(dist) ? Double.POSITIVE_INFINITY : dist;
+        };
+    }
+
+    /** Adapter for a point based distance function. */
+    static IndexedDistance of(List<CalculatedDataPoint> points, BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunction) {
+        CalculatedDataPoint[] byPosition = points.toArray(new CalculatedDataPoint[0]);
+        return (i, j) -> distanceFunction.apply(byPosition[i], byPosition[j]);
+    }
+}
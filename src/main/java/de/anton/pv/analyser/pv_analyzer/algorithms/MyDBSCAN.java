@@ -17,20 +17,32 @@ public class MyDBSCAN {
     public static final int UNCLASSIFIED = -2;
 
     private final List<CalculatedDataPoint> points;
+    private final CalculatedDataPoint[] byPosition; // Points by position; the algorithm works on positions
     private final double epsilon;
     private final int minPts;
-    private final BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunction;
-    private final Map<CalculatedDataPoint, Integer> pointStatus;
+    private final IndexedDistance distance;
+    private final int[] pointStatus; // Cluster ID, NOISE or UNCLASSIFIED per position
+    private final int[] queuedFor;   // Cluster whose seed queue already holds the position
 
     public MyDBSCAN(List<CalculatedDataPoint> points, double epsilon, int minPts,
                     BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunction) {
+        this(points, epsilon, minPts, IndexedDistance.of(Objects.requireNonNull(points, "Input point list cannot be null."),
+                                                         Objects.requireNonNull(distanceFunction, "Distance function cannot be null.")));
+    }
+
+    /**
+     * @param distance Distance between two positions of the point list.
+     */
+    public MyDBSCAN(List<CalculatedDataPoint> points, double epsilon, int minPts, IndexedDistance distance) {
         this.points = Objects.requireNonNull(points, "Input point list cannot be null.");
         if (epsilon <= 0) throw new IllegalArgumentException("Epsilon must be positive.");
         if (minPts <= 0) throw new IllegalArgumentException("MinPts must be positive.");
         this.epsilon = epsilon;
         this.minPts = minPts;
-        this.distanceFunction = Objects.requireNonNull(distanceFunction, "Distance function cannot be null.");
-        this.pointStatus = new HashMap<>(points.size());
+        this.distance = Objects.requireNonNull(distance, "Distance function cannot be null.");
+        this.byPosition = points.toArray(new CalculatedDataPoint[0]);
+        this.pointStatus = new int[byPosition.length];
+        this.queuedFor = new int[byPosition.length];
     }
 
     /** Executes DBSCAN, checking for thread interruption. */
@@ -38,34 +50,35 @@ public class MyDBSCAN {
         if (points.isEmpty()) { logger.info("MyDBSCAN skipped: No points."); return; }
         logger.debug("Starting MyDBSCAN: eps={}, minPts={}, points={}", epsilon, minPts, points.size());
 
-        for (CalculatedDataPoint p : points) {
+        Arrays.fill(pointStatus, UNCLASSIFIED);
+        Arrays.fill(queuedFor, UNCLASSIFIED);
+        for (CalculatedDataPoint p : byPosition) {
              if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled during init.");
             if (p != null) {
-                pointStatus.put(p, UNCLASSIFIED);
                 try { p.setOutlier(false); } catch (Exception e) { logger.error("Error setting outlier status for {}", p.getName(), e); }
             }
         }
 
         int currentClusterId = 0;
-        for (CalculatedDataPoint p : points) {
+        for (int i = 0; i < byPosition.length; i++) {
              if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled during main loop.");
-            if (p == null || pointStatus.get(p) != UNCLASSIFIED) continue;
+            if (byPosition[i] == null || pointStatus[i] != UNCLASSIFIED) continue;
 
-            List<CalculatedDataPoint> neighbors = regionQuery(p);
-            if (neighbors.size() < minPts) {
-                pointStatus.put(p, NOISE);
+            int[] neighbors = regionQuery(i);
+            if (neighbors.length < minPts) {
+                pointStatus[i] = NOISE;
             } else {
                 if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled before cluster expansion.");
-                expandCluster(p, neighbors, currentClusterId); // throws InterruptedException
+                expandCluster(i, neighbors, currentClusterId); // throws InterruptedException
                 currentClusterId++;
             }
         }
 
         int noiseCount = 0, assignedCount = 0;
-        for (CalculatedDataPoint p : points) {
+        for (int i = 0; i < byPosition.length; i++) {
+            CalculatedDataPoint p = byPosition[i];
             if (p != null) {
-                Integer status = pointStatus.get(p);
-                boolean isOutlier = (status == null || status == NOISE || status == UNCLASSIFIED);
+                boolean isOutlier = (pointStatus[i] == NOISE || pointStatus[i] == UNCLASSIFIED);
                 try { p.setOutlier(isOutlier); } catch (Exception e) { logger.error("Error setting final outlier status for {}", p.getName(), e); }
                 if (isOutlier) noiseCount++; else assignedCount++;
             }
@@ -75,28 +88,30 @@ public class MyDBSCAN {
     }
 
     /** Expands a cluster, checking for interruption. */
-    private void expandCluster(CalculatedDataPoint corePoint, List<CalculatedDataPoint> initialNeighbors, int clusterId)
-            throws InterruptedException {
-        pointStatus.put(corePoint, clusterId);
-        Queue<CalculatedDataPoint> seedQueue = new LinkedList<>(initialNeighbors);
-        Set<CalculatedDataPoint> queuedNeighbors = new HashSet<>(initialNeighbors);
+    private void expandCluster(int corePoint, int[] initialNeighbors, int clusterId) throws InterruptedException {
+        pointStatus[corePoint] = clusterId;
+        IntQueue seedQueue = new IntQueue(initialNeighbors.length);
+        for (int neighbor : initialNeighbors) {
+            queuedFor[neighbor] = clusterId;
+            seedQueue.offer(neighbor);
+        }
 
         while (!seedQueue.isEmpty()) {
             if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled during cluster expansion.");
-            CalculatedDataPoint currentNeighbor = seedQueue.poll();
-            Integer neighborStatus = pointStatus.get(currentNeighbor);
+            int currentNeighbor = seedQueue.poll();
+            int neighborStatus = pointStatus[currentNeighbor];
 
-            if (neighborStatus == null || neighborStatus == UNCLASSIFIED || neighborStatus == NOISE) {
-                pointStatus.put(currentNeighbor, clusterId);
-                if (neighborStatus == null || neighborStatus == UNCLASSIFIED) {
+            if (neighborStatus == UNCLASSIFIED || neighborStatus == NOISE) {
+                pointStatus[currentNeighbor] = clusterId;
+                if (neighborStatus == UNCLASSIFIED) {
                      if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled before neighbor query.");
-                    List<CalculatedDataPoint> currentNeighborNeighbors = regionQuery(currentNeighbor);
-                    if (currentNeighborNeighbors.size() >= minPts) {
-                        for (CalculatedDataPoint nn : currentNeighborNeighbors) {
+                    int[] currentNeighborNeighbors = regionQuery(currentNeighbor);
+                    if (currentNeighborNeighbors.length >= minPts) {
+                        for (int nn : currentNeighborNeighbors) {
                             if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled during neighbor processing.");
-                            if (nn == null) continue;
-                            Integer nnStatus = pointStatus.get(nn);
-                            if ((nnStatus == null || nnStatus == UNCLASSIFIED || nnStatus == NOISE) && queuedNeighbors.add(nn)) {
+                            int nnStatus = pointStatus[nn];
+                            if ((nnStatus == UNCLASSIFIED || nnStatus == NOISE) && queuedFor[nn] != clusterId) {
+                                queuedFor[nn] = clusterId;
                                 seedQueue.offer(nn);
                             }
                         }
@@ -106,23 +121,40 @@ public class MyDBSCAN {
         }
     }
 
-    /** Finds neighbors (O(n)). No internal interruption check for performance. */
-    private List<CalculatedDataPoint> regionQuery(CalculatedDataPoint centerPoint) {
-        List<CalculatedDataPoint> neighbors = new ArrayList<>();
-        if (centerPoint == null) { logger.warn("regionQuery called with null centerPoint!"); return neighbors; }
-        for (CalculatedDataPoint potentialNeighbor : points) {
-            if (potentialNeighbor == null) continue;
+    /** Finds the positions of the neighbors (O(n)). No internal interruption check for performance. */
+    private int[] regionQuery(int centerPoint) {
+        int[] neighbors = new int[16];
+        int count = 0;
+        for (int j = 0; j < byPosition.length; j++) {
+            if (byPosition[j] == null) continue;
             try {
-                double dist = distanceFunction.apply(centerPoint, potentialNeighbor);
+                double dist = distance.distance(centerPoint, j);
                 if (!Double.isNaN(dist) && !Double.isInfinite(dist) && dist <= epsilon) {
-                    neighbors.add(potentialNeighbor);
+                    if (count == neighbors.length) neighbors = Arrays.copyOf(neighbors, count * 2);
+                    neighbors[count++] = j;
                 }
             } catch (Exception e) {
                 logger.error("Error calculating distance between '{}' and '{}'. Skipping neighbor.",
-                             centerPoint.getName() != null ? centerPoint.getName() : "<?>",
-                             potentialNeighbor.getName() != null ? potentialNeighbor.getName() : "<?>", e);
+                             byPosition[centerPoint].getName(), byPosition[j].getName(), e);
             }
         }
-        return neighbors;
+        return Arrays.copyOf(neighbors, count);
+    }
+
+    /** FIFO of positions (each position is queued at most once per cluster). */
+    private static final class IntQueue {
+        private int[] items;
+        private int head, tail;
+
+        IntQueue(int capacity) { items = new int[Math.max(16, capacity)]; }
+
+        void offer(int value) {
+            if (tail == items.length) items = Arrays.copyOf(items, items.length * 2);
+            items[tail++] = value;
+        }
+
+        int poll() { return items[head++]; }
+
+        boolean isEmpty() { return head == tail; }
     }
 }
\ No newline at end of file
@@ -17,29 +17,41 @@ public class MyOPTICS {
     public static final int NOISE = -1;
 
     private final List<CalculatedDataPoint> points;
+    private final CalculatedDataPoint[] byPosition; // Points by position; the algorithm works on positions
     private final double epsilon;
     private final int minPts;
-    private final BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunction;
+    private final IndexedDistance distance;
 
-    private final Map<CalculatedDataPoint, Double> coreDistance;
-    private final Map<CalculatedDataPoint, Double> reachabilityDistance;
-    private final Set<CalculatedDataPoint> processed;
-    private final List<CalculatedDataPoint> orderedList;
+    private final double[] coreDistance;         // NaN until the position is processed
+    private final double[] reachabilityDistance;
+    private final boolean[] processed;
+    private final int[] order;                   // Positions in cluster order
+    private int orderSize;
     private int currentClusterId;
 
     public MyOPTICS(List<CalculatedDataPoint> points, double epsilon, int minPts,
                     BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunction) {
+        this(points, epsilon, minPts, IndexedDistance.of(Objects.requireNonNull(points), Objects.requireNonNull(distanceFunction)));
+    }
+
+    /**
+     * @param distance Distance between two positions of the point list.
+     */
+    public MyOPTICS(List<CalculatedDataPoint> points, double epsilon, int minPts, IndexedDistance distance) {
         this.points = Objects.requireNonNull(points);
         if (epsilon <= 0) throw new IllegalArgumentException("Epsilon must be positive.");
         if (minPts <= 0) throw new IllegalArgumentException("MinPts must be positive.");
         this.epsilon = epsilon;
         this.minPts = minPts;
-        this.distanceFunction = Objects.requireNonNull(distanceFunction);
-        int initialCapacity = points.size();
-        this.coreDistance = new HashMap<>(initialCapacity);
-        this.reachabilityDistance = new HashMap<>(initialCapacity);
-        this.processed = new HashSet<>(initialCapacity);
-        this.orderedList = new ArrayList<>(initialCapacity);
+        this.distance = Objects.requireNonNull(distance);
+        this.byPosition = points.toArray(new CalculatedDataPoint[0]);
+        int n = byPosition.length;
+        this.coreDistance = new double[n];
+        this.reachabilityDistance = new double[n];
+        this.processed = new boolean[n];
+        this.order = new int[n];
+        Arrays.fill(coreDistance, Double.NaN);
+        Arrays.fill(reachabilityDistance, UNDEFINED);
     }
 
     /** Executes OPTICS, checking for thread interruption. */
@@ -47,55 +59,54 @@ public class MyOPTICS {
         if (points.isEmpty()) { logger.info("MyOPTICS skipped: No points."); return; }
         logger.debug("Starting MyOPTICS: eps={}, minPts={}, points={}", epsilon, minPts, points.size());
 
-        for (CalculatedDataPoint p : points) {
+        for (CalculatedDataPoint p : byPosition) {
              if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS cancelled during init.");
             if (p != null) {
-                reachabilityDistance.put(p, UNDEFINED);
                 try { p.setClusterGroup(NOISE); } catch (Exception e) { logger.error("Error setting cluster group for {}", p.getName(), e); }
             }
         }
         currentClusterId = -1;
 
-        for (CalculatedDataPoint point : points) {
+        for (int i = 0; i < byPosition.length; i++) {
              if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS cancelled during main loop.");
-            if (point != null && !processed.contains(point)) {
+            if (byPosition[i] != null && !processed[i]) {
                  if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS cancelled before order expansion.");
-                expandClusterOrder(point); // throws InterruptedException
+                expandClusterOrder(i); // throws InterruptedException
             }
         }
 
         int noiseCount = 0; int assignedCount = 0; int numClusters = currentClusterId + 1;
-        for(CalculatedDataPoint p : orderedList) { if (p != null) { if(p.getClusterGroup() == NOISE) noiseCount++; else assignedCount++; } }
+        for (int k = 0; k < orderSize; k++) { if (byPosition[order[k]].getClusterGroup() == NOISE) noiseCount++; else assignedCount++; }
         logger.debug("MyOPTICS finished. Order size {}. Assigned {} to {} clusters (IDs 0-{}). {} noise points.",
-                     orderedList.size(), assignedCount, numClusters, currentClusterId, noiseCount);
+                     orderSize, assignedCount, numClusters, currentClusterId, noiseCount);
     }
 
     /** Expands cluster order, checking for interruption. */
-    private void expandClusterOrder(CalculatedDataPoint startPoint) throws InterruptedException {
-        logger.trace("Expanding order from: {}", startPoint.getName());
+    private void expandClusterOrder(int startPoint) throws InterruptedException {
+        logger.trace("Expanding order from: {}", byPosition[startPoint].getName());
         if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS expansion cancelled at start.");
 
-        List<CalculatedDataPoint> neighbors = regionQuery(startPoint);
-        processed.add(startPoint); orderedList.add(startPoint);
+        int[] neighbors = regionQuery(startPoint);
+        processed[startPoint] = true; order[orderSize++] = startPoint;
         double startCoreDist = calculateCoreDistance(startPoint, neighbors);
-        coreDistance.put(startPoint, startCoreDist);
+        coreDistance[startPoint] = startCoreDist;
         assignSimpleClusterId(startPoint, UNDEFINED);
 
         if (startCoreDist != UNDEFINED) {
-            PriorityQueue<CalculatedDataPoint> seeds = new PriorityQueue<>(Comparator.comparingDouble(p -> reachabilityDistance.getOrDefault(p, UNDEFINED)));
+            PriorityQueue<Integer> seeds = new PriorityQueue<>((a, b) -> Double.compare(reachabilityDistance[a], reachabilityDistance[b]));
             updateSeeds(seeds, startPoint, neighbors); // Fast
 
             while (!seeds.isEmpty()) {
                  if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS expansion cancelled in loop.");
-                CalculatedDataPoint currentPoint = seeds.poll();
-                if (processed.contains(currentPoint)) continue;
+                int currentPoint = seeds.poll();
+                if (processed[currentPoint]) continue;
 
                 if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS expansion cancelled before query.");
-                List<CalculatedDataPoint> currentNeighbors = regionQuery(currentPoint);
-                processed.add(currentPoint); orderedList.add(currentPoint);
-                assignSimpleClusterId(currentPoint, reachabilityDistance.getOrDefault(currentPoint, UNDEFINED));
+                int[] currentNeighbors = regionQuery(currentPoint);
+                processed[currentPoint] = true; order[orderSize++] = currentPoint;
+                assignSimpleClusterId(currentPoint, reachabilityDistance[currentPoint]);
                 double currentCoreDist = calculateCoreDistance(currentPoint, currentNeighbors);
-                coreDistance.put(currentPoint, currentCoreDist);
+                coreDistance[currentPoint] = currentCoreDist;
 
                 if (currentCoreDist != UNDEFINED) {
                      if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS expansion cancelled before update.");
@@ -103,21 +114,20 @@ public class MyOPTICS {
                 }
             }
         } else {
-            logger.trace("Start point {} is NOT core.", startPoint.getName());
+            logger.trace("Start point {} is NOT core.", byPosition[startPoint].getName());
         }
     }
 
     /** Updates seeds. Fast per call. */
-    private void updateSeeds(PriorityQueue<CalculatedDataPoint> seeds, CalculatedDataPoint corePoint, List<CalculatedDataPoint> neighbors) {
-        double coreDist = coreDistance.get(corePoint);
-        for (CalculatedDataPoint neighbor : neighbors) {
-            if (neighbor == null || processed.contains(neighbor)) continue;
-            double dist = distanceFunction.apply(corePoint, neighbor);
-            if (Double.isNaN(dist) || Double.isInfinite(dist)) { logger.warn("Invalid distance between {} and {}. Skipping update.", corePoint.getName(), neighbor.getName()); continue; }
+    private void updateSeeds(PriorityQueue<Integer> seeds, int corePoint, int[] neighbors) {
+        double coreDist = coreDistance[corePoint];
+        for (int neighbor : neighbors) {
+            if (processed[neighbor]) continue;
+            double dist = distance.distance(corePoint, neighbor);
+            if (Double.isNaN(dist) || Double.isInfinite(dist)) { logger.warn("Invalid distance between {} and {}. Skipping update.", byPosition[corePoint].getName(), byPosition[neighbor].getName()); continue; }
             double newReachability = Math.max(coreDist, dist);
-            double currentReachability = reachabilityDistance.getOrDefault(neighbor, UNDEFINED);
-            if (newReachability < currentReachability) {
-                reachabilityDistance.put(neighbor, newReachability);
+            if (newReachability < reachabilityDistance[neighbor]) {
+                reachabilityDistance[neighbor] = newReachability;
                 seeds.remove(neighbor); // O(n)
                 seeds.offer(neighbor);  // O(log n)
             }
@@ -125,16 +135,13 @@ public class MyOPTICS {
     }
 
     /** Assigns simple cluster ID. Fast. */
-     private void assignSimpleClusterId(CalculatedDataPoint point, double reachability) {
-         if (point == null) return;
+     private void assignSimpleClusterId(int position, double reachability) {
+         CalculatedDataPoint point = byPosition[position];
          boolean previousWasNoiseOrUndefined = true;
-         int lastIndex = orderedList.size() - 2;
+         int lastIndex = orderSize - 2;
          if (lastIndex >= 0) {
-              CalculatedDataPoint prevPoint = orderedList.get(lastIndex);
-              if (prevPoint != null) {
-                  double prevReach = reachabilityDistance.getOrDefault(prevPoint, UNDEFINED);
-                  previousWasNoiseOrUndefined = (prevReach >= epsilon || prevReach == UNDEFINED);
-              }
+              double prevReach = reachabilityDistance[order[lastIndex]];
+              previousWasNoiseOrUndefined = (prevReach >= epsilon || prevReach == UNDEFINED);
          }
          if (reachability < epsilon && reachability != UNDEFINED) {
              if (previousWasNoiseOrUndefined) {
@@ -151,43 +158,57 @@ public class MyOPTICS {
      }
 
     /** Calculates core distance. Fast per call. */
-    private double calculateCoreDistance(CalculatedDataPoint point, List<CalculatedDataPoint> neighbors) {
-        if (neighbors == null || neighbors.size() < minPts) return UNDEFINED;
-        List<Double> distances = new ArrayList<>(neighbors.size());
-        for (CalculatedDataPoint neighbor : neighbors) {
-            if (neighbor != null && !point.equals(neighbor)) {
+    private double calculateCoreDistance(int point, int[] neighbors) {
+        if (neighbors.length < minPts) return UNDEFINED;
+        double[] distances = new double[neighbors.length];
+        int count = 0;
+        for (int neighbor : neighbors) {
+            if (neighbor != point) {
                  try {
-                    double dist = distanceFunction.apply(point, neighbor);
-                    if (!Double.isNaN(dist) && !Double.isInfinite(dist)) distances.add(dist);
-                 } catch (Exception e) { logger.warn("Error calc distance for core dist {}<->{}: {}", point.getName(), neighbor.getName(), e.getMessage()); }
+                    double dist = distance.distance(point, neighbor);
+                    if (!Double.isNaN(dist) && !Double.isInfinite(dist)) distances[count++] = dist;
+                 } catch (Exception e) { logger.warn("Error calc distance for core dist {}<->{}: {}", byPosition[point].getName(), byPosition[neighbor].getName(), e.getMessage()); }
             }
         }
-        if (distances.size() < minPts - 1) return UNDEFINED;
-        Collections.sort(distances);
+        if (count < minPts - 1) return UNDEFINED;
+        Arrays.sort(distances, 0, count);
         // The (minPts-1)-th neighbor's distance is at index (minPts-1)-1 = minPts-2
-        double coreDist = distances.get(minPts - 2);
+        double coreDist = distances[minPts - 2];
         return (coreDist <= epsilon) ? coreDist : UNDEFINED; // Core distance only defined if <= epsilon
     }
 
-    /** Finds neighbors (O(n)). No internal interruption check. */
-    private List<CalculatedDataPoint> regionQuery(CalculatedDataPoint centerPoint) {
-        List<CalculatedDataPoint> neighbors = new ArrayList<>();
-        if (centerPoint == null) { logger.warn("regionQuery called with null!"); return neighbors; }
-        for (CalculatedDataPoint potentialNeighbor : points) {
-            if (potentialNeighbor != null) {
+    /** Finds the positions of the neighbors (O(n)). No internal interruption check. */
+    private int[] regionQuery(int centerPoint) {
+        int[] neighbors = new int[16];
+        int count = 0;
+        for (int j = 0; j < byPosition.length; j++) {
+            if (byPosition[j] != null) {
                 try {
-                    double dist = distanceFunction.apply(centerPoint, potentialNeighbor);
+                    double dist = distance.distance(centerPoint, j);
                     if (!Double.isNaN(dist) && !Double.isInfinite(dist) && dist <= epsilon) {
-                        neighbors.add(potentialNeighbor);
+                        if (count == neighbors.length) neighbors = Arrays.copyOf(neighbors, count * 2);
+                        neighbors[count++] = j;
                     }
-                } catch (Exception e) { logger.error("Error calc distance in regionQuery {}<->{}: {}", centerPoint.getName(), potentialNeighbor.getName(), e.getMessage());}
+                } catch (Exception e) { logger.error("Error calc distance in regionQuery {}<->{}: {}", byPosition[centerPoint].getName(), byPosition[j].getName(), e.getMessage());}
             }
         }
-        return neighbors;
+        return Arrays.copyOf(neighbors, count);
     }
 
     // --- Getters ---
-    public List<CalculatedDataPoint> getOrderedList() { return Collections.unmodifiableList(orderedList); }
-    public Map<CalculatedDataPoint, Double> getReachabilityDistances() { return Collections.unmodifiableMap(reachabilityDistance); }
-    public Map<CalculatedDataPoint, Double> getCoreDistances() { return Collections.unmodifiableMap(coreDistance); }
+    public List<CalculatedDataPoint> getOrderedList() {
+        List<CalculatedDataPoint> ordered = new ArrayList<>(orderSize);
+        for (int k = 0; k < orderSize; k++) ordered.add(byPosition[order[k]]);
+        return Collections.unmodifiableList(ordered);
+    }
+    public Map<CalculatedDataPoint, Double> getReachabilityDistances() {
+        Map<CalculatedDataPoint, Double> map = new HashMap<>(byPosition.length * 2);
+        for (int i = 0; i < byPosition.length; i++) { if (byPosition[i] != null) map.put(byPosition[i], reachabilityDistance[i]); }
+        return Collections.unmodifiableMap(map);
+    }
+    public Map<CalculatedDataPoint, Double> getCoreDistances() {
+        Map<CalculatedDataPoint, Double> map = new HashMap<>(byPosition.length * 2);
+        for (int k = 0; k < orderSize; k++) map.put(byPosition[order[k]], coreDistance[order[k]]);
+        return Collections.unmodifiableMap(map);
+    }
 }
\ No newline at end of file
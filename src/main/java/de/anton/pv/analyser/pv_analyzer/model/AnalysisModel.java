@@ -1,17 +1,17 @@
 package de.anton.pv.analyser.pv_analyzer.model;
 
+import de.anton.pv.analyser.pv_analyzer.algorithms.IndexedDistance;
 import de.anton.pv.analyser.pv_analyzer.algorithms.MyOPTICS;
+import de.anton.pv.analyser.pv_analyzer.service.AnalysisConfiguration;
 import de.anton.pv.analyser.pv_analyzer.service.AnalysisService; // Import für AnalysisResult
+import de.anton.pv.analyser.pv_analyzer.service.SweepResult;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.io.File;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -21,15 +21,17 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The core analysis model holding application data and logic.
- * Supports two analysis modes: single timestamp or finding the maximum
- * scaled vector (Power/Voltage) within a time interval.
+ * Supports four analysis modes: single timestamp, finding the maximum
+ * scaled vector (Power/Voltage) within a time interval, that maximum for
+ * every window of a given width sliding over the interval, or a sweep that
+ * analyses every timestamp of the interval on its own.
  * Runs OPTICS for clustering and DBSCAN (per orientation) for outlier detection.
  * Calculates performance labels based on median specific power.
  */
 public class AnalysisModel {
     private static final Logger logger = LoggerFactory.getLogger(AnalysisModel.class);
 
-    public enum AnalysisMode { SINGLE_TIMESTAMP, MAX_VECTOR_INTERVAL }
+    public enum AnalysisMode { SINGLE_TIMESTAMP, MAX_VECTOR_INTERVAL, ROLLING_WINDOW, DAY_SWEEP }
 
     public static final String VAR_DC_LEISTUNG = "DC-Leistung (kW)";
     public static final String VAR_SPEZ_LEISTUNG = "Spez. Leistung (kW/kWp)";
@@ -39,8 +41,6 @@ public class AnalysisModel {
     public static final List<String> AVAILABLE_VARIABLES = Collections.unmodifiableList(Arrays.asList( VAR_SPEZ_LEISTUNG, VAR_DC_SPANNUNG, VAR_DC_LEISTUNG, VAR_STROM_STRING, VAR_OHM ));
     private static final Map<String, Function<CalculatedDataPoint, Double>> variableExtractors = new HashMap<>();
     static { variableExtractors.put(VAR_DC_LEISTUNG, CalculatedDataPoint::getDcLeistungKW); variableExtractors.put(VAR_SPEZ_LEISTUNG, CalculatedDataPoint::getSpezifischeLeistung); variableExtractors.put(VAR_DC_SPANNUNG, CalculatedDataPoint::getDcSpannungV); variableExtractors.put(VAR_STROM_STRING, CalculatedDataPoint::getStromJeStringA); variableExtractors.put(VAR_OHM, CalculatedDataPoint::getOhm); }
-    private static final SimpleDateFormat DATE_FORMAT_PARSER = new SimpleDateFormat("dd.MM.yyyy HH:mm");
-    static { DATE_FORMAT_PARSER.setLenient(false); }
     // Data Storage
     private ExcelData excelData = null;
     private File lastLoadedFile = null;
@@ -52,6 +52,7 @@ public class AnalysisModel {
     private String selectedTimestamp = null;
     private String intervalStartTimestamp = null;
     private String intervalEndTimestamp = null;
+    private int windowMinutes = AnalysisConfiguration.DEFAULT_WINDOW_MINUTES; // ROLLING_WINDOW only
     private double opticsEpsilon = 10.0; private int opticsMinPts = 5; private ScalingType opticsScalingType = ScalingType.NONE;
     private double dbscanEpsilon = 0.05; private int dbscanMinPts = 3; private ScalingType dbscanScalingType = ScalingType.MIN_MAX;
     private String selectedXVariable = VAR_SPEZ_LEISTUNG; private String selectedYVariable = VAR_SPEZ_LEISTUNG;
@@ -61,6 +62,8 @@ public class AnalysisModel {
     // Results
     private int numberOfClustersFound = 0;
     private boolean outliersWereDetected = false; // Status before potential 50% reset
+    private List<AnalysisService.WindowResult> windowResults = Collections.emptyList(); // ROLLING_WINDOW only
+    private SweepResult sweepResult = null; // DAY_SWEEP only
 
     private final PropertyChangeSupport support = new PropertyChangeSupport(this);
 
@@ -79,6 +82,16 @@ public class AnalysisModel {
         support.firePropertyChange("excelData", oldData, this.excelData); // Notify listeners
     }
 
+    /**
+     * Notifies listeners that rows were appended to the current data in place (tail ingestion).
+     * Selections and analysis results are kept; the new value of the event is {firstRow, rowCount}.
+     */
+    public void notifyDataAppended(int firstRow, int rowCount) {
+        if (excelData == null || rowCount <= 0) return;
+        logger.info("Model: {} rows appended to the current data (now {} rows).", rowCount, excelData.getRowCount());
+        support.firePropertyChange("excelDataAppended", null, new int[]{firstRow, rowCount});
+    }
+
     /** Updates model state based on results from AnalysisService. */
     public void updateAnalysisResults(AnalysisService.AnalysisResult result) {
         // Store old values before updating
@@ -92,6 +105,8 @@ public class AnalysisModel {
             this.processedDataByOrientation = result.dataByOrientation;
             this.numberOfClustersFound = result.numberOfClusters;
             this.outliersWereDetected = result.outliersFound;
+            this.windowResults = result.windows;
+            this.sweepResult = result.sweep;
             logger.debug("Model updated with AnalysisResult: {} points, {} orientations, {} clusters, outliers detected: {}",
                          currentAnalysisDataPoints.size(), processedDataByOrientation.size(), numberOfClustersFound, outliersWereDetected);
         } else {
@@ -122,7 +137,7 @@ public class AnalysisModel {
     }
     
     
-    public boolean isDataLoaded() { return excelData != null && !getTimestamps().isEmpty(); }
+    public boolean isDataLoaded() { return excelData != null && excelData.getRowCount() > 0; }
     public boolean hasModuleInfo() { return excelData != null && excelData.hasModuleInfo(); }
     public ModuleInfo getModuleInfo() { return excelData != null ? excelData.getModuleInfo() : null; }
     public AnalysisMode getCurrentMode() { return currentMode; }
@@ -139,13 +154,19 @@ public class AnalysisModel {
     public List<String> getAvailableVariables() { return AVAILABLE_VARIABLES; } public String getSelectedXVariable() { return selectedXVariable; } public String getSelectedYVariable() { return selectedYVariable; }
     public Function<CalculatedDataPoint, Double> getXExtractor() { return xExtractor; } public Function<CalculatedDataPoint, Double> getYExtractor() { return yExtractor; }
     public int getNumberOfClusters() { return numberOfClustersFound; }
+    public int getWindowMinutes() { return windowMinutes; }
+    /** @return The per-window results of the last rolling-window analysis (empty in the other modes). */
+    public List<AnalysisService.WindowResult> getWindowResults() { return windowResults; }
+    /** @return The tracker x timestamp matrices of the last day sweep, or null in the other modes. */
+    public SweepResult getSweepResult() { return sweepResult; }
     public boolean isAnalysisDataAvailable() { boolean configOk = isAnalysisConfigured(); return isDataLoaded() && configOk && !currentAnalysisDataPoints.isEmpty(); }
     public File getLastLoadedFile() { return lastLoadedFile; }
 
     // --- Setters (Update internal state, trigger events, maybe analysis via Controller) ---
     public void setAnalysisMode(AnalysisMode mode) { if (mode == null) mode = AnalysisMode.SINGLE_TIMESTAMP; if (this.currentMode != mode) { AnalysisMode oldMode = this.currentMode; this.currentMode = mode; logger.info("Model: Analysis mode set to {}", mode); clearAnalysisResultsInternal(); support.firePropertyChange("analysisMode", oldMode, mode); } }
     public void setSelectedTimestamp(String timestamp) { String oldTimestamp = this.selectedTimestamp; boolean changed = !Objects.equals(oldTimestamp, timestamp); if (changed) { this.selectedTimestamp = timestamp; logger.info("Model: Selected timestamp set to '{}'", timestamp); clearAnalysisResultsInternal(); support.firePropertyChange("selectedTimestamp", oldTimestamp, this.selectedTimestamp); } }
-    public void setIntervalTimestamps(String start, String end) throws IllegalArgumentException { List<String> availableTimestamps = getTimestamps(); if (start == null || end == null || !availableTimestamps.contains(start) || !availableTimestamps.contains(end)) { throw new IllegalArgumentException("Start- oder End-Zeitstempel ungültig oder nicht in Liste vorhanden."); } Date startDate = parseTimestamp(start); Date endDate = parseTimestamp(end); if (startDate == null || endDate == null || startDate.after(endDate)) { throw new IllegalArgumentException("Start-Zeitstempel muss vor oder gleich dem End-Zeitstempel liegen."); } String oldStart = this.intervalStartTimestamp; String oldEnd = this.intervalEndTimestamp; boolean changed = !Objects.equals(oldStart, start) || !Objects.equals(oldEnd, end); if (changed) { this.intervalStartTimestamp = start; this.intervalEndTimestamp = end; logger.info("Model: Interval set to: {} -> {}", start, end); clearAnalysisResultsInternal(); support.firePropertyChange("intervalTimestamps", new String[]{oldStart, oldEnd}, new String[]{start, end}); } }
+    public void setIntervalTimestamps(String start, String end) throws IllegalArgumentException { if (!containsTimestamp(start) || !containsTimestamp(end)) { throw new IllegalArgumentException("Start- oder End-Zeitstempel ungültig oder nicht in Liste vorhanden."); } if (!isOrdered(start, end)) { throw new IllegalArgumentException("Start-Zeitstempel muss vor oder gleich dem End-Zeitstempel liegen."); } String oldStart = this.intervalStartTimestamp; String oldEnd = this.intervalEndTimestamp; boolean changed = !Objects.equals(oldStart, start) || !Objects.equals(oldEnd, end); if (changed) { this.intervalStartTimestamp = start; this.intervalEndTimestamp = end; logger.info("Model: Interval set to: {} -> {}", start, end); clearAnalysisResultsInternal(); support.firePropertyChange("intervalTimestamps", new String[]{oldStart, oldEnd}, new String[]{start, end}); } }
+    public void setWindowMinutes(int minutes) throws IllegalArgumentException { if (minutes <= 0) throw new IllegalArgumentException("Window width must be positive."); if (this.windowMinutes != minutes) { int oldMinutes = this.windowMinutes; this.windowMinutes = minutes; logger.info("Model: Rolling window width set to {} min", minutes); if (currentMode == AnalysisMode.ROLLING_WINDOW) clearAnalysisResultsInternal(); support.firePropertyChange("windowMinutes", oldMinutes, minutes); } }
     public void setOpticsParameters(double epsilon, int minPts) throws IllegalArgumentException { if (epsilon <= 0 || minPts <= 0) throw new IllegalArgumentException("Params must be positive."); boolean changed = Math.abs(this.opticsEpsilon - epsilon) > 1e-9 || this.opticsMinPts != minPts; if (changed) { double oldEpsilon = this.opticsEpsilon; int oldMinPts = this.opticsMinPts; logger.info("Model: OPTICS params set: eps={}, minPts={}", epsilon, minPts); this.opticsEpsilon = epsilon; this.opticsMinPts = minPts; support.firePropertyChange("opticsParameters", new double[]{oldEpsilon, oldMinPts}, new double[]{epsilon, minPts}); } }
     public void setDbscanParameters(double epsilon, int minPts) throws IllegalArgumentException { if (epsilon <= 0 || minPts <= 0) throw new IllegalArgumentException("Params must be positive."); boolean changed = Math.abs(this.dbscanEpsilon - epsilon) > 1e-9 || this.dbscanMinPts != minPts; if (changed) { double oldEpsilon = this.dbscanEpsilon; int oldMinPts = this.dbscanMinPts; logger.info("Model: DBSCAN params set: eps={}, minPts={}", epsilon, minPts); this.dbscanEpsilon = epsilon; this.dbscanMinPts = minPts; support.firePropertyChange("dbscanParameters", new double[]{oldEpsilon, oldMinPts}, new double[]{epsilon, minPts}); } }
     public void setOpticsScalingType(ScalingType type) { ScalingType newType = (type == null) ? ScalingType.NONE : type; if (this.opticsScalingType != newType) { ScalingType oldType = this.opticsScalingType; this.opticsScalingType = newType; logger.info("Model: OPTICS scaling set: {}", newType); support.firePropertyChange("opticsScalingType", oldType, newType); } }
@@ -159,7 +180,7 @@ public class AnalysisModel {
     public void setSelectedYVariableDirect(String variableName) { if (variableName != null && AVAILABLE_VARIABLES.contains(variableName)) { this.selectedYVariable = variableName; this.yExtractor = variableExtractors.get(variableName); } }
 
     /** Helper to check if analysis can run based on current mode and configuration. */
-    public boolean isAnalysisConfigured() { if (!isDataLoaded()) return false; if (currentMode == AnalysisMode.SINGLE_TIMESTAMP) { return selectedTimestamp != null && getTimestamps().contains(selectedTimestamp); } else { if (intervalStartTimestamp == null || intervalEndTimestamp == null || !getTimestamps().contains(intervalStartTimestamp) || !getTimestamps().contains(intervalEndTimestamp)) { return false; } Date startDate = parseTimestamp(intervalStartTimestamp); Date endDate = parseTimestamp(intervalEndTimestamp); return startDate != null && endDate != null && !startDate.after(endDate); } }
+    public boolean isAnalysisConfigured() { if (!isDataLoaded()) return false; if (currentMode == AnalysisMode.SINGLE_TIMESTAMP) { return containsTimestamp(selectedTimestamp); } else { return containsTimestamp(intervalStartTimestamp) && containsTimestamp(intervalEndTimestamp) && isOrdered(intervalStartTimestamp, intervalEndTimestamp); } }
 
     // --- k-Distance Calculation ---
     // Moved to AnalysisService or ParameterEstimationUtils? Keep it here needs createDistanceFunction.
@@ -168,12 +189,12 @@ public class AnalysisModel {
         if (k <= 0) { throw new IllegalArgumentException("k must be positive for k-distance calculation."); }
         logger.info("[{}] Calculating {}-distance graph for {} points, Scaling: {}", algorithmName, k, pointsToAnalyze.size(), scalingType);
         // Use CURRENT extractors from the model for k-dist calculation
-        BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunc;
+        IndexedDistance distanceFunc;
         try { distanceFunc = createDistanceFunction(pointsToAnalyze, scalingType, this.xExtractor, this.yExtractor, algorithmName + " k-Dist Setup"); }
         catch (Exception e) { logger.error("[{}] Failed to create distance function for k-distance.", algorithmName, e); return Collections.emptyList(); } // Return empty on error
 
         List<Double> kDistances = new ArrayList<>(pointsToAnalyze.size()); long startTime = System.nanoTime(); boolean useParallel = pointsToAnalyze.size() > 500; IntStream pointIndices = IntStream.range(0, pointsToAnalyze.size()); if (useParallel) { pointIndices = pointIndices.parallel(); }
-        List<Double> unsortedKDistances; try { unsortedKDistances = pointIndices .mapToObj(i -> { if (Thread.currentThread().isInterrupted()) { throw new RuntimeException(new InterruptedException("k-distance calculation interrupted."));} CalculatedDataPoint p1 = pointsToAnalyze.get(i); if (p1 == null) return null; List<Double> distancesToOthers = new ArrayList<>(pointsToAnalyze.size() - 1); for (int j = 0; j < pointsToAnalyze.size(); j++) { if (i == j) continue; CalculatedDataPoint p2 = pointsToAnalyze.get(j); if (p2 == null) continue; try { double dist = distanceFunc.apply(p1, p2); if (!Double.isNaN(dist) && !Double.isInfinite(dist)) distancesToOthers.add(dist); } catch (Exception e) { logger.warn("[{}] Error calculating distance between point {} and {} for k-dist: {}", algorithmName, i, j, e.getMessage()); } } if (distancesToOthers.size() >= k) { Collections.sort(distancesToOthers); return distancesToOthers.get(k - 1); } else { return null; } }) .filter(Objects::nonNull).collect(Collectors.toList()); } catch (RuntimeException e) { if (e.getCause() instanceof InterruptedException) { throw (InterruptedException) e.getCause(); } else { throw e; } }
+        List<Double> unsortedKDistances; try { unsortedKDistances = pointIndices .mapToObj(i -> { if (Thread.currentThread().isInterrupted()) { throw new RuntimeException(new InterruptedException("k-distance calculation interrupted."));} CalculatedDataPoint p1 = pointsToAnalyze.get(i); if (p1 == null) return null; List<Double> distancesToOthers = new ArrayList<>(pointsToAnalyze.size() - 1); for (int j = 0; j < pointsToAnalyze.size(); j++) { if (i == j) continue; CalculatedDataPoint p2 = pointsToAnalyze.get(j); if (p2 == null) continue; try { double dist = distanceFunc.distance(i, j); if (!Double.isNaN(dist) && !Double.isInfinite(dist)) distancesToOthers.add(dist); } catch (Exception e) { logger.warn("[{}] Error calculating distance between point {} and {} for k-dist: {}", algorithmName, i, j, e.getMessage()); } } if (distancesToOthers.size() >= k) { Collections.sort(distancesToOthers); return distancesToOthers.get(k - 1); } else { return null; } }) .filter(Objects::nonNull).collect(Collectors.toList()); } catch (RuntimeException e) { if (e.getCause() instanceof InterruptedException) { throw (InterruptedException) e.getCause(); } else { throw e; } }
         long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime); logger.debug("[{}] Calculated {} k-distances in {} ms (Parallel={}).", algorithmName, unsortedKDistances.size(), durationMs, useParallel);
         Collections.sort(unsortedKDistances); kDistances.addAll(unsortedKDistances);
         if (Thread.currentThread().isInterrupted()) { throw new InterruptedException("k-distance calculation interrupted after sorting."); }
@@ -181,13 +202,17 @@ public class AnalysisModel {
     }
 
     // --- Helper Methods ---
-    private BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> createDistanceFunction(List<CalculatedDataPoint> points, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractorFunc, Function<CalculatedDataPoint, Double> yExtractorFunc, String algorithmName) {
-         logger.debug("Model [{}]: Creating distance function, Scaling='{}'", algorithmName, scalingType); if (xExtractorFunc == null || yExtractorFunc == null) throw new IllegalStateException("Extractors null"); if (scalingType == ScalingType.NONE) { return (p1, p2) -> { if (p1 == null || p2 == null) return Double.POSITIVE_INFINITY; try { double x1 = xExtractorFunc.apply(p1); double y1 = yExtractorFunc.apply(p1); double x2 = xExtractorFunc.apply(p2); double y2 = yExtractorFunc.apply(p2); if (Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(x2) || Double.isNaN(y2)) return Double.POSITIVE_INFINITY; double dx = x1 - x2; double dy = y1 - y2; return Math.sqrt(dx * dx + dy * dy); } catch (Exception e) { logger.warn("Model [{}] Error extracting data (unscaled): {}", algorithmName, e.getMessage()); return Double.POSITIVE_INFINITY; } }; }
-         logger.debug("Model [{}]: Preparing data for {} scaling.", algorithmName, scalingType); int nPoints = points.size(); if (nPoints == 0) return (p1, p2) -> Double.POSITIVE_INFINITY; double[][] rawData = new double[nPoints][2]; Map<CalculatedDataPoint, Integer> pointToIndex = new HashMap<>(nPoints); for (int i = 0; i < nPoints; i++) { CalculatedDataPoint p = points.get(i); if (p == null) { rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; continue; } try { rawData[i][0] = xExtractorFunc.apply(p); rawData[i][1] = yExtractorFunc.apply(p); pointToIndex.put(p, i); } catch (Exception e) { logger.warn("Model [{}] Error extracting data for scaling prep for {}: {}", algorithmName, p.getName(), e.getMessage()); rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; } }
-         double[][] scaledData; try { scaledData = DataScaler.scaleData(rawData, scalingType); if (scaledData == rawData && scalingType != ScalingType.NONE) { logger.warn("Model [{}]: Scaling type {} no change. Falling back to unscaled.", algorithmName, scalingType); return (p1, p2) -> { if (p1 == null || p2 == null) return Double.POSITIVE_INFINITY; try { double x1 = xExtractorFunc.apply(p1); double y1 = yExtractorFunc.apply(p1); double x2 = xExtractorFunc.apply(p2); double y2 = yExtractorFunc.apply(p2); if (Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(x2) || Double.isNaN(y2)) return Double.POSITIVE_INFINITY; double dx = x1 - x2; double dy = y1 - y2; return Math.sqrt(dx * dx + dy * dy); } catch (Exception e) { return Double.POSITIVE_INFINITY; } }; } logger.debug("Model [{}]: Data scaling ({}) completed.", algorithmName, scalingType); } catch (Exception e) { logger.error("Model [{}]: Error during data scaling ({}).", algorithmName, scalingType, e); throw new RuntimeException("Fehler bei der Datenskalierung (" + scalingType + "): " + e.getMessage(), e); }
-         final double[][] finalScaledData = scaledData; return (p1, p2) -> { if (p1 == null || p2 == null) return Double.POSITIVE_INFINITY; Integer idx1 = pointToIndex.get(p1); Integer idx2 = pointToIndex.get(p2); if (idx1 == null || idx2 == null || idx1 < 0 || idx1 >= finalScaledData.length || idx2 < 0 || idx2 >= finalScaledData.length) { return Double.POSITIVE_INFINITY; } try { double x1 = finalScaledData[idx1][0]; double y1 = finalScaledData[idx1][1]; double x2 = finalScaledData[idx2][0]; double y2 = finalScaledData[idx2][1]; if (Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(x2) || Double.isNaN(y2)) return Double.POSITIVE_INFINITY; double dx = x1 - x2; double dy = y1 - y2; return Math.sqrt(dx * dx + dy * dy); } catch (ArrayIndexOutOfBoundsException e) { logger.error("Model [{}] Array index out of bounds ({},{}) in scaled distance calc.", algorithmName, idx1, idx2, e); return Double.POSITIVE_INFINITY; } };
+    /** Distance over the point positions; coordinates are extracted (and scaled) once. */
+    private IndexedDistance createDistanceFunction(List<CalculatedDataPoint> points, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractorFunc, Function<CalculatedDataPoint, Double> yExtractorFunc, String algorithmName) {
+         logger.debug("Model [{}]: Creating distance function, Scaling='{}'", algorithmName, scalingType); if (xExtractorFunc == null || yExtractorFunc == null) throw new IllegalStateException("Extractors null"); int nPoints = points.size(); double[][] rawData = new double[nPoints][2]; for (int i = 0; i < nPoints; i++) { CalculatedDataPoint p = points.get(i); if (p == null) { rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; continue; } try { rawData[i][0] = xExtractorFunc.apply(p); rawData[i][1] = yExtractorFunc.apply(p); } catch (Exception e) { logger.warn("Model [{}] Error extracting data for {}: {}", algorithmName, p.getName(), e.getMessage()); rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; } }
+         if (scalingType == ScalingType.NONE || nPoints == 0) return IndexedDistance.euclidean(rawData);
+         logger.debug("Model [{}]: Preparing data for {} scaling.", algorithmName, scalingType); double[][] scaledData; try { scaledData = DataScaler.scaleData(rawData, scalingType); if (scaledData == rawData) { logger.warn("Model [{}]: Scaling type {} no change. Falling back to unscaled.", algorithmName, scalingType); } else { logger.debug("Model [{}]: Data scaling ({}) completed.", algorithmName, scalingType); } } catch (Exception e) { logger.error("Model [{}]: Error during data scaling ({}).", algorithmName, scalingType, e); throw new RuntimeException("Fehler bei der Datenskalierung (" + scalingType + "): " + e.getMessage(), e); }
+         return IndexedDistance.euclidean(scaledData);
     }
-    private Date parseTimestamp(String timestampStr) { if (timestampStr == null) return null; try { synchronized (DATE_FORMAT_PARSER) { return DATE_FORMAT_PARSER.parse(timestampStr); } } catch (ParseException e) { logger.warn("Could not parse timestamp string: {}", timestampStr, e); return null; } }
+    /** Indexed lookup on the timestamp axis (hash / binary search instead of a list scan). */
+    private boolean containsTimestamp(String timestamp) { return excelData != null && excelData.getTimestampIndex(timestamp) >= 0; }
+    /** @return true if both timestamps parse and start is not after end. */
+    private boolean isOrdered(String start, String end) { long startMinute = TimestampAxis.parseEpochMinute(start); long endMinute = TimestampAxis.parseEpochMinute(end); return startMinute != TimestampAxis.INVALID && endMinute != TimestampAxis.INVALID && startMinute <= endMinute; }
 
     /** Clears only the results of the last analysis run. */
     private void clearAnalysisResultsInternal() {
@@ -203,6 +228,8 @@ public class AnalysisModel {
         this.currentAnalysisDataPoints = new ArrayList<>();
         this.numberOfClustersFound = 0;
         this.outliersWereDetected = false;
+        this.windowResults = Collections.emptyList();
+        this.sweepResult = null;
 
         if (dataExisted) {
             logger.debug("Cleared analysis results (data points, orientations, cluster count, outlier status).");
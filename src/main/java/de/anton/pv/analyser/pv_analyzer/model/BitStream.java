@@ -0,0 +1,84 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.util.Arrays;
+
+/**
+ * Minimal MSB-first bit stream over a {@code long[]}, used by the compressed column encodings
+ * ({@link XorCompressedColumn}, {@link DeltaOfDeltaMinutes}).
+ */
+final class BitStream {
+
+    private BitStream() {}
+
+    /** Appends bits; {@link #toWords()} returns the trimmed backing array. */
+    static final class Writer {
+        private long[] words = new long[64];
+        private long bitCount = 0;
+
+        /** Writes the lowest {@code count} bits of the value (0..64), most significant first. */
+        void write(long value, int count) {
+            if (count == 0) return;
+            int wordIndex = (int) (bitCount >>> 6);
+            int used = (int) (bitCount & 63);
+            if (wordIndex + 1 >= words.length) words = Arrays.copyOf(words, words.length * 2);
+            long bits = count == 64 ? value : value & ((1L << count) - 1);
+            int free = 64 - used;
+            if (count <= free) {
+                words[wordIndex] |= bits << (free - count);
+            } else {
+                words[wordIndex] |= bits >>> (count - free);
+                words[wordIndex + 1] |= bits << (64 - (count - free));
+            }
+            bitCount += count;
+        }
+
+        void writeBit(boolean bit) {
+            write(bit ? 1 : 0, 1);
+        }
+
+        /** @return Number of bits written so far (position of the next bit). */
+        long position() {
+            return bitCount;
+        }
+
+        long[] toWords() {
+            return Arrays.copyOf(words, (int) ((bitCount + 63) >>> 6));
+        }
+    }
+
+    /** Reads bits from a word array starting at a bit position. */
+    static final class Reader {
+        private final long[] words;
+        private long position;
+
+        Reader(long[] words, long position) {
+            this.words = words;
+            this.position = position;
+        }
+
+        /** Reads {@code count} bits (0..64) as an unsigned value. */
+        long read(int count) {
+            if (count == 0) return 0;
+            int wordIndex = (int) (position >>> 6);
+            int used = (int) (position & 63);
+            int available = 64 - used;
+            long result;
+            if (count <= available) {
+                result = words[wordIndex] << used >>> (64 - count);
+            } else {
+                long high = words[wordIndex] << used >>> used; // Remaining bits of the first word
+                int rest = count - available;
+                result = (high << rest) | (words[wordIndex + 1] >>> (64 - rest));
+            }
+            position += count;
+            return result;
+        }
+
+        boolean readBit() {
+            int wordIndex = (int) (position >>> 6);
+            boolean bit = ((words[wordIndex] >>> (63 - (position & 63))) & 1) != 0;
+            position++;
+            return bit;
+        }
+    }
+}
@@ -11,18 +11,25 @@ import java.util.Objects;
  * with calculated metrics and analysis results (clustering, outliers, performance).
  * Can represent data from a single timestamp or the point with max vector length
  * within an interval (storing the original timestamp).
+ * Points created from a {@link TrackerRegistry} carry the dense tracker ID of their dataset.
+ * Equality and hashing use the (interned) name and the source timestamp only, so points of
+ * different datasets and points without an ID compare as before.
  */
 public class CalculatedDataPoint {
 
     private static final Logger logger = LoggerFactory.getLogger(CalculatedDataPoint.class);
 
     // Input Data
+    private final int trackerId; // -1 if not created from a registry
+    private final int inverterNumber;
+    private final int trackerNumber;
     private final String name;
     private final double dcLeistungKW;
     private final double dcSpannungV;
     private final TrackerInfo trackerInfoRef;
     private final ModuleInfo moduleInfoRef;
     private final String sourceTimestamp;
+    private final int hash;
 
     // Basic Calculated Metrics
     private final double nennleistungKWp;
@@ -45,17 +52,35 @@ public class CalculatedDataPoint {
     private String performanceLabel = ""; // "hoch", "niedrig", "median", oder ""
 
     /**
-     * Constructor for CalculatedDataPoint.
+     * Constructor for a tracker of a dataset; name, tracker info and inverter/tracker number are taken from the registry.
+     */
+    public CalculatedDataPoint(TrackerRegistry registry, int trackerId, double dcLeistungKW, double dcSpannungV,
+                               ModuleInfo moduleInfo, String sourceTimestamp) {
+        this(trackerId, new int[]{registry.getInverterNumber(trackerId), registry.getTrackerNumber(trackerId)}, registry.getName(trackerId),
+             dcLeistungKW, dcSpannungV, registry.getTrackerInfo(trackerId), moduleInfo, sourceTimestamp);
+    }
+
+    /**
+     * Constructor for CalculatedDataPoint (without tracker ID; inverter/tracker number are parsed from the name).
      */
     public CalculatedDataPoint(String name, double dcLeistungKW, double dcSpannungV,
                                TrackerInfo trackerInfo, ModuleInfo moduleInfo, String sourceTimestamp) {
+        this(-1, TrackerRegistry.parseNumbers(name), name, dcLeistungKW, dcSpannungV, trackerInfo, moduleInfo, sourceTimestamp);
+    }
+
+    private CalculatedDataPoint(int trackerId, int[] numbers, String name, double dcLeistungKW, double dcSpannungV,
+                                TrackerInfo trackerInfo, ModuleInfo moduleInfo, String sourceTimestamp) {
 
+        this.trackerId = trackerId;
+        this.inverterNumber = numbers[0];
+        this.trackerNumber = numbers[1];
         this.name = Objects.requireNonNull(name, "Data point name cannot be null");
         this.dcLeistungKW = dcLeistungKW;
         this.dcSpannungV = dcSpannungV;
         this.trackerInfoRef = Objects.requireNonNull(trackerInfo, "TrackerInfo cannot be null for " + name);
         this.moduleInfoRef = moduleInfo;
         this.sourceTimestamp = Objects.requireNonNull(sourceTimestamp, "Source timestamp cannot be null for " + name);
+        this.hash = 31 * name.hashCode() + sourceTimestamp.hashCode(); // Identity is name + timestamp, as in equals()
 
         // Extract from TrackerInfo
         this.nennleistungKWp = trackerInfo.getNennleistungkWp();
@@ -78,6 +103,12 @@ public class CalculatedDataPoint {
     }
 
     // Getters
+    /** @return Dense tracker ID in the {@link TrackerRegistry} of the dataset, or -1. */
+    public int getTrackerId() { return trackerId; }
+    /** @return Inverter number from the tracker name ("TR 1.2" -> 1), or -1 if the name has another form. */
+    public int getInverterNumber() { return inverterNumber; }
+    /** @return Tracker number within the inverter ("TR 1.2" -> 2), or -1 if the name has another form. */
+    public int getTrackerNumber() { return trackerNumber; }
     public String getName() { return name; }
     public double getDcLeistungKW() { return dcLeistungKW; }
     public double getSpezifischeLeistung() { return spezifischeLeistung; }
@@ -106,6 +137,6 @@ public class CalculatedDataPoint {
 
     // Standard Methods
     @Override public String toString() { return "CalculatedDataPoint{" + "name='" + name + '\'' + ", sourceTs='" + sourceTimestamp + '\'' + ", dcLeistungKW=" + dcLeistungKW + ", dcSpannungV=" + dcSpannungV + ", spezLeistung=" + spezifischeLeistung + ", cluster=" + clusterGroup + ", outlier=" + isOutlier + ", perf='" + performanceLabel + "'}"; }
-    @Override public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; CalculatedDataPoint that = (CalculatedDataPoint) o; return Objects.equals(name, that.name) && Objects.equals(sourceTimestamp, that.sourceTimestamp); }
-    @Override public int hashCode() { return Objects.hash(name, sourceTimestamp); }
+    @Override public boolean equals(Object o) { if (this == o) return true; if (o == null || getClass() != o.getClass()) return false; CalculatedDataPoint that = (CalculatedDataPoint) o; if (hash != that.hash) return false; return (name == that.name || name.equals(that.name)) && sourceTimestamp.equals(that.sourceTimestamp); }
+    @Override public int hashCode() { return hash; }
 }
\ No newline at end of file
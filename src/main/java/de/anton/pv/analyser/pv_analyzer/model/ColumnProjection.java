@@ -0,0 +1,108 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.util.*;
+
+/**
+ * Selects which Sheet1 columns ({@code <Tracker>/<Metric>} headers) are parsed and stored.
+ * Columns that are not selected are skipped by the readers at parse time; their headers
+ * stay in {@link ExcelData#getSheet1Headers()} but hold no values (NaN).
+ * <p>
+ * Metric suffixes are compared without whitespace and case-insensitive, tracker names in
+ * the normalized form of {@link TrackerColumnResolver} ("TR#02.1" matches "TR 2.1").
+ * An empty set means "all" for that dimension. Instances are immutable.
+ */
+public final class ColumnProjection {
+
+    /** Keeps every column. */
+    public static final ColumnProjection ALL = new ColumnProjection(Collections.emptySet(), Collections.emptySet());
+    /** Keeps the columns used by the analysis (DC power and DC voltage of all trackers). */
+    public static final ColumnProjection ANALYSIS = metrics(ExcelData.METRIC_DC_POWER, ExcelData.METRIC_DC_VOLTAGE);
+
+    private final Set<String> metrics;  // Compacted metric names
+    private final Set<String> trackers; // Normalized tracker names
+
+    private ColumnProjection(Set<String> metrics, Set<String> trackers) {
+        this.metrics = metrics;
+        this.trackers = trackers;
+    }
+
+    /**
+     * @param metrics  Metric suffixes to keep (e.g. "DC-Leistung(kW)"); null or empty keeps all metrics.
+     * @param trackers Tracker names to keep; null or empty keeps all trackers.
+     */
+    public static ColumnProjection of(Collection<String> metrics, Collection<String> trackers) {
+        Set<String> m = new TreeSet<>();
+        if (metrics != null) metrics.forEach(metric -> m.add(compact(Objects.requireNonNull(metric, "Metric cannot be null."))));
+        Set<String> t = new TreeSet<>();
+        if (trackers != null) trackers.forEach(tracker -> t.add(TrackerColumnResolver.normalizeTrackerName(Objects.requireNonNull(tracker, "Tracker cannot be null."))));
+        return (m.isEmpty() && t.isEmpty()) ? ALL : new ColumnProjection(Collections.unmodifiableSet(m), Collections.unmodifiableSet(t));
+    }
+
+    /** @return Projection keeping the given metric suffixes of all trackers. */
+    public static ColumnProjection metrics(String... metrics) {
+        return of(Arrays.asList(metrics), null);
+    }
+
+    /** @return true if every column is kept. */
+    public boolean isAll() {
+        return metrics.isEmpty() && trackers.isEmpty();
+    }
+
+    /**
+     * @return true if the header column should be parsed. Headers that are not of the form
+     *         {@code <Tracker>/<Metric>} are only kept without a projection.
+     */
+    public boolean includes(String header) {
+        if (isAll()) return true;
+        if (header == null) return false;
+        int slash = header.lastIndexOf('/');
+        if (slash <= 0 || slash == header.length() - 1) return false;
+        return (metrics.isEmpty() || metrics.contains(compact(header.substring(slash + 1))))
+            && (trackers.isEmpty() || trackers.contains(TrackerColumnResolver.normalizeTrackerName(header.substring(0, slash))));
+    }
+
+    /**
+     * Selects the data columns of a Sheet1 header row.
+     * @return Flags per header column; column 0 (timestamps) and empty headers are never selected.
+     */
+    public boolean[] select(List<String> headers) {
+        boolean[] selected = new boolean[headers.size()];
+        for (int col = 1; col < selected.length; col++) {
+            String header = headers.get(col);
+            selected[col] = header != null && !header.trim().isEmpty() && includes(header);
+        }
+        return selected;
+    }
+
+    /** @return Stable textual form, e.g. for cache keys. */
+    public String key() {
+        return isAll() ? "all" : "metrics=" + String.join(",", metrics) + ";trackers=" + String.join(",", trackers);
+    }
+
+    static String compact(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c)) sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ColumnProjection that = (ColumnProjection) o;
+        return metrics.equals(that.metrics) && trackers.equals(that.trackers);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(metrics, trackers);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnProjection[" + key() + "]";
+    }
+}
@@ -0,0 +1,372 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Archive of raw series and analysis results as {@link ColumnarFile}s, as a fast alternative to the
+ * xlsx export for results that are queried again later.
+ * <ul>
+ * <li>Results ({@code results-*.pvcol}): one row per {@link CalculatedDataPoint} with its measured values,
+ *     tracker data and analysis results, sorted by orientation, timestamp and name (like the xlsx export),
+ *     so the chunk statistics of orientation and time are selective. Derived metrics are recomputed on read.</li>
+ * <li>Series ({@code series-*.pvcol}): the timestamp axis and all loaded Sheet1 columns of an {@link ExcelData},
+ *     with the headers, tracker and module info in the metadata.</li>
+ * </ul>
+ * {@link #queryResults} scans all result files of the archive, skipping files and chunks whose
+ * statistics rule out the time range, orientation or outlier flag of the query.
+ */
+public class ColumnarArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarArchive.class);
+    /** System property overriding the archive directory. */
+    public static final String ARCHIVE_DIR_PROPERTY = "pv.analyzer.archiveDir";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    // --- Result columns ---
+    public static final String COL_TIMESTAMP = "Zeitstempel";
+    public static final String COL_NAME = "Name";
+    public static final String COL_ORIENTATION = "Ausrichtung";
+    public static final String COL_DC_POWER = "DC-Leistung (kW)";
+    public static final String COL_DC_VOLTAGE = "DC-Spannung (V)";
+    public static final String COL_NOMINAL_POWER = "Nennleistung (kWp)";
+    public static final String COL_STRINGS = "Anzahl Strings";
+    public static final String COL_CLUSTER = "Cluster Gruppe";
+    public static final String COL_OUTLIER = "Ausreißer";
+    public static final String COL_PERFORMANCE = "Performance";
+    /** Column with the text of unparsable timestamps (only present if there are any). */
+    public static final String COL_RAW_TIMESTAMP = "Zeitstempel (Text)";
+
+    // --- Metadata keys ---
+    private static final String META_KIND = "kind";
+    private static final String META_SOURCE = "source";
+    private static final String META_DESCRIPTION = "description";
+    private static final String META_CREATED = "created";
+    private static final String META_MODULE = "module";
+    private static final String META_HEADERS = "headers";
+    private static final String META_STORED_COLUMNS = "storedColumns";
+    private static final String META_TRACKERS = "trackers";
+    private static final String KIND_RESULTS = "results";
+    private static final String KIND_SERIES = "series";
+
+    private final Path directory;
+    private final ColumnarFile.Compression compression;
+
+    /**
+     * Time range, orientation and outlier restriction of a result query.
+     *
+     * @param from         First source timestamp (inclusive), or null for no lower bound.
+     * @param to           Last source timestamp (inclusive), or null for no upper bound.
+     * @param orientation  Orientation ("Ausrichtung") to select, or null for all.
+     * @param outliersOnly true to only return outliers.
+     */
+    public record ResultQuery(LocalDateTime from, LocalDateTime to, String orientation, boolean outliersOnly) {
+        /** @return The query as filters on the result columns. */
+        public List<ColumnarFile.Filter> toFilters() {
+            List<ColumnarFile.Filter> filters = new ArrayList<>();
+            if (from != null || to != null) {
+                long min = from != null ? TimestampAxis.toEpochMinute(from) : Long.MIN_VALUE + 1;
+                long max = to != null ? TimestampAxis.toEpochMinute(to) : Long.MAX_VALUE;
+                filters.add(ColumnarFile.Filter.between(COL_TIMESTAMP, min, max));
+            }
+            if (orientation != null) filters.add(ColumnarFile.Filter.equalTo(COL_ORIENTATION, orientation));
+            if (outliersOnly) filters.add(ColumnarFile.Filter.isTrue(COL_OUTLIER));
+            return filters;
+        }
+    }
+
+    /** @param directory Archive directory (created on first write). */
+    public ColumnarArchive(Path directory) {
+        this(directory, ColumnarFile.Compression.XOR);
+    }
+
+    public ColumnarArchive(Path directory, ColumnarFile.Compression compression) {
+        this.directory = Objects.requireNonNull(directory, "Archive directory cannot be null.");
+        this.compression = Objects.requireNonNull(compression, "Compression cannot be null.");
+    }
+
+    /** @return Directory from the system property {@value #ARCHIVE_DIR_PROPERTY}, or {@code ~/.pv-analyzer/archive}. */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty(ARCHIVE_DIR_PROPERTY);
+        if (configured != null && !configured.isBlank()) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".pv-analyzer", "archive");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // --- Results ---
+
+    /**
+     * Archives analysis results in a new file of the archive directory.
+     *
+     * @param points      The analysed points (e.g. of one timestamp or interval).
+     * @param sourceName  Name of the analysed file.
+     * @param description Free text, e.g. the analysed timestamp or interval.
+     * @return The written file.
+     * @throws IOException If the file cannot be written.
+     */
+    public Path archiveResults(List<CalculatedDataPoint> points, String sourceName, String description) throws IOException {
+        Objects.requireNonNull(points, "Points cannot be null.");
+        Path file = directory.resolve(KIND_RESULTS + "-" + safeName(sourceName) + "-" + LocalDateTime.now().format(FILE_TIME) + ColumnarFile.FILE_SUFFIX);
+        writeResults(file, points, sourceName, description, compression);
+        logger.info("Archived {} analysis results of '{}' in '{}'.", points.size(), sourceName, file);
+        return file;
+    }
+
+    /** Writes analysis results as a columnar file (see the class comment for the layout). */
+    public static void writeResults(Path file, List<CalculatedDataPoint> points, String sourceName, String description, ColumnarFile.Compression compression) throws IOException {
+        Comparator<CalculatedDataPoint> order = Comparator.comparing(CalculatedDataPoint::getAusrichtung, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(CalculatedDataPoint::getSourceTimestamp, Comparator.comparingLong(TimestampAxis::parseEpochMinute))
+                .thenComparing(CalculatedDataPoint::getName, String.CASE_INSENSITIVE_ORDER);
+        List<CalculatedDataPoint> sorted = points.stream().filter(Objects::nonNull).sorted(order).collect(Collectors.toList());
+        int n = sorted.size();
+        long[] timestamps = new long[n];
+        String[] names = new String[n], orientations = new String[n], performance = new String[n];
+        double[] power = new double[n], voltage = new double[n], nominal = new double[n];
+        int[] strings = new int[n], clusters = new int[n];
+        boolean[] outliers = new boolean[n];
+        String[] rawTimestamps = null;
+        ModuleInfo moduleInfo = null;
+        for (int i = 0; i < n; i++) {
+            CalculatedDataPoint point = sorted.get(i);
+            timestamps[i] = TimestampAxis.parseEpochMinute(point.getSourceTimestamp());
+            if (timestamps[i] == TimestampAxis.INVALID) {
+                if (rawTimestamps == null) rawTimestamps = new String[n];
+                rawTimestamps[i] = point.getSourceTimestamp();
+            }
+            names[i] = point.getName();
+            orientations[i] = point.getAusrichtung();
+            power[i] = point.getDcLeistungKW();
+            voltage[i] = point.getDcSpannungV();
+            nominal[i] = point.getNennleistungKWp();
+            strings[i] = point.getAnzahlStrings();
+            clusters[i] = point.getClusterGroup();
+            outliers[i] = point.isOutlier();
+            performance[i] = point.getPerformanceLabel().isEmpty() ? null : point.getPerformanceLabel();
+            if (moduleInfo == null) moduleInfo = point.getModuleInfo();
+        }
+        Map<String, String> metadata = baseMetadata(KIND_RESULTS, sourceName);
+        if (description != null) metadata.put(META_DESCRIPTION, description);
+        if (moduleInfo != null) metadata.put(META_MODULE, encodeModuleInfo(moduleInfo));
+        ColumnarFile.Table table = new ColumnarFile.Table(n, metadata)
+                .addTimestamps(COL_TIMESTAMP, timestamps)
+                .addStrings(COL_NAME, names)
+                .addStrings(COL_ORIENTATION, orientations)
+                .addDoubles(COL_DC_POWER, power)
+                .addDoubles(COL_DC_VOLTAGE, voltage)
+                .addDoubles(COL_NOMINAL_POWER, nominal)
+                .addInts(COL_STRINGS, strings)
+                .addInts(COL_CLUSTER, clusters)
+                .addBooleans(COL_OUTLIER, outliers)
+                .addStrings(COL_PERFORMANCE, performance);
+        if (rawTimestamps != null) table.addStrings(COL_RAW_TIMESTAMP, rawTimestamps);
+        ColumnarFile.write(file, table, compression);
+    }
+
+    /**
+     * Reads the matching analysis results of one result file; tracker and module info are rebuilt
+     * from the stored columns, derived metrics are recomputed.
+     */
+    public static List<CalculatedDataPoint> readResults(ColumnarFile file, ResultQuery query) throws IOException {
+        if (!KIND_RESULTS.equals(file.getMetadata().get(META_KIND))) throw new IOException("'" + file.getPath().getFileName() + "' does not contain analysis results.");
+        ColumnarFile.Table table = file.read(query.toFilters(), null);
+        ModuleInfo moduleInfo = decodeModuleInfo(table.getMetadata().get(META_MODULE));
+        long[] timestamps = table.getTimestamps(COL_TIMESTAMP);
+        String[] names = table.getStrings(COL_NAME), orientations = table.getStrings(COL_ORIENTATION), performance = table.getStrings(COL_PERFORMANCE);
+        double[] power = table.getDoubles(COL_DC_POWER), voltage = table.getDoubles(COL_DC_VOLTAGE), nominal = table.getDoubles(COL_NOMINAL_POWER);
+        int[] strings = table.getInts(COL_STRINGS), clusters = table.getInts(COL_CLUSTER);
+        boolean[] outliers = table.getBooleans(COL_OUTLIER);
+        String[] rawTimestamps = table.indexOf(COL_RAW_TIMESTAMP) >= 0 ? table.getStrings(COL_RAW_TIMESTAMP) : null;
+        Map<String, TrackerInfo> trackers = new HashMap<>(); // One instance per tracker, as in a loaded dataset
+        List<CalculatedDataPoint> points = new ArrayList<>(table.getRowCount());
+        for (int i = 0; i < table.getRowCount(); i++) {
+            int row = i;
+            TrackerInfo info = trackers.computeIfAbsent(names[i] + '\u0000' + orientations[i], key -> new TrackerInfo(names[row], nominal[row], orientations[row], strings[row]));
+            String timestamp = timestamps[i] != TimestampAxis.INVALID ? TimestampAxis.format(timestamps[i]) : rawTimestamps != null && rawTimestamps[i] != null ? rawTimestamps[i] : "";
+            CalculatedDataPoint point = new CalculatedDataPoint(names[i], power[i], voltage[i], info, moduleInfo, timestamp);
+            point.setClusterGroup(clusters[i]);
+            point.setOutlier(outliers[i]);
+            point.setPerformanceLabel(performance[i]);
+            points.add(point);
+        }
+        return points;
+    }
+
+    /**
+     * Scans all result files of the archive. Files and chunks whose statistics rule out the query
+     * are not read.
+     *
+     * @return The matching results of all files (files in name order, i.e. by source and archive time).
+     * @throws IOException If the directory cannot be listed or a file cannot be read.
+     */
+    public List<CalculatedDataPoint> queryResults(ResultQuery query) throws IOException {
+        Objects.requireNonNull(query, "Query cannot be null.");
+        long start = System.nanoTime();
+        List<ColumnarFile.Filter> filters = query.toFilters();
+        List<CalculatedDataPoint> results = new ArrayList<>();
+        int files = 0, skippedFiles = 0, chunks = 0, readChunks = 0;
+        for (Path path : listFiles(KIND_RESULTS)) {
+            ColumnarFile file = ColumnarFile.open(path);
+            files++;
+            chunks += file.getChunkCount();
+            int matching = file.countMatchingChunks(filters);
+            if (matching == 0) { skippedFiles++; continue; }
+            readChunks += matching;
+            results.addAll(readResults(file, query));
+        }
+        logger.info("Result query {}: {} results from {} of {} files ({} of {} chunks read) in {} ms.", query, results.size(), files - skippedFiles, files,
+                readChunks, chunks, (System.nanoTime() - start) / 1_000_000);
+        return results;
+    }
+
+    // --- Series ---
+
+    /**
+     * Archives the loaded series of a file in a new file of the archive directory.
+     *
+     * @return The written file.
+     * @throws IOException If the file cannot be written.
+     */
+    public Path archiveSeries(ExcelData data, String sourceName) throws IOException {
+        Path file = directory.resolve(KIND_SERIES + "-" + safeName(sourceName) + "-" + LocalDateTime.now().format(FILE_TIME) + ColumnarFile.FILE_SUFFIX);
+        writeSeries(file, data, sourceName, compression);
+        logger.info("Archived {} rows of '{}' in '{}'.", data.getRowCount(), sourceName, file);
+        return file;
+    }
+
+    /** Writes the timestamp axis and all loaded Sheet1 columns of the data as a columnar file. */
+    public static void writeSeries(Path file, ExcelData data, String sourceName, ColumnarFile.Compression compression) throws IOException {
+        Objects.requireNonNull(data, "Data cannot be null.");
+        int rows = data.getRowCount();
+        TimestampAxis axis = data.getTimestampAxis();
+        long[] minutes = new long[rows];
+        String[] rawLabels = null;
+        for (int row = 0; row < rows; row++) {
+            minutes[row] = axis.getEpochMinute(row);
+            if (minutes[row] != TimestampAxis.INVALID) continue;
+            if (rawLabels == null) rawLabels = new String[rows];
+            rawLabels[row] = axis.getLabel(row);
+        }
+        List<String> headers = data.getSheet1Headers();
+        List<Integer> stored = new ArrayList<>();
+        for (int col = 1; col < headers.size(); col++) if (data.hasColumnData(col)) stored.add(col);
+
+        Map<String, String> metadata = baseMetadata(KIND_SERIES, sourceName);
+        metadata.put(META_HEADERS, String.join("\n", headers));
+        metadata.put(META_STORED_COLUMNS, stored.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        metadata.put(META_TRACKERS, encodeTrackerInfo(data.getTrackerInfoMap()));
+        if (data.getModuleInfo() != null) metadata.put(META_MODULE, encodeModuleInfo(data.getModuleInfo()));
+        ColumnarFile.Table table = new ColumnarFile.Table(rows, metadata).addTimestamps(COL_TIMESTAMP, minutes);
+        if (rawLabels != null) table.addStrings(COL_RAW_TIMESTAMP, rawLabels);
+        for (int col : stored) table.addDoubles(headers.get(col), data.getColumnArray(col));
+        ColumnarFile.write(file, table, compression);
+    }
+
+    /**
+     * Reads the rows of an archived series whose timestamp lies in [from, to]; only the chunks
+     * overlapping the range are read. With both bounds null all rows are returned, including
+     * rows with unparsable timestamps.
+     *
+     * @param from First timestamp (inclusive), or null for no lower bound.
+     * @param to   Last timestamp (inclusive), or null for no upper bound.
+     * @return The rows as a dataset with the headers, tracker and module info of the archived data.
+     * @throws IOException If the file cannot be read or does not contain a series.
+     */
+    public static ExcelData readSeries(ColumnarFile file, LocalDateTime from, LocalDateTime to) throws IOException {
+        Map<String, String> metadata = file.getMetadata();
+        if (!KIND_SERIES.equals(metadata.get(META_KIND))) throw new IOException("'" + file.getPath().getFileName() + "' does not contain a series.");
+        List<ColumnarFile.Filter> filters = new ResultQuery(from, to, null, false).toFilters();
+        ColumnarFile.Table table = file.read(filters, null);
+        List<String> headers = Arrays.asList(metadata.getOrDefault(META_HEADERS, "").split("\n", -1));
+        String storedText = metadata.getOrDefault(META_STORED_COLUMNS, "");
+        int rows = table.getRowCount();
+        double[][] columns = new double[headers.size()][];
+        int valueColumn = table.indexOf(COL_RAW_TIMESTAMP) >= 0 ? 2 : 1; // Value columns follow the timestamp column(s) in stored order
+        for (String col : storedText.isEmpty() ? new String[0] : storedText.split(",")) {
+            columns[Objects.checkIndex(Integer.parseInt(col), headers.size())] = (double[]) table.getValues(valueColumn++);
+        }
+        String[] rawLabels = table.indexOf(COL_RAW_TIMESTAMP) >= 0 ? table.getStrings(COL_RAW_TIMESTAMP) : null;
+        return ExcelData.Builder.wrap(headers, TimestampAxis.of(table.getTimestamps(COL_TIMESTAMP), rawLabels, rows), columns)
+                .trackerInfoMap(decodeTrackerInfo(metadata.get(META_TRACKERS)))
+                .moduleInfo(decodeModuleInfo(metadata.get(META_MODULE)))
+                .build();
+    }
+
+    // --- Helpers ---
+
+    /** @return The archive files of the kind in name order (empty if the directory does not exist). */
+    private List<Path> listFiles(String kind) throws IOException {
+        if (!Files.isDirectory(directory)) return Collections.emptyList();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(kind + "-") && name.endsWith(ColumnarFile.FILE_SUFFIX);
+            }).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Map<String, String> baseMetadata(String kind, String sourceName) {
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put(META_KIND, kind);
+        if (sourceName != null) metadata.put(META_SOURCE, sourceName);
+        metadata.put(META_CREATED, LocalDateTime.now().toString());
+        return metadata;
+    }
+
+    private static String safeName(String sourceName) {
+        String name = sourceName == null || sourceName.isBlank() ? "unbekannt" : sourceName;
+        int dot = name.lastIndexOf('.');
+        if (dot > 0) name = name.substring(0, dot);
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /** One line per tracker: name, nominal power, orientation and string count separated by tabs. */
+    private static String encodeTrackerInfo(Map<String, TrackerInfo> trackerInfoMap) {
+        StringBuilder text = new StringBuilder();
+        for (TrackerInfo info : trackerInfoMap.values()) {
+            if (text.length() > 0) text.append('\n');
+            text.append(info.getName()).append('\t').append(info.getNennleistungkWp()).append('\t')
+                .append(info.getAusrichtung() == null ? "" : info.getAusrichtung()).append('\t').append(info.getAnzahlStrings());
+        }
+        return text.toString();
+    }
+
+    private static Map<String, TrackerInfo> decodeTrackerInfo(String text) throws IOException {
+        Map<String, TrackerInfo> trackerInfoMap = new LinkedHashMap<>();
+        if (text == null || text.isEmpty()) return trackerInfoMap;
+        try {
+            for (String line : text.split("\n")) {
+                String[] fields = line.split("\t", -1);
+                TrackerInfo info = new TrackerInfo(fields[0], Double.parseDouble(fields[1]), fields[2], Integer.parseInt(fields[3]));
+                trackerInfoMap.put(info.getName(), info);
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid tracker info in the archive metadata: " + e.getMessage(), e);
+        }
+        return trackerInfoMap;
+    }
+
+    private static String encodeModuleInfo(ModuleInfo moduleInfo) {
+        return moduleInfo.getPnennKWp() + ";" + moduleInfo.getPmppKW() + ";" + moduleInfo.getVmppV() + ";" + moduleInfo.getImppA();
+    }
+
+    private static ModuleInfo decodeModuleInfo(String text) throws IOException {
+        if (text == null) return null;
+        try {
+            String[] fields = text.split(";");
+            return new ModuleInfo(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]), Double.parseDouble(fields[2]), Double.parseDouble(fields[3]));
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid module info in the archive metadata: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,680 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Self-describing columnar file ({@value #FILE_SUFFIX}) for raw series and analysis results.
+ * <p>
+ * Rows are written in chunks of a fixed number of rows, each chunk holding one typed block per
+ * column. The footer describes the schema, free-form metadata and, for every column chunk, its
+ * position and statistics (null count, min/max), so a reader evaluates {@link Filter}s against the
+ * statistics first and only reads the chunks that can contain matching rows. Layout (little endian):
+ * <pre>
+ * header  : magic, version
+ * chunks  : the column blocks of chunk 0, chunk 1, ...
+ * footer  : compression, row count, chunk rows, schema, metadata, chunk index with statistics (DataOutput encoding)
+ * trailer : footer length, magic
+ * </pre>
+ * Column blocks: TIMESTAMP epoch minutes ({@link TimestampAxis#INVALID} = null), DOUBLE (NaN = null),
+ * INT, BOOLEAN (bit set) and STRING (dictionary of the chunk plus codes, -1 = null). With
+ * {@link Compression#XOR} timestamps are delta-of-delta encoded ({@link DeltaOfDeltaMinutes}) and
+ * doubles XOR encoded ({@link XorCompressedColumn}); the other types are stored as is.
+ */
+public final class ColumnarFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarFile.class);
+    public static final String FILE_SUFFIX = ".pvcol";
+    public static final int DEFAULT_CHUNK_ROWS = 4096;
+    private static final int MAGIC = 0x50564346; // "PVCF"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int TRAILER_BYTES = 8;
+
+    /** Value type of a column. */
+    public enum ColumnType { TIMESTAMP, DOUBLE, INT, BOOLEAN, STRING }
+
+    /** Encoding of TIMESTAMP and DOUBLE blocks. */
+    public enum Compression {
+        /** Plain arrays. */
+        NONE,
+        /** Delta-of-delta timestamps and XOR encoded doubles (Gorilla); typically 3-10x smaller for measured series. */
+        XOR
+    }
+
+    /** Name and type of a column. */
+    public record Column(String name, ColumnType type) {
+        public Column {
+            Objects.requireNonNull(name, "Column name cannot be null.");
+            Objects.requireNonNull(type, "Column type cannot be null.");
+        }
+    }
+
+    /**
+     * Statistics of one column chunk. Numeric min/max are NaN if all values are null; for TIMESTAMP
+     * columns they are epoch minutes, for BOOLEAN columns 0/1. Text min/max are only set for STRING columns.
+     */
+    public record ColumnStats(int nullCount, double min, double max, String minText, String maxText) {}
+
+    /** In-memory columns of equal length plus metadata; the unit that is written and read. */
+    public static final class Table {
+        private final int rowCount;
+        private final Map<String, String> metadata;
+        private final List<Column> columns = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+
+        /**
+         * @param rowCount Number of rows; the arrays added must have at least this length.
+         * @param metadata Free-form key/value pairs stored in the footer.
+         */
+        public Table(int rowCount, Map<String, String> metadata) {
+            if (rowCount < 0) throw new IllegalArgumentException("Row count cannot be negative: " + rowCount);
+            this.rowCount = rowCount;
+            this.metadata = Collections.unmodifiableMap(new LinkedHashMap<>(Objects.requireNonNull(metadata, "Metadata cannot be null.")));
+        }
+
+        /** @param epochMinutes Epoch minutes, {@link TimestampAxis#INVALID} for missing timestamps. */
+        public Table addTimestamps(String name, long[] epochMinutes) { return add(new Column(name, ColumnType.TIMESTAMP), epochMinutes, epochMinutes.length); }
+        /** @param values Values, NaN for missing values. */
+        public Table addDoubles(String name, double[] values) { return add(new Column(name, ColumnType.DOUBLE), values, values.length); }
+        public Table addInts(String name, int[] values) { return add(new Column(name, ColumnType.INT), values, values.length); }
+        public Table addBooleans(String name, boolean[] values) { return add(new Column(name, ColumnType.BOOLEAN), values, values.length); }
+        /** @param values Values, null for missing values. */
+        public Table addStrings(String name, String[] values) { return add(new Column(name, ColumnType.STRING), values, values.length); }
+
+        private Table add(Column column, Object array, int length) {
+            if (length < rowCount) throw new IllegalArgumentException("Column '" + column.name() + "' has " + length + " values for " + rowCount + " rows.");
+            columns.add(column);
+            values.add(array);
+            return this;
+        }
+
+        public int getRowCount() { return rowCount; }
+        public Map<String, String> getMetadata() { return metadata; }
+        public List<Column> getColumns() { return Collections.unmodifiableList(columns); }
+
+        /** @return Index of the first column with this name, or -1. */
+        public int indexOf(String name) {
+            for (int i = 0; i < columns.size(); i++) if (columns.get(i).name().equals(name)) return i;
+            return -1;
+        }
+
+        public long[] getTimestamps(String name) { return (long[]) values(name, ColumnType.TIMESTAMP); }
+        public double[] getDoubles(String name) { return (double[]) values(name, ColumnType.DOUBLE); }
+        public int[] getInts(String name) { return (int[]) values(name, ColumnType.INT); }
+        public boolean[] getBooleans(String name) { return (boolean[]) values(name, ColumnType.BOOLEAN); }
+        public String[] getStrings(String name) { return (String[]) values(name, ColumnType.STRING); }
+
+        /** @return The values of the column at the index (array of the column type). */
+        public Object getValues(int index) { return values.get(index); }
+
+        private Object values(String name, ColumnType type) {
+            int index = indexOf(name);
+            if (index < 0) throw new IllegalArgumentException("Unknown column '" + name + "'.");
+            if (columns.get(index).type() != type) throw new IllegalArgumentException("Column '" + name + "' is " + columns.get(index).type() + ", not " + type + ".");
+            return values.get(index);
+        }
+    }
+
+    /** Row predicate on one column that can also be decided per chunk from its {@link ColumnStats}. Nulls never match. */
+    public static final class Filter {
+        private final String column;
+        private final double min;
+        private final double max;
+        private final String text; // null = numeric range
+
+        private Filter(String column, double min, double max, String text) {
+            this.column = Objects.requireNonNull(column, "Column cannot be null.");
+            this.min = min;
+            this.max = max;
+            this.text = text;
+        }
+
+        /** Inclusive range on a TIMESTAMP (epoch minutes), DOUBLE, INT or BOOLEAN (0/1) column. */
+        public static Filter between(String column, double min, double max) {
+            if (Double.isNaN(min) || Double.isNaN(max) || min > max) throw new IllegalArgumentException("Invalid range [" + min + ", " + max + "].");
+            return new Filter(column, min, max, null);
+        }
+
+        /** Exact match on a STRING column. */
+        public static Filter equalTo(String column, String value) {
+            return new Filter(column, Double.NaN, Double.NaN, Objects.requireNonNull(value, "Value cannot be null."));
+        }
+
+        /** Rows whose BOOLEAN column is true. */
+        public static Filter isTrue(String column) {
+            return between(column, 1, 1);
+        }
+
+        public String getColumn() { return column; }
+
+        boolean accepts(ColumnType type) {
+            return (text != null) == (type == ColumnType.STRING);
+        }
+
+        /** @return false if no row of a chunk with these statistics can match. */
+        boolean mightMatch(ColumnStats stats, int rows) {
+            if (stats.nullCount() >= rows) return false;
+            if (text != null) return stats.minText() != null && text.compareTo(stats.minText()) >= 0 && text.compareTo(stats.maxText()) <= 0;
+            return !(stats.max() < min || stats.min() > max);
+        }
+
+        boolean matches(Object values, int row) {
+            if (text != null) return text.equals(((String[]) values)[row]);
+            double value;
+            if (values instanceof long[]) {
+                long minute = ((long[]) values)[row];
+                if (minute == TimestampAxis.INVALID) return false;
+                value = minute;
+            } else if (values instanceof double[]) {
+                value = ((double[]) values)[row];
+            } else if (values instanceof int[]) {
+                value = ((int[]) values)[row];
+            } else {
+                value = ((boolean[]) values)[row] ? 1 : 0;
+            }
+            return value >= min && value <= max; // NaN never matches
+        }
+
+        @Override
+        public String toString() {
+            return text != null ? column + " = '" + text + "'" : column + " in [" + min + ", " + max + "]";
+        }
+    }
+
+    private final Path path;
+    private final Compression compression;
+    private final int rowCount;
+    private final int chunkRows;
+    private final List<Column> columns;
+    private final Map<String, String> metadata;
+    private final long[][] offsets; // [chunk][column]
+    private final int[][] lengths;
+    private final ColumnStats[][] stats;
+
+    private ColumnarFile(Path path, Compression compression, int rowCount, int chunkRows, List<Column> columns, Map<String, String> metadata,
+                         long[][] offsets, int[][] lengths, ColumnStats[][] stats) {
+        this.path = path;
+        this.compression = compression;
+        this.rowCount = rowCount;
+        this.chunkRows = chunkRows;
+        this.columns = columns;
+        this.metadata = metadata;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.stats = stats;
+    }
+
+    // --- Writing ---
+
+    /** Writes the table with {@value #DEFAULT_CHUNK_ROWS} rows per chunk. */
+    public static void write(Path file, Table table, Compression compression) throws IOException {
+        write(file, table, compression, DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * Writes the table (atomically replacing an existing file).
+     *
+     * @param file        Target file; parent directories are created.
+     * @param table       Columns and metadata to write.
+     * @param compression Encoding of TIMESTAMP and DOUBLE blocks.
+     * @param chunkRows   Rows per chunk, i.e. the granularity of chunk skipping.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, Table table, Compression compression, int chunkRows) throws IOException {
+        Objects.requireNonNull(file, "File cannot be null.");
+        Objects.requireNonNull(table, "Table cannot be null.");
+        Objects.requireNonNull(compression, "Compression cannot be null.");
+        if (chunkRows <= 0) throw new IllegalArgumentException("Chunk rows must be positive: " + chunkRows);
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            int rows = table.getRowCount(), columnCount = table.getColumns().size();
+            int chunks = (rows + chunkRows - 1) / chunkRows;
+            long[][] offsets = new long[chunks][columnCount];
+            int[][] lengths = new int[chunks][columnCount];
+            ColumnStats[][] stats = new ColumnStats[chunks][columnCount];
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DatasetCache.writeFully(channel, allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip());
+                long position = HEADER_BYTES;
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    int from = chunk * chunkRows, to = Math.min(rows, from + chunkRows);
+                    for (int col = 0; col < columnCount; col++) {
+                        ColumnType type = table.getColumns().get(col).type();
+                        Object values = table.getValues(col);
+                        stats[chunk][col] = statistics(type, values, from, to);
+                        ByteBuffer block = encode(type, values, from, to, compression);
+                        offsets[chunk][col] = position;
+                        lengths[chunk][col] = block.remaining();
+                        position += block.remaining();
+                        DatasetCache.writeFully(channel, block);
+                    }
+                }
+
+                ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+                DataOutputStream footer = new DataOutputStream(footerBytes);
+                footer.writeUTF(compression.name());
+                footer.writeInt(rows);
+                footer.writeInt(chunkRows);
+                footer.writeInt(columnCount);
+                for (Column column : table.getColumns()) {
+                    writeString(footer, column.name());
+                    footer.writeUTF(column.type().name());
+                }
+                footer.writeInt(table.getMetadata().size());
+                for (Map.Entry<String, String> entry : table.getMetadata().entrySet()) {
+                    writeString(footer, entry.getKey());
+                    writeString(footer, entry.getValue());
+                }
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    for (int col = 0; col < columnCount; col++) {
+                        ColumnStats s = stats[chunk][col];
+                        footer.writeLong(offsets[chunk][col]);
+                        footer.writeInt(lengths[chunk][col]);
+                        footer.writeInt(s.nullCount());
+                        footer.writeDouble(s.min());
+                        footer.writeDouble(s.max());
+                        writeString(footer, s.minText());
+                        writeString(footer, s.maxText());
+                    }
+                }
+                footer.flush();
+                DatasetCache.writeFully(channel, ByteBuffer.wrap(footerBytes.toByteArray()));
+                DatasetCache.writeFully(channel, allocate(TRAILER_BYTES).putInt(footerBytes.size()).putInt(MAGIC).flip());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.debug("Wrote {} rows in {} chunk(s) ({}) to '{}'.", rows, chunks, compression, file);
+        } catch (IOException | RuntimeException e) {
+            DatasetCache.delete(temp);
+            throw e;
+        }
+    }
+
+    private static ColumnStats statistics(ColumnType type, Object values, int from, int to) {
+        int nulls = 0;
+        if (type == ColumnType.STRING) {
+            String[] strings = (String[]) values;
+            String min = null, max = null;
+            for (int i = from; i < to; i++) {
+                String value = strings[i];
+                if (value == null) { nulls++; continue; }
+                if (min == null || value.compareTo(min) < 0) min = value;
+                if (max == null || value.compareTo(max) > 0) max = value;
+            }
+            return new ColumnStats(nulls, Double.NaN, Double.NaN, min, max);
+        }
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = from; i < to; i++) {
+            double value;
+            switch (type) {
+                case TIMESTAMP: { long minute = ((long[]) values)[i]; value = minute == TimestampAxis.INVALID ? Double.NaN : minute; break; }
+                case DOUBLE: value = ((double[]) values)[i]; break;
+                case INT: value = ((int[]) values)[i]; break;
+                default: value = ((boolean[]) values)[i] ? 1 : 0; break;
+            }
+            if (Double.isNaN(value)) { nulls++; continue; }
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+        return nulls == to - from ? new ColumnStats(nulls, Double.NaN, Double.NaN, null, null) : new ColumnStats(nulls, min, max, null, null);
+    }
+
+    private static ByteBuffer encode(ColumnType type, Object values, int from, int to, Compression compression) {
+        int n = to - from;
+        switch (type) {
+            case TIMESTAMP: {
+                long[] minutes = (long[]) values;
+                if (compression == Compression.XOR && n > 0) {
+                    DeltaOfDeltaMinutes encoded = DeltaOfDeltaMinutes.encode(Arrays.copyOfRange(minutes, from, to), n);
+                    ByteBuffer block = allocate(encoded.serializedBytes());
+                    encoded.writeTo(block);
+                    return block.flip();
+                }
+                ByteBuffer block = allocate(n * Long.BYTES);
+                block.asLongBuffer().put(minutes, from, n);
+                return block;
+            }
+            case DOUBLE: {
+                double[] doubles = (double[]) values;
+                if (compression == Compression.XOR && n > 0) {
+                    XorCompressedColumn encoded = XorCompressedColumn.encode(Arrays.copyOfRange(doubles, from, to), n);
+                    ByteBuffer block = allocate(encoded.serializedBytes());
+                    encoded.writeTo(block);
+                    return block.flip();
+                }
+                ByteBuffer block = allocate(n * Double.BYTES);
+                block.asDoubleBuffer().put(doubles, from, n);
+                return block;
+            }
+            case INT: {
+                ByteBuffer block = allocate(n * Integer.BYTES);
+                block.asIntBuffer().put((int[]) values, from, n);
+                return block;
+            }
+            case BOOLEAN: {
+                boolean[] booleans = (boolean[]) values;
+                long[] words = new long[(n + 63) >>> 6];
+                for (int i = 0; i < n; i++) if (booleans[from + i]) words[i >>> 6] |= 1L << i;
+                ByteBuffer block = allocate(words.length * Long.BYTES);
+                block.asLongBuffer().put(words);
+                return block;
+            }
+            default: {
+                String[] strings = (String[]) values;
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                int[] codes = new int[n];
+                for (int i = 0; i < n; i++) {
+                    String value = strings[from + i];
+                    codes[i] = value == null ? -1 : dictionary.computeIfAbsent(value, key -> dictionary.size());
+                }
+                List<byte[]> entries = new ArrayList<>(dictionary.size());
+                int bytes = Integer.BYTES + n * Integer.BYTES;
+                for (String value : dictionary.keySet()) {
+                    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                    entries.add(utf8);
+                    bytes += Integer.BYTES + utf8.length;
+                }
+                ByteBuffer block = allocate(bytes).putInt(entries.size());
+                for (byte[] utf8 : entries) block.putInt(utf8.length).put(utf8);
+                for (int code : codes) block.putInt(code);
+                return block.flip();
+            }
+        }
+    }
+
+    private static Object decode(ColumnType type, ByteBuffer block, int n, Compression compression) {
+        switch (type) {
+            case TIMESTAMP: {
+                long[] minutes = new long[n];
+                if (compression == Compression.XOR && n > 0) {
+                    DeltaOfDeltaMinutes encoded = DeltaOfDeltaMinutes.readFrom(block);
+                    if (encoded.size() != n) throw new IllegalArgumentException("Timestamp block has " + encoded.size() + " values instead of " + n + ".");
+                    for (int i = 0; i < n; i++) minutes[i] = encoded.get(i);
+                } else {
+                    block.asLongBuffer().get(minutes);
+                }
+                return minutes;
+            }
+            case DOUBLE: {
+                double[] doubles = new double[n];
+                if (compression == Compression.XOR && n > 0) {
+                    XorCompressedColumn encoded = XorCompressedColumn.readFrom(block);
+                    if (encoded.size() != n) throw new IllegalArgumentException("Double block has " + encoded.size() + " values instead of " + n + ".");
+                    encoded.copy(0, n, doubles, 0);
+                } else {
+                    block.asDoubleBuffer().get(doubles);
+                }
+                return doubles;
+            }
+            case INT: {
+                int[] ints = new int[n];
+                block.asIntBuffer().get(ints);
+                return ints;
+            }
+            case BOOLEAN: {
+                long[] words = new long[(n + 63) >>> 6];
+                block.asLongBuffer().get(words);
+                boolean[] booleans = new boolean[n];
+                for (int i = 0; i < n; i++) booleans[i] = (words[i >>> 6] & (1L << i)) != 0;
+                return booleans;
+            }
+            default: {
+                String[] dictionary = new String[block.getInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    byte[] utf8 = new byte[block.getInt()];
+                    block.get(utf8);
+                    dictionary[i] = new String(utf8, StandardCharsets.UTF_8);
+                }
+                String[] strings = new String[n];
+                for (int i = 0; i < n; i++) {
+                    int code = block.getInt();
+                    strings[i] = code < 0 ? null : dictionary[code];
+                }
+                return strings;
+            }
+        }
+    }
+
+    // --- Reading ---
+
+    /**
+     * Opens a columnar file by reading its footer; the chunks are read by {@link #read}.
+     *
+     * @throws IOException If the file cannot be read or is not a (supported) columnar file.
+     */
+    public static ColumnarFile open(Path file) throws IOException {
+        Objects.requireNonNull(file, "File cannot be null.");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) throw new IOException("'" + file.getFileName() + "' is not a columnar file (" + size + " bytes).");
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            ByteBuffer trailer = readFully(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            int footerLength = trailer.getInt();
+            if (header.getInt() != MAGIC || trailer.getInt() != MAGIC) throw new IOException("'" + file.getFileName() + "' is not a columnar file.");
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported columnar file version " + version + " in '" + file.getFileName() + "'.");
+            if (footerLength < 0 || footerLength > size - HEADER_BYTES - TRAILER_BYTES) throw new IOException("Corrupt footer length " + footerLength + " in '" + file.getFileName() + "'.");
+
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(readFully(channel, size - TRAILER_BYTES - footerLength, footerLength).array()));
+            Compression compression = Compression.valueOf(footer.readUTF());
+            int rowCount = footer.readInt(), chunkRows = footer.readInt(), columnCount = footer.readInt();
+            if (rowCount < 0 || chunkRows <= 0 || columnCount < 0) throw new IOException("Corrupt footer in '" + file.getFileName() + "'.");
+            List<Column> columns = new ArrayList<>(columnCount);
+            for (int col = 0; col < columnCount; col++) columns.add(new Column(readString(footer), ColumnType.valueOf(footer.readUTF())));
+            Map<String, String> metadata = new LinkedHashMap<>();
+            for (int i = footer.readInt(); i > 0; i--) metadata.put(readString(footer), readString(footer));
+            int chunks = (rowCount + chunkRows - 1) / chunkRows;
+            long[][] offsets = new long[chunks][columnCount];
+            int[][] lengths = new int[chunks][columnCount];
+            ColumnStats[][] stats = new ColumnStats[chunks][columnCount];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                for (int col = 0; col < columnCount; col++) {
+                    offsets[chunk][col] = footer.readLong();
+                    lengths[chunk][col] = footer.readInt();
+                    if (offsets[chunk][col] < HEADER_BYTES || lengths[chunk][col] < 0 || offsets[chunk][col] + lengths[chunk][col] > size - TRAILER_BYTES - footerLength) {
+                        throw new IOException("Corrupt chunk index in '" + file.getFileName() + "'.");
+                    }
+                    stats[chunk][col] = new ColumnStats(footer.readInt(), footer.readDouble(), footer.readDouble(), readString(footer), readString(footer));
+                }
+            }
+            return new ColumnarFile(file, compression, rowCount, chunkRows, Collections.unmodifiableList(columns), Collections.unmodifiableMap(metadata), offsets, lengths, stats);
+        } catch (IllegalArgumentException | EOFException e) {
+            throw new IOException("Corrupt columnar file '" + file.getFileName() + "': " + e.getMessage(), e);
+        }
+    }
+
+    public Path getPath() { return path; }
+    public Compression getCompression() { return compression; }
+    public int getRowCount() { return rowCount; }
+    public int getChunkCount() { return offsets.length; }
+    public List<Column> getColumns() { return columns; }
+    public Map<String, String> getMetadata() { return metadata; }
+
+    /** @return Index of the first column with this name, or -1. */
+    public int indexOf(String name) {
+        for (int i = 0; i < columns.size(); i++) if (columns.get(i).name().equals(name)) return i;
+        return -1;
+    }
+
+    /** @return Number of rows in the chunk. */
+    public int getChunkRowCount(int chunk) {
+        Objects.checkIndex(chunk, offsets.length);
+        return Math.min(chunkRows, rowCount - chunk * chunkRows);
+    }
+
+    /** @return Statistics of the column in the chunk. */
+    public ColumnStats getStatistics(int chunk, int column) {
+        return stats[chunk][column];
+    }
+
+    /** @return Number of chunks whose statistics do not rule out all rows (0 = the file can be skipped). */
+    public int countMatchingChunks(List<Filter> filters) {
+        int[] filterColumns = resolveFilters(filters);
+        int count = 0;
+        for (int chunk = 0; chunk < offsets.length; chunk++) if (chunkMightMatch(chunk, filters, filterColumns)) count++;
+        return count;
+    }
+
+    /**
+     * Reads the rows matching all filters. Chunks ruled out by their statistics are not read,
+     * and of the other chunks only the requested and the filtered columns are read.
+     *
+     * @param filters     Row filters (AND), may be empty.
+     * @param columnNames Columns to return, or null for all columns.
+     * @return The matching rows with the metadata of the file.
+     * @throws IOException If the file cannot be read or a block is corrupt.
+     */
+    public Table read(List<Filter> filters, Collection<String> columnNames) throws IOException {
+        Objects.requireNonNull(filters, "Filters cannot be null.");
+        int[] filterColumns = resolveFilters(filters);
+        int[] outputColumns;
+        if (columnNames == null) {
+            outputColumns = new int[columns.size()];
+            for (int col = 0; col < outputColumns.length; col++) outputColumns[col] = col;
+        } else {
+            outputColumns = new int[columnNames.size()];
+            int i = 0;
+            for (String name : columnNames) {
+                outputColumns[i] = indexOf(name);
+                if (outputColumns[i++] < 0) throw new IllegalArgumentException("Unknown column '" + name + "' in '" + path.getFileName() + "'.");
+            }
+        }
+
+        List<Integer> chunks = new ArrayList<>();
+        int capacity = 0;
+        for (int chunk = 0; chunk < offsets.length; chunk++) {
+            if (!chunkMightMatch(chunk, filters, filterColumns)) continue;
+            chunks.add(chunk);
+            capacity += getChunkRowCount(chunk);
+        }
+        Object[] output = new Object[outputColumns.length];
+        for (int i = 0; i < output.length; i++) output[i] = newArray(columns.get(outputColumns[i]).type(), capacity);
+
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Object[] decoded = new Object[columns.size()];
+            for (int chunk : chunks) {
+                int rows = getChunkRowCount(chunk);
+                Arrays.fill(decoded, null);
+                for (int col : filterColumns) decoded[col] = readBlock(channel, chunk, col, rows);
+                for (int col : outputColumns) if (decoded[col] == null) decoded[col] = readBlock(channel, chunk, col, rows);
+                // Copy runs of matching rows
+                int row = 0;
+                while (row < rows) {
+                    if (!rowMatches(decoded, filters, filterColumns, row)) { row++; continue; }
+                    int end = row + 1;
+                    while (end < rows && rowMatches(decoded, filters, filterColumns, end)) end++;
+                    for (int i = 0; i < output.length; i++) System.arraycopy(decoded[outputColumns[i]], row, output[i], count, end - row);
+                    count += end - row;
+                    row = end;
+                }
+            }
+        }
+        logger.debug("Read {} rows from {} of {} chunk(s) of '{}' (filters: {}).", count, chunks.size(), offsets.length, path.getFileName(), filters);
+
+        Table table = new Table(count, metadata);
+        for (int i = 0; i < output.length; i++) {
+            Column column = columns.get(outputColumns[i]);
+            Object values = count == capacity ? output[i] : trim(output[i], count);
+            table.add(column, values, count);
+        }
+        return table;
+    }
+
+    private int[] resolveFilters(List<Filter> filters) {
+        int[] filterColumns = new int[filters.size()];
+        for (int i = 0; i < filterColumns.length; i++) {
+            Filter filter = filters.get(i);
+            int col = indexOf(filter.getColumn());
+            if (col < 0) throw new IllegalArgumentException("Unknown filter column '" + filter.getColumn() + "' in '" + path.getFileName() + "'.");
+            if (!filter.accepts(columns.get(col).type())) throw new IllegalArgumentException("Filter " + filter + " does not apply to a " + columns.get(col).type() + " column.");
+            filterColumns[i] = col;
+        }
+        return filterColumns;
+    }
+
+    private boolean chunkMightMatch(int chunk, List<Filter> filters, int[] filterColumns) {
+        int rows = getChunkRowCount(chunk);
+        for (int i = 0; i < filterColumns.length; i++) {
+            if (!filters.get(i).mightMatch(stats[chunk][filterColumns[i]], rows)) return false;
+        }
+        return true;
+    }
+
+    private static boolean rowMatches(Object[] decoded, List<Filter> filters, int[] filterColumns, int row) {
+        for (int i = 0; i < filterColumns.length; i++) {
+            if (!filters.get(i).matches(decoded[filterColumns[i]], row)) return false;
+        }
+        return true;
+    }
+
+    private Object readBlock(FileChannel channel, int chunk, int col, int rows) throws IOException {
+        ByteBuffer block = readFully(channel, offsets[chunk][col], lengths[chunk][col]);
+        try {
+            return decode(columns.get(col).type(), block, rows, compression);
+        } catch (RuntimeException e) { // Buffer underflow, corrupt dictionary code, ...
+            throw new IOException("Corrupt block of column '" + columns.get(col).name() + "' in chunk " + chunk + " of '" + path.getFileName() + "'.", e);
+        }
+    }
+
+    private static Object newArray(ColumnType type, int length) {
+        switch (type) {
+            case TIMESTAMP: return new long[length];
+            case DOUBLE: return new double[length];
+            case INT: return new int[length];
+            case BOOLEAN: return new boolean[length];
+            default: return new String[length];
+        }
+    }
+
+    private static Object trim(Object array, int length) {
+        Object trimmed = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    // --- Helpers ---
+
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) throw new EOFException("Unexpected end of file at " + (position + buffer.position()) + ".");
+        }
+        return buffer.flip();
+    }
+
+    /** Nullable string without the 64 KB limit of {@link DataOutput#writeUTF}. */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) { out.writeInt(-1); return; }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarFile{" + path.getFileName() + ", rows=" + rowCount + ", chunks=" + offsets.length + ", columns=" + columns.size() + ", " + compression + '}';
+    }
+}
@@ -0,0 +1,457 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
+
+/**
+ * Reads the semicolon separated SCADA export ({@code export_*.csv}) into {@link ExcelData}.
+ * <ul>
+ * <li>Time series: {@code date;TR 1.1/DC-Leistung(kW);TR 1.1/DC-Spannung(V);...} with
+ *     timestamps like {@code 2025-04-04 08:15} and comma (or dot) decimals.</li>
+ * <li>Tracker info: sidecar CSV equivalent to Sheet2 ({@code <name>_Tabelle2.csv} or {@code Tabelle2.csv}
+ *     in the same directory), mandatory.</li>
+ * <li>Module info: sidecar CSV equivalent to Sheet3 ({@code <name>_Tabelle3.csv} or {@code Tabelle3.csv}), optional.</li>
+ * </ul>
+ * The export file is memory-mapped and split at line boundaries into chunks that are parsed
+ * in parallel directly from the bytes (no String per cell) into the final column arrays.
+ */
+public class CsvDataReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvDataReader.class);
+    private static final byte DELIMITER = ';';
+    private static final int MIN_CHUNK_BYTES = 256 * 1024; // Smaller files are not worth splitting
+    private static final int PROGRESS_LINES = 1024; // Lines between progress reports and cancellation checks
+
+    /**
+     * Reads the CSV export and its sidecar files.
+     *
+     * @param file The export CSV file.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file or the mandatory Tabelle2 sidecar cannot be read,
+     *                     or essential data cannot be parsed correctly.
+     */
+    public ExcelData readCsv(File file) throws IOException {
+        return readCsv(file, ColumnProjection.ALL);
+    }
+
+    /**
+     * Reads the CSV export and its sidecar files, parsing only the columns selected by the projection.
+     *
+     * @param file       The export CSV file.
+     * @param projection The time series columns to keep.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file or the mandatory Tabelle2 sidecar cannot be read,
+     *                     or essential data cannot be parsed correctly.
+     */
+    public ExcelData readCsv(File file, ColumnProjection projection) throws IOException {
+        return readCsv(file, projection, LoadMonitor.none());
+    }
+
+    /**
+     * Reads the CSV export like {@link #readCsv(File, ColumnProjection)}, reporting the parsed rows
+     * to the monitor and stopping between blocks of lines once it is cancelled.
+     *
+     * @param file       The export CSV file.
+     * @param projection The time series columns to keep.
+     * @param monitor    Progress and cancellation of the load.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file or the mandatory Tabelle2 sidecar cannot be read,
+     *                     or essential data cannot be parsed correctly.
+     * @throws CancellationException If the monitor was cancelled.
+     */
+    public ExcelData readCsv(File file, ColumnProjection projection, LoadMonitor monitor) throws IOException {
+        Objects.requireNonNull(file, "Input file cannot be null.");
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(monitor, "Monitor cannot be null.");
+        logger.info("Starting to read CSV file: {}", file.getAbsolutePath());
+        long start = System.nanoTime();
+
+        ExcelData excelData;
+        try {
+            // --- Tracker Info Sidecar (Mandatory) ---
+            File trackerFile = findSidecar(file, ExcelReader.SHEET2_NAME);
+            if (trackerFile == null) {
+                throw new IOException("Required tracker file '" + sidecarName(file, ExcelReader.SHEET2_NAME) + "' or '"
+                        + ExcelReader.SHEET2_NAME + ".csv' not found next to " + file.getName() + ".");
+            }
+            Map<String, TrackerInfo> trackerMap = ExcelReader.readTrackerInfo(readSheetTable(trackerFile));
+            if (trackerMap.isEmpty()) {
+                throw new IOException("No valid tracker information found or parsed in '" + trackerFile.getName() + "'. Check file format and headers.");
+            }
+            logger.info("Read {} tracker info entries from '{}'.", trackerMap.size(), trackerFile.getName());
+
+            // --- Time Series (Mandatory) ---
+            ExcelData.Builder builder = readTimeSeriesData(file, projection, monitor);
+            if (builder.getRowCount() == 0) {
+                throw new IOException("No valid timestamps or data rows found or parsed in '" + file.getName() + "'. Check file format.");
+            }
+            logger.info("Read {} timestamps and data rows from '{}'.", builder.getRowCount(), file.getName());
+            builder.trackerInfoMap(trackerMap);
+
+            // --- Module Info Sidecar (Optional) ---
+            File moduleFile = findSidecar(file, ExcelReader.SHEET3_NAME);
+            if (moduleFile != null) {
+                try {
+                    ModuleInfo moduleInfo = ExcelReader.readModuleInfo(readSheetTable(moduleFile));
+                    builder.moduleInfo(moduleInfo);
+                    if (moduleInfo != null) {
+                        logger.info("Successfully read module info from '{}': {}", moduleFile.getName(), moduleInfo);
+                    } else {
+                        logger.warn("Optional file '{}' found, but could not parse valid module info. Proceeding without module data.", moduleFile.getName());
+                    }
+                } catch (Exception e) {
+                    logger.warn("Error reading optional file '{}'. Proceeding without module data. Error: {}", moduleFile.getName(), e.getMessage(), e);
+                    builder.moduleInfo(null);
+                }
+            } else {
+                logger.info("Optional module file for '{}' not found. Proceeding without module data.", file.getName());
+            }
+            excelData = builder.build();
+
+        } catch (IOException ioe) {
+            logger.error("IO error reading CSV file: {}", file.getAbsolutePath(), ioe);
+            throw ioe;
+        } catch (CancellationException e) {
+            logger.info("Reading CSV file {} cancelled after {} rows.", file.getAbsolutePath(), monitor.getRowsRead());
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error processing CSV file: {}", file.getAbsolutePath(), e);
+            throw new IOException("Error processing CSV file: " + e.getMessage(), e);
+        }
+
+        logger.info("Finished reading CSV file: {} ({} ms)", file.getAbsolutePath(), (System.nanoTime() - start) / 1_000_000);
+        return excelData;
+    }
+
+    // --- Sidecar Files ---
+
+    private static String sidecarName(File file, String sheetName) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + "_" + sheetName + ".csv";
+    }
+
+    /** Looks for {@code <base>_<sheet>.csv} first, then {@code <sheet>.csv} in the directory of the export. */
+    static File findSidecar(File file, String sheetName) {
+        File dir = file.getAbsoluteFile().getParentFile();
+        for (String candidate : List.of(sidecarName(file, sheetName), sheetName + ".csv")) {
+            File sidecar = new File(dir, candidate);
+            if (sidecar.isFile()) return sidecar;
+        }
+        return null;
+    }
+
+    /** Reads a small semicolon separated file into a {@link SheetTable} (UTF-8, falling back to Windows-1252). */
+    static SheetTable readSheetTable(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        String content;
+        try {
+            content = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            content = new String(bytes, Charset.forName("windows-1252")); // Typical for Excel CSV exports
+        }
+        if (content.startsWith("\uFEFF")) content = content.substring(1);
+
+        SheetTable.Builder builder = new SheetTable.Builder(file.getName());
+        String[] lines = content.split("\r?\n", -1);
+        for (int row = 0; row < lines.length; row++) {
+            if (lines[row].isBlank()) continue;
+            builder.addRow(row);
+            String[] fields = lines[row].split(String.valueOf((char) DELIMITER), -1);
+            for (int col = 0; col < fields.length; col++) {
+                String text = unquote(fields[col].trim());
+                if (!text.isEmpty()) builder.setCell(row, col, text, ExcelReader.parseDoubleWithOptionalUnit(text, null));
+            }
+        }
+        return builder.build();
+    }
+
+    private static String unquote(String text) {
+        return (text.length() >= 2 && text.charAt(0) == '"' && text.charAt(text.length() - 1) == '"')
+                ? text.substring(1, text.length() - 1).replace("\"\"", "\"").trim() : text;
+    }
+
+    // --- Time Series ---
+
+    /** Memory-maps the export and parses it in parallel chunks into a columnar builder. */
+    private ExcelData.Builder readTimeSeriesData(File file, ColumnProjection projection, LoadMonitor monitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file '" + file.getName() + "' is too large (" + size + " bytes) to be mapped.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int length = (int) size;
+
+            // --- Read Header Line ---
+            int pos = (length >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) ? 3 : 0; // UTF-8 BOM
+            int headerEnd = indexOf(buffer, (byte) '\n', pos, length);
+            int dataStart = headerEnd < 0 ? length : headerEnd + 1;
+            List<String> headers = parseHeaders(buffer, pos, headerEnd < 0 ? length : headerEnd);
+            ExcelReader.validateTimeSeriesHeaders(headers, file.getName());
+            logger.debug("Read {} headers from '{}': {}", headers.size(), file.getName(), headers);
+
+            boolean[] selected = projection.select(headers);
+            int lastNewline = lastIndexOf(buffer, (byte) '\n', dataStart, length);
+            // A last line without line break is parsed now, but read again by a tail read once it is complete
+            return parseRows(buffer, dataStart, length, headers, selected, file.getName(), monitor)
+                    .sourceOffset(lastNewline < 0 ? dataStart : lastNewline + 1);
+        }
+    }
+
+    /**
+     * Parses the complete lines appended to the export after {@code offset} (see
+     * {@link ExcelData#getSourceOffset()}), using the headers and column selection of the
+     * initial read. A trailing line without line break is left for the next call.
+     *
+     * @return The new rows (possibly none); their source offset is the position after the last parsed line.
+     * @throws IOException If the file cannot be read or is shorter than the offset.
+     */
+    ExcelData readTail(File file, List<String> headers, boolean[] selected, long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) throw new IOException("CSV file '" + file.getName() + "' is shorter than the last read position " + offset + ".");
+            if (size - offset > Integer.MAX_VALUE) {
+                throw new IOException("Appended part of '" + file.getName() + "' is too large (" + (size - offset) + " bytes) to be mapped.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size - offset);
+            int complete = lastIndexOf(buffer, (byte) '\n', 0, (int) (size - offset)) + 1; // 0 = no complete line yet
+            return parseRows(buffer, 0, complete, headers, selected, file.getName(), LoadMonitor.none())
+                    .sourceOffset(offset + complete)
+                    .build();
+        }
+    }
+
+    /**
+     * Splits [dataStart, length) at line boundaries and parses the chunks in parallel into a columnar builder.
+     * The chunk parsers report every {@value #PROGRESS_LINES} lines to the monitor and stop once it is cancelled.
+     */
+    private static ExcelData.Builder parseRows(ByteBuffer buffer, int dataStart, int length, List<String> headers, boolean[] selected, String sourceName, LoadMonitor monitor) {
+        // --- Split at line boundaries and count rows per chunk ---
+        int chunkCount = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), (length - dataStart) / MIN_CHUNK_BYTES));
+        int[] bounds = new int[chunkCount + 1];
+        bounds[0] = dataStart;
+        bounds[chunkCount] = length;
+        for (int i = 1; i < chunkCount; i++) {
+            int target = Math.max(bounds[i - 1], dataStart + (int) ((long) (length - dataStart) * i / chunkCount));
+            int newline = indexOf(buffer, (byte) '\n', target, length);
+            bounds[i] = newline < 0 ? length : newline + 1;
+        }
+        int[] lineCounts = IntStream.range(0, chunkCount).parallel()
+                .map(i -> countLines(buffer, bounds[i], bounds[i + 1])).toArray();
+        int[] firstLine = new int[chunkCount];
+        int totalLines = 0;
+        for (int i = 0; i < chunkCount; i++) { firstLine[i] = totalLines; totalLines += lineCounts[i]; }
+        monitor.checkCancelled();
+
+        // --- Parse chunks in parallel directly into the column arrays ---
+        double[][] columns = new double[headers.size()][];
+        for (int col = 1; col < columns.length; col++) {
+            if (col < selected.length && selected[col]) columns[col] = new double[totalLines]; // Other fields are skipped by the parser
+        }
+        long[] minutes = new long[totalLines];
+        String[] rawLabels = new String[totalLines]; // Only filled for timestamps that cannot be parsed
+        int[] validRows = IntStream.range(0, chunkCount).parallel()
+                .map(i -> new ChunkParser(buffer, columns, minutes, rawLabels, sourceName, monitor).parse(bounds[i], bounds[i + 1], firstLine[i]))
+                .toArray();
+
+        // --- Compact rows that were skipped (blank lines, missing timestamps) ---
+        int rowCount = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            int from = firstLine[i];
+            if (from != rowCount) {
+                System.arraycopy(minutes, from, minutes, rowCount, validRows[i]);
+                System.arraycopy(rawLabels, from, rawLabels, rowCount, validRows[i]);
+                for (double[] column : columns) {
+                    if (column != null) System.arraycopy(column, from, column, rowCount, validRows[i]);
+                }
+            }
+            rowCount += validRows[i];
+        }
+        logger.debug("Parsed {} of {} lines from '{}' in {} chunk(s).", rowCount, totalLines, sourceName, chunkCount);
+        return ExcelData.Builder.wrap(headers, TimestampAxis.of(minutes, rawLabels, rowCount), columns);
+    }
+
+    private static List<String> parseHeaders(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        List<String> headers = new ArrayList<>();
+        for (String header : line.split(String.valueOf((char) DELIMITER), -1)) headers.add(unquote(header.trim()));
+        return headers;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte b, int from, int to) {
+        for (int i = from; i < to; i++) if (buffer.get(i) == b) return i;
+        return -1;
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, byte b, int from, int to) {
+        for (int i = to - 1; i >= from; i--) if (buffer.get(i) == b) return i;
+        return -1;
+    }
+
+    /** Counts the lines starting in [from, to); a last line without line break counts as well. */
+    private static int countLines(ByteBuffer buffer, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) if (buffer.get(i) == '\n') count++;
+        if (to > from && buffer.get(to - 1) != '\n') count++;
+        return count;
+    }
+
+    /** Parses the lines of one chunk; writes rows starting at the chunk's first line index. */
+    private static final class ChunkParser {
+        private final ByteBuffer buffer;
+        private final double[][] columns;
+        private final long[] minutes;
+        private final String[] rawLabels;
+        private final String sourceName;
+        private final LoadMonitor monitor;
+        private final NumberParser.ByteSpan numbers; // Parses the value fields in place
+        // Rows of the same day share the epoch day; cache the last conversion
+        private int lastDateKey = -1;
+        private long lastEpochDay;
+
+        ChunkParser(ByteBuffer buffer, double[][] columns, long[] minutes, String[] rawLabels, String sourceName, LoadMonitor monitor) {
+            this.buffer = buffer;
+            this.columns = columns;
+            this.minutes = minutes;
+            this.rawLabels = rawLabels;
+            this.sourceName = sourceName;
+            this.monitor = monitor;
+            this.numbers = new NumberParser.ByteSpan(buffer);
+        }
+
+        /** @return Number of valid rows written, packed from {@code firstRow} on. */
+        int parse(int from, int to, int firstRow) {
+            int row = firstRow;
+            int lineNumber = firstRow + 2; // 1-based, after the header line
+            int pos = from;
+            int linesSinceReport = 0;
+            while (pos < to) {
+                int lineEnd = pos;
+                while (lineEnd < to && buffer.get(lineEnd) != '\n') lineEnd++;
+                int contentEnd = (lineEnd > pos && buffer.get(lineEnd - 1) == '\r') ? lineEnd - 1 : lineEnd;
+                if (parseLine(pos, contentEnd, row, lineNumber)) row++;
+                pos = lineEnd + 1;
+                lineNumber++;
+                if (++linesSinceReport == PROGRESS_LINES) {
+                    monitor.rowsRead(linesSinceReport);
+                    monitor.checkCancelled();
+                    linesSinceReport = 0;
+                }
+            }
+            monitor.rowsRead(linesSinceReport);
+            return row - firstRow;
+        }
+
+        private boolean parseLine(int from, int to, int row, int lineNumber) {
+            if (from >= to) return false; // Blank line
+            int fieldEnd = from;
+            while (fieldEnd < to && buffer.get(fieldEnd) != DELIMITER) fieldEnd++;
+            if (!parseTimestamp(from, fieldEnd, row, lineNumber)) {
+                logger.warn("Missing or invalid timestamp in '{}', Line {}. Skipping line.", sourceName, lineNumber);
+                return false;
+            }
+
+            int col = 1;
+            int pos = fieldEnd + 1;
+            while (pos <= to && col < columns.length) {
+                fieldEnd = pos;
+                while (fieldEnd < to && buffer.get(fieldEnd) != DELIMITER) fieldEnd++;
+                if (columns[col] != null) columns[col][row] = numbers.parse(pos, fieldEnd);
+                col++;
+                pos = fieldEnd + 1;
+            }
+            for (; col < columns.length; col++) { // Missing trailing fields
+                if (columns[col] != null) columns[col][row] = Double.NaN;
+            }
+            return true;
+        }
+
+        /**
+         * Converts {@code yyyy-MM-dd HH:mm[:ss]} or {@code dd.MM.yyyy HH:mm[:ss]} directly to epoch
+         * minutes. Other formats go through {@link ExcelReader#normalizeTimestamp}.
+         * @return The epoch minute, or {@link TimestampAxis#INVALID} if the format is not one of the above.
+         */
+        private long parseKnownTimestamp(int from, int to) {
+            while (from < to && isBlank(buffer.get(from))) from++;
+            while (to > from && isBlank(buffer.get(to - 1))) to--;
+            int len = to - from;
+            if (len != 16 && len != 19) return TimestampAxis.INVALID;
+            int year, month, day;
+            if (buffer.get(from + 4) == '-' && buffer.get(from + 7) == '-') { // yyyy-MM-dd HH:mm
+                year = digits(from, 4); month = digits(from + 5, 2); day = digits(from + 8, 2);
+            } else if (buffer.get(from + 2) == '.' && buffer.get(from + 5) == '.') { // dd.MM.yyyy HH:mm
+                day = digits(from, 2); month = digits(from + 3, 2); year = digits(from + 6, 4);
+            } else {
+                return TimestampAxis.INVALID;
+            }
+            byte separator = buffer.get(from + 10);
+            if ((separator != ' ' && separator != 'T') || buffer.get(from + 13) != ':') return TimestampAxis.INVALID;
+            int hour = digits(from + 11, 2), minute = digits(from + 14, 2);
+            if (year < 0 || month < 0 || day < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59) return TimestampAxis.INVALID;
+            int dateKey = year * 10000 + month * 100 + day;
+            if (dateKey != lastDateKey) {
+                try {
+                    lastEpochDay = LocalDate.of(year, month, day).toEpochDay();
+                } catch (DateTimeException e) {
+                    return TimestampAxis.INVALID;
+                }
+                lastDateKey = dateKey;
+            }
+            return lastEpochDay * 1440L + hour * 60L + minute;
+        }
+
+        /** Stores the epoch minute (or the raw label for unparsable text) of the row; false if the field is empty. */
+        private boolean parseTimestamp(int from, int to, int row, int lineNumber) {
+            long minute = parseKnownTimestamp(from, to);
+            rawLabels[row] = null;
+            if (minute != TimestampAxis.INVALID) {
+                minutes[row] = minute;
+                return true;
+            }
+            byte[] raw = new byte[Math.max(0, to - from)];
+            buffer.get(from, raw);
+            String text = new String(raw, StandardCharsets.UTF_8).trim();
+            if (text.isEmpty()) return false;
+            String label = ExcelReader.normalizeTimestamp(text, sourceName, lineNumber);
+            minutes[row] = TimestampAxis.parseEpochMinute(label);
+            if (minutes[row] == TimestampAxis.INVALID) rawLabels[row] = label;
+            return true;
+        }
+
+        /** @return The value of {@code count} ASCII digits, or -1 if a non-digit is found. */
+        private int digits(int from, int count) {
+            int value = 0;
+            for (int i = 0; i < count; i++) {
+                byte b = buffer.get(from + i);
+                if (b < '0' || b > '9') return -1;
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '"';
+        }
+    }
+}
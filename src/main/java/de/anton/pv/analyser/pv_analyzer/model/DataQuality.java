@@ -0,0 +1,266 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Data-quality flags of the DC power/voltage samples of every tracker, computed once at load time
+ * and stored as one bitset per tracker and flag over the rows of the timestamp axis (tracker index =
+ * ID in the {@link TrackerRegistry} of the dataset).
+ * <ul>
+ * <li>{@link #GAP}: power or voltage missing (empty cell, unparsable value or column not present).</li>
+ * <li>{@link #NEGATIVE_POWER}: DC power below zero.</li>
+ * <li>{@link #IMPLAUSIBLE_VOLTAGE}: DC voltage below zero or above {@link #MAX_DC_VOLTAGE_V}.</li>
+ * <li>{@link #FROZEN}: the same non-idle power value in at least {@link #FROZEN_RUN_LENGTH} consecutive rows.</li>
+ * <li>{@link #SPIKE}: power above or below both neighbouring samples by more than {@link #SPIKE_FRACTION}
+ *     of the nominal power, or voltage off both (positive) neighbours by more than {@link #VOLTAGE_SPIKE_FRACTION}.</li>
+ * <li>{@link #LOW_POWER}: power at or below {@link #MIN_POWER_KW} (night, standby). Not an error, but
+ *     such samples are not used by the analyses.</li>
+ * </ul>
+ * Only the {@link #EXCLUDED} flags remove a sample from the analyses; {@link #FROZEN} and {@link #SPIKE}
+ * are informational, since clipping plateaus and real peaks look the same. Analyses iterate the usable
+ * rows with {@link #nextUsableRow} instead of checking every cell.
+ * Instances are immutable; {@link #extend} returns a new instance for appended rows.
+ */
+public final class DataQuality {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataQuality.class);
+
+    public static final int GAP = 1;
+    public static final int NEGATIVE_POWER = 1 << 1;
+    public static final int IMPLAUSIBLE_VOLTAGE = 1 << 2;
+    public static final int FROZEN = 1 << 3;
+    public static final int SPIKE = 1 << 4;
+    public static final int LOW_POWER = 1 << 5;
+    /** All flags that mark a sample as invalid (all except {@link #LOW_POWER}). */
+    public static final int INVALID = GAP | NEGATIVE_POWER | IMPLAUSIBLE_VOLTAGE | FROZEN | SPIKE;
+    /** Flags that make a sample unusable for the analyses (the invalid readings and {@link #LOW_POWER}). */
+    public static final int EXCLUDED = GAP | NEGATIVE_POWER | IMPLAUSIBLE_VOLTAGE | LOW_POWER;
+
+    /** Power threshold of usable samples in kW (min 0.05 kW DC-Leistung). */
+    public static final double MIN_POWER_KW = 0.05;
+    /** Upper limit of plausible DC voltages (max. system voltage of common inverters). */
+    public static final double MAX_DC_VOLTAGE_V = 1500.0;
+    /** Number of consecutive equal power values from which a sensor is considered frozen. */
+    public static final int FROZEN_RUN_LENGTH = 6;
+    /** Power spike threshold as fraction of the nominal power of the tracker. */
+    public static final double SPIKE_FRACTION = 0.5;
+    /** Voltage spike threshold as fraction of the mean of the neighbouring samples. */
+    public static final double VOLTAGE_SPIKE_FRACTION = 0.25;
+
+    private static final String[] FLAG_NAMES = {"Lücke", "negative Leistung", "unplausible Spannung", "eingefroren", "Sprung", "keine Leistung"};
+    private static final int FLAG_COUNT = FLAG_NAMES.length;
+    private static final DataQuality EMPTY = new DataQuality(0, new long[0][][], new long[0][]);
+
+    private final int rowCount;
+    private final long[][][] flagBits; // [tracker][flag][word]
+    private final long[][] unusable;   // [tracker][word]: OR of the EXCLUDED flags
+
+    private DataQuality(int rowCount, long[][][] flagBits, long[][] unusable) {
+        this.rowCount = rowCount;
+        this.flagBits = flagBits;
+        this.unusable = unusable;
+    }
+
+    /** @return The instance without trackers and rows. */
+    public static DataQuality empty() {
+        return EMPTY;
+    }
+
+    /** Scans the first {@code rowCount} rows of all trackers of the registry. */
+    static DataQuality scan(ExcelData data, TrackerRegistry registry, int rowCount) {
+        if (registry.size() == 0 || rowCount == 0) return EMPTY;
+        long start = System.nanoTime();
+        int words = words(rowCount);
+        long[][][] flagBits = new long[registry.size()][FLAG_COUNT][words];
+        long[][] unusable = new long[registry.size()][words];
+        for (int id = 0; id < registry.size(); id++) {
+            scanTracker(data, registry, id, rowCount, 0, flagBits[id], unusable[id]);
+        }
+        DataQuality quality = new DataQuality(rowCount, flagBits, unusable);
+        logger.debug("Data quality scan of {} trackers x {} rows in {} ms: {}", registry.size(), rowCount, (System.nanoTime() - start) / 1_000_000, quality.summary());
+        return quality;
+    }
+
+    /**
+     * Returns the flags for {@code newRowCount} rows after rows were appended. Only the new rows and
+     * the trailing rows whose flags depend on them (last spike neighbour, a running frozen sequence)
+     * are scanned again.
+     */
+    DataQuality extend(ExcelData data, TrackerRegistry registry, int newRowCount) {
+        if (newRowCount <= rowCount) return this;
+        if (flagBits.length != registry.size() || rowCount == 0) return scan(data, registry, newRowCount);
+        int words = words(newRowCount);
+        long[][][] newFlagBits = new long[flagBits.length][FLAG_COUNT][];
+        long[][] newUnusable = new long[flagBits.length][];
+        for (int id = 0; id < flagBits.length; id++) {
+            for (int flag = 0; flag < FLAG_COUNT; flag++) newFlagBits[id][flag] = Arrays.copyOf(flagBits[id][flag], words);
+            newUnusable[id] = Arrays.copyOf(unusable[id], words);
+            double[] power = data.getColumnArray(registry.getPowerColumn(id));
+            int from = power != null ? rescanStart(power, rowCount) : rowCount - 1;
+            for (int row = from; row < rowCount; row++) { // Rows that are scanned again
+                for (long[] bits : newFlagBits[id]) bits[row >>> 6] &= ~(1L << row);
+                newUnusable[id][row >>> 6] &= ~(1L << row);
+            }
+            scanTracker(data, registry, id, newRowCount, from, newFlagBits[id], newUnusable[id]);
+        }
+        return new DataQuality(newRowCount, newFlagBits, newUnusable);
+    }
+
+    /**
+     * @return First row of a tracker whose flags can change when rows are appended after {@code rowCount}:
+     *         the old last row (spike neighbour) or the start of a running equal-value sequence.
+     */
+    static int rescanStart(double[] power, int rowCount) {
+        int from = rowCount - 1;
+        if (isActive(power[from])) {
+            while (from > 0 && power[from - 1] == power[rowCount - 1]) from--;
+        }
+        return from;
+    }
+
+    /** Sets the flags of rows [from, rowCount) of one tracker (their bits must be clear). */
+    private static void scanTracker(ExcelData data, TrackerRegistry registry, int id, int rowCount, int from, long[][] bits, long[] unusable) {
+        double[] power = data.getColumnArray(registry.getPowerColumn(id));
+        double[] voltage = data.getColumnArray(registry.getVoltageColumn(id));
+        if (power == null || voltage == null) { // Missing columns: every sample is a gap
+            for (int row = from; row < rowCount; row++) set(bits, unusable, GAP, row);
+            return;
+        }
+        TrackerInfo info = registry.getTrackerInfo(id);
+        double nominal = info != null ? info.getNennleistungkWp() : Double.NaN;
+        double spikeThreshold = nominal > 0 ? SPIKE_FRACTION * nominal : Double.NaN; // No power spike check without nominal power
+        int runStart = from;
+        for (int row = from; row < rowCount; row++) {
+            double p = power[row], v = voltage[row];
+            if (Double.isNaN(p) || Double.isNaN(v)) set(bits, unusable, GAP, row);
+            if (p < 0) set(bits, unusable, NEGATIVE_POWER, row);
+            if (v < 0 || v > MAX_DC_VOLTAGE_V) set(bits, unusable, IMPLAUSIBLE_VOLTAGE, row);
+            if (p <= MIN_POWER_KW) set(bits, unusable, LOW_POWER, row);
+            if (row > 0 && row + 1 < rowCount && isSpike(power[row - 1], p, power[row + 1], voltage[row - 1], v, voltage[row + 1], spikeThreshold)) {
+                set(bits, unusable, SPIKE, row);
+            }
+            // Frozen: runs of the same active power value
+            if (row > runStart && !(isActive(p) && p == power[row - 1])) {
+                markRun(bits, unusable, runStart, row);
+                runStart = row;
+            }
+        }
+        markRun(bits, unusable, runStart, rowCount);
+    }
+
+    private static boolean isSpike(double prevP, double p, double nextP, double prevV, double v, double nextV, double powerThreshold) {
+        if (!Double.isNaN(powerThreshold) && (p - Math.max(prevP, nextP) > powerThreshold || Math.min(prevP, nextP) - p > powerThreshold)) return true;
+        if (!(prevV > 0 && nextV > 0)) return false;
+        double voltageThreshold = VOLTAGE_SPIKE_FRACTION * (prevV + nextV) / 2;
+        return v - Math.max(prevV, nextV) > voltageThreshold || Math.min(prevV, nextV) - v > voltageThreshold;
+    }
+
+    private static boolean isActive(double power) {
+        return power > MIN_POWER_KW; // false for NaN
+    }
+
+    private static void markRun(long[][] bits, long[] unusable, int from, int to) {
+        if (to - from < FROZEN_RUN_LENGTH) return;
+        for (int row = from; row < to; row++) set(bits, unusable, FROZEN, row);
+    }
+
+    private static void set(long[][] bits, long[] unusable, int flag, int row) {
+        bits[Integer.numberOfTrailingZeros(flag)][row >>> 6] |= 1L << row;
+        if ((flag & EXCLUDED) != 0) unusable[row >>> 6] |= 1L << row;
+    }
+
+    private static int words(int rows) {
+        return (rows + 63) >>> 6;
+    }
+
+    // --- Access ---
+
+    /** @return Number of rows the flags were computed for. */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** @return Number of trackers (IDs of the {@link TrackerRegistry} of the dataset). */
+    public int getTrackerCount() {
+        return flagBits.length;
+    }
+
+    /** @return Flags of the sample (0 if it is valid and above the power threshold, or if the row was not scanned). */
+    public int getFlags(int trackerId, int row) {
+        if (row < 0 || row >= rowCount) return 0;
+        int flags = 0;
+        long[][] bits = flagBits[trackerId];
+        for (int flag = 0; flag < FLAG_COUNT; flag++) {
+            if ((bits[flag][row >>> 6] & (1L << row)) != 0) flags |= 1 << flag;
+        }
+        return flags;
+    }
+
+    /** @return true if the sample has none of the {@link #EXCLUDED} flags (valid reading above {@link #MIN_POWER_KW}). */
+    public boolean isUsable(int trackerId, int row) {
+        return row >= 0 && row < rowCount && (unusable[trackerId][row >>> 6] & (1L << row)) == 0;
+    }
+
+    /**
+     * @return The first row at or after {@code fromRow} whose sample has none of the {@link #EXCLUDED} flags, or -1 if there is none
+     *         (rows beyond {@link #getRowCount()} are never returned).
+     */
+    public int nextUsableRow(int trackerId, int fromRow) {
+        if (fromRow < 0) fromRow = 0;
+        if (fromRow >= rowCount) return -1;
+        long[] mask = unusable[trackerId];
+        int word = fromRow >>> 6;
+        long free = ~mask[word] & (-1L << fromRow);
+        while (true) {
+            if (free != 0) {
+                int row = (word << 6) + Long.numberOfTrailingZeros(free);
+                return row < rowCount ? row : -1;
+            }
+            if (++word == mask.length) return -1;
+            free = ~mask[word];
+        }
+    }
+
+    /** @return Number of samples of the tracker that have any of the given flags. */
+    public int countRows(int trackerId, int flags) {
+        long[][] bits = flagBits[trackerId];
+        int count = 0, words = words(rowCount);
+        for (int word = 0; word < words; word++) {
+            long any = 0;
+            for (int flag = 0; flag < FLAG_COUNT; flag++) {
+                if ((flags & (1 << flag)) != 0) any |= bits[flag][word];
+            }
+            count += Long.bitCount(any);
+        }
+        return count;
+    }
+
+    /** @return Number of samples over all trackers with at least one {@link #INVALID} flag. */
+    public long countInvalidSamples() {
+        long count = 0;
+        for (int id = 0; id < flagBits.length; id++) count += countRows(id, INVALID);
+        return count;
+    }
+
+    /** @return Number of flagged samples per flag over all trackers, e.g. "Lücke: 12, eingefroren: 6" (German, for the UI). */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (int flag = 0; flag < FLAG_COUNT; flag++) {
+            if ((INVALID & (1 << flag)) == 0) continue;
+            long count = 0;
+            for (long[][] bits : flagBits) {
+                for (long word : bits[flag]) count += Long.bitCount(word);
+            }
+            if (count > 0) sb.append(sb.length() > 0 ? ", " : "").append(FLAG_NAMES[flag]).append(": ").append(count);
+        }
+        return sb.length() > 0 ? sb.toString() : "keine Auffälligkeiten";
+    }
+
+    @Override
+    public String toString() {
+        return "DataQuality{trackers=" + flagBits.length + ", rows=" + rowCount + ", " + summary() + '}';
+    }
+}
@@ -0,0 +1,293 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk cache of parsed {@link ExcelData} in a compact binary columnar layout, so that
+ * reopening an unchanged workbook does not need to parse it again.
+ * <p>
+ * An entry is keyed by the size and modification time of the source file, a CRC32C over its
+ * first and last {@value #HASH_WINDOW} bytes (only computed once size and mtime match) and a
+ * variant tag (e.g. the load mode). The absolute source path is stored in the entry and checked
+ * on read, so two files whose path hashes collide never share an entry. Layout (little endian):
+ * <pre>
+ * header   : magic, version, source size, source mtime, source CRC32C, row count, column count, meta length
+ * meta     : variant, source path, headers, tracker info, module info, raw timestamp labels (DataOutput encoding)
+ * padding  : up to the next 8 byte boundary
+ * axis     : long[rowCount] epoch minutes
+ * columns  : double[rowCount] for every present header column (present flags are part of meta)
+ * </pre>
+ * On a hit the entry is memory-mapped and the arrays are bulk-copied from the mapping.
+ * Cache problems are never fatal: they are logged and the caller falls back to parsing.
+ */
+public class DatasetCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatasetCache.class);
+    /** System property overriding the cache directory. */
+    public static final String CACHE_DIR_PROPERTY = "pv.analyzer.cacheDir";
+    private static final String FILE_SUFFIX = ".pvcache";
+    private static final int MAGIC = 0x50564443; // "PVDC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 4 + 4;
+    private static final int HASH_WINDOW = 1024 * 1024;
+
+    private final Path cacheDir;
+
+    /** @param cacheDir Directory for the cache entries (created on first write). */
+    public DatasetCache(Path cacheDir) {
+        this.cacheDir = Objects.requireNonNull(cacheDir, "Cache directory cannot be null.");
+    }
+
+    /** @return Directory from the system property {@value #CACHE_DIR_PROPERTY}, or {@code ~/.pv-analyzer/cache}. */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty(CACHE_DIR_PROPERTY);
+        if (configured != null && !configured.isBlank()) return Paths.get(configured);
+        return Paths.get(System.getProperty("user.home"), ".pv-analyzer", "cache");
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Looks up the cache entry of the source file.
+     *
+     * @param source  The source file (workbook).
+     * @param variant Tag distinguishing different parsers of the same file (e.g. load mode).
+     * @return The cached data, or empty on a miss (missing, stale or unreadable entry).
+     */
+    public Optional<ExcelData> read(File source, String variant) {
+        Path entry = entryPath(source);
+        if (!Files.isRegularFile(entry)) return Optional.empty();
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(entry, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected cache entry size " + channel.size() + ".");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) throw new IOException("Unknown cache entry format.");
+            long size = buffer.getLong(), mtime = buffer.getLong();
+            int crc = buffer.getInt();
+            if (size != source.length() || mtime != source.lastModified()) {
+                logger.info("Cache entry for '{}' is stale.", source.getName());
+                return Optional.empty();
+            }
+            if (crc != contentHash(source)) {
+                logger.info("Cache entry for '{}' is stale (content changed).", source.getName());
+                return Optional.empty();
+            }
+            int rowCount = buffer.getInt(), columnCount = buffer.getInt(), metaLength = buffer.getInt();
+            byte[] metaBytes = new byte[metaLength];
+            buffer.get(metaBytes);
+            DataInputStream meta = new DataInputStream(new ByteArrayInputStream(metaBytes));
+            if (!variant.equals(meta.readUTF())) {
+                logger.info("Cache entry for '{}' was written by another load mode.", source.getName());
+                return Optional.empty();
+            }
+            if (!sourcePath(source).equals(meta.readUTF())) {
+                logger.info("Cache entry '{}' belongs to another file than '{}'.", entry, source.getName());
+                return Optional.empty();
+            }
+            List<String> headers = new ArrayList<>(columnCount);
+            boolean[] present = new boolean[columnCount];
+            for (int col = 0; col < columnCount; col++) {
+                headers.add(meta.readUTF());
+                present[col] = meta.readBoolean();
+            }
+            Map<String, TrackerInfo> trackerInfoMap = readTrackerInfo(meta);
+            ModuleInfo moduleInfo = readModuleInfo(meta);
+            String[] rawLabels = null;
+            int rawCount = meta.readInt();
+            if (rawCount > 0) {
+                rawLabels = new String[rowCount];
+                for (int i = 0; i < rawCount; i++) {
+                    int row = meta.readInt();
+                    rawLabels[Objects.checkIndex(row, rowCount)] = meta.readUTF();
+                }
+            }
+
+            buffer.position(align(HEADER_BYTES + metaLength));
+            long[] minutes = new long[rowCount];
+            buffer.asLongBuffer().get(minutes);
+            buffer.position(buffer.position() + rowCount * Long.BYTES);
+            double[][] columns = new double[columnCount][];
+            for (int col = 0; col < columnCount; col++) {
+                if (!present[col]) continue;
+                columns[col] = new double[rowCount];
+                buffer.asDoubleBuffer().get(columns[col]);
+                buffer.position(buffer.position() + rowCount * Double.BYTES);
+            }
+
+            ExcelData data = ExcelData.Builder.wrap(headers, TimestampAxis.of(minutes, rawLabels, rowCount), columns)
+                    .trackerInfoMap(trackerInfoMap)
+                    .moduleInfo(moduleInfo)
+                    .build();
+            logger.info("Loaded '{}' from cache ({} rows) in {} ms.", source.getName(), rowCount, (System.nanoTime() - start) / 1_000_000);
+            return Optional.of(data);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not read cache entry '{}' for '{}': {}. Entry is discarded.", entry, source.getName(), e.getMessage());
+            delete(entry);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes the parsed data of the source file to the cache (atomically replacing an older entry).
+     * Failures are logged and otherwise ignored.
+     */
+    public void write(File source, String variant, ExcelData data) {
+        Path entry = entryPath(source);
+        Path temp = null;
+        try {
+            Files.createDirectories(cacheDir);
+            long size = source.length(), mtime = source.lastModified();
+            int crc = contentHash(source);
+            List<String> headers = data.getSheet1Headers();
+            int rowCount = data.getRowCount(), columnCount = headers.size();
+            TimestampAxis axis = data.getTimestampAxis();
+
+            ByteArrayOutputStream metaBytes = new ByteArrayOutputStream();
+            DataOutputStream meta = new DataOutputStream(metaBytes);
+            meta.writeUTF(variant);
+            meta.writeUTF(sourcePath(source));
+            for (int col = 0; col < columnCount; col++) {
+                meta.writeUTF(headers.get(col));
+                meta.writeBoolean(data.hasColumnData(col));
+            }
+            writeTrackerInfo(meta, data.getTrackerInfoMap());
+            writeModuleInfo(meta, data.getModuleInfo());
+            List<Integer> rawRows = new ArrayList<>();
+            for (int row = 0; row < rowCount; row++) {
+                if (axis.getEpochMinute(row) == TimestampAxis.INVALID) rawRows.add(row);
+            }
+            meta.writeInt(rawRows.size());
+            for (int row : rawRows) {
+                meta.writeInt(row);
+                meta.writeUTF(axis.getLabel(row));
+            }
+            meta.flush();
+
+            temp = Files.createTempFile(cacheDir, entry.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                int metaLength = metaBytes.size();
+                ByteBuffer head = ByteBuffer.allocate(align(HEADER_BYTES + metaLength)).order(ByteOrder.LITTLE_ENDIAN);
+                head.putInt(MAGIC).putInt(VERSION).putLong(size).putLong(mtime).putInt(crc)
+                    .putInt(rowCount).putInt(columnCount).putInt(metaLength).put(metaBytes.toByteArray());
+                writeFully(channel, head.clear());
+
+                ByteBuffer chunk = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+                for (int row = 0; row < rowCount; row++) {
+                    if (!chunk.hasRemaining()) writeFully(channel, chunk.flip());
+                    chunk.putLong(axis.getEpochMinute(row));
+                }
+                for (int col = 0; col < columnCount; col++) {
+                    double[] column = data.getColumnArray(col);
+                    if (column == null) continue;
+                    for (int row = 0; row < rowCount; row++) {
+                        if (!chunk.hasRemaining()) writeFully(channel, chunk.flip());
+                        chunk.putDouble(column[row]);
+                    }
+                }
+                writeFully(channel, chunk.flip());
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Cached parsed data of '{}' in '{}'.", source.getName(), entry);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not write cache entry for '{}': {}", source.getName(), e.getMessage());
+            if (temp != null) delete(temp);
+        }
+    }
+
+    /** Removes the cache entry of the source file, if any. */
+    public void invalidate(File source) {
+        delete(entryPath(source));
+    }
+
+    /** Entry name: file name plus a hash of the absolute path (same names in different plant folders). */
+    Path entryPath(File source) {
+        String name = source.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        String pathHash = Integer.toHexString(sourcePath(source).hashCode());
+        return cacheDir.resolve(name + "-" + pathHash + FILE_SUFFIX);
+    }
+
+    static String sourcePath(File source) {
+        return source.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * CRC32C over the first and the last {@value #HASH_WINDOW} bytes of the file (the whole file if it
+     * is smaller). Together with size and mtime this catches rewritten files without reading all of a
+     * large workbook on every lookup.
+     */
+    static int contentHash(File file) throws IOException {
+        CRC32C crc = new CRC32C();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(HASH_WINDOW, size)));
+            long tail = Math.max(HASH_WINDOW, size - HASH_WINDOW);
+            if (tail < size) crc.update(channel.map(FileChannel.MapMode.READ_ONLY, tail, size - tail));
+        }
+        return (int) crc.getValue();
+    }
+
+    static void writeTrackerInfo(DataOutput out, Map<String, TrackerInfo> trackerInfoMap) throws IOException {
+        out.writeInt(trackerInfoMap.size());
+        for (TrackerInfo info : trackerInfoMap.values()) {
+            out.writeUTF(info.getName());
+            out.writeDouble(info.getNennleistungkWp());
+            out.writeUTF(info.getAusrichtung());
+            out.writeInt(info.getAnzahlStrings());
+        }
+    }
+
+    static Map<String, TrackerInfo> readTrackerInfo(DataInput in) throws IOException {
+        Map<String, TrackerInfo> trackerInfoMap = new LinkedHashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            TrackerInfo info = new TrackerInfo(in.readUTF(), in.readDouble(), in.readUTF(), in.readInt());
+            trackerInfoMap.put(info.getName(), info);
+        }
+        return trackerInfoMap;
+    }
+
+    static void writeModuleInfo(DataOutput out, ModuleInfo moduleInfo) throws IOException {
+        out.writeBoolean(moduleInfo != null);
+        if (moduleInfo != null) {
+            out.writeDouble(moduleInfo.getPnennKWp());
+            out.writeDouble(moduleInfo.getPmppKW());
+            out.writeDouble(moduleInfo.getVmppV());
+            out.writeDouble(moduleInfo.getImppA());
+        }
+    }
+
+    static ModuleInfo readModuleInfo(DataInput in) throws IOException {
+        return in.readBoolean() ? new ModuleInfo(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()) : null;
+    }
+
+    static int align(int position) {
+        return (position + 7) & ~7;
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.debug("Could not delete '{}': {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Immutable sequence of epoch minutes compressed with delta-of-delta encoding (as in Gorilla),
+ * in independent blocks of {@value #BLOCK_ROWS} values.
+ * <p>
+ * The first value of each block is kept uncompressed in {@code blockFirst} (which also serves
+ * as the search key for block lookups). For every further value the difference between its
+ * delta and the previous delta is written in one of five buckets:
+ * '0' (same step, e.g. regular 1 or 5 minute data), '10' + 7 bits, '110' + 9 bits,
+ * '1110' + 12 bits or '1111' + 64 bits. A regular axis therefore needs about one bit per row.
+ */
+final class DeltaOfDeltaMinutes {
+
+    static final int BLOCK_ROWS = 1024;
+
+    private final long[] bits;
+    private final long[] blockOffsets; // Bit position of every block
+    private final long[] blockFirst; // First value of every block
+    private final int size;
+    private volatile DecodedBlock lastBlock;
+
+    private static final class DecodedBlock {
+        final int index;
+        final long[] values;
+        DecodedBlock(int index, long[] values) { this.index = index; this.values = values; }
+    }
+
+    private DeltaOfDeltaMinutes(long[] bits, long[] blockOffsets, long[] blockFirst, int size) {
+        this.bits = bits;
+        this.blockOffsets = blockOffsets;
+        this.blockFirst = blockFirst;
+        this.size = size;
+    }
+
+    /** Encodes the first {@code count} values (any long values, including {@link TimestampAxis#INVALID}). */
+    static DeltaOfDeltaMinutes encode(long[] values, int count) {
+        BitStream.Writer out = new BitStream.Writer();
+        int blocks = (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        long[] offsets = new long[blocks];
+        long[] first = new long[blocks];
+        for (int b = 0; b < blocks; b++) {
+            offsets[b] = out.position();
+            int from = b * BLOCK_ROWS, to = Math.min(count, from + BLOCK_ROWS);
+            first[b] = values[from];
+            long previous = values[from], previousDelta = 0;
+            for (int i = from + 1; i < to; i++) {
+                long delta = values[i] - previous; // Wraps for extreme values; decoding wraps back
+                long dod = delta - previousDelta;
+                if (dod == 0) {
+                    out.writeBit(false);
+                } else if (dod >= -63 && dod <= 64) {
+                    out.write(0b10, 2);
+                    out.write(dod + 63, 7);
+                } else if (dod >= -255 && dod <= 256) {
+                    out.write(0b110, 3);
+                    out.write(dod + 255, 9);
+                } else if (dod >= -2047 && dod <= 2048) {
+                    out.write(0b1110, 4);
+                    out.write(dod + 2047, 12);
+                } else {
+                    out.write(0b1111, 4);
+                    out.write(dod, 64);
+                }
+                previous = values[i];
+                previousDelta = delta;
+            }
+        }
+        return new DeltaOfDeltaMinutes(out.toWords(), offsets, first, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        Objects.checkIndex(index, size);
+        return block(index / BLOCK_ROWS)[index % BLOCK_ROWS];
+    }
+
+    /**
+     * Binary search for a strictly ascending sequence; same contract as
+     * {@link Arrays#binarySearch(long[], long)}. Decodes at most one block.
+     */
+    int binarySearch(long key) {
+        if (size == 0) return -1;
+        int b = Arrays.binarySearch(blockFirst, key);
+        if (b >= 0) return b * BLOCK_ROWS;
+        b = -b - 2; // Block whose first value is below the key
+        if (b < 0) return -1;
+        long[] values = block(b);
+        int idx = Arrays.binarySearch(values, key);
+        return idx >= 0 ? b * BLOCK_ROWS + idx : -(b * BLOCK_ROWS + (-idx - 1)) - 1;
+    }
+
+    /** @return Approximate heap size of the compressed data in bytes. */
+    long sizeInBytes() {
+        return 48L + (bits.length + blockOffsets.length + blockFirst.length) * 8L;
+    }
+
+    /** @return Number of bytes written by {@link #writeTo}. */
+    int serializedBytes() {
+        return 3 * Integer.BYTES + (bits.length + 2 * blockOffsets.length) * Long.BYTES;
+    }
+
+    /** Writes the encoded sequence (size, word and block count, words, block offsets, block first values) for {@link #readFrom}. */
+    void writeTo(ByteBuffer out) {
+        out.putInt(size).putInt(bits.length).putInt(blockOffsets.length);
+        for (long word : bits) out.putLong(word);
+        for (long offset : blockOffsets) out.putLong(offset);
+        for (long first : blockFirst) out.putLong(first);
+    }
+
+    /** Reads a sequence written by {@link #writeTo}. */
+    static DeltaOfDeltaMinutes readFrom(ByteBuffer in) {
+        int size = in.getInt();
+        long[] bits = new long[in.getInt()];
+        int blocks = in.getInt();
+        if (blocks != (size + BLOCK_ROWS - 1) / BLOCK_ROWS) throw new IllegalArgumentException("Corrupt delta-of-delta column: " + blocks + " blocks for " + size + " values.");
+        long[] offsets = new long[blocks], first = new long[blocks];
+        for (int i = 0; i < bits.length; i++) bits[i] = in.getLong();
+        for (int i = 0; i < blocks; i++) offsets[i] = in.getLong();
+        for (int i = 0; i < blocks; i++) first[i] = in.getLong();
+        return new DeltaOfDeltaMinutes(bits, offsets, first, size);
+    }
+
+    private long[] block(int index) {
+        DecodedBlock cached = lastBlock;
+        if (cached != null && cached.index == index) return cached.values;
+        long[] values = decodeBlock(index);
+        lastBlock = new DecodedBlock(index, values);
+        return values;
+    }
+
+    private long[] decodeBlock(int index) {
+        int from = index * BLOCK_ROWS, count = Math.min(size - from, BLOCK_ROWS);
+        long[] values = new long[count];
+        BitStream.Reader in = new BitStream.Reader(bits, blockOffsets[index]);
+        long previous = blockFirst[index], delta = 0;
+        values[0] = previous;
+        for (int i = 1; i < count; i++) {
+            long dod;
+            if (!in.readBit()) dod = 0;
+            else if (!in.readBit()) dod = in.read(7) - 63;
+            else if (!in.readBit()) dod = in.read(9) - 255;
+            else if (!in.readBit()) dod = in.read(12) - 2047;
+            else dod = in.read(64);
+            delta += dod;
+            previous += delta;
+            values[i] = previous;
+        }
+        return values;
+    }
+}
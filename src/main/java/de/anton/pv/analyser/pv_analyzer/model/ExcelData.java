@@ -7,23 +7,65 @@ import java.util.*; // Required for List, Map, Collections etc.
  * Provides methods to access timestamps, headers, time-series data, tracker information,
  * and module information. Emphasizes immutability where appropriate by returning
  * unmodifiable collections or copies from getters.
+ * <p>
+ * The Sheet1 time series is stored column-wise: one primitive {@code double[]} per header
+ * column, addressed either by the header column index or by dense tracker/metric indexes
+ * derived from headers of the form {@code <Tracker>/<Metric>} (split at the last '/').
+ * Instances with time series data are created through {@link Builder}.
+ * <p>
+ * {@link #compress()} creates a copy that keeps the columns XOR-compressed in blocks
+ * ({@link XorCompressedColumn}) and the timestamp axis delta-of-delta encoded; values are then
+ * decoded on demand for the rows that are accessed.
+ * <p>
+ * Newer rows of a growing export can be appended in place ({@link #appendRows}); readers on
+ * other threads see either the old or the new row count, never a partially written row.
  */
 public class ExcelData {
-    // Use defensive copying in setters and unmodifiable views in getters
-    private List<String> timestamps = Collections.emptyList();
+    /** Metric name (header suffix) of the DC power columns. */
+    public static final String METRIC_DC_POWER = "DC-Leistung(kW)";
+    /** Metric name (header suffix) of the DC voltage columns. */
+    public static final String METRIC_DC_VOLTAGE = "DC-Spannung(V)";
+
+    // Volatile: appendRows() publishes new rows to readers on other threads
+    private volatile TimestampAxis timestampAxis = TimestampAxis.empty();
     private List<String> sheet1Headers = Collections.emptyList();
-    // List of rows, where each row is a map from Header(String) to Value(Double)
-    private List<Map<String, Double>> sheet1Data = Collections.emptyList();
+    // One column per Sheet1 header (index 0 = timestamp column and empty headers stay null)
+    private double[][] columns = new double[0][];
+    private XorCompressedColumn[] packedColumns = null; // Replaces columns in compressed instances
+    private volatile int rowCount = 0;
+    private long sourceOffset = -1; // Byte position after the last complete line read from a CSV export, -1 if unknown
+    // Dense indexes for "<Tracker>/<Metric>" headers
+    private List<String> seriesTrackerNames = Collections.emptyList();
+    private List<String> metricNames = Collections.emptyList();
+    private Map<String, Integer> seriesTrackerIndex = Collections.emptyMap();
+    private Map<String, Integer> metricIndex = Collections.emptyMap();
+    private int[][] trackerMetricColumns = new int[0][]; // [tracker][metric] -> header column or -1
     // Map from TrackerName(String) to TrackerInfo object
     private Map<String, TrackerInfo> trackerInfoMap = Collections.emptyMap();
+    // Dense tracker IDs with the DC power/voltage columns, resolved once per tracker info map
+    private TrackerRegistry trackerRegistry = TrackerRegistry.empty();
+    // Quality flags per tracker ID and row, computed with the registry and extended by appendRows()
+    private volatile DataQuality dataQuality = DataQuality.empty();
+    // Pre-aggregated power/voltage per tracker ID and 15 min/hour/day, built on first use (null until then)
+    private volatile SeriesRollups rollups = null;
+    // Row of the first max/min usable DC power per tracker ID and row range
+    private volatile PowerRangeIndex powerRangeIndex = PowerRangeIndex.empty();
     private ModuleInfo moduleInfo = null; // Can be null if Sheet3 is missing or invalid
 
+    /** Creates an empty instance without time series data. */
+    public ExcelData() {}
+
     // --- Getters ---
     // Return unmodifiable views to prevent external modification
 
-    /** @return An unmodifiable list of timestamp strings. */
+    /** @return An unmodifiable list of timestamp strings (view of the timestamp axis, indexOf/contains are indexed). */
     public List<String> getTimestamps() {
-        return timestamps; // Already unmodifiable from setter or Collections.emptyList()
+        return timestampAxis.asLabelList();
+    }
+
+    /** @return The timestamp axis (epoch minutes) of the Sheet1 rows. */
+    public TimestampAxis getTimestampAxis() {
+        return timestampAxis;
     }
 
     /** @return An unmodifiable list of headers from Sheet1. */
@@ -31,11 +73,6 @@ public class ExcelData {
         return sheet1Headers; // Already unmodifiable
     }
 
-    /** @return An unmodifiable list of data rows (each row is a Map). */
-    public List<Map<String, Double>> getSheet1Data() {
-        return sheet1Data; // Already unmodifiable
-    }
-
     /** @return An unmodifiable map of tracker names to TrackerInfo objects. */
     public Map<String, TrackerInfo> getTrackerInfoMap() {
         return trackerInfoMap; // Already unmodifiable
@@ -46,41 +83,276 @@ public class ExcelData {
         return moduleInfo;
     }
 
-    // --- Setters ---
-    // Use defensive copying to store copies of mutable input collections
+    // --- Columnar Time Series Access ---
+
+    /** @return Number of data rows (= number of timestamps). */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** @return Row index of the timestamp, or -1 if not found. */
+    public int getTimestampIndex(String timestamp) {
+        return timestampAxis.indexOf(timestamp);
+    }
+
+    /** @return Header column index of the exact Sheet1 header, or -1 if not present. */
+    public int getHeaderColumnIndex(String header) {
+        return header == null ? -1 : sheet1Headers.lastIndexOf(header);
+    }
+
+    /** @return Unmodifiable list of tracker name prefixes found in the Sheet1 headers (dense index order). */
+    public List<String> getSeriesTrackerNames() {
+        return seriesTrackerNames;
+    }
+
+    /** @return Unmodifiable list of metric names found in the Sheet1 headers (dense index order). */
+    public List<String> getMetricNames() {
+        return metricNames;
+    }
+
+    /** @return Dense index of the tracker header prefix (exact match), or -1 if not present. */
+    public int getTrackerIndex(String trackerName) {
+        Integer idx = trackerName == null ? null : seriesTrackerIndex.get(trackerName);
+        return idx == null ? -1 : idx;
+    }
+
+    /** @return Dense index of the metric header suffix (exact match), or -1 if not present. */
+    public int getMetricIndex(String metricName) {
+        Integer idx = metricName == null ? null : metricIndex.get(metricName);
+        return idx == null ? -1 : idx;
+    }
+
+    /** @return Header column index for the tracker/metric pair, or -1 if the column does not exist. */
+    public int getColumnIndex(int trackerIdx, int metricIdx) {
+        if (trackerIdx < 0 || trackerIdx >= trackerMetricColumns.length) return -1;
+        int[] metricColumns = trackerMetricColumns[trackerIdx];
+        return (metricIdx < 0 || metricIdx >= metricColumns.length) ? -1 : metricColumns[metricIdx];
+    }
+
+    /** @return The value at the given header column and row, or NaN if the column does not exist. */
+    public double getValue(int columnIdx, int row) {
+        if (!hasColumnData(columnIdx)) return Double.NaN;
+        Objects.checkIndex(row, rowCount);
+        return packedColumns != null ? packedColumns[columnIdx].get(row) : columns[columnIdx][row];
+    }
+
+    /**
+     * Copies the values of rows [fromRow, toRow) of the header column into {@code dst}; compressed
+     * instances only decode the blocks of that range. Columns without data yield NaN.
+     */
+    public void copyValues(int columnIdx, int fromRow, int toRow, double[] dst, int dstOffset) {
+        Objects.checkFromToIndex(fromRow, toRow, rowCount);
+        Objects.checkFromIndexSize(dstOffset, toRow - fromRow, dst.length);
+        if (!hasColumnData(columnIdx)) Arrays.fill(dst, dstOffset, dstOffset + toRow - fromRow, Double.NaN);
+        else if (packedColumns != null) packedColumns[columnIdx].copy(fromRow, toRow, dst, dstOffset);
+        else System.arraycopy(columns[columnIdx], fromRow, dst, dstOffset, toRow - fromRow);
+    }
+
+    /** @return true if values of the header column were loaded. */
+    boolean hasColumnData(int columnIdx) {
+        if (columnIdx < 0 || columnIdx >= columns.length) return false;
+        return packedColumns != null ? packedColumns[columnIdx] != null : columns[columnIdx] != null;
+    }
+
+    /**
+     * @return The backing array of the header column (not a copy, may be longer than the row count),
+     *         a decoded copy for compressed instances, or null if the column holds no data.
+     */
+    double[] getColumnArray(int columnIdx) {
+        if (!hasColumnData(columnIdx)) return null;
+        if (packedColumns == null) return columns[columnIdx];
+        double[] values = new double[rowCount];
+        packedColumns[columnIdx].copy(0, rowCount, values, 0);
+        return values;
+    }
+
+    /** @return Byte position after the last complete line read from the CSV export, or -1 if unknown (workbooks). */
+    long getSourceOffset() {
+        return sourceOffset;
+    }
+
+    /**
+     * Appends the rows of {@code delta} that are newer than the last timestamp of this instance
+     * (incremental ingestion of a growing export); older, duplicate and unparsable timestamps are
+     * skipped. Column arrays grow geometrically, so appending is amortized proportional to the new
+     * rows. Values are written beyond the current row count first and the quality flags, rollups (if built) and
+     * power range index are extended; the new timestamp axis and row count are published last. Only one thread may append at a time.
+     *
+     * @param delta Rows read from the same source (same headers).
+     * @return Number of rows appended.
+     * @throws IllegalStateException If this instance is compressed.
+     * @throws IllegalArgumentException If the headers of {@code delta} differ.
+     */
+    synchronized int appendRows(ExcelData delta) {
+        Objects.requireNonNull(delta, "Delta cannot be null.");
+        if (packedColumns != null) throw new IllegalStateException("Rows cannot be appended to a compressed dataset.");
+        if (!delta.sheet1Headers.equals(sheet1Headers)) throw new IllegalArgumentException("Headers of the appended rows do not match the dataset.");
+        if (delta.sourceOffset >= 0) sourceOffset = delta.sourceOffset;
+        TimestampAxis deltaAxis = delta.timestampAxis;
+        long last = TimestampAxis.INVALID;
+        for (int row = rowCount - 1; row >= 0 && last == TimestampAxis.INVALID; row--) last = timestampAxis.getEpochMinute(row);
+        if (!timestampAxis.isSorted() && last != TimestampAxis.INVALID) {
+            for (int row = 0; row < rowCount; row++) last = Math.max(last, timestampAxis.getEpochMinute(row));
+        }
+        // Rows to take: valid and strictly ascending after the current last timestamp
+        int[] take = new int[delta.rowCount];
+        long[] minutes = new long[delta.rowCount];
+        int count = 0;
+        for (int row = 0; row < delta.rowCount; row++) {
+            long minute = deltaAxis.getEpochMinute(row);
+            if (minute == TimestampAxis.INVALID || (last != TimestampAxis.INVALID && minute <= last)) continue;
+            take[count] = row;
+            minutes[count++] = last = minute;
+        }
+        if (count == 0) return 0;
+        int oldRows = rowCount, newRows = oldRows + count;
+        for (int col = 1; col < columns.length; col++) {
+            double[] column = columns[col];
+            if (column == null) continue;
+            if (column.length < newRows) column = Arrays.copyOf(column, Math.max(newRows, oldRows + (oldRows >> 1) + 16));
+            double[] source = delta.hasColumnData(col) ? delta.columns[col] : null;
+            for (int i = 0; i < count; i++) column[oldRows + i] = source != null ? source[take[i]] : Double.NaN;
+            columns[col] = column;
+        }
+        dataQuality = dataQuality.extend(this, trackerRegistry, newRows);
+        TimestampAxis newAxis = timestampAxis.append(minutes, null, 0, count);
+        if (rollups != null) rollups = rollups.extend(this, trackerRegistry, dataQuality, newAxis, newRows);
+        powerRangeIndex = powerRangeIndex.extend(this, trackerRegistry, dataQuality, newRows);
+        timestampAxis = newAxis;
+        rowCount = newRows;
+        return count;
+    }
+
+    /** @return true if the time series is kept compressed (see {@link #compress()}). */
+    public boolean isCompressed() {
+        return packedColumns != null;
+    }
+
+    /** @return Approximate heap size of the time series (columns and timestamp axis) in bytes. */
+    public long estimateSeriesBytes() {
+        long bytes = timestampAxis.estimateMinutesBytes();
+        for (int col = 0; col < columns.length; col++) {
+            if (packedColumns != null) bytes += packedColumns[col] != null ? packedColumns[col].sizeInBytes() : 0;
+            else bytes += columns[col] != null ? 16L + columns[col].length * 8L : 0;
+        }
+        return bytes;
+    }
+
+    /**
+     * Creates a copy whose time series is compressed: delta-of-delta encoded timestamps and
+     * Gorilla-style XOR encoded columns in blocks that are decoded on access. PV series with
+     * long zero runs at night typically shrink to a third or less; random access
+     * becomes slower, sequential access stays cheap because the last decoded block is cached.
+     *
+     * @return The compressed copy, or this instance if it is already compressed.
+     */
+    public ExcelData compress() {
+        if (packedColumns != null) return this;
+        ExcelData copy = new ExcelData();
+        copy.timestampAxis = timestampAxis.compress();
+        copy.sheet1Headers = sheet1Headers;
+        copy.rowCount = rowCount;
+        copy.packedColumns = new XorCompressedColumn[columns.length];
+        for (int col = 0; col < columns.length; col++) {
+            if (columns[col] != null) copy.packedColumns[col] = XorCompressedColumn.encode(columns[col], rowCount);
+        }
+        copy.columns = new double[columns.length][]; // Keeps the column count; all entries stay null
+        copy.seriesTrackerNames = seriesTrackerNames;
+        copy.metricNames = metricNames;
+        copy.seriesTrackerIndex = seriesTrackerIndex;
+        copy.metricIndex = metricIndex;
+        copy.trackerMetricColumns = trackerMetricColumns;
+        copy.trackerInfoMap = trackerInfoMap;
+        copy.trackerRegistry = trackerRegistry;
+        copy.dataQuality = dataQuality;
+        copy.rollups = rollups;
+        copy.powerRangeIndex = powerRangeIndex;
+        copy.moduleInfo = moduleInfo;
+        return copy;
+    }
+
+    /**
+     * @return Header column of the DC power series of the tracker from the tracker info map
+     *         (naming variants tolerated, see {@link TrackerColumnResolver}), or -1 if not present.
+     */
+    public int getPowerColumn(String trackerName) {
+        int id = trackerRegistry.getId(trackerName);
+        return id < 0 ? -1 : trackerRegistry.getPowerColumn(id);
+    }
+
+    /** @return Header column of the DC voltage series of the tracker from the tracker info map, or -1 if not present. */
+    public int getVoltageColumn(String trackerName) {
+        int id = trackerRegistry.getId(trackerName);
+        return id < 0 ? -1 : trackerRegistry.getVoltageColumn(id);
+    }
 
-    public void setTimestamps(List<String> timestamps) {
-        // Store an immutable copy
-        this.timestamps = (timestamps == null || timestamps.isEmpty())
-                          ? Collections.emptyList()
-                          : List.copyOf(timestamps); // List.copyOf creates unmodifiable list
+    /** @return Dense IDs of the trackers in the tracker info map (empty if no tracker info is set). */
+    public TrackerRegistry getTrackerRegistry() {
+        return trackerRegistry;
     }
 
-    public void setSheet1Headers(List<String> sheet1Headers) {
-        this.sheet1Headers = (sheet1Headers == null || sheet1Headers.isEmpty())
-                             ? Collections.emptyList()
-                             : List.copyOf(sheet1Headers);
+    /** @return Quality flags of the power/voltage samples per tracker ID (see {@link #getTrackerRegistry()}). */
+    public DataQuality getDataQuality() {
+        return dataQuality;
     }
 
-    public void setSheet1Data(List<Map<String, Double>> sheet1Data) {
-        if (sheet1Data == null || sheet1Data.isEmpty()) {
-            this.sheet1Data = Collections.emptyList();
-        } else {
-            // Create a new list containing copies of the input maps
-            List<Map<String, Double>> copiedList = new ArrayList<>(sheet1Data.size());
-            for (Map<String, Double> rowMap : sheet1Data) {
-                // Ensure rowMap is not null and create a copy
-                copiedList.add(rowMap == null ? Collections.emptyMap() : Map.copyOf(rowMap));
+    /** @return Pre-aggregated power/voltage per tracker ID and 15 minutes, hour and day; built on the first call. */
+    public SeriesRollups getRollups() {
+        SeriesRollups built = rollups;
+        if (built == null) {
+            synchronized (this) { // Same lock as appendRows(): rows and axis do not change while building
+                built = rollups;
+                if (built == null) rollups = built = SeriesRollups.build(this, trackerRegistry, dataQuality, timestampAxis, rowCount);
             }
-            // Make the outer list unmodifiable as well
-            this.sheet1Data = Collections.unmodifiableList(copiedList);
         }
+        return built;
+    }
+
+    /**
+     * Aggregates the usable samples (see {@link DataQuality}) of rows [fromRow, toRow) of one tracker
+     * metric; whole 15 min/hour/day buckets are taken from the rollups, only partial buckets are read.
+     *
+     * @param trackerId ID in the {@link #getTrackerRegistry() tracker registry}.
+     */
+    public SeriesRollups.Summary summarize(int trackerId, SeriesRollups.Metric metric, int fromRow, int toRow) {
+        return getRollups().summarize(this, trackerId, metric, fromRow, toRow);
+    }
+
+    /** @return Range-min/max index over the DC power per tracker ID. */
+    public PowerRangeIndex getPowerRangeIndex() {
+        return powerRangeIndex;
+    }
+
+    /**
+     * @param trackerId ID in the {@link #getTrackerRegistry() tracker registry}.
+     * @return Row of the first maximum of the usable DC power samples (see {@link DataQuality}) in rows
+     *         [fromRow, toRow), or -1 if there is none; O(1) per query apart from the partial blocks at the edges.
+     */
+    public int getMaxPowerRow(int trackerId, int fromRow, int toRow) {
+        return powerRangeIndex.maxRow(this, trackerId, fromRow, toRow);
+    }
+
+    /** @return Row of the first minimum of the usable DC power samples in rows [fromRow, toRow), or -1 (see {@link #getMaxPowerRow}). */
+    public int getMinPowerRow(int trackerId, int fromRow, int toRow) {
+        return powerRangeIndex.minRow(this, trackerId, fromRow, toRow);
+    }
+
+    /** @return The value for tracker/metric at the given row, or NaN if the column does not exist. */
+    public double getValue(int trackerIdx, int metricIdx, int row) {
+        return getValue(getColumnIndex(trackerIdx, metricIdx), row);
     }
 
+    // --- Setters ---
+    // Use defensive copying to store copies of mutable input collections
+
     public void setTrackerInfoMap(Map<String, TrackerInfo> trackerInfoMap) {
         this.trackerInfoMap = (trackerInfoMap == null || trackerInfoMap.isEmpty())
                               ? Collections.emptyMap()
                               : Map.copyOf(trackerInfoMap); // Map.copyOf creates unmodifiable map
+        this.trackerRegistry = TrackerRegistry.of(this.trackerInfoMap, TrackerColumnResolver.resolve(this, this.trackerInfoMap.keySet()));
+        this.dataQuality = DataQuality.scan(this, trackerRegistry, rowCount);
+        this.rollups = null; // Built again on first use
+        this.powerRangeIndex = PowerRangeIndex.build(this, trackerRegistry, dataQuality, rowCount);
     }
 
     public void setModuleInfo(ModuleInfo moduleInfo) {
@@ -100,33 +372,217 @@ public class ExcelData {
 
     /**
      * Retrieves the data row (map of header to value) for a specific timestamp.
-     * Returns an empty map if the timestamp is not found.
+     * The map is assembled from the columns on each call; prefer the index based
+     * accessors for bulk access.
      *
      * @param timestamp The timestamp string to look up.
-     * @return A copy of the data map for the given timestamp, or an empty map if not found.
+     * @return An unmodifiable map of header to value, or an empty map if not found.
      */
     public Map<String, Double> getDataRowForTimestamp(String timestamp) {
-        if (timestamp == null || timestamps.isEmpty() || sheet1Data.isEmpty()) {
-            return Collections.emptyMap();
+        int row = getTimestampIndex(timestamp);
+        if (row < 0) {
+            return Collections.emptyMap(); // Return empty map if timestamp not found
         }
-        int index = timestamps.indexOf(timestamp);
-        if (index != -1 && index < sheet1Data.size()) {
-            // Return the map directly as it's already unmodifiable from setSheet1Data
-            return sheet1Data.get(index);
-            // If sheet1Data wasn't made of unmodifiable maps, return a copy:
-            // return new HashMap<>(sheet1Data.get(index));
+        Map<String, Double> dataRow = new HashMap<>();
+        for (int col = 1; col < columns.length; col++) {
+            if (hasColumnData(col)) dataRow.put(sheet1Headers.get(col), getValue(col, row));
         }
-        return Collections.emptyMap(); // Return empty map if timestamp not found
+        return Collections.unmodifiableMap(dataRow);
     }
 
     @Override
     public String toString() {
         return "ExcelData{" +
-               "timestamps=" + (timestamps.size() > 5 ? timestamps.subList(0, 5) + "..." : timestamps) +
+               "timestamps=" + timestampAxis +
                ", headers=" + (sheet1Headers.size() > 5 ? sheet1Headers.subList(0, 5) + "..." : sheet1Headers) +
-               ", dataRows=" + sheet1Data.size() +
+               ", dataRows=" + rowCount +
+               (isCompressed() ? ", compressed" : "") +
                ", trackers=" + trackerInfoMap.size() +
                ", hasModuleInfo=" + hasModuleInfo() +
                '}';
     }
-}
\ No newline at end of file
+
+    /**
+     * Collects the Sheet1 time series row by row into primitive column arrays and hands them
+     * over to the resulting {@link ExcelData} without copying. A builder must not be reused
+     * after {@link #build()}.
+     */
+    public static final class Builder {
+        private static final int DEFAULT_CAPACITY = 256;
+
+        private final List<String> headers;
+        private final List<String> timestamps;
+        private final double[][] columns;
+        private int capacity;
+        private int rowCount = 0;
+        private Map<String, TrackerInfo> trackerInfoMap = Collections.emptyMap();
+        private ModuleInfo moduleInfo = null;
+        private long sourceOffset = -1;
+        private TimestampAxis axis = null; // Set by wrap(..., TimestampAxis, ...), otherwise built from the labels
+        private boolean built = false;
+
+        /**
+         * @param headers       Sheet1 headers; column 0 is the timestamp column, empty headers are skipped.
+         * @param expectedRows  Capacity hint for the number of data rows (values below 1 use a default).
+         */
+        public Builder(List<String> headers, int expectedRows) {
+            this(headers, expectedRows, ColumnProjection.ALL);
+        }
+
+        /**
+         * @param projection Columns to store; values of other columns passed to {@link #addRow} are ignored.
+         */
+        public Builder(List<String> headers, int expectedRows, ColumnProjection projection) {
+            Objects.requireNonNull(headers, "Headers cannot be null.");
+            Objects.requireNonNull(projection, "Projection cannot be null.");
+            this.headers = List.copyOf(headers);
+            this.capacity = expectedRows > 0 ? expectedRows : DEFAULT_CAPACITY;
+            this.timestamps = new ArrayList<>(capacity);
+            this.columns = new double[this.headers.size()][];
+            boolean[] selected = projection.select(this.headers);
+            for (int col = 1; col < columns.length; col++) {
+                if (selected[col]) columns[col] = new double[capacity];
+            }
+        }
+
+        /** @return true if values of the header column are stored. */
+        public boolean isColumnStored(int col) {
+            return col > 0 && col < columns.length && columns[col] != null;
+        }
+
+        /**
+         * Creates a builder that takes ownership of already filled column arrays (e.g. from a
+         * parallel parser). {@code columns[col]} must hold at least {@code timestamps.size()}
+         * values or be null for columns that were not loaded (see {@link ColumnProjection});
+         * entries for column 0 and empty headers are ignored.
+         */
+        public static Builder wrap(List<String> headers, List<String> timestamps, double[][] columns) {
+            Objects.requireNonNull(timestamps, "Timestamps cannot be null.");
+            Builder builder = wrapColumns(headers, timestamps.size(), columns);
+            builder.timestamps.addAll(timestamps);
+            return builder;
+        }
+
+        /**
+         * Like {@link #wrap(List, List, double[][])}, but with a ready timestamp axis
+         * (e.g. epoch minutes produced directly by a parser).
+         */
+        public static Builder wrap(List<String> headers, TimestampAxis axis, double[][] columns) {
+            Objects.requireNonNull(axis, "Timestamp axis cannot be null.");
+            Builder builder = wrapColumns(headers, axis.size(), columns);
+            builder.axis = axis;
+            return builder;
+        }
+
+        private static Builder wrapColumns(List<String> headers, int rows, double[][] columns) {
+            Objects.requireNonNull(columns, "Columns cannot be null.");
+            Builder builder = new Builder(headers, 1);
+            if (columns.length != builder.columns.length) {
+                throw new IllegalArgumentException("Column count " + columns.length + " does not match header count " + builder.columns.length + ".");
+            }
+            for (int col = 1; col < columns.length; col++) {
+                if (builder.columns[col] == null) continue;
+                if (columns[col] != null && columns[col].length < rows) {
+                    throw new IllegalArgumentException("Column " + col + " ('" + builder.headers.get(col) + "') holds fewer than " + rows + " values.");
+                }
+                builder.columns[col] = columns[col];
+            }
+            builder.rowCount = rows;
+            builder.capacity = rows;
+            return builder;
+        }
+
+        /**
+         * Appends one row. The values array is indexed by header column (index 0 is ignored)
+         * and is only read during the call, so callers may reuse it. Missing trailing values are NaN.
+         */
+        public Builder addRow(String timestamp, double[] values) {
+            Objects.requireNonNull(timestamp, "Timestamp cannot be null.");
+            ensureNotBuilt();
+            if (axis != null) throw new IllegalStateException("Rows cannot be added to a builder with a fixed timestamp axis.");
+            if (rowCount == capacity) grow();
+            for (int col = 1; col < columns.length; col++) {
+                if (columns[col] != null) columns[col][rowCount] = (values != null && col < values.length) ? values[col] : Double.NaN;
+            }
+            timestamps.add(timestamp);
+            rowCount++;
+            return this;
+        }
+
+        public Builder trackerInfoMap(Map<String, TrackerInfo> trackerInfoMap) {
+            this.trackerInfoMap = trackerInfoMap;
+            return this;
+        }
+
+        public Builder moduleInfo(ModuleInfo moduleInfo) {
+            this.moduleInfo = moduleInfo;
+            return this;
+        }
+
+        /** Byte position after the last complete line of the CSV source (see {@link ExcelData#getSourceOffset()}). */
+        Builder sourceOffset(long sourceOffset) {
+            this.sourceOffset = sourceOffset;
+            return this;
+        }
+
+        /** @return Number of rows added so far. */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public List<String> getHeaders() {
+            return headers;
+        }
+
+        /** Builds the ExcelData; the collected arrays are transferred, not copied. */
+        public ExcelData build() {
+            ensureNotBuilt();
+            built = true;
+            ExcelData data = new ExcelData();
+            data.timestampAxis = axis != null ? axis : TimestampAxis.of(timestamps);
+            data.sheet1Headers = headers;
+            data.columns = columns;
+            data.rowCount = rowCount;
+            data.sourceOffset = sourceOffset;
+            data.buildTrackerMetricIndex();
+            data.setTrackerInfoMap(trackerInfoMap);
+            data.setModuleInfo(moduleInfo);
+            return data;
+        }
+
+        private void grow() {
+            capacity = Math.max(DEFAULT_CAPACITY, capacity + (capacity >> 1));
+            for (int col = 0; col < columns.length; col++) {
+                if (columns[col] != null) columns[col] = Arrays.copyOf(columns[col], capacity);
+            }
+        }
+
+        private void ensureNotBuilt() {
+            if (built) throw new IllegalStateException("Builder has already been used to build an ExcelData instance.");
+        }
+    }
+
+    /** Splits "Tracker/Metric" headers into dense tracker and metric indexes. */
+    private void buildTrackerMetricIndex() {
+        Map<String, Integer> trackers = new LinkedHashMap<>();
+        Map<String, Integer> metrics = new LinkedHashMap<>();
+        List<int[]> assignments = new ArrayList<>(); // {tracker, metric, column}
+        for (int col = 1; col < sheet1Headers.size(); col++) {
+            if (columns[col] == null) continue;
+            String header = sheet1Headers.get(col);
+            int slash = header.lastIndexOf('/');
+            if (slash <= 0 || slash == header.length() - 1) continue; // Not a "Tracker/Metric" header
+            int t = trackers.computeIfAbsent(header.substring(0, slash), k -> trackers.size());
+            int m = metrics.computeIfAbsent(header.substring(slash + 1), k -> metrics.size());
+            assignments.add(new int[]{t, m, col});
+        }
+        int[][] lookup = new int[trackers.size()][metrics.size()];
+        for (int[] row : lookup) Arrays.fill(row, -1);
+        for (int[] a : assignments) lookup[a[0]][a[1]] = a[2]; // Later duplicates win, like the former row maps
+        this.seriesTrackerNames = List.copyOf(trackers.keySet());
+        this.metricNames = List.copyOf(metrics.keySet());
+        this.seriesTrackerIndex = Collections.unmodifiableMap(trackers);
+        this.metricIndex = Collections.unmodifiableMap(metrics);
+        this.trackerMetricColumns = lookup;
+    }
+}
@@ -0,0 +1,212 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Concatenates the Sheet1 time series of several files of one plant (e.g. daily exports)
+ * into one continuous {@link ExcelData}.
+ * <p>
+ * The rows are combined with a k-way merge on the epoch minutes of the source axes, so the
+ * result is strictly ascending. If several sources contain the same timestamp, the row of the
+ * source listed first is kept; rows with unparsable timestamps are dropped. Headers are the
+ * union of all sources (first occurrence order, matched by normalized tracker name and metric
+ * like {@link TrackerColumnResolver}); columns missing in a source are NaN for its rows.
+ * All sources must describe the same trackers (Sheet2, compared in normalized form); tracker and
+ * module info of the first source are used.
+ */
+public final class ExcelDataMerger {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExcelDataMerger.class);
+
+    private ExcelDataMerger() {}
+
+    /**
+     * @param sources The datasets to merge (at least one).
+     * @return The merged dataset; a single source with a strictly ascending axis is returned unchanged.
+     * @throws IllegalArgumentException If the tracker sets of the sources differ.
+     */
+    public static ExcelData merge(List<ExcelData> sources) {
+        Objects.requireNonNull(sources, "Sources cannot be null.");
+        if (sources.isEmpty()) throw new IllegalArgumentException("At least one dataset is required for merging.");
+        sources.forEach(source -> Objects.requireNonNull(source, "Source dataset cannot be null."));
+        checkTrackerCompatibility(sources);
+        if (sources.size() == 1 && sources.get(0).getTimestampAxis().isSorted()) return sources.get(0);
+        long start = System.nanoTime();
+
+        // Union of headers and per-source column mapping (output column -> source column, -1 = missing)
+        List<String> headers = new ArrayList<>(sources.get(0).getSheet1Headers());
+        Map<String, Integer> headerIndex = new HashMap<>();
+        for (int col = 1; col < headers.size(); col++) {
+            if (headers.get(col) != null) headerIndex.putIfAbsent(headerKey(headers.get(col)), col);
+        }
+        for (ExcelData source : sources.subList(1, sources.size())) {
+            List<String> sourceHeaders = source.getSheet1Headers();
+            for (int col = 1; col < sourceHeaders.size(); col++) {
+                String header = sourceHeaders.get(col);
+                if (header == null || header.trim().isEmpty() || headerIndex.containsKey(headerKey(header))) continue;
+                headerIndex.put(headerKey(header), headers.size());
+                headers.add(header);
+            }
+        }
+        int[][] columnMap = new int[sources.size()][headers.size()];
+        boolean[] stored = new boolean[headers.size()];
+        int totalRows = 0;
+        for (int s = 0; s < sources.size(); s++) {
+            ExcelData source = sources.get(s);
+            Arrays.fill(columnMap[s], -1);
+            List<String> sourceHeaders = source.getSheet1Headers();
+            for (int col = 1; col < sourceHeaders.size(); col++) {
+                Integer out = sourceHeaders.get(col) == null ? null : headerIndex.get(headerKey(sourceHeaders.get(col)));
+                if (out == null || columnMap[s][out] >= 0 || !source.hasColumnData(col)) continue;
+                columnMap[s][out] = col;
+                stored[out] = true;
+            }
+            totalRows += source.getRowCount();
+        }
+
+        double[][] columns = new double[headers.size()][];
+        for (int col = 1; col < columns.length; col++) {
+            if (stored[col]) columns[col] = new double[totalRows];
+        }
+        long[] minutes = new long[totalRows];
+
+        // Source arrays fetched once (compressed sources are decoded here, not per row)
+        double[][][] sourceColumns = new double[sources.size()][][];
+        for (int s = 0; s < sources.size(); s++) {
+            sourceColumns[s] = new double[headers.size()][];
+            for (int col = 1; col < headers.size(); col++) {
+                if (columnMap[s][col] >= 0 && columns[col] != null) sourceColumns[s][col] = sources.get(s).getColumnArray(columnMap[s][col]);
+            }
+        }
+
+        PriorityQueue<Cursor> queue = new PriorityQueue<>();
+        for (int s = 0; s < sources.size(); s++) {
+            Cursor cursor = new Cursor(s, sources.get(s).getTimestampAxis());
+            if (cursor.advance()) queue.add(cursor);
+        }
+        int rows = 0, duplicates = 0;
+        long last = TimestampAxis.INVALID;
+        while (!queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            if (rows > 0 && cursor.minute == last) {
+                duplicates++;
+            } else {
+                double[][] source = sourceColumns[cursor.source];
+                for (int col = 1; col < columns.length; col++) {
+                    if (columns[col] == null) continue;
+                    columns[col][rows] = source[col] != null ? source[col][cursor.row] : Double.NaN;
+                }
+                minutes[rows++] = last = cursor.minute;
+            }
+            if (cursor.advance()) queue.add(cursor);
+        }
+        if (rows < totalRows) {
+            for (int col = 1; col < columns.length; col++) {
+                if (columns[col] != null) columns[col] = Arrays.copyOf(columns[col], rows);
+            }
+        }
+        int dropped = totalRows - rows - duplicates;
+        if (duplicates > 0 || dropped > 0) {
+            logger.info("Merge dropped {} duplicate timestamps and {} rows with invalid timestamps.", duplicates, dropped);
+        }
+
+        ExcelData first = sources.get(0);
+        ExcelData merged = ExcelData.Builder.wrap(headers, TimestampAxis.ofEpochMinutes(minutes, rows), columns)
+                .trackerInfoMap(first.getTrackerInfoMap())
+                .moduleInfo(first.getModuleInfo())
+                .build();
+        logger.info("Merged {} datasets into {} rows in {} ms.", sources.size(), rows, (System.nanoTime() - start) / 1_000_000);
+        return merged;
+    }
+
+    /**
+     * Key under which equal columns of different sources are merged: "Tracker/Metric" headers by the
+     * normalized tracker name and the compacted metric ("TR#02.1 /DC-Leistung(kW)" and
+     * "TR#2.1/DC-Leistung(kW)" are the same column), other headers by their trimmed text.
+     */
+    static String headerKey(String header) {
+        int slash = header.lastIndexOf('/');
+        if (slash <= 0 || slash == header.length() - 1) return header.trim();
+        return TrackerColumnResolver.normalizeTrackerName(header.substring(0, slash)) + '/' + ColumnProjection.compact(header.substring(slash + 1));
+    }
+
+    /** All sources must list the same trackers in Sheet2 (normalized names). */
+    private static void checkTrackerCompatibility(List<ExcelData> sources) {
+        Map<String, TrackerInfo> reference = byNormalizedName(sources.get(0).getTrackerInfoMap());
+        for (int s = 1; s < sources.size(); s++) {
+            Map<String, TrackerInfo> other = byNormalizedName(sources.get(s).getTrackerInfoMap());
+            if (!reference.keySet().equals(other.keySet())) {
+                Set<String> missing = new TreeSet<>(reference.keySet());
+                missing.removeAll(other.keySet());
+                Set<String> additional = new TreeSet<>(other.keySet());
+                additional.removeAll(reference.keySet());
+                throw new IllegalArgumentException("Tracker sets are not compatible: dataset " + (s + 1)
+                        + " is missing " + missing + " and has additional " + additional + ".");
+            }
+            for (Map.Entry<String, TrackerInfo> entry : reference.entrySet()) {
+                TrackerInfo ref = entry.getValue(), cmp = other.get(entry.getKey());
+                if (Double.compare(ref.getNennleistungkWp(), cmp.getNennleistungkWp()) != 0) {
+                    logger.warn("Tracker '{}' has a different nominal power in dataset {} ({} vs. {} kWp). Using {} kWp.",
+                            ref.getName(), s + 1, cmp.getNennleistungkWp(), ref.getNennleistungkWp(), ref.getNennleistungkWp());
+                }
+            }
+        }
+    }
+
+    private static Map<String, TrackerInfo> byNormalizedName(Map<String, TrackerInfo> trackerInfoMap) {
+        Map<String, TrackerInfo> result = new HashMap<>(trackerInfoMap.size() * 2);
+        trackerInfoMap.values().forEach(info -> result.putIfAbsent(TrackerColumnResolver.normalizeTrackerName(info.getName()), info));
+        return result;
+    }
+
+    /** Position in one source, visiting its rows in timestamp order (ties: earlier source first). */
+    private static final class Cursor implements Comparable<Cursor> {
+        final int source;
+        private final TimestampAxis axis;
+        private final int[] order; // Row order for unsorted axes, null if the axis is sorted
+        private int position = -1;
+        int row;
+        long minute;
+
+        Cursor(int source, TimestampAxis axis) {
+            this.source = source;
+            this.axis = axis;
+            this.order = axis.isSorted() ? null : sortedRows(axis);
+        }
+
+        /** Moves to the next row with a valid timestamp; returns false at the end. */
+        boolean advance() {
+            int limit = order == null ? axis.size() : order.length;
+            if (++position >= limit) return false;
+            row = order == null ? position : order[position];
+            minute = axis.getEpochMinute(row);
+            return true;
+        }
+
+        /** Valid rows ordered by minute (stable, so the first of duplicate rows wins). */
+        private static int[] sortedRows(TimestampAxis axis) {
+            if (axis.size() >= (1 << 24)) throw new IllegalArgumentException("Too many rows to merge: " + axis.size());
+            long[] keys = new long[axis.size()];
+            int count = 0;
+            for (int row = 0; row < axis.size(); row++) {
+                long minute = axis.getEpochMinute(row);
+                // Minute in the upper bits, row in the lower 24 bits keeps the sort stable
+                if (minute != TimestampAxis.INVALID) keys[count++] = (minute << 24) | row;
+            }
+            keys = Arrays.copyOf(keys, count);
+            Arrays.sort(keys);
+            int[] rows = new int[count];
+            for (int i = 0; i < count; i++) rows[i] = (int) (keys[i] & 0xFFFFFF);
+            return rows;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int c = Long.compare(minute, other.minute);
+            return c != 0 ? c : Integer.compare(source, other.source);
+        }
+    }
+}
@@ -8,13 +8,16 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 /**
- * Reads data from a specifically formatted Excel file containing PV plant data.
+ * Reads data from a specifically formatted Excel file containing PV plant data
+ * by building the full POI object model. See {@link StreamingExcelReader} for the
+ * low-memory variant used for .xlsx files.
  * Expects sheets named "Sheet1", "Sheet2", and optionally "Sheet3".
  * - Sheet1: Time series data (Timestamp, TrackerA/Metric1, TrackerA/Metric2, ...)
  * - Sheet2: Static tracker information (Name, Nennleistung, Ausrichtung, Anzahl Strings)
@@ -23,18 +26,19 @@ import java.util.*;
 public class ExcelReader {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelReader.class);
-    // Define expected sheet names as constants
-    private static final String SHEET1_NAME = "Tabelle1";
-    private static final String SHEET2_NAME = "Tabelle2";
-    private static final String SHEET3_NAME = "Tabelle3"; // Optional sheet
-    // Consistent date format for parsing and potentially storing timestamps
-    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("dd.MM.yyyy HH:mm");
+    // Define expected sheet names as constants (shared with StreamingExcelReader)
+    static final String SHEET1_NAME = "Tabelle1";
+    static final String SHEET2_NAME = "Tabelle2";
+    static final String SHEET3_NAME = "Tabelle3"; // Optional sheet
     // Define expected headers in Sheet2
     private static final String HEADER_TRACKER_NAME = "Name";
     private static final String HEADER_TRACKER_POWER = "Nennleistung";
     private static final String HEADER_TRACKER_ORIENTATION = "Ausrichtung";
     private static final String HEADER_TRACKER_STRINGS = "Anzahl Strings";
 
+    private static final int PROGRESS_ROWS = 256; // Rows between progress reports and cancellation checks
+    private static final int MIN_CHUNK_ROWS = 512; // Smaller sheets are not worth splitting
+
 
     /**
      * Reads the Excel file and populates an ExcelData object.
@@ -45,47 +49,88 @@ public class ExcelReader {
      *                     or essential data cannot be parsed correctly.
      */
     public ExcelData readExcel(File file) throws IOException {
+        return readExcel(file, ColumnProjection.ALL);
+    }
+
+    /**
+     * Reads the Excel file, parsing only the Sheet1 columns selected by the projection.
+     *
+     * @param file       The Excel file to read.
+     * @param projection The Sheet1 columns to keep.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file cannot be read, required sheets are missing,
+     *                     or essential data cannot be parsed correctly.
+     */
+    public ExcelData readExcel(File file, ColumnProjection projection) throws IOException {
+        return readExcel(file, projection, LoadMonitor.none());
+    }
+
+    /**
+     * Reads the Excel file like {@link #readExcel(File, ColumnProjection)}, reporting the decoded
+     * Sheet1 rows to the monitor. Opening the workbook itself cannot be interrupted; the monitor is
+     * checked once the workbook is open and between blocks of decoded rows.
+     *
+     * @param file       The Excel file to read.
+     * @param projection The Sheet1 columns to keep.
+     * @param monitor    Progress and cancellation of the load.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file cannot be read, required sheets are missing,
+     *                     or essential data cannot be parsed correctly.
+     * @throws CancellationException If the monitor was cancelled.
+     */
+    public ExcelData readExcel(File file, ColumnProjection projection, LoadMonitor monitor) throws IOException {
         Objects.requireNonNull(file, "Input file cannot be null.");
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(monitor, "Monitor cannot be null.");
         logger.info("Starting to read Excel file: {}", file.getAbsolutePath());
 
-        ExcelData excelData = new ExcelData();
+        ExcelData excelData;
 
         // Use try-with-resources for reliable closing of InputStream and Workbook
         try (InputStream fis = new FileInputStream(file);
              Workbook workbook = WorkbookFactory.create(fis)) {
+            monitor.checkCancelled();
 
-            // --- Read Sheet2: Tracker Info (Mandatory) ---
+            // --- Locate sheets (Sheet1 and Sheet2 are mandatory) ---
             Sheet sheet2 = workbook.getSheet(SHEET2_NAME);
             if (sheet2 == null) {
                 throw new IOException("Required sheet '" + SHEET2_NAME + "' not found in the Excel file.");
             }
-            Map<String, TrackerInfo> trackerMap = readTrackerInfo(sheet2);
+            Sheet sheet1 = workbook.getSheet(SHEET1_NAME);
+            if (sheet1 == null) {
+                throw new IOException("Required sheet '" + SHEET1_NAME + "' not found in the Excel file.");
+            }
+            Sheet sheet3 = workbook.getSheet(SHEET3_NAME);
+
+            // POI sheets are not thread-safe: all sheets are read on this thread, the small
+            // static ones first so a broken Sheet2 fails before the large Sheet1 is decoded.
+            // Only the parsing of the buffered Sheet1 values runs in parallel (readTimeSeriesData).
+
+            // --- Sheet2: Tracker Info (Mandatory) ---
+            Map<String, TrackerInfo> trackerMap = readTrackerInfo(toSheetTable(sheet2));
             if (trackerMap.isEmpty()) {
                 // If readTrackerInfo logs errors, this might indicate a format issue
                 throw new IOException("No valid tracker information found or parsed in '" + SHEET2_NAME + "'. Check sheet format and headers.");
             }
-            excelData.setTrackerInfoMap(trackerMap);
             logger.info("Read {} tracker info entries from '{}'.", trackerMap.size(), SHEET2_NAME);
+            monitor.checkCancelled();
 
             // --- Read Sheet1: Time Series Data (Mandatory) ---
-            Sheet sheet1 = workbook.getSheet(SHEET1_NAME);
-            if (sheet1 == null) {
-                throw new IOException("Required sheet '" + SHEET1_NAME + "' not found in the Excel file.");
-            }
-            // This method populates timestamps, headers, and dataRows within excelData
-            readTimeSeriesData(sheet1, excelData);
-            if (excelData.getTimestamps().isEmpty()) {
+            // This method collects timestamps, headers, and data columns into the builder
+            ExcelData.Builder builder = readTimeSeriesData(sheet1, projection, monitor);
+
+            if (builder.getRowCount() == 0) {
                 // If no timestamps were read, the sheet might be empty or malformed
                 throw new IOException("No valid timestamps or data rows found or parsed in '" + SHEET1_NAME + "'. Check sheet format.");
             }
-            logger.info("Read {} timestamps and data rows from '{}'.", excelData.getTimestamps().size(), SHEET1_NAME);
+            logger.info("Read {} timestamps and data rows from '{}'.", builder.getRowCount(), SHEET1_NAME);
+            builder.trackerInfoMap(trackerMap);
 
-            // --- Read Sheet3: Module Info (Optional) ---
-            Sheet sheet3 = workbook.getSheet(SHEET3_NAME);
+            // --- Sheet3: Module Info (Optional) ---
             if (sheet3 != null) {
                 try {
-                    ModuleInfo moduleInfo = readModuleInfo(sheet3);
-                    excelData.setModuleInfo(moduleInfo); // Will be null if parsing failed
+                    ModuleInfo moduleInfo = readModuleInfo(toSheetTable(sheet3));
+                    builder.moduleInfo(moduleInfo); // Will be null if parsing failed
                     if (moduleInfo != null) {
                         logger.info("Successfully read module info from '{}': {}", SHEET3_NAME, moduleInfo);
                     } else {
@@ -94,17 +139,21 @@ public class ExcelReader {
                 } catch (Exception e) {
                     // Catch errors specifically during Sheet3 processing
                     logger.warn("Error reading optional sheet '{}'. Proceeding without module data. Error: {}", SHEET3_NAME, e.getMessage(), e);
-                    excelData.setModuleInfo(null); // Ensure it's null on error
+                    builder.moduleInfo(null); // Ensure it's null on error
                 }
             } else {
                 logger.info("Optional sheet '{}' not found. Proceeding without module data.", SHEET3_NAME);
-                excelData.setModuleInfo(null); // Explicitly set to null
+                builder.moduleInfo(null); // Explicitly set to null
             }
+            excelData = builder.build();
 
         } catch (IOException ioe) {
              // Catch IO errors (file not found, read errors) and re-throw
              logger.error("IO error reading Excel file: {}", file.getAbsolutePath(), ioe);
              throw ioe;
+        } catch (CancellationException e) {
+            logger.info("Reading Excel file {} cancelled after {} rows.", file.getAbsolutePath(), monitor.getRowsRead());
+            throw e;
         } catch (Exception e) {
             // Catch other potential errors during workbook processing (e.g., invalid format)
             logger.error("Error processing Excel file: {}", file.getAbsolutePath(), e);
@@ -115,24 +164,40 @@ public class ExcelReader {
         return excelData;
     }
 
+
+    /**
+     * Copies a small static sheet (Sheet2/Sheet3) into a {@link SheetTable} so the header
+     * logic below can be shared with the streaming reader. Blank cells are left out.
+     */
+    private SheetTable toSheetTable(Sheet sheet) {
+        DataFormatter formatter = new DataFormatter();
+        FormulaEvaluator evaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
+        SheetTable.Builder builder = new SheetTable.Builder(sheet.getSheetName());
+        for (Row row : sheet) {
+            builder.addRow(row.getRowNum());
+            for (Cell cell : row) {
+                if (cell == null || cell.getCellType() == CellType.BLANK) continue;
+                builder.setCell(row.getRowNum(), cell.getColumnIndex(),
+                        getCellValueAsString(cell, formatter, evaluator), getCellValueAsDouble(cell, formatter, evaluator));
+            }
+        }
+        return builder.build();
+    }
+
     /** Reads static tracker information from Sheet2. */
-    private Map<String, TrackerInfo> readTrackerInfo(Sheet sheet) {
+    static Map<String, TrackerInfo> readTrackerInfo(SheetTable sheet) {
         Map<String, TrackerInfo> trackerMap = new LinkedHashMap<>(); // Preserve insertion order if needed
-        DataFormatter formatter = new DataFormatter(); // Handles different cell types consistently
-        FormulaEvaluator evaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
 
         // --- Find Header Columns ---
-        Row headerRow = sheet.getRow(0);
-        if (headerRow == null) {
+        if (!sheet.hasRow(0)) {
             logger.error("Sheet '{}' is missing the header row (Row 1). Cannot read tracker info.", sheet.getSheetName());
             return Collections.emptyMap();
         }
 
         int nameCol = -1, powerCol = -1, orientationCol = -1, stringsCol = -1;
-        for (Cell cell : headerRow) {
-             if (cell == null) continue;
-            String headerText = getCellValueAsString(cell, formatter, evaluator).trim();
-            int currentCellIndex = cell.getColumnIndex();
+        for (int currentCellIndex = 0; currentCellIndex < sheet.getCellCount(0); currentCellIndex++) {
+            if (!sheet.hasCell(0, currentCellIndex)) continue;
+            String headerText = sheet.getText(0, currentCellIndex);
 
             if (HEADER_TRACKER_NAME.equalsIgnoreCase(headerText)) nameCol = currentCellIndex;
             else if (HEADER_TRACKER_POWER.equalsIgnoreCase(headerText)) powerCol = currentCellIndex;
@@ -156,21 +221,20 @@ public class ExcelReader {
 
         // --- Read Data Rows ---
         // Iterate from the second row (index 1) to the last row number
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-             Row row = sheet.getRow(i);
-             if (row == null || row.getCell(nameCol) == null || getCellValueAsString(row.getCell(nameCol), formatter, evaluator).trim().isEmpty()) {
+        for (int i = 1; i < sheet.getRowCount(); i++) {
+             if (!sheet.hasRow(i) || sheet.getText(i, nameCol).isEmpty()) {
                  logger.trace("Skipping empty or invalid row in '{}' at index {}", sheet.getSheetName(), i);
                  continue; // Skip empty rows or rows without a name
              }
 
             try {
-                String name = getCellValueAsString(row.getCell(nameCol), formatter, evaluator).trim();
+                String name = sheet.getText(i, nameCol);
                 // Nennleistung: Parse as double, potentially removing units like "kWp"
-                double nennleistung = parseDoubleWithOptionalUnit(getCellValueAsString(row.getCell(powerCol), formatter, evaluator), "kwp");
+                double nennleistung = parseDoubleWithOptionalUnit(sheet.getText(i, powerCol), "kwp");
                 // Ausrichtung: Read as string
-                String ausrichtung = getCellValueAsString(row.getCell(orientationCol), formatter, evaluator).trim();
+                String ausrichtung = sheet.getText(i, orientationCol);
                 // Anzahl Strings: Parse as double first for flexibility, then round to int
-                double anzahlStringsDouble = getCellValueAsDouble(row.getCell(stringsCol), formatter, evaluator);
+                double anzahlStringsDouble = sheet.getNumber(i, stringsCol);
                 int anzahlStrings = (!Double.isNaN(anzahlStringsDouble) && anzahlStringsDouble > 0)
                                     ? (int) Math.round(anzahlStringsDouble)
                                     : 0; // Default to 0 if invalid or non-positive
@@ -189,9 +253,9 @@ public class ExcelReader {
                     // Log skipped rows with details for debugging
                     logger.warn("Skipping invalid tracker row in '{}' for tracker '{}' (Row {}): Nennleistung={}, Ausrichtung='{}', Strings={} (Parsed Int: {})",
                             sheet.getSheetName(), name, i + 1,
-                            getCellValueAsString(row.getCell(powerCol), formatter, evaluator), // Log raw value
+                            sheet.getText(i, powerCol), // Log raw value
                             ausrichtung,
-                            getCellValueAsString(row.getCell(stringsCol), formatter, evaluator), // Log raw value
+                            sheet.getText(i, stringsCol), // Log raw value
                             anzahlStrings);
                 }
             } catch (Exception e) {
@@ -203,11 +267,20 @@ public class ExcelReader {
         return trackerMap;
     }
 
-    /** Reads time series data from Sheet1. */
-    private void readTimeSeriesData(Sheet sheet, ExcelData excelData) {
+    /**
+     * Reads time series data from Sheet1 into a columnar builder in two phases:
+     * <ol>
+     * <li>The cells are read on the calling thread (POI does not support concurrent reads of a sheet).
+     *     Numeric cells go straight into the preallocated column arrays; timestamps and text cells
+     *     are kept raw in a {@link RowBuffer}. Every {@value #PROGRESS_ROWS} rows are reported to
+     *     the monitor, reading stops once it is cancelled.</li>
+     * <li>The buffered timestamps and texts are formatted and parsed in parallel chunks of at least
+     *     {@value #MIN_CHUNK_ROWS} rows, each chunk writing only its own slots.</li>
+     * </ol>
+     * Skipped rows are compacted afterwards.
+     */
+    private ExcelData.Builder readTimeSeriesData(Sheet sheet, ColumnProjection projection, LoadMonitor monitor) {
         List<String> headers = new ArrayList<>();
-        List<String> timestamps = new ArrayList<>();
-        List<Map<String, Double>> dataRows = new ArrayList<>();
         DataFormatter formatter = new DataFormatter(); // Handles cell types
         FormulaEvaluator evaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator(); // For formulas
 
@@ -223,101 +296,158 @@ public class ExcelReader {
                  headers.add(""); // Add empty string for potential blank header cells
              }
         }
-        // Validate first header is related to date/time
-        if (headers.isEmpty() || !headers.get(0).toLowerCase().contains("date") && !headers.get(0).toLowerCase().contains("zeit")) {
-             throw new RuntimeException("Sheet '" + sheet.getSheetName() + "' header format error. First column header should be related to 'Date' or 'Zeit'. Found: '" + (headers.isEmpty() ? "None" : headers.get(0)) + "'");
-        }
-        excelData.setSheet1Headers(headers);
+        validateTimeSeriesHeaders(headers, sheet.getSheetName());
         logger.debug("Read {} headers from '{}': {}", headers.size(), sheet.getSheetName(), headers);
 
-        // --- Read Data Rows ---
-        // Iterate from second row (index 1) to last physical row number
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+        // --- Preallocate one slot per physical data row (index 1..lastRowNum), projected columns only ---
+        int slots = Math.max(0, sheet.getLastRowNum());
+        double[][] columns = new double[headers.size()][];
+        boolean[] selected = projection.select(headers);
+        for (int j = 1; j < columns.length; j++) {
+            if (selected[j]) columns[j] = new double[slots];
+        }
+        RowBuffer buffer = new RowBuffer(slots, columns.length);
+
+        // --- Read Data Rows (sequential), then parse the buffered values in parallel chunks ---
+        readRows(sheet, headers, columns, buffer, formatter, evaluator, monitor);
+        int chunkCount = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), slots / MIN_CHUNK_ROWS));
+        IntStream.range(0, chunkCount).parallel()
+                .forEach(c -> parseRows(buffer, (int) ((long) slots * c / chunkCount), (int) ((long) slots * (c + 1) / chunkCount), columns, sheet.getSheetName(), monitor));
+        String[] timestamps = buffer.timestamps;
+
+        // --- Compact rows that were skipped ---
+        int rowCount = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (timestamps[slot] == null) continue;
+            if (slot != rowCount) {
+                timestamps[rowCount] = timestamps[slot];
+                for (double[] column : columns) {
+                    if (column != null) column[rowCount] = column[slot];
+                }
+            }
+            rowCount++;
+        }
+        logger.debug("Decoded {} of {} rows from '{}' in {} chunk(s).", rowCount, slots, sheet.getSheetName(), chunkCount);
+        return ExcelData.Builder.wrap(headers, Arrays.asList(timestamps).subList(0, rowCount), columns);
+    }
+
+    /**
+     * Raw Sheet1 values read by {@link #readRows} and still to be converted by {@link #parseRows}.
+     * One instance per sheet read; every slot (= sheet row - 1) is written by exactly one chunk.
+     */
+    private static final class RowBuffer {
+        final LocalDateTime[] dates;   // Date-formatted timestamp cells
+        final String[] timestampTexts; // Other timestamp cells, formatted but not yet normalized
+        final String[] timestamps;     // Result; null = row skipped
+        final String[][] texts;        // Per column, text cells to parse (allocated on the first one)
+
+        RowBuffer(int slots, int columnCount) {
+            dates = new LocalDateTime[slots];
+            timestampTexts = new String[slots];
+            timestamps = new String[slots];
+            texts = new String[columnCount][];
+        }
+
+        void setText(int column, int slot, String text) {
+            if (texts[column] == null) texts[column] = new String[timestamps.length];
+            texts[column][slot] = text;
+        }
+    }
+
+    /**
+     * Reads the data rows into the column arrays and the buffer. This is the only part that touches
+     * POI objects; text cells are left for {@link #parseRows}, all other cells are converted here.
+     */
+    private void readRows(Sheet sheet, List<String> headers, double[][] columns, RowBuffer buffer, DataFormatter formatter, FormulaEvaluator evaluator, LoadMonitor monitor) {
+        int rowsSinceReport = 0;
+        for (int slot = 0; slot < buffer.timestamps.length; slot++) {
+            if (rowsSinceReport == PROGRESS_ROWS) {
+                monitor.rowsRead(rowsSinceReport);
+                monitor.checkCancelled();
+                rowsSinceReport = 0;
+            }
+            rowsSinceReport++;
+            int i = slot + 1; // Sheet row index (row 0 is the header)
             Row row = sheet.getRow(i);
             if (row == null) {
                  logger.trace("Skipping null row in '{}' at index {}", sheet.getSheetName(), i);
                  continue; // Skip fully empty rows
             }
 
-            Map<String, Double> dataRowMap = new HashMap<>();
-            String currentTimestamp = null;
-            Cell firstCell = row.getCell(0); // Timestamp cell should be the first one
-
             // --- Read Timestamp (Column 0) ---
-             if (firstCell != null && firstCell.getCellType() != CellType.BLANK) {
-                 try {
-                     // Try reading as Date cell first
-                     if (firstCell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(firstCell)) {
-                         Date dateValue = firstCell.getDateCellValue();
-                         if (dateValue != null) {
-                            currentTimestamp = DATE_FORMAT.format(dateValue);
-                         } else {
-                             logger.warn("Date-formatted cell {} in '{}' returned null date value.", firstCell.getAddress(), sheet.getSheetName());
-                         }
-                     } else {
-                         // If not date formatted, try reading as string and parsing
-                         String tsString = getCellValueAsString(firstCell, formatter, evaluator).trim();
-                         if (!tsString.isEmpty()) {
-                             try {
-                                 // Attempt parsing with the defined format
-                                 Date parsedDate = DATE_FORMAT.parse(tsString);
-                                 currentTimestamp = DATE_FORMAT.format(parsedDate); // Reformat for consistency
-                             } catch (ParseException pe) {
-                                 // If parsing fails, use the string value as is, but log a warning
-                                 logger.warn("Could not parse timestamp string '{}' in '{}', Row {}. Using raw value.", tsString, sheet.getSheetName(), i + 1);
-                                 currentTimestamp = tsString; // Fallback to using the raw string
-                             }
-                         }
-                     }
-                 } catch (Exception e) {
-                    // Catch any other errors during timestamp reading/parsing
-                    logger.warn("Error reading timestamp in '{}', Row {}: {}. Skipping timestamp for this row.",
-                                sheet.getSheetName(), i + 1, e.getMessage());
-                    // Decide whether to skip the whole row or just the timestamp
-                    // Skipping the row if timestamp is crucial:
-                    // continue;
-                    // Or use a placeholder:
-                     currentTimestamp = "Invalid Timestamp @ Row " + (i+1);
-                 }
-             }
-
-            // If timestamp is still null or empty after trying, skip the row
-             if (currentTimestamp == null || currentTimestamp.trim().isEmpty()) {
+            // If the timestamp is blank or unreadable, skip the row
+             if (!readTimestamp(row.getCell(0), formatter, evaluator, sheet.getSheetName(), buffer, slot)) {
                  logger.warn("Missing or invalid timestamp in '{}', Row {}. Skipping row.", sheet.getSheetName(), i + 1);
                  continue;
              }
-             timestamps.add(currentTimestamp);
 
             // --- Read Data Values (Columns 1 to N) ---
-             // Use header count for loop bounds, but check cell index safety
              for (int j = 1; j < headers.size(); j++) {
+                 if (columns[j] == null) continue; // Skip columns with no header or not in the projection
                  Cell cell = row.getCell(j, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL); // Get cell or null if missing
-                 String header = headers.get(j);
-                 if (header == null || header.trim().isEmpty()) {
-                      logger.trace("Skipping data column with empty header at index {} in '{}'", j, sheet.getSheetName());
-                      continue; // Skip columns with no header
+                 if (cell != null && cell.getCellType() == CellType.STRING) {
+                     buffer.setText(j, slot, cell.getStringCellValue()); // Parsed in parseRows
+                 } else {
+                     // Numbers, formulas, booleans and blanks; NaN is stored as well
+                     columns[j][slot] = getCellValueAsDouble(cell, formatter, evaluator);
                  }
-
-                 // Parse cell value as double (handles numbers, strings, formulas, blanks)
-                 double value = getCellValueAsDouble(cell, formatter, evaluator);
-                 // Store the value (even if NaN) in the map for this row
-                 dataRowMap.put(header, value);
             }
+        }
+        monitor.rowsRead(rowsSinceReport);
+    }
 
-            // Add the completed row map to the list of data rows
-             dataRows.add(dataRowMap);
-        } // End of row loop
+    /**
+     * Buffers the timestamp cell of a data row. Returns false if it is blank; a cell that cannot be
+     * read is kept with a placeholder timestamp.
+     */
+    private boolean readTimestamp(Cell firstCell, DataFormatter formatter, FormulaEvaluator evaluator, String sheetName, RowBuffer buffer, int slot) {
+        if (firstCell == null || firstCell.getCellType() == CellType.BLANK) return false;
+        int rowNumber = slot + 2;
+        try {
+            // Try reading as Date cell first
+            if (firstCell.getCellType() == CellType.NUMERIC && DateUtil.isCellDateFormatted(firstCell)) {
+                LocalDateTime dateValue = firstCell.getLocalDateTimeCellValue();
+                if (dateValue == null) {
+                    logger.warn("Date-formatted cell {} in '{}' returned null date value.", firstCell.getAddress(), sheetName);
+                    return false;
+                }
+                buffer.dates[slot] = dateValue;
+                return true;
+            }
+            // If not date formatted, read as string (parsed in parseRows)
+            String tsString = getCellValueAsString(firstCell, formatter, evaluator).trim();
+            if (tsString.isEmpty()) return false;
+            buffer.timestampTexts[slot] = tsString;
+            return true;
+        } catch (Exception e) {
+            // Catch any other errors during timestamp reading and use a placeholder
+            logger.warn("Error reading timestamp in '{}', Row {}: {}. Skipping timestamp for this row.", sheetName, rowNumber, e.getMessage());
+            buffer.timestamps[slot] = "Invalid Timestamp @ Row " + rowNumber;
+            return true;
+        }
+    }
 
-        // Set the collected data into the ExcelData object
-        excelData.setTimestamps(timestamps);
-        excelData.setSheet1Data(dataRows);
+    /** Formats the buffered timestamps and parses the buffered text cells of the slots [from, to). */
+    private static void parseRows(RowBuffer buffer, int from, int to, double[][] columns, String sheetName, LoadMonitor monitor) {
+        monitor.checkCancelled();
+        for (int slot = from; slot < to; slot++) {
+            if (buffer.dates[slot] != null) {
+                buffer.timestamps[slot] = formatTimestamp(buffer.dates[slot]);
+            } else if (buffer.timestampTexts[slot] != null) {
+                buffer.timestamps[slot] = normalizeTimestamp(buffer.timestampTexts[slot], sheetName, slot + 2);
+            }
+        }
+        for (int j = 1; j < columns.length; j++) {
+            String[] texts = buffer.texts[j];
+            if (texts == null) continue; // Column without text cells
+            for (int slot = from; slot < to; slot++) {
+                if (texts[slot] != null) columns[j][slot] = parseDoubleWithOptionalUnit(texts[slot], null);
+            }
+        }
     }
 
      /** Reads optional module information from Sheet3. */
-     private ModuleInfo readModuleInfo(Sheet sheet) {
-         DataFormatter formatter = new DataFormatter(); // Handles cell types
-         FormulaEvaluator evaluator = sheet.getWorkbook().getCreationHelper().createFormulaEvaluator();
-
+     static ModuleInfo readModuleInfo(SheetTable sheet) {
          // Variables to store parsed values, initialized to NaN
          double pnennKWp = Double.NaN;
          double pmppKW = Double.NaN;
@@ -341,26 +471,23 @@ public class ExcelReader {
 
          // Flexible reading: Iterate through rows, look for label/value pairs
          logger.debug("Scanning '{}' for module info labels: {}", sheet.getSheetName(), valueConsumers.keySet());
-         for (Row row : sheet) {
-             if (row == null) continue;
+         for (int r = 0; r < sheet.getRowCount(); r++) {
+             if (!sheet.hasRow(r)) continue;
              // Check adjacent cells for label-value pattern
-             for (int i = 0; i < row.getLastCellNum() - 1; i++) {
-                 Cell labelCell = row.getCell(i, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-                 Cell valueCell = row.getCell(i + 1, Row.MissingCellPolicy.RETURN_BLANK_AS_NULL);
-
-                 if (labelCell != null && valueCell != null) {
-                     String labelText = getCellValueAsString(labelCell, formatter, evaluator).toLowerCase().trim();
+             for (int i = 0; i < sheet.getCellCount(r) - 1; i++) {
+                 if (sheet.hasCell(r, i) && sheet.hasCell(r, i + 1)) {
+                     String labelText = sheet.getText(r, i).toLowerCase().trim();
 
                      // Check if this label is one we're looking for
                      if (valueConsumers.containsKey(labelText)) {
                          // Attempt to parse the value from the next cell
-                         double value = getCellValueAsDouble(valueCell, formatter, evaluator);
+                         double value = sheet.getNumber(r, i + 1);
                          if (!Double.isNaN(value)) {
                              logger.trace("Found module info in '{}': Label='{}', Value={}", sheet.getSheetName(), labelText, value);
                              valueConsumers.get(labelText).accept(value); // Store the parsed value
                          } else {
-                             logger.warn("Found label '{}' in '{}' but could not parse numeric value from adjacent cell {}. Raw: '{}'",
-                                         labelText, sheet.getSheetName(), valueCell.getAddress(), getCellValueAsString(valueCell, formatter, evaluator));
+                             logger.warn("Found label '{}' in '{}' but could not parse numeric value from adjacent cell (Row {}, Column {}). Raw: '{}'",
+                                         labelText, sheet.getSheetName(), r + 1, i + 2, sheet.getText(r, i + 1));
                          }
                      }
                  }
@@ -392,6 +519,34 @@ public class ExcelReader {
         }
     }
 
+    // --- Shared Helpers (also used by StreamingExcelReader) ---
+
+    /** Validates that the first Sheet1 header is related to date/time. */
+    static void validateTimeSeriesHeaders(List<String> headers, String sheetName) {
+        if (headers.isEmpty() || !headers.get(0).toLowerCase().contains("date") && !headers.get(0).toLowerCase().contains("zeit")) {
+             throw new RuntimeException("Sheet '" + sheetName + "' header format error. First column header should be related to 'Date' or 'Zeit'. Found: '" + (headers.isEmpty() ? "None" : headers.get(0)) + "'");
+        }
+    }
+
+    /** Formats a date cell value with the common timestamp format. */
+    static String formatTimestamp(LocalDateTime dateValue) {
+        return TimestampAxis.format(dateValue);
+    }
+
+    /**
+     * Parses a textual timestamp with the common format and reformats it for consistency.
+     * Falls back to the raw string (with a warning) if it cannot be parsed.
+     */
+    static String normalizeTimestamp(String tsString, String sheetName, int rowNumber) {
+        long epochMinute = TimestampAxis.parseEpochMinute(tsString); // Thread-safe (java.time)
+        if (epochMinute != TimestampAxis.INVALID) {
+            return TimestampAxis.format(epochMinute); // Reformat for consistency
+        }
+        // If parsing fails, use the string value as is, but log a warning
+        logger.warn("Could not parse timestamp string '{}' in '{}', Row {}. Using raw value.", tsString, sheetName, rowNumber);
+        return tsString; // Fallback to using the raw string
+    }
+
     // --- Robust Cell Value Getters ---
 
     /** Gets cell value as String, evaluating formulas. Returns empty string for null/blank. */
@@ -471,50 +626,13 @@ public class ExcelReader {
     /**
      * Parses a string value into a double, robustly handling common issues like
      * commas as decimal separators, optional units at the end, and non-numeric characters.
+     * Delegates to the single-pass {@link NumberParser} (no regex, no intermediate Strings).
      *
      * @param valueStr The string to parse.
      * @param unitToRemove Optional unit string (case-insensitive) to remove from the end (e.g., "kwp", "v"). Can be null.
      * @return The parsed double value, or Double.NaN if parsing fails or input is null/empty/"-".
      */
-    private double parseDoubleWithOptionalUnit(String valueStr, String unitToRemove) {
-        if (valueStr == null || valueStr.trim().isEmpty() || valueStr.trim().equals("-")) {
-            return Double.NaN; // Treat empty, null, or common placeholders as NaN
-        }
-
-        String cleanedValue = valueStr.trim().toLowerCase(); // Work with lowercase trimmed string
-
-        // Remove optional unit from the end
-        if (unitToRemove != null && !unitToRemove.isEmpty()) {
-             String lowerUnit = unitToRemove.toLowerCase();
-             if (cleanedValue.endsWith(lowerUnit)) {
-                 cleanedValue = cleanedValue.substring(0, cleanedValue.length() - lowerUnit.length()).trim();
-             }
-        }
-
-        // Standardize decimal separator (replace comma with dot)
-        cleanedValue = cleanedValue.replace(',', '.');
-
-        // Remove any characters that are not digits, decimal point, or a leading minus sign
-        // Be careful not to remove minus sign if it's valid
-         // Keep: digits (0-9), decimal point (.), potential leading minus (-)
-         // Remove: thousands separators, currency symbols, other text
-         // A more robust regex might be needed depending on possible inputs
-         // This one keeps only digits, dot, and minus:
-         cleanedValue = cleanedValue.replaceAll("[^\\d.-]", "");
-
-        // Check if string became empty after cleaning
-        if (cleanedValue.isEmpty() || cleanedValue.equals(".") || cleanedValue.equals("-")) {
-             logger.trace("String became invalid ('{}') after cleaning unit/chars from original '{}'. Returning NaN.", cleanedValue, valueStr);
-            return Double.NaN;
-        }
-
-        try {
-            // Attempt final parsing
-            return Double.parseDouble(cleanedValue);
-        } catch (NumberFormatException e) {
-             // Log parsing failures for debugging, but return NaN
-             logger.trace("Could not parse double from cleaned string '{}' (original: '{}'). Error: {}", cleanedValue, valueStr, e.getMessage());
-            return Double.NaN;
-        }
+    static double parseDoubleWithOptionalUnit(String valueStr, String unitToRemove) {
+        return NumberParser.parse(valueStr, unitToRemove);
     }
 }
\ No newline at end of file
@@ -0,0 +1,95 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and cancellation token of one load (possibly several files read concurrently).
+ * <p>
+ * The readers report the data rows they parsed in blocks and call {@link #checkCancelled()}
+ * between blocks, so a cancelled load stops within a few thousand rows and its partially filled
+ * column arrays become garbage right away. Workbooks read with the full POI model ({@link ExcelReader})
+ * can only be cancelled once the workbook is opened, i.e. while Sheet1 is decoded.
+ * <p>
+ * The expected row count is the estimate of the load plan, so the reported progress is approximate
+ * until the load is finished. All methods are thread-safe.
+ */
+public final class LoadMonitor {
+
+    /** Rows between progress notifications while the expected row count is unknown. */
+    private static final long UNKNOWN_TOTAL_STEP = 10_000;
+
+    /** Receives progress updates; called from the loading threads. */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param rowsRead     Data rows parsed so far.
+         * @param expectedRows Estimated total number of data rows, 0 if unknown.
+         */
+        void progress(long rowsRead, long expectedRows);
+    }
+
+    private final Listener listener;
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong expectedRows = new AtomicLong();
+    private final AtomicInteger lastStep = new AtomicInteger(-1);
+    private volatile boolean cancelled;
+
+    /** @param listener Progress listener, or null to only track cancellation. */
+    public LoadMonitor(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** @return A monitor without listener that is only cancelled by interrupting the loading thread. */
+    public static LoadMonitor none() {
+        return new LoadMonitor(null);
+    }
+
+    /** Adds the estimated data rows of a file to the expected total (ignored if negative, i.e. unknown). */
+    public void expectRows(long rows) {
+        if (rows > 0) expectedRows.addAndGet(rows);
+    }
+
+    /** Reports parsed data rows; notifies the listener about once per percent. */
+    public void rowsRead(long rows) {
+        if (rows <= 0) return;
+        long read = rowsRead.addAndGet(rows);
+        if (listener == null) return;
+        long expected = expectedRows.get();
+        int step = (int) (expected > 0 ? Math.min(100, read * 100 / expected) : Math.min(Integer.MAX_VALUE, read / UNKNOWN_TOTAL_STEP));
+        int last = lastStep.get();
+        if (step != last && lastStep.compareAndSet(last, step)) listener.progress(read, expected);
+    }
+
+    /** Requests cancellation; the readers stop at their next check. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** @return true if {@link #cancel()} was called or the calling thread is interrupted. */
+    public boolean isCancelled() {
+        return cancelled || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Called by the readers between chunks of rows.
+     * @throws CancellationException If the load was cancelled.
+     */
+    public void checkCancelled() {
+        if (isCancelled()) {
+            cancelled = true; // Also stops the other threads of this load
+            throw new CancellationException("Laden abgebrochen.");
+        }
+    }
+
+    /** @return Data rows parsed so far. */
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    /** @return Estimated total number of data rows, 0 if unknown. */
+    public long getExpectedRows() {
+        return expectedRows.get();
+    }
+}
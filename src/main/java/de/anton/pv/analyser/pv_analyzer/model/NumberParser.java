@@ -0,0 +1,210 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Single-pass number scanners for cell text, used instead of regex cleanup and
+ * {@code Double.parseDouble} on intermediate Strings.
+ * <p>
+ * Values with at most 15 significant digits and a decimal exponent within +-22 are
+ * computed exactly from the scanned mantissa (one correctly rounded multiplication or
+ * division); only longer mantissas fall back to {@link Double#parseDouble}.
+ */
+final class NumberParser {
+
+    private static final int MAX_FAST_DIGITS = 15; // Mantissa stays exact (< 2^53)
+    private static final int MAX_MANTISSA_DIGITS = 18; // Still fits into a long
+    private static final double[] POW10 = new double[23]; // 1e0..1e22 are exact doubles
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10.0;
+    }
+
+    private NumberParser() {}
+
+    /**
+     * Lenient parse of text cells like "12,5 kWp", "1.234" or " -3 V".
+     * <ul>
+     * <li>Surrounding whitespace is ignored; empty text and "-" are NaN.</li>
+     * <li>The optional unit is removed from the end (case-insensitive).</li>
+     * <li>',' and '.' are decimal separators; all characters except digits, separators
+     *     and a leading '-' are ignored (thousands separators are not supported).</li>
+     * <li>A second separator or a '-' after the first kept character makes the value NaN.</li>
+     * </ul>
+     *
+     * @param text The text to parse (may be null).
+     * @param unit Optional unit suffix to remove, or null.
+     * @return The parsed value, or NaN.
+     */
+    static double parse(CharSequence text, String unit) {
+        if (text == null) return Double.NaN;
+        int from = 0, to = text.length();
+        while (from < to && text.charAt(from) <= ' ') from++;
+        while (to > from && text.charAt(to - 1) <= ' ') to--;
+        if (unit != null && !unit.isEmpty() && endsWithIgnoreCase(text, from, to, unit)) {
+            to -= unit.length();
+            while (to > from && text.charAt(to - 1) <= ' ') to--;
+        }
+        if (from >= to) return Double.NaN;
+
+        long mantissa = 0;
+        int digits = 0; // Significant digits in the mantissa
+        int fractionDigits = -1; // -1 = no decimal separator yet
+        boolean negative = false, anyKept = false, anyDigit = false;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyKept = anyDigit = true;
+                if (fractionDigits >= 0) fractionDigits++;
+                if (mantissa == 0 && c == '0') continue; // Leading zero
+                if (digits == MAX_MANTISSA_DIGITS) return parseCleaned(text, from, to);
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+            } else if (c == '.' || c == ',') {
+                if (fractionDigits >= 0) return Double.NaN; // "1.234,5" is not a number
+                fractionDigits = 0;
+                anyKept = true;
+            } else if (c == '-') {
+                if (anyKept) return Double.NaN; // Minus only at the start
+                negative = true;
+                anyKept = true;
+            }
+            // Everything else (letters, units, spaces, '+') is ignored
+        }
+        if (!anyDigit) return Double.NaN;
+        double value;
+        if (fractionDigits <= 0) {
+            value = mantissa; // Integers up to 18 digits are rounded correctly by the conversion
+        } else if (digits <= MAX_FAST_DIGITS && fractionDigits < POW10.length) {
+            value = mantissa / POW10[fractionDigits];
+        } else {
+            return parseCleaned(text, from, to);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the raw value of a numeric OOXML cell ({@code <v>} text such as "626.04" or
+     * "1.5E-3"). Anything that is not a plain decimal number is handed to {@link #parse}.
+     *
+     * @return The parsed value, or NaN.
+     */
+    static double parseNumeric(CharSequence raw) {
+        int len = raw.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < len && (raw.charAt(i) == '-' || raw.charAt(i) == '+')) { negative = raw.charAt(i) == '-'; i++; }
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean anyDigit = false, fraction = false;
+        for (; i < len; i++) {
+            char c = raw.charAt(i);
+            if (c >= '0' && c <= '9') {
+                anyDigit = true;
+                if (fraction) exponent--;
+                if (mantissa == 0 && c == '0') continue;
+                if (digits == MAX_FAST_DIGITS) return parseSlow(raw);
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (!anyDigit) return parseSlow(raw);
+        if (i < len) { // Exponent
+            char c = raw.charAt(i);
+            if (c != 'E' && c != 'e' || ++i >= len) return parseSlow(raw);
+            boolean negativeExponent = false;
+            if (raw.charAt(i) == '-' || raw.charAt(i) == '+') { negativeExponent = raw.charAt(i) == '-'; i++; }
+            int exp = 0;
+            int expStart = i;
+            for (; i < len; i++) {
+                c = raw.charAt(i);
+                if (c < '0' || c > '9' || exp > 10_000) return parseSlow(raw);
+                exp = exp * 10 + (c - '0');
+            }
+            if (i == expStart) return parseSlow(raw);
+            exponent += negativeExponent ? -exp : exp;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exponent == 0) {
+            value = mantissa;
+        } else if (exponent > 0 && exponent < POW10.length) {
+            value = mantissa * POW10[exponent];
+        } else if (exponent < 0 && -exponent < POW10.length) {
+            value = mantissa / POW10[-exponent];
+        } else {
+            return parseSlow(raw);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(CharSequence raw) {
+        String text = raw.toString();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return parse(text, null);
+        }
+    }
+
+    /** Rare path for long mantissas: collects the kept characters and lets the JDK round. */
+    private static double parseCleaned(CharSequence text, int from, int to) {
+        StringBuilder cleaned = new StringBuilder(to - from);
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if ((c >= '0' && c <= '9') || c == '.' || c == '-') cleaned.append(c);
+            else if (c == ',') cleaned.append('.');
+        }
+        try {
+            return Double.parseDouble(cleaned.toString());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean endsWithIgnoreCase(CharSequence text, int from, int to, String suffix) {
+        int start = to - suffix.length();
+        if (start < from) return false;
+        for (int i = 0; i < suffix.length(); i++) {
+            char a = text.charAt(start + i), b = suffix.charAt(i);
+            if (a != b && Character.toLowerCase(a) != Character.toLowerCase(b)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reusable ASCII view of a byte buffer, so fields (e.g. of a CSV file) are parsed in place
+     * without copying or decoding them. Bytes outside ASCII are ignored by {@link #parse} like any
+     * other letter. Not thread-safe: one instance per parsing thread.
+     */
+    static final class ByteSpan implements CharSequence {
+        private final ByteBuffer bytes;
+        private int from, to;
+
+        ByteSpan(ByteBuffer bytes) {
+            this.bytes = bytes;
+        }
+
+        /** Parses the bytes [from, to) like {@link NumberParser#parse(CharSequence, String)} without unit. */
+        double parse(int from, int to) {
+            this.from = from;
+            this.to = to;
+            return NumberParser.parse(this, null);
+        }
+
+        @Override public int length() { return to - from; }
+        @Override public char charAt(int index) { return (char) (bytes.get(from + index) & 0xFF); }
+        @Override public CharSequence subSequence(int start, int end) { return toString().substring(start, end); }
+        @Override public String toString() {
+            byte[] raw = new byte[to - from];
+            bytes.get(from, raw);
+            return new String(raw, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * DBSCAN outlier flags of many analysed timestamps as one bitset per tracker (tracker index = ID
+ * in the {@link TrackerRegistry} of the dataset, bit = timestamp index of the analysis run, e.g.
+ * of a day sweep). A second bitset marks the samples: timestamps at which the tracker produced
+ * (power above {@link DataQuality#MIN_POWER_KW}) or was flagged, so night rows do not dilute the
+ * consensus scores.
+ * <p>
+ * All queries work on whole words: counts are popcounts of the masked edge words and the words
+ * between them, runs are found with trailing-zero counts (one step per run, not per bit). Ranges
+ * are half-open timestamp index ranges [from, to). Instances are immutable; see {@link Builder}.
+ */
+public final class OutlierBitmap {
+
+    /** Consecutive outlier timestamps [start, start + length); length 0 (start -1) if there is none. */
+    public record Run(int start, int length) {
+        static final Run NONE = new Run(-1, 0);
+
+        /** @return Index of the last timestamp of the run, or -1. */
+        public int last() {
+            return length == 0 ? -1 : start + length - 1;
+        }
+    }
+
+    /** Outlier statistics of one tracker within a timestamp range. */
+    public record TrackerScore(int trackerId, int outliers, int samples, Run longestRun) {
+        /** @return Share of the samples flagged as outlier (0..1), 0 without samples. */
+        public double score() {
+            return samples == 0 ? 0 : (double) outliers / samples;
+        }
+    }
+
+    private final int timestampCount;
+    private final long[][] outliers; // [tracker][word]
+    private final long[][] samples;  // [tracker][word], superset of outliers
+
+    private OutlierBitmap(int timestampCount, long[][] outliers, long[][] samples) {
+        this.timestampCount = timestampCount;
+        this.outliers = outliers;
+        this.samples = samples;
+    }
+
+    public int getTrackerCount() {
+        return outliers.length;
+    }
+
+    public int getTimestampCount() {
+        return timestampCount;
+    }
+
+    public boolean isOutlier(int trackerId, int t) {
+        Objects.checkIndex(t, timestampCount);
+        return (outliers[trackerId][t >>> 6] & (1L << t)) != 0;
+    }
+
+    public boolean isSample(int trackerId, int t) {
+        Objects.checkIndex(t, timestampCount);
+        return (samples[trackerId][t >>> 6] & (1L << t)) != 0;
+    }
+
+    /** @return Number of outlier timestamps of the tracker in [from, to). */
+    public int countOutliers(int trackerId, int from, int to) {
+        Objects.checkFromToIndex(from, to, timestampCount);
+        return count(outliers[trackerId], from, to);
+    }
+
+    public int countOutliers(int trackerId) {
+        return countOutliers(trackerId, 0, timestampCount);
+    }
+
+    /** @return Number of sample timestamps of the tracker in [from, to). */
+    public int countSamples(int trackerId, int from, int to) {
+        Objects.checkFromToIndex(from, to, timestampCount);
+        return count(samples[trackerId], from, to);
+    }
+
+    /** @return Share of the samples of the tracker in [from, to) flagged as outlier (0..1), 0 without samples. */
+    public double consensusScore(int trackerId, int from, int to) {
+        int sampleCount = countSamples(trackerId, from, to);
+        return sampleCount == 0 ? 0 : (double) count(outliers[trackerId], from, to) / sampleCount;
+    }
+
+    /** @return The first longest run of consecutive outlier timestamps of the tracker in [from, to). */
+    public Run longestRun(int trackerId, int from, int to) {
+        Objects.checkFromToIndex(from, to, timestampCount);
+        return longestRun(outliers[trackerId], from, to);
+    }
+
+    /** @return IDs of the trackers flagged in at least {@code minShare} (0..1) of their samples in [from, to). */
+    public List<Integer> trackersWithConsensus(double minShare, int from, int to) {
+        List<Integer> result = new ArrayList<>();
+        for (int id = 0; id < outliers.length; id++) {
+            int outlierCount = countOutliers(id, from, to);
+            if (outlierCount > 0 && outlierCount >= minShare * count(samples[id], from, to)) result.add(id);
+        }
+        return result;
+    }
+
+    /** @return IDs of the trackers flagged at least {@code minLength} consecutive timestamps in [from, to). */
+    public List<Integer> trackersWithRun(int minLength, int from, int to) {
+        List<Integer> result = new ArrayList<>();
+        for (int id = 0; id < outliers.length; id++) {
+            Run run = longestRun(id, from, to);
+            if (run.length() > 0 && run.length() >= minLength) result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Ranks the trackers with at least one outlier in [from, to): by consensus score, then number of
+     * outliers, then longest run (all descending), then tracker ID.
+     */
+    public List<TrackerScore> rank(int from, int to) {
+        Objects.checkFromToIndex(from, to, timestampCount);
+        List<TrackerScore> ranking = new ArrayList<>();
+        for (int id = 0; id < outliers.length; id++) {
+            int outlierCount = count(outliers[id], from, to);
+            if (outlierCount == 0) continue;
+            ranking.add(new TrackerScore(id, outlierCount, count(samples[id], from, to), longestRun(outliers[id], from, to)));
+        }
+        ranking.sort(Comparator.comparingDouble(TrackerScore::score).reversed()
+                .thenComparing(Comparator.comparingInt(TrackerScore::outliers).reversed())
+                .thenComparing(Comparator.comparingInt((TrackerScore s) -> s.longestRun().length()).reversed())
+                .thenComparingInt(TrackerScore::trackerId));
+        return ranking;
+    }
+
+    /** Popcount of the bits [from, to): masked edge words, whole words in between. */
+    private static int count(long[] bits, int from, int to) {
+        if (from >= to) return 0;
+        int first = from >>> 6, last = (to - 1) >>> 6;
+        long firstMask = -1L << from, lastMask = -1L >>> -to;
+        if (first == last) return Long.bitCount(bits[first] & firstMask & lastMask);
+        int count = Long.bitCount(bits[first] & firstMask);
+        for (int word = first + 1; word < last; word++) count += Long.bitCount(bits[word]);
+        return count + Long.bitCount(bits[last] & lastMask);
+    }
+
+    /** First longest run of set bits in [from, to); runs may span words. */
+    private static Run longestRun(long[] bits, int from, int to) {
+        if (from >= to) return Run.NONE;
+        int bestStart = -1, bestLength = 0, runStart = -1;
+        int first = from >>> 6, last = (to - 1) >>> 6;
+        for (int word = first; word <= last; word++) {
+            long x = bits[word];
+            if (word == first) x &= -1L << from;
+            if (word == last) x &= -1L >>> -to;
+            int base = word << 6, pos = 0;
+            while (true) {
+                if (runStart >= 0) { // Extend the open run by the ones at pos
+                    pos += Long.numberOfTrailingZeros(~(x >>> pos));
+                    if (pos >= 64) break; // Continues in the next word
+                    int length = base + pos - runStart;
+                    if (length > bestLength) { bestStart = runStart; bestLength = length; }
+                    runStart = -1;
+                }
+                long rest = x >>> pos;
+                if (rest == 0) break;
+                pos += Long.numberOfTrailingZeros(rest);
+                runStart = base + pos;
+            }
+        }
+        if (runStart >= 0 && to - runStart > bestLength) { bestStart = runStart; bestLength = to - runStart; }
+        return bestLength == 0 ? Run.NONE : new Run(bestStart, bestLength);
+    }
+
+    @Override
+    public String toString() {
+        long outlierBits = 0;
+        for (long[] tracker : outliers) for (long word : tracker) outlierBits += Long.bitCount(word);
+        return "OutlierBitmap{trackers=" + outliers.length + ", timestamps=" + timestampCount + ", outliers=" + outlierBits + '}';
+    }
+
+    /** Collects the flags of the analysed timestamps; not thread-safe (timestamps share words). */
+    public static final class Builder {
+        private final int timestampCount;
+        private final long[][] outliers, samples;
+        private boolean built;
+
+        public Builder(int trackerCount, int timestampCount) {
+            if (trackerCount < 0 || timestampCount < 0) throw new IllegalArgumentException("Counts must not be negative.");
+            this.timestampCount = timestampCount;
+            int words = (timestampCount + 63) >>> 6;
+            this.outliers = new long[trackerCount][words];
+            this.samples = new long[trackerCount][words];
+        }
+
+        /** Records one sample; an outlier always counts as sample. */
+        public Builder set(int trackerId, int t, boolean sample, boolean outlier) {
+            if (built) throw new IllegalStateException("Bitmap already built.");
+            Objects.checkIndex(trackerId, outliers.length);
+            Objects.checkIndex(t, timestampCount);
+            long bit = 1L << t;
+            if (sample || outlier) samples[trackerId][t >>> 6] |= bit;
+            if (outlier) outliers[trackerId][t >>> 6] |= bit;
+            return this;
+        }
+
+        /**
+         * Records the points analysed at timestamp index {@code t} with their DBSCAN outlier flags
+         * (after the 50 % reset of the analysis). Points without tracker ID are ignored.
+         */
+        public Builder addPoints(int t, Collection<CalculatedDataPoint> points) {
+            for (CalculatedDataPoint p : points) {
+                if (p == null || p.getTrackerId() < 0 || p.getTrackerId() >= outliers.length) continue;
+                set(p.getTrackerId(), t, p.getDcLeistungKW() > DataQuality.MIN_POWER_KW, p.isOutlier());
+            }
+            return this;
+        }
+
+        public OutlierBitmap build() {
+            built = true;
+            return new OutlierBitmap(timestampCount, outliers, samples);
+        }
+    }
+}
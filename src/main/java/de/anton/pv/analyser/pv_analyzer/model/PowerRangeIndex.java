@@ -0,0 +1,208 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Range-minimum/maximum index over the DC power of every tracker (tracker index = ID in the
+ * {@link TrackerRegistry} of the dataset), built once at load time.
+ * <p>
+ * Only usable samples are considered (no {@link DataQuality#EXCLUDED} flag: no gap or NaN, power above
+ * {@link DataQuality#MIN_POWER_KW}, ...), like in the analyses. The rows are split into blocks of
+ * 64 (the words of the quality bitsets); per block the rows of the first maximum and the first
+ * minimum are stored, and a sparse table over the blocks answers any run of whole blocks with two
+ * lookups. A query therefore scans at most the two partial blocks at its edges and costs O(1) per
+ * tracker independent of the interval length. Memory is about {@code rows / 64 * log2(rows / 64)}
+ * ints per tracker.
+ * <p>
+ * Ties are resolved to the earliest row, i.e. the result equals a scan that keeps the first extreme
+ * value. Instances are immutable; {@link #extend} returns a new instance for appended rows.
+ */
+public final class PowerRangeIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PowerRangeIndex.class);
+
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_ROWS = 1 << BLOCK_SHIFT;
+    private static final PowerRangeIndex EMPTY = new PowerRangeIndex(0, new Tracker[0]);
+
+    private final int rowCount;
+    private final Tracker[] trackers; // [tracker ID]
+
+    private PowerRangeIndex(int rowCount, Tracker[] trackers) {
+        this.rowCount = rowCount;
+        this.trackers = trackers;
+    }
+
+    /** @return The instance without trackers (queries scan the raw rows). */
+    public static PowerRangeIndex empty() {
+        return EMPTY;
+    }
+
+    /** Indexes the first {@code rowCount} rows of all trackers of the registry. */
+    static PowerRangeIndex build(ExcelData data, TrackerRegistry registry, DataQuality quality, int rowCount) {
+        if (registry.size() == 0 || rowCount == 0) return EMPTY;
+        long start = System.nanoTime();
+        Tracker[] trackers = new Tracker[registry.size()];
+        for (int id = 0; id < trackers.length; id++) {
+            trackers[id] = Tracker.build(data.getColumnArray(registry.getPowerColumn(id)), quality, id, rowCount, null, 0);
+        }
+        logger.debug("Power range index of {} trackers x {} rows ({} blocks) in {} ms", trackers.length, rowCount, blocks(rowCount), (System.nanoTime() - start) / 1_000_000);
+        return new PowerRangeIndex(rowCount, trackers);
+    }
+
+    /**
+     * Returns the index for {@code newRowCount} rows after rows were appended. Per tracker the blocks
+     * from the first row whose quality flags can have changed onwards are computed again; the sparse
+     * table over the blocks is rebuilt.
+     */
+    PowerRangeIndex extend(ExcelData data, TrackerRegistry registry, DataQuality quality, int newRowCount) {
+        if (newRowCount <= rowCount) return this;
+        if (trackers.length != registry.size() || rowCount == 0) return build(data, registry, quality, newRowCount);
+        Tracker[] extended = new Tracker[trackers.length];
+        for (int id = 0; id < trackers.length; id++) {
+            double[] power = data.getColumnArray(registry.getPowerColumn(id));
+            int fromBlock = power != null ? DataQuality.rescanStart(power, rowCount) >>> BLOCK_SHIFT : 0;
+            extended[id] = Tracker.build(power, quality, id, newRowCount, trackers[id], fromBlock);
+        }
+        return new PowerRangeIndex(newRowCount, extended);
+    }
+
+    private static int blocks(int rows) {
+        return (rows + BLOCK_ROWS - 1) >>> BLOCK_SHIFT;
+    }
+
+    /** @return Number of rows the index was built for. */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Row of the first maximum of the usable DC power samples of the tracker in rows
+     *         [fromRow, toRow), or -1 if there is none.
+     */
+    int maxRow(ExcelData data, int trackerId, int fromRow, int toRow) {
+        return extremeRow(data, trackerId, fromRow, toRow, true);
+    }
+
+    /** @return Row of the first minimum of the usable DC power samples in rows [fromRow, toRow), or -1. */
+    int minRow(ExcelData data, int trackerId, int fromRow, int toRow) {
+        return extremeRow(data, trackerId, fromRow, toRow, false);
+    }
+
+    private int extremeRow(ExcelData data, int trackerId, int fromRow, int toRow, boolean max) {
+        Objects.checkFromToIndex(fromRow, toRow, data.getRowCount());
+        TrackerRegistry registry = data.getTrackerRegistry();
+        Objects.checkIndex(trackerId, registry.size());
+        int column = registry.getPowerColumn(trackerId);
+        DataQuality quality = data.getDataQuality();
+        Tracker tracker = trackerId < trackers.length ? trackers[trackerId] : null;
+        // Whole blocks [firstBlock, endBlock) come from the index; rows appended since it was built are scanned
+        int indexed = tracker == null ? 0 : Math.min(toRow, rowCount);
+        int firstBlock = blocks(fromRow);
+        int endBlock = indexed == rowCount ? blocks(rowCount) : indexed >>> BLOCK_SHIFT;
+        if (firstBlock >= endBlock) return scan(data, quality, trackerId, column, fromRow, toRow, -1, max);
+        int best = scan(data, quality, trackerId, column, fromRow, firstBlock << BLOCK_SHIFT, -1, max);
+        int middle = tracker.query(firstBlock, endBlock - 1, max);
+        if (middle >= 0 && (best < 0 || better(data.getValue(column, middle), data.getValue(column, best), max))) best = middle;
+        return scan(data, quality, trackerId, column, Math.min(toRow, Math.min(endBlock << BLOCK_SHIFT, rowCount)), toRow, best, max);
+    }
+
+    /** Continues the first-extreme scan of the usable rows [from, to) from the current best row. */
+    private static int scan(ExcelData data, DataQuality quality, int trackerId, int column, int from, int to, int best, boolean max) {
+        double bestValue = best >= 0 ? data.getValue(column, best) : Double.NaN;
+        for (int row = quality.nextUsableRow(trackerId, from); row >= 0 && row < to; row = quality.nextUsableRow(trackerId, row + 1)) {
+            double value = data.getValue(column, row);
+            if (best < 0 || better(value, bestValue, max)) {
+                best = row;
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    private static boolean better(double value, double best, boolean max) {
+        return max ? value > best : value < best;
+    }
+
+    @Override
+    public String toString() {
+        return "PowerRangeIndex{trackers=" + trackers.length + ", rows=" + rowCount + ", blocks=" + blocks(rowCount) + '}';
+    }
+
+    /** Block extremes and sparse tables of one tracker; rows are -1 for blocks without usable sample. */
+    private static final class Tracker {
+        final double[] blockMax, blockMin;
+        final int[] blockMaxRow, blockMinRow;
+        final int[][] maxTable, minTable; // [level][block]: block of the extreme in blocks [block, block + 2^level)
+
+        private Tracker(double[] blockMax, int[] blockMaxRow, double[] blockMin, int[] blockMinRow) {
+            this.blockMax = blockMax;
+            this.blockMaxRow = blockMaxRow;
+            this.blockMin = blockMin;
+            this.blockMinRow = blockMinRow;
+            this.maxTable = sparseTable(blockMax, blockMaxRow, true);
+            this.minTable = sparseTable(blockMin, blockMinRow, false);
+        }
+
+        /** Computes the blocks from {@code fromBlock} on and takes the earlier blocks from {@code previous}. */
+        static Tracker build(double[] power, DataQuality quality, int id, int rowCount, Tracker previous, int fromBlock) {
+            int blocks = blocks(rowCount);
+            double[] blockMax = previous != null ? Arrays.copyOf(previous.blockMax, blocks) : new double[blocks];
+            double[] blockMin = previous != null ? Arrays.copyOf(previous.blockMin, blocks) : new double[blocks];
+            int[] blockMaxRow = previous != null ? Arrays.copyOf(previous.blockMaxRow, blocks) : new int[blocks];
+            int[] blockMinRow = previous != null ? Arrays.copyOf(previous.blockMinRow, blocks) : new int[blocks];
+            for (int b = fromBlock; b < blocks; b++) {
+                int maxRow = -1, minRow = -1;
+                int end = Math.min(rowCount, (b + 1) << BLOCK_SHIFT);
+                if (power != null) { // Without column every sample is a gap
+                    for (int row = quality.nextUsableRow(id, b << BLOCK_SHIFT); row >= 0 && row < end; row = quality.nextUsableRow(id, row + 1)) {
+                        if (maxRow < 0 || power[row] > power[maxRow]) maxRow = row;
+                        if (minRow < 0 || power[row] < power[minRow]) minRow = row;
+                    }
+                }
+                blockMaxRow[b] = maxRow;
+                blockMinRow[b] = minRow;
+                blockMax[b] = maxRow >= 0 ? power[maxRow] : Double.NaN;
+                blockMin[b] = minRow >= 0 ? power[minRow] : Double.NaN;
+            }
+            return new Tracker(blockMax, blockMaxRow, blockMin, blockMinRow);
+        }
+
+        private static int[][] sparseTable(double[] values, int[] rows, boolean max) {
+            int blocks = values.length;
+            int levels = blocks == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(blocks);
+            int[][] table = new int[levels][];
+            if (levels == 0) return table;
+            table[0] = new int[blocks];
+            for (int b = 0; b < blocks; b++) table[0][b] = b;
+            for (int level = 1; level < levels; level++) {
+                int half = 1 << (level - 1), count = blocks - (1 << level) + 1;
+                int[] previous = table[level - 1], current = new int[count];
+                for (int b = 0; b < count; b++) current[b] = pick(values, rows, previous[b], previous[b + half], max);
+                table[level] = current;
+            }
+            return table;
+        }
+
+        /** @return The block with the better extreme; the earlier block {@code a} wins ties and blocks without sample lose. */
+        private static int pick(double[] values, int[] rows, int a, int b, boolean max) {
+            if (rows[b] < 0) return a;
+            if (rows[a] < 0) return b;
+            return better(values[b], values[a], max) ? b : a;
+        }
+
+        /** @return Row of the first extreme in blocks [first, last], or -1. */
+        int query(int first, int last, boolean max) {
+            int[][] table = max ? maxTable : minTable;
+            double[] values = max ? blockMax : blockMin;
+            int[] rows = max ? blockMaxRow : blockMinRow;
+            int level = 31 - Integer.numberOfLeadingZeros(last - first + 1);
+            int block = pick(values, rows, table[level][first], table[level][last - (1 << level) + 1], max);
+            return rows[block];
+        }
+    }
+}
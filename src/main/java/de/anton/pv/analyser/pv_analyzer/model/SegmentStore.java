@@ -0,0 +1,466 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Local, append-only history of one plant, stored as one segment file per day (or several
+ * per day if a day is appended in parts) plus a small index.
+ * <p>
+ * Rows can only be appended after the newest stored timestamp, so segments never overlap and
+ * are ordered by time. The index lists every segment with its time range and the min/max of
+ * each column; it is kept in memory and rewritten atomically after each append. Segment files
+ * are memory-mapped on first access, so a query only touches the segments of its time range.
+ * Segment layout (little endian):
+ * <pre>
+ * header  : magic, version, row count, column count
+ * columns : int[column count] store column ids (index into {@link #getHeaders()})
+ * padding : up to the next 8 byte boundary
+ * axis    : long[row count] epoch minutes (strictly ascending)
+ * values  : double[row count] per column
+ * </pre>
+ * Appends are serialized; reads may run concurrently with appends and see the state of the last
+ * completed append.
+ */
+public class SegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SegmentStore.class);
+    private static final String INDEX_FILE = "index.bin";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int INDEX_MAGIC = 0x50565349; // "PVSI"
+    private static final int SEGMENT_MAGIC = 0x50565353; // "PVSS"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_HEADER_BYTES = 4 * Integer.BYTES;
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path directory;
+    private final List<String> headers = new ArrayList<>(); // Store column registry; column 0 is the timestamp column
+    private Map<String, TrackerInfo> trackerInfoMap = Collections.emptyMap();
+    private ModuleInfo moduleInfo = null;
+    private volatile List<SegmentInfo> segments = Collections.emptyList(); // Ordered by time, replaced on append
+    private final Map<String, ByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store in the directory, creating an empty store if it does not exist yet.
+     *
+     * @param directory Store directory (one per plant).
+     * @throws IOException If the index exists but cannot be read.
+     */
+    public SegmentStore(Path directory) throws IOException {
+        this.directory = Objects.requireNonNull(directory, "Store directory cannot be null.");
+        Files.createDirectories(directory);
+        Path index = directory.resolve(INDEX_FILE);
+        if (Files.isRegularFile(index)) readIndex(index);
+        logger.info("Opened segment store '{}' ({} segments).", directory, segments.size());
+    }
+
+    /** Statistics of one segment, as kept in the index. Instances are immutable. */
+    public static final class SegmentInfo {
+        private final String fileName;
+        private final long epochDay;
+        private final int rowCount;
+        private final long firstMinute;
+        private final long lastMinute;
+        private final int[] columnIds;
+        private final double[] min;
+        private final double[] max;
+
+        private SegmentInfo(String fileName, long epochDay, int rowCount, long firstMinute, long lastMinute, int[] columnIds, double[] min, double[] max) {
+            this.fileName = fileName;
+            this.epochDay = epochDay;
+            this.rowCount = rowCount;
+            this.firstMinute = firstMinute;
+            this.lastMinute = lastMinute;
+            this.columnIds = columnIds;
+            this.min = min;
+            this.max = max;
+        }
+
+        public String getFileName() { return fileName; }
+        public LocalDate getDay() { return LocalDate.ofEpochDay(epochDay); }
+        public int getRowCount() { return rowCount; }
+        public long getFirstMinute() { return firstMinute; }
+        public long getLastMinute() { return lastMinute; }
+
+        /** @return true if the segment has rows in [fromMinute, toMinute]. */
+        public boolean overlaps(long fromMinute, long toMinute) {
+            return firstMinute <= toMinute && lastMinute >= fromMinute;
+        }
+
+        /** @return true if the segment holds values of the store column. */
+        public boolean hasColumn(int columnId) {
+            return slot(columnId) >= 0;
+        }
+
+        /** @return Smallest non-NaN value of the store column in this segment, or NaN if there is none. */
+        public double getMin(int columnId) {
+            int slot = slot(columnId);
+            return slot >= 0 ? min[slot] : Double.NaN;
+        }
+
+        /** @return Largest non-NaN value of the store column in this segment, or NaN if there is none. */
+        public double getMax(int columnId) {
+            int slot = slot(columnId);
+            return slot >= 0 ? max[slot] : Double.NaN;
+        }
+
+        private int slot(int columnId) {
+            for (int i = 0; i < columnIds.length; i++) {
+                if (columnIds[i] == columnId) return i;
+            }
+            return -1;
+        }
+
+        @Override
+        public String toString() {
+            return "SegmentInfo{" + fileName + ", rows=" + rowCount + ", " + TimestampAxis.format(firstMinute) + " -> " + TimestampAxis.format(lastMinute) + '}';
+        }
+    }
+
+    // --- Access ---
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** @return Snapshot of the store column headers (column 0 is the timestamp column). */
+    public synchronized List<String> getHeaders() {
+        return List.copyOf(headers);
+    }
+
+    /** @return Snapshot of all segments, ordered by time. */
+    public List<SegmentInfo> getSegments() {
+        return segments;
+    }
+
+    /** @return Total number of stored rows. */
+    public long getRowCount() {
+        long rows = 0;
+        for (SegmentInfo segment : segments) rows += segment.rowCount;
+        return rows;
+    }
+
+    /** @return Oldest stored epoch minute, or {@link TimestampAxis#INVALID} if the store is empty. */
+    public long getFirstMinute() {
+        List<SegmentInfo> current = segments;
+        return current.isEmpty() ? TimestampAxis.INVALID : current.get(0).firstMinute;
+    }
+
+    /** @return Newest stored epoch minute, or {@link TimestampAxis#INVALID} if the store is empty. */
+    public long getLastMinute() {
+        List<SegmentInfo> current = segments;
+        return current.isEmpty() ? TimestampAxis.INVALID : current.get(current.size() - 1).lastMinute;
+    }
+
+    /** @return Segments with rows in [fromMinute, toMinute], ordered by time. */
+    public List<SegmentInfo> getSegments(long fromMinute, long toMinute) {
+        List<SegmentInfo> current = segments;
+        // First segment that ends at or after fromMinute (segments are disjoint and ordered)
+        int lo = 0, hi = current.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (current.get(mid).lastMinute < fromMinute) lo = mid + 1; else hi = mid;
+        }
+        List<SegmentInfo> result = new ArrayList<>();
+        for (int i = lo; i < current.size() && current.get(i).firstMinute <= toMinute; i++) result.add(current.get(i));
+        return result;
+    }
+
+    // --- Append ---
+
+    /**
+     * Appends the rows of the dataset that are newer than the newest stored row. Older or
+     * duplicate rows are skipped; rows with invalid timestamps are dropped. Tracker and module
+     * info of the dataset replace the stored info if present.
+     *
+     * @return Number of appended rows.
+     * @throws IOException If a segment or the index cannot be written.
+     */
+    public synchronized int append(ExcelData data) throws IOException {
+        Objects.requireNonNull(data, "Data cannot be null.");
+        ExcelData sorted = ExcelDataMerger.merge(List.of(data)); // Sorts unsorted input, drops invalid/duplicate rows
+        TimestampAxis axis = sorted.getTimestampAxis();
+        long last = getLastMinute();
+        int from = (last == TimestampAxis.INVALID || axis.isEmpty()) ? 0 : axis.ceilingIndex(last + 1);
+        int skipped = from;
+        if (from >= axis.size()) {
+            logger.info("Nothing to append to '{}': all {} rows are already stored.", directory, skipped);
+            return 0;
+        }
+
+        // Map data columns to store columns. New headers, tracker and module info are collected in copies and
+        // only become the state of the store once the segments and the index are written
+        List<String> dataHeaders = sorted.getSheet1Headers();
+        List<String> updatedHeaders = new ArrayList<>(headers);
+        if (updatedHeaders.isEmpty()) updatedHeaders.add(dataHeaders.isEmpty() ? "Zeitstempel" : dataHeaders.get(0));
+        List<int[]> mapping = new ArrayList<>(); // {data column, store column}
+        Set<Integer> seen = new HashSet<>();
+        for (int col = 1; col < dataHeaders.size(); col++) {
+            String header = dataHeaders.get(col);
+            if (!sorted.hasColumnData(col) || header == null || header.trim().isEmpty()) continue;
+            int id = updatedHeaders.indexOf(header);
+            if (id < 0) { id = updatedHeaders.size(); updatedHeaders.add(header); }
+            if (seen.add(id)) mapping.add(new int[]{col, id});
+        }
+
+        List<SegmentInfo> updated = new ArrayList<>(segments);
+        int appended = 0;
+        int start = from;
+        while (start < axis.size()) {
+            long day = Math.floorDiv(axis.getEpochMinute(start), 1440L);
+            int end = axis.ceilingIndex((day + 1) * 1440L);
+            updated.add(writeSegment(sorted, mapping, start, end, day, updated));
+            appended += end - start;
+            start = end;
+        }
+        Map<String, TrackerInfo> updatedTrackerInfo = sorted.getTrackerInfoMap().isEmpty() ? trackerInfoMap : new LinkedHashMap<>(sorted.getTrackerInfoMap());
+        ModuleInfo updatedModuleInfo = sorted.getModuleInfo() != null ? sorted.getModuleInfo() : moduleInfo;
+        writeIndex(updatedHeaders, updatedTrackerInfo, updatedModuleInfo, updated);
+        headers.addAll(updatedHeaders.subList(headers.size(), updatedHeaders.size()));
+        trackerInfoMap = updatedTrackerInfo;
+        moduleInfo = updatedModuleInfo;
+        segments = Collections.unmodifiableList(updated);
+        logger.info("Appended {} rows to '{}' ({} older rows skipped, {} segments).", appended, directory, skipped, updated.size());
+        return appended;
+    }
+
+    private SegmentInfo writeSegment(ExcelData data, List<int[]> mapping, int start, int end, long day, List<SegmentInfo> existing) throws IOException {
+        long partsOfDay = existing.stream().filter(s -> s.epochDay == day).count();
+        String fileName = DAY_FORMAT.format(LocalDate.ofEpochDay(day)) + "-" + String.format("%03d", partsOfDay) + SEGMENT_SUFFIX;
+        int rows = end - start, columnCount = mapping.size();
+        int[] columnIds = new int[columnCount];
+        double[] min = new double[columnCount], max = new double[columnCount];
+        Path temp = Files.createTempFile(directory, fileName, ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer head = ByteBuffer.allocate(DatasetCache.align(SEGMENT_HEADER_BYTES + columnCount * Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(SEGMENT_MAGIC).putInt(VERSION).putInt(rows).putInt(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columnIds[i] = mapping.get(i)[1];
+                head.putInt(columnIds[i]);
+            }
+            DatasetCache.writeFully(channel, head.clear());
+
+            TimestampAxis axis = data.getTimestampAxis();
+            ByteBuffer chunk = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            for (int row = start; row < end; row++) {
+                if (!chunk.hasRemaining()) DatasetCache.writeFully(channel, chunk.flip());
+                chunk.putLong(axis.getEpochMinute(row));
+            }
+            for (int i = 0; i < columnCount; i++) {
+                double[] column = new double[rows];
+                data.copyValues(mapping.get(i)[0], start, end, column, 0);
+                double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+                for (double value : column) {
+                    if (!Double.isNaN(value)) { lo = Math.min(lo, value); hi = Math.max(hi, value); }
+                    if (!chunk.hasRemaining()) DatasetCache.writeFully(channel, chunk.flip());
+                    chunk.putDouble(value);
+                }
+                min[i] = lo <= hi ? lo : Double.NaN;
+                max[i] = lo <= hi ? hi : Double.NaN;
+            }
+            DatasetCache.writeFully(channel, chunk.flip());
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            DatasetCache.delete(temp);
+            throw e;
+        }
+        Files.move(temp, directory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        mappedSegments.remove(fileName); // A leftover file of an interrupted append may have been mapped
+        return new SegmentInfo(fileName, day, rows, data.getTimestampAxis().getEpochMinute(start), data.getTimestampAxis().getEpochMinute(end - 1), columnIds, min, max);
+    }
+
+    // --- Read ---
+
+    /**
+     * Reads the rows in [fromMinute, toMinute] (inclusive) into an {@link ExcelData}.
+     *
+     * @param projection Store columns to load; columns missing in a segment are NaN for its rows.
+     * @return The rows of the range (possibly empty), with the stored tracker and module info.
+     * @throws IOException If a segment cannot be mapped or is corrupt.
+     */
+    public ExcelData read(long fromMinute, long toMinute, ColumnProjection projection) throws IOException {
+        return read(fromMinute, toMinute, projection, segment -> true);
+    }
+
+    /**
+     * Like {@link #read(long, long, ColumnProjection)}, but only reads segments accepted by the
+     * filter (e.g. skipping segments by their min/max statistics). Skipped segments are never mapped.
+     */
+    public ExcelData read(long fromMinute, long toMinute, ColumnProjection projection, Predicate<SegmentInfo> segmentFilter) throws IOException {
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(segmentFilter, "Segment filter cannot be null.");
+        long start = System.nanoTime();
+        List<String> headerSnapshot;
+        Map<String, TrackerInfo> trackerSnapshot;
+        ModuleInfo moduleSnapshot;
+        synchronized (this) {
+            headerSnapshot = List.copyOf(headers.isEmpty() ? List.of("Zeitstempel") : headers);
+            trackerSnapshot = trackerInfoMap;
+            moduleSnapshot = moduleInfo;
+        }
+        List<SegmentInfo> selected = new ArrayList<>();
+        for (SegmentInfo segment : getSegments(fromMinute, toMinute)) {
+            if (segmentFilter.test(segment)) selected.add(segment);
+        }
+
+        // Row range per segment
+        LongBuffer[] axes = new LongBuffer[selected.size()];
+        int[] firstRow = new int[selected.size()], lastRow = new int[selected.size()];
+        int totalRows = 0;
+        for (int s = 0; s < selected.size(); s++) {
+            SegmentInfo segment = selected.get(s);
+            axes[s] = axisOf(segment);
+            firstRow[s] = segment.firstMinute >= fromMinute ? 0 : ceiling(axes[s], segment.rowCount, fromMinute);
+            lastRow[s] = segment.lastMinute <= toMinute ? segment.rowCount : ceiling(axes[s], segment.rowCount, toMinute + 1);
+            totalRows += Math.max(0, lastRow[s] - firstRow[s]);
+        }
+
+        boolean[] wanted = projection.select(headerSnapshot);
+        double[][] columns = new double[headerSnapshot.size()][];
+        for (int col = 1; col < columns.length; col++) {
+            if (wanted[col]) columns[col] = new double[totalRows];
+        }
+        long[] minutes = new long[totalRows];
+        int offset = 0;
+        for (int s = 0; s < selected.size(); s++) {
+            SegmentInfo segment = selected.get(s);
+            int rows = lastRow[s] - firstRow[s];
+            if (rows <= 0) continue;
+            axes[s].get(firstRow[s], minutes, offset, rows);
+            for (int col = 1; col < columns.length; col++) {
+                if (columns[col] == null) continue;
+                int slot = segment.slot(col);
+                if (slot < 0) Arrays.fill(columns[col], offset, offset + rows, Double.NaN);
+                else columnOf(segment, slot).get(firstRow[s], columns[col], offset, rows);
+            }
+            offset += rows;
+        }
+        ExcelData data = ExcelData.Builder.wrap(headerSnapshot, TimestampAxis.ofEpochMinutes(minutes, totalRows), columns)
+                .trackerInfoMap(trackerSnapshot)
+                .moduleInfo(moduleSnapshot)
+                .build();
+        logger.debug("Read {} rows from {} segments of '{}' in {} ms.", totalRows, selected.size(), directory, (System.nanoTime() - start) / 1_000_000);
+        return data;
+    }
+
+    private LongBuffer axisOf(SegmentInfo segment) throws IOException {
+        ByteBuffer buffer = mapped(segment);
+        int offset = DatasetCache.align(SEGMENT_HEADER_BYTES + segment.columnIds.length * Integer.BYTES);
+        return buffer.slice(offset, segment.rowCount * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    private DoubleBuffer columnOf(SegmentInfo segment, int slot) throws IOException {
+        ByteBuffer buffer = mapped(segment);
+        int offset = DatasetCache.align(SEGMENT_HEADER_BYTES + segment.columnIds.length * Integer.BYTES) + segment.rowCount * Long.BYTES + slot * segment.rowCount * Double.BYTES;
+        return buffer.slice(offset, segment.rowCount * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+    }
+
+    /** Maps the segment file on first access and checks its header against the index. */
+    private ByteBuffer mapped(SegmentInfo segment) throws IOException {
+        ByteBuffer buffer = mappedSegments.get(segment.fileName);
+        if (buffer != null) return buffer;
+        Path file = directory.resolve(segment.fileName);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long expected = DatasetCache.align(SEGMENT_HEADER_BYTES + segment.columnIds.length * Integer.BYTES)
+                    + (long) segment.rowCount * Long.BYTES + (long) segment.rowCount * Double.BYTES * segment.columnIds.length;
+            if (channel.size() != expected) throw new IOException("Segment '" + segment.fileName + "' has size " + channel.size() + ", expected " + expected + ".");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt(0) != SEGMENT_MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != segment.rowCount || buffer.getInt(12) != segment.columnIds.length) {
+            throw new IOException("Segment '" + segment.fileName + "' does not match the store index.");
+        }
+        ByteBuffer previous = mappedSegments.putIfAbsent(segment.fileName, buffer);
+        return previous != null ? previous : buffer;
+    }
+
+    /** @return First row with a minute >= the given minute, in [0, rows]. */
+    private static int ceiling(LongBuffer axis, int rows, long minute) {
+        int lo = 0, hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (axis.get(mid) < minute) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // --- Index ---
+
+    private void writeIndex(List<String> headerList, Map<String, TrackerInfo> trackerInfo, ModuleInfo module, List<SegmentInfo> segmentList) throws IOException {
+        Path temp = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(headerList.size());
+            for (String header : headerList) out.writeUTF(header);
+            DatasetCache.writeTrackerInfo(out, trackerInfo);
+            DatasetCache.writeModuleInfo(out, module);
+            out.writeInt(segmentList.size());
+            for (SegmentInfo segment : segmentList) {
+                out.writeUTF(segment.fileName);
+                out.writeLong(segment.epochDay);
+                out.writeInt(segment.rowCount);
+                out.writeLong(segment.firstMinute);
+                out.writeLong(segment.lastMinute);
+                out.writeInt(segment.columnIds.length);
+                for (int i = 0; i < segment.columnIds.length; i++) {
+                    out.writeInt(segment.columnIds[i]);
+                    out.writeDouble(segment.min[i]);
+                    out.writeDouble(segment.max[i]);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            DatasetCache.delete(temp);
+            throw e;
+        }
+        Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void readIndex(Path index) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != VERSION) throw new IOException("Unknown store index format in '" + index + "'.");
+            for (int i = in.readInt(); i > 0; i--) headers.add(in.readUTF());
+            trackerInfoMap = DatasetCache.readTrackerInfo(in);
+            moduleInfo = DatasetCache.readModuleInfo(in);
+            int count = in.readInt();
+            List<SegmentInfo> list = new ArrayList<>(count);
+            for (int s = 0; s < count; s++) {
+                String fileName = in.readUTF();
+                long day = in.readLong();
+                int rows = in.readInt();
+                long first = in.readLong(), last = in.readLong();
+                int columns = in.readInt();
+                int[] ids = new int[columns];
+                double[] min = new double[columns], max = new double[columns];
+                for (int i = 0; i < columns; i++) {
+                    ids[i] = Objects.checkIndex(in.readInt(), headers.size());
+                    min[i] = in.readDouble();
+                    max[i] = in.readDouble();
+                }
+                list.add(new SegmentInfo(fileName, day, rows, first, last, ids, min, max));
+            }
+            segments = Collections.unmodifiableList(list);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt store index '" + index + "': " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        List<SegmentInfo> current = segments;
+        return "SegmentStore{" + directory + ", segments=" + current.size()
+                + (current.isEmpty() ? "" : ", " + TimestampAxis.format(getFirstMinute()) + " -> " + TimestampAxis.format(getLastMinute())) + '}';
+    }
+}
@@ -0,0 +1,486 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Pre-aggregated DC power and voltage of every tracker per 15 minutes, hour and day, built on the
+ * first query of the dataset (tracker index = ID in the {@link TrackerRegistry} of the dataset).
+ * <p>
+ * Per bucket and tracker metric the rollups hold count, min, max, sum, the time-weighted mean, the
+ * covered minutes and the row of the (first) maximum. Only usable samples are aggregated (no
+ * {@link DataQuality#EXCLUDED} flag, i.e. the samples the analyses use). A sample holds its value until the
+ * next row, at most for the typical step of the axis, so gaps do not inflate the weights.
+ * <p>
+ * Each resolution is a {@link ColumnarFile.Table} (one row per bucket, columns
+ * {@value #COL_START}, {@value #COL_FIRST_ROW} and {@code <Tracker>/<Metric>/<Statistic>}), i.e. the
+ * layout of the columnar archive; it can be written with {@link ColumnarFile#write}.
+ * <p>
+ * {@link ExcelData#summarize} answers row-range queries from the coarsest buckets that lie completely
+ * inside the range and reads only the partial buckets at the edges from the raw rows, so a query over
+ * months costs O(buckets) instead of O(samples). Resolutions are only built for sorted timestamp axes
+ * and if their buckets are wider than the step of the axis; without them queries scan the raw rows.
+ * Instances are immutable; {@link #extend} returns a new instance for appended rows.
+ */
+public final class SeriesRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeriesRollups.class);
+
+    /** Bucket widths, finest first. Buckets start at multiples of the width (local time, days at midnight). */
+    public enum Resolution {
+        QUARTER_HOUR(15, "15 Minuten"), HOUR(60, "Stunde"), DAY(1440, "Tag");
+
+        private final int minutes;
+        private final String displayName;
+
+        Resolution(int minutes, String displayName) {
+            this.minutes = minutes;
+            this.displayName = displayName;
+        }
+
+        public int getMinutes() { return minutes; }
+
+        @Override
+        public String toString() { return displayName; }
+    }
+
+    /** Aggregated tracker metrics. */
+    public enum Metric {
+        POWER(ExcelData.METRIC_DC_POWER), VOLTAGE(ExcelData.METRIC_DC_VOLTAGE);
+
+        private final String header;
+
+        Metric(String header) {
+            this.header = header;
+        }
+
+        /** @return Metric name as used in the Sheet1 headers. */
+        public String getHeader() { return header; }
+    }
+
+    /**
+     * Aggregate of the usable samples of one tracker metric over a bucket or row range.
+     * Min, max, sum and mean are NaN and argMaxRow is -1 if there is no usable sample.
+     *
+     * @param mean      Time-weighted mean (arithmetic mean if the samples cover no time).
+     * @param minutes   Minutes covered by the samples.
+     * @param argMaxRow Row of the first maximum.
+     */
+    public record Summary(int count, double min, double max, double sum, double mean, long minutes, int argMaxRow) {
+        public boolean isEmpty() { return count == 0; }
+    }
+
+    public static final String COL_START = "Start";
+    public static final String COL_FIRST_ROW = "Erste Zeile";
+    public static final String STAT_COUNT = "Anzahl";
+    public static final String STAT_MIN = "Min";
+    public static final String STAT_MAX = "Max";
+    public static final String STAT_SUM = "Summe";
+    public static final String STAT_MEAN = "Mittelwert";
+    public static final String STAT_MINUTES = "Minuten";
+    public static final String STAT_ARG_MAX = "Zeile Max";
+
+
+    private static final int METRICS = Metric.values().length;
+    private static final SeriesRollups EMPTY = new SeriesRollups(0, 0, new Level[0]);
+
+    private final int rowCount;
+    private final int stepMinutes;  // Maximum weight of a sample, 0 if unknown
+    private final Level[] levels;   // Built resolutions, finest first
+
+    private SeriesRollups(int rowCount, int stepMinutes, Level[] levels) {
+        this.rowCount = rowCount;
+        this.stepMinutes = stepMinutes;
+        this.levels = levels;
+    }
+
+    /** @return The instance without buckets (queries scan the raw rows). */
+    public static SeriesRollups empty() {
+        return EMPTY;
+    }
+
+    /** Aggregates the first {@code rowCount} rows of all trackers of the registry. */
+    static SeriesRollups build(ExcelData data, TrackerRegistry registry, DataQuality quality, TimestampAxis axis, int rowCount) {
+        if (registry.size() == 0 || rowCount == 0 || !axis.isSorted()) return EMPTY;
+        long start = System.nanoTime();
+        int step = axis.getTypicalStepMinutes();
+        Level[] levels = buildLevels(data, registry, quality, axis, rowCount, step, 0);
+        SeriesRollups rollups = new SeriesRollups(rowCount, step, levels);
+        logger.debug("Rollups of {} trackers x {} rows in {} ms: {}", registry.size(), rowCount, (System.nanoTime() - start) / 1_000_000, rollups);
+        return rollups;
+    }
+
+    /**
+     * Returns the rollups for {@code newRowCount} rows after rows were appended. The buckets from the
+     * coarsest bucket that contains the first row with possibly changed quality flags or weights
+     * onwards are aggregated again, the earlier buckets are kept.
+     */
+    SeriesRollups extend(ExcelData data, TrackerRegistry registry, DataQuality quality, TimestampAxis axis, int newRowCount) {
+        if (newRowCount <= rowCount) return this;
+        if (levels.length == 0 || levels[0].seriesNames.length != registry.size() * METRICS) return build(data, registry, quality, axis, newRowCount);
+        int changed = rowCount - 1; // Weight of the old last row depends on the first new row
+        for (int id = 0; id < registry.size(); id++) {
+            double[] power = data.getColumnArray(registry.getPowerColumn(id));
+            if (power != null) changed = Math.min(changed, DataQuality.rescanStart(power, rowCount));
+        }
+        Level coarsest = levels[levels.length - 1];
+        int keep = coarsest.bucketOf(changed); // Buckets of every level before this row stay valid
+        int from = coarsest.firstRow[keep];
+        Level[] tail = buildLevels(data, registry, quality, axis, newRowCount, stepMinutes, from);
+        Level[] merged = new Level[levels.length];
+        for (int l = 0; l < levels.length; l++) {
+            Level old = levels[l];
+            merged[l] = old.concat(old.bucketOf(from), tail[l]);
+        }
+        return new SeriesRollups(newRowCount, stepMinutes, merged);
+    }
+
+
+    /** Weight (held minutes) of the sample in the row. */
+    private static long weight(TimestampAxis axis, int row, int rowCount, int step) {
+        if (row + 1 >= Math.min(rowCount, axis.size())) return step;
+        return Math.min(axis.getEpochMinute(row + 1) - axis.getEpochMinute(row), step);
+    }
+
+    /** Aggregates rows [from, rowCount) into every resolution wider than the step; {@code from} must start a coarsest bucket. */
+    private static Level[] buildLevels(ExcelData data, TrackerRegistry registry, DataQuality quality, TimestampAxis axis, int rowCount, int step, int from) {
+        if (step == 0) return new Level[0];
+        Resolution[] resolutions = Arrays.stream(Resolution.values()).filter(r -> r.getMinutes() > step).toArray(Resolution[]::new);
+        Level[] levels = new Level[resolutions.length];
+        for (int l = 0; l < resolutions.length; l++) {
+            levels[l] = l == 0
+                    ? Level.fromRows(resolutions[l], data, registry, quality, axis, rowCount, step, from)
+                    : Level.fromBuckets(resolutions[l], levels[l - 1]);
+        }
+        return levels;
+    }
+
+    // --- Access ---
+
+    /** @return Number of rows the rollups were built for. */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** @return Maximum minutes a sample is weighted with (typical step of the axis), 0 if unknown. */
+    public int getStepMinutes() {
+        return stepMinutes;
+    }
+
+    /** @return true if buckets of the resolution were built. */
+    public boolean hasResolution(Resolution resolution) {
+        return level(resolution) != null;
+    }
+
+    /** @return Number of buckets of the resolution (0 if it was not built). */
+    public int getBucketCount(Resolution resolution) {
+        Level level = level(resolution);
+        return level == null ? 0 : level.buckets;
+    }
+
+    /** @return Epoch minute of the bucket start. */
+    public long getBucketStart(Resolution resolution, int bucket) {
+        Level level = requireLevel(resolution);
+        Objects.checkIndex(bucket, level.buckets);
+        return level.start[bucket];
+    }
+
+    /** @return Aggregate of one bucket. */
+    public Summary getBucket(Resolution resolution, int trackerId, Metric metric, int bucket) {
+        Level level = requireLevel(resolution);
+        Objects.checkIndex(bucket, level.buckets);
+        Accumulator acc = new Accumulator();
+        acc.merge(level, series(trackerId, metric), bucket);
+        return acc.toSummary();
+    }
+
+    /** @return The buckets of the resolution as columnar table, or null if the resolution was not built. */
+    public ColumnarFile.Table getTable(Resolution resolution) {
+        Level level = level(resolution);
+        return level == null ? null : level.table;
+    }
+
+    /**
+     * Aggregates the usable samples of rows [fromRow, toRow) of one tracker metric. Whole buckets are
+     * taken from the coarsest resolution that fits, only the rows of partial buckets are read.
+     */
+    Summary summarize(ExcelData data, int trackerId, Metric metric, int fromRow, int toRow) {
+        Objects.checkFromToIndex(fromRow, toRow, data.getRowCount());
+        TrackerRegistry registry = data.getTrackerRegistry();
+        Objects.checkIndex(trackerId, registry.size());
+        int column = metric == Metric.POWER ? registry.getPowerColumn(trackerId) : registry.getVoltageColumn(trackerId);
+        int series = series(trackerId, metric);
+        DataQuality quality = data.getDataQuality();
+        TimestampAxis axis = data.getTimestampAxis();
+        int rows = Math.min(toRow, rowCount); // Rows appended after these rollups were built are read raw
+        Accumulator acc = new Accumulator();
+        int row = fromRow;
+        while (row < toRow) {
+            Level taken = null;
+            int bucket = -1;
+            for (int l = levels.length - 1; l >= 0 && taken == null && row < rows; l--) {
+                bucket = levels[l].bucketStartingAt(row);
+                if (bucket >= 0 && levels[l].firstRow[bucket + 1] <= rows) taken = levels[l];
+            }
+            if (taken != null) {
+                acc.merge(taken, series, bucket);
+                row = taken.firstRow[bucket + 1];
+                continue;
+            }
+            // Raw rows up to the next boundary of the finest buckets
+            int end = levels.length > 0 && row < rows ? Math.min(toRow, levels[0].nextBoundary(row)) : toRow;
+            for (int r = quality.nextUsableRow(trackerId, row); r >= 0 && r < end; r = quality.nextUsableRow(trackerId, r + 1)) {
+                acc.add(data.getValue(column, r), weight(axis, r, data.getRowCount(), stepMinutes), r);
+            }
+            row = end;
+        }
+        return acc.toSummary();
+    }
+
+    private Level level(Resolution resolution) {
+        for (Level level : levels) if (level.resolution == resolution) return level;
+        return null;
+    }
+
+    private Level requireLevel(Resolution resolution) {
+        Level level = level(resolution);
+        if (level == null) throw new IllegalArgumentException("Rollups of resolution " + resolution.name() + " were not built.");
+        return level;
+    }
+
+    private static int series(int trackerId, Metric metric) {
+        return trackerId * METRICS + metric.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("SeriesRollups{rows=").append(rowCount).append(", step=").append(stepMinutes).append(" min");
+        for (Level level : levels) sb.append(", ").append(level.resolution.name()).append('=').append(level.buckets);
+        return sb.append('}').toString();
+    }
+
+    /** Running aggregate; samples and buckets must be added in row order so the first maximum wins. */
+    private static final class Accumulator {
+        int count;
+        double min = Double.NaN, max = Double.NaN, sum, weightedSum;
+        long minutes;
+        int argMaxRow = -1;
+
+        void add(double value, long weight, int row) {
+            if (count == 0 || value < min) min = value;
+            if (count == 0 || value > max) { max = value; argMaxRow = row; }
+            count++;
+            sum += value;
+            weightedSum += value * weight;
+            minutes += weight;
+        }
+
+        void merge(Level level, int series, int bucket) {
+            int n = level.count[series][bucket];
+            if (n == 0) return;
+            double bucketMax = level.max[series][bucket];
+            if (count == 0 || level.min[series][bucket] < min) min = level.min[series][bucket];
+            if (count == 0 || bucketMax > max) { max = bucketMax; argMaxRow = level.argMax[series][bucket]; }
+            count += n;
+            sum += level.sum[series][bucket];
+            weightedSum += level.mean[series][bucket] * level.minutes[series][bucket];
+            minutes += level.minutes[series][bucket];
+        }
+
+        void store(Level level, int series, int bucket) {
+            level.count[series][bucket] = count;
+            level.min[series][bucket] = min;
+            level.max[series][bucket] = max;
+            level.sum[series][bucket] = count == 0 ? Double.NaN : sum;
+            level.mean[series][bucket] = mean();
+            level.minutes[series][bucket] = (int) minutes;
+            level.argMax[series][bucket] = argMaxRow;
+        }
+
+        double mean() {
+            if (count == 0) return Double.NaN;
+            return minutes > 0 ? weightedSum / minutes : sum / count;
+        }
+
+        Summary toSummary() {
+            return new Summary(count, min, max, count == 0 ? Double.NaN : sum, mean(), minutes, argMaxRow);
+        }
+    }
+
+    /** Buckets of one resolution: bucket b covers rows [firstRow[b], firstRow[b + 1]). Arrays per series (tracker ID x metric). */
+    private static final class Level {
+        final Resolution resolution;
+        final int buckets;
+        final long[] start;
+        final int[] firstRow; // buckets + 1 entries
+        final int[][] count, minutes, argMax;
+        final double[][] min, max, sum, mean;
+        final String[] seriesNames;
+        final ColumnarFile.Table table;
+
+        private Level(Resolution resolution, int buckets, long[] start, int[] firstRow, String[] seriesNames,
+                      int[][] count, double[][] min, double[][] max, double[][] sum, double[][] mean, int[][] minutes, int[][] argMax) {
+            this.resolution = resolution;
+            this.buckets = buckets;
+            this.start = start;
+            this.firstRow = firstRow;
+            this.seriesNames = seriesNames;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.sum = sum;
+            this.mean = mean;
+            this.minutes = minutes;
+            this.argMax = argMax;
+            Map<String, String> metadata = Collections.singletonMap("resolution", resolution.name());
+            ColumnarFile.Table t = new ColumnarFile.Table(buckets, metadata).addTimestamps(COL_START, start).addInts(COL_FIRST_ROW, firstRow);
+            for (int s = 0; s < seriesNames.length; s++) {
+                String prefix = seriesNames[s] + "/";
+                t.addInts(prefix + STAT_COUNT, count[s]).addDoubles(prefix + STAT_MIN, min[s]).addDoubles(prefix + STAT_MAX, max[s])
+                 .addDoubles(prefix + STAT_SUM, sum[s]).addDoubles(prefix + STAT_MEAN, mean[s])
+                 .addInts(prefix + STAT_MINUTES, minutes[s]).addInts(prefix + STAT_ARG_MAX, argMax[s]);
+            }
+            this.table = t;
+        }
+
+        private static Level allocate(Resolution resolution, long[] start, int[] firstRow, int buckets, String[] seriesNames) {
+            int n = seriesNames.length;
+            return new Level(resolution, buckets, start, firstRow, seriesNames, new int[n][buckets], new double[n][buckets], new double[n][buckets],
+                    new double[n][buckets], new double[n][buckets], new int[n][buckets], new int[n][buckets]);
+        }
+
+        /** Aggregates the usable samples of rows [from, rowCount). */
+        static Level fromRows(Resolution resolution, ExcelData data, TrackerRegistry registry, DataQuality quality, TimestampAxis axis, int rowCount, int step, int from) {
+            long[] start = new long[16];
+            int[] firstRow = new int[17];
+            int buckets = 0;
+            long currentKey = Long.MIN_VALUE;
+            for (int row = from; row < rowCount; row++) {
+                long key = Math.floorDiv(axis.getEpochMinute(row), resolution.getMinutes());
+                if (key == currentKey) continue;
+                if (buckets == start.length) {
+                    start = Arrays.copyOf(start, buckets * 2);
+                    firstRow = Arrays.copyOf(firstRow, buckets * 2 + 1);
+                }
+                start[buckets] = key * resolution.getMinutes();
+                firstRow[buckets++] = row;
+                currentKey = key;
+            }
+            firstRow[buckets] = rowCount;
+            long[] weights = new long[rowCount - from];
+            for (int row = from; row < rowCount; row++) weights[row - from] = weight(axis, row, rowCount, step);
+
+            Level level = allocate(resolution, start, firstRow, buckets, seriesNames(registry));
+            Accumulator[] acc = new Accumulator[METRICS];
+            for (int id = 0; id < registry.size(); id++) {
+                double[] power = data.getColumnArray(registry.getPowerColumn(id));
+                double[] voltage = data.getColumnArray(registry.getVoltageColumn(id));
+                for (int b = 0; b < buckets; b++) {
+                    for (int m = 0; m < METRICS; m++) acc[m] = new Accumulator();
+                    if (power != null && voltage != null) { // Without columns every sample is a gap
+                        for (int r = quality.nextUsableRow(id, firstRow[b]); r >= 0 && r < firstRow[b + 1]; r = quality.nextUsableRow(id, r + 1)) {
+                            acc[Metric.POWER.ordinal()].add(power[r], weights[r - from], r);
+                            acc[Metric.VOLTAGE.ordinal()].add(voltage[r], weights[r - from], r);
+                        }
+                    }
+                    for (int m = 0; m < METRICS; m++) acc[m].store(level, id * METRICS + m, b);
+                }
+            }
+            return level;
+        }
+
+        /** Merges the buckets of a finer resolution (whose buckets nest into the coarser ones). */
+        static Level fromBuckets(Resolution resolution, Level finer) {
+            int[] group = new int[finer.buckets + 1]; // First finer bucket of each coarser bucket
+            long[] start = new long[Math.max(1, finer.buckets)];
+            int buckets = 0;
+            long currentKey = Long.MIN_VALUE;
+            for (int b = 0; b < finer.buckets; b++) {
+                long key = Math.floorDiv(finer.start[b], resolution.getMinutes());
+                if (key == currentKey) continue;
+                start[buckets] = key * resolution.getMinutes();
+                group[buckets++] = b;
+                currentKey = key;
+            }
+            group[buckets] = finer.buckets;
+            int[] firstRow = new int[buckets + 1];
+            for (int g = 0; g <= buckets; g++) firstRow[g] = finer.firstRow[group[g]];
+            Level level = allocate(resolution, Arrays.copyOf(start, buckets), firstRow, buckets, finer.seriesNames);
+            for (int s = 0; s < finer.seriesNames.length; s++) {
+                for (int g = 0; g < buckets; g++) {
+                    Accumulator acc = new Accumulator();
+                    for (int b = group[g]; b < group[g + 1]; b++) acc.merge(finer, s, b);
+                    acc.store(level, s, g);
+                }
+            }
+            return level;
+        }
+
+        private static String[] seriesNames(TrackerRegistry registry) {
+            String[] names = new String[registry.size() * METRICS];
+            for (int id = 0; id < registry.size(); id++) {
+                for (Metric metric : Metric.values()) names[series(id, metric)] = registry.getName(id) + "/" + metric.getHeader();
+            }
+            return names;
+        }
+
+        /** @return This level's buckets [0, keep) followed by all buckets of {@code tail}. */
+        Level concat(int keep, Level tail) {
+            int buckets = keep + tail.buckets, n = seriesNames.length;
+            int[] rows = Arrays.copyOf(firstRow, buckets + 1);
+            System.arraycopy(tail.firstRow, 0, rows, keep, tail.buckets + 1);
+            return new Level(resolution, buckets, concat(start, keep, tail.start, tail.buckets), rows, seriesNames,
+                    concat(count, keep, tail.count, tail.buckets, n), concat(min, keep, tail.min, tail.buckets, n),
+                    concat(max, keep, tail.max, tail.buckets, n), concat(sum, keep, tail.sum, tail.buckets, n),
+                    concat(mean, keep, tail.mean, tail.buckets, n), concat(minutes, keep, tail.minutes, tail.buckets, n),
+                    concat(argMax, keep, tail.argMax, tail.buckets, n));
+        }
+
+        private static long[] concat(long[] head, int keep, long[] tail, int tailLength) {
+            long[] result = Arrays.copyOf(head, keep + tailLength);
+            System.arraycopy(tail, 0, result, keep, tailLength);
+            return result;
+        }
+
+        private static int[][] concat(int[][] head, int keep, int[][] tail, int tailLength, int n) {
+            int[][] result = new int[n][];
+            for (int s = 0; s < n; s++) {
+                result[s] = Arrays.copyOf(head[s], keep + tailLength);
+                System.arraycopy(tail[s], 0, result[s], keep, tailLength);
+            }
+            return result;
+        }
+
+        private static double[][] concat(double[][] head, int keep, double[][] tail, int tailLength, int n) {
+            double[][] result = new double[n][];
+            for (int s = 0; s < n; s++) {
+                result[s] = Arrays.copyOf(head[s], keep + tailLength);
+                System.arraycopy(tail[s], 0, result[s], keep, tailLength);
+            }
+            return result;
+        }
+
+        /** @return Bucket that contains the row (row must be below the row count of the level). */
+        int bucketOf(int row) {
+            int idx = Arrays.binarySearch(firstRow, 0, buckets, row);
+            return idx >= 0 ? idx : -idx - 2;
+        }
+
+        /** @return Bucket starting at the row, or -1. */
+        int bucketStartingAt(int row) {
+            int idx = Arrays.binarySearch(firstRow, 0, buckets, row);
+            return idx >= 0 ? idx : -1;
+        }
+
+        /** @return First row of the bucket after the one containing the row. */
+        int nextBoundary(int row) {
+            int bucket = bucketOf(row);
+            return bucket + 1 <= buckets ? firstRow[bucket + 1] : row + 1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small, read-only snapshot of a worksheet holding the formatted text and the numeric
+ * interpretation of every non-blank cell. Used for the static sheets (Tabelle2, Tabelle3)
+ * so the header logic in {@link ExcelReader} works the same for the POI object model
+ * and for the streaming (SAX) reader.
+ */
+final class SheetTable {
+
+    private final String sheetName;
+    // Row slots up to the last row seen; null entries are missing rows
+    private final List<String[]> texts;
+    private final List<double[]> numbers;
+
+    private SheetTable(String sheetName, List<String[]> texts, List<double[]> numbers) {
+        this.sheetName = sheetName;
+        this.texts = texts;
+        this.numbers = numbers;
+    }
+
+    String getSheetName() { return sheetName; }
+
+    /** @return Number of row slots (index of the last row + 1). */
+    int getRowCount() { return texts.size(); }
+
+    boolean hasRow(int row) { return row >= 0 && row < texts.size() && texts.get(row) != null; }
+
+    /** @return Number of cell slots in the row (index of the last cell + 1), 0 for missing rows. */
+    int getCellCount(int row) { return hasRow(row) ? texts.get(row).length : 0; }
+
+    /** @return true if the cell exists and is not blank. */
+    boolean hasCell(int row, int col) {
+        if (!hasRow(row)) return false;
+        String[] rowTexts = texts.get(row);
+        return col >= 0 && col < rowTexts.length && rowTexts[col] != null;
+    }
+
+    /** @return The trimmed cell text, or an empty string for missing/blank cells. */
+    String getText(int row, int col) {
+        return hasCell(row, col) ? texts.get(row)[col] : "";
+    }
+
+    /** @return The numeric cell value, or NaN for missing/blank/non-numeric cells. */
+    double getNumber(int row, int col) {
+        return hasCell(row, col) ? numbers.get(row)[col] : Double.NaN;
+    }
+
+    /** Collects cells in any order and produces an immutable {@link SheetTable}. */
+    static final class Builder {
+        private final String sheetName;
+        private final List<String[]> texts = new ArrayList<>();
+        private final List<double[]> numbers = new ArrayList<>();
+
+        Builder(String sheetName) { this.sheetName = sheetName; }
+
+        /** Registers a row even if all of its cells are blank. */
+        Builder addRow(int row) {
+            while (texts.size() <= row) { texts.add(null); numbers.add(null); }
+            if (texts.get(row) == null) { texts.set(row, new String[0]); numbers.set(row, new double[0]); }
+            return this;
+        }
+
+        /** Sets a non-blank cell. A null text marks the cell as blank and is ignored. */
+        Builder setCell(int row, int col, String text, double number) {
+            if (text == null || col < 0) return this;
+            addRow(row);
+            String[] rowTexts = texts.get(row);
+            double[] rowNumbers = numbers.get(row);
+            if (col >= rowTexts.length) {
+                String[] grownTexts = new String[col + 1];
+                double[] grownNumbers = new double[col + 1];
+                System.arraycopy(rowTexts, 0, grownTexts, 0, rowTexts.length);
+                System.arraycopy(rowNumbers, 0, grownNumbers, 0, rowNumbers.length);
+                rowTexts = grownTexts; rowNumbers = grownNumbers;
+                texts.set(row, rowTexts); numbers.set(row, rowNumbers);
+            }
+            rowTexts[col] = text.trim();
+            rowNumbers[col] = number;
+            return this;
+        }
+
+        SheetTable build() { return new SheetTable(sheetName, texts, numbers); }
+    }
+}
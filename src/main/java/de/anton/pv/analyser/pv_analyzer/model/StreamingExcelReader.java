@@ -0,0 +1,489 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Reads the same workbook layout as {@link ExcelReader}, but streams the sheets through the
+ * XSSF event API (SAX) instead of building the full POI object model.
+ * Sheet1 rows are converted while they are parsed, so the heap only holds the resulting
+ * {@link ExcelData} plus one row buffer. Sheet2/Sheet3 are small and are collected into a
+ * {@link SheetTable} and then handled by the same header logic as in {@link ExcelReader}.
+ * Only .xlsx/.xlsm files are supported; formulas are not evaluated, their cached results are used.
+ */
+public class StreamingExcelReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamingExcelReader.class);
+    private static final int PROGRESS_ROWS = 1024; // Rows between progress reports and cancellation checks
+
+    /**
+     * Streams the Excel file and populates an ExcelData object.
+     *
+     * @param file The .xlsx file to read.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file cannot be read, required sheets are missing,
+     *                     or essential data cannot be parsed correctly.
+     */
+    public ExcelData readExcel(File file) throws IOException {
+        return readExcel(file, ColumnProjection.ALL);
+    }
+
+    /**
+     * Streams the .xlsx file, parsing only the Sheet1 columns selected by the projection.
+     *
+     * @param file       The .xlsx file to read.
+     * @param projection The Sheet1 columns to keep.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file cannot be read, required sheets are missing,
+     *                     or essential data cannot be parsed correctly.
+     */
+    public ExcelData readExcel(File file, ColumnProjection projection) throws IOException {
+        return readExcel(file, projection, LoadMonitor.none());
+    }
+
+    /**
+     * Streams the .xlsx file like {@link #readExcel(File, ColumnProjection)}, reporting the streamed
+     * Sheet1 rows to the monitor and stopping between blocks of rows once it is cancelled.
+     *
+     * @param file       The .xlsx file to read.
+     * @param projection The Sheet1 columns to keep.
+     * @param monitor    Progress and cancellation of the load.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException If the file cannot be read, required sheets are missing,
+     *                     or essential data cannot be parsed correctly.
+     * @throws CancellationException If the monitor was cancelled.
+     */
+    public ExcelData readExcel(File file, ColumnProjection projection, LoadMonitor monitor) throws IOException {
+        Objects.requireNonNull(file, "Input file cannot be null.");
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(monitor, "Monitor cannot be null.");
+        logger.info("Starting to stream Excel file: {}", file.getAbsolutePath());
+
+        ExcelData excelData;
+        OPCPackage pkg = null;
+        try {
+            pkg = OPCPackage.open(file, PackageAccess.READ);
+            XSSFReader reader = new XSSFReader(pkg);
+            CellDecoder decoder = new CellDecoder(new ReadOnlySharedStringsTable(pkg, false), reader.getStylesTable());
+
+            // --- First pass: small static sheets (Sheet2, Sheet3) ---
+            SheetTable sheet2 = null;
+            SheetTable sheet3 = null;
+            Exception sheet3Error = null;
+            boolean sheet1Found = false;
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream in = sheets.next()) {
+                    String sheetName = sheets.getSheetName();
+                    if (ExcelReader.SHEET2_NAME.equalsIgnoreCase(sheetName)) {
+                        sheet2 = readSheetTable(in, sheetName, decoder);
+                    } else if (ExcelReader.SHEET3_NAME.equalsIgnoreCase(sheetName)) {
+                        try { sheet3 = readSheetTable(in, sheetName, decoder); } catch (Exception e) { sheet3Error = e; }
+                    } else if (ExcelReader.SHEET1_NAME.equalsIgnoreCase(sheetName)) {
+                        sheet1Found = true; // Streamed in the second pass
+                    }
+                }
+            }
+
+            // --- Sheet2: Tracker Info (Mandatory) ---
+            if (sheet2 == null) {
+                throw new IOException("Required sheet '" + ExcelReader.SHEET2_NAME + "' not found in the Excel file.");
+            }
+            Map<String, TrackerInfo> trackerMap = ExcelReader.readTrackerInfo(sheet2);
+            if (trackerMap.isEmpty()) {
+                throw new IOException("No valid tracker information found or parsed in '" + ExcelReader.SHEET2_NAME + "'. Check sheet format and headers.");
+            }
+            logger.info("Read {} tracker info entries from '{}'.", trackerMap.size(), ExcelReader.SHEET2_NAME);
+
+            // --- Second pass: stream Sheet1 (Mandatory) ---
+            monitor.checkCancelled();
+            if (!sheet1Found) {
+                throw new IOException("Required sheet '" + ExcelReader.SHEET1_NAME + "' not found in the Excel file.");
+            }
+            ExcelData.Builder builder = null;
+            sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream in = sheets.next()) {
+                    if (ExcelReader.SHEET1_NAME.equalsIgnoreCase(sheets.getSheetName())) {
+                        TimeSeriesCollector collector = new TimeSeriesCollector(sheets.getSheetName(), projection, monitor);
+                        parseSheet(in, decoder, collector);
+                        builder = collector.finish();
+                        break;
+                    }
+                }
+            }
+            if (builder == null || builder.getRowCount() == 0) {
+                throw new IOException("No valid timestamps or data rows found or parsed in '" + ExcelReader.SHEET1_NAME + "'. Check sheet format.");
+            }
+            logger.info("Streamed {} timestamps and data rows from '{}'.", builder.getRowCount(), ExcelReader.SHEET1_NAME);
+            builder.trackerInfoMap(trackerMap);
+
+            // --- Sheet3: Module Info (Optional) ---
+            if (sheet3Error != null) {
+                logger.warn("Error reading optional sheet '{}'. Proceeding without module data. Error: {}", ExcelReader.SHEET3_NAME, sheet3Error.getMessage(), sheet3Error);
+                builder.moduleInfo(null);
+            } else if (sheet3 != null) {
+                ModuleInfo moduleInfo = ExcelReader.readModuleInfo(sheet3);
+                builder.moduleInfo(moduleInfo); // Will be null if parsing failed
+                if (moduleInfo != null) {
+                    logger.info("Successfully read module info from '{}': {}", ExcelReader.SHEET3_NAME, moduleInfo);
+                } else {
+                    logger.warn("Optional sheet '{}' found, but could not parse valid module info. Proceeding without module data.", ExcelReader.SHEET3_NAME);
+                }
+            } else {
+                logger.info("Optional sheet '{}' not found. Proceeding without module data.", ExcelReader.SHEET3_NAME);
+                builder.moduleInfo(null);
+            }
+            excelData = builder.build();
+
+        } catch (IOException ioe) {
+            logger.error("IO error streaming Excel file: {}", file.getAbsolutePath(), ioe);
+            throw ioe;
+        } catch (CancellationException e) {
+            logger.info("Streaming Excel file {} cancelled after {} rows.", file.getAbsolutePath(), monitor.getRowsRead());
+            throw e;
+        } catch (Exception e) {
+            // Invalid package format, SAX errors, header format errors, ...
+            logger.error("Error processing Excel file: {}", file.getAbsolutePath(), e);
+            throw new IOException("Error processing Excel file: " + e.getMessage(), e);
+        } finally {
+            // Read-only packages must be reverted, close() would try to save them
+            if (pkg != null) pkg.revert();
+        }
+
+        logger.info("Finished streaming Excel file: {}", file.getAbsolutePath());
+        return excelData;
+    }
+
+    /** Collects a small sheet completely into a {@link SheetTable}. */
+    private SheetTable readSheetTable(InputStream in, String sheetName, CellDecoder decoder) throws Exception {
+        SheetTable.Builder builder = new SheetTable.Builder(sheetName);
+        parseSheet(in, decoder, row -> {
+            builder.addRow(row.getRowIndex());
+            for (int i = 0; i < row.getCellCount(); i++) {
+                builder.setCell(row.getRowIndex(), row.getColumn(i), row.getText(i), row.getNumber(i));
+            }
+        });
+        return builder.build();
+    }
+
+    private void parseSheet(InputStream in, CellDecoder decoder, RowListener listener) throws Exception {
+        XMLReader parser = XMLHelper.newXMLReader();
+        parser.setContentHandler(new SheetHandler(decoder, listener));
+        parser.parse(new InputSource(in));
+    }
+
+    // --- Sheet1 conversion ---
+
+    /** Appends streamed Sheet1 rows to a columnar builder, mirroring {@link ExcelReader}. */
+    private static final class TimeSeriesCollector implements RowListener {
+        private final String sheetName;
+        private final ColumnProjection projection;
+        private final LoadMonitor monitor;
+        private final List<String> headers = new ArrayList<>();
+        private ExcelData.Builder builder;
+        private boolean headerRead = false;
+        private double[] rowValues = new double[0];
+        private int rowsSinceReport = 0;
+
+        TimeSeriesCollector(String sheetName, ColumnProjection projection, LoadMonitor monitor) { this.sheetName = sheetName; this.projection = projection; this.monitor = monitor; }
+
+        @Override
+        public void onRow(SheetRow row) {
+            if (!headerRead) {
+                if (row.getRowIndex() != 0) {
+                    throw new RuntimeException("Sheet '" + sheetName + "' is missing the header row (Row 1).");
+                }
+                readHeaders(row);
+                return;
+            }
+            if (++rowsSinceReport == PROGRESS_ROWS) {
+                monitor.rowsRead(rowsSinceReport);
+                monitor.checkCancelled(); // Aborts the SAX parse; the partially filled builder is dropped with the collector
+                rowsSinceReport = 0;
+            }
+            int rowNumber = row.getRowIndex() + 1;
+
+            // --- Read Timestamp (Column 0) ---
+            String currentTimestamp = null;
+            if (row.getCellCount() > 0 && row.getColumn(0) == 0) {
+                try {
+                    if (row.isDateFormatted(0)) {
+                        currentTimestamp = ExcelReader.formatTimestamp(DateUtil.getLocalDateTime(row.getNumber(0)));
+                    } else {
+                        String tsString = row.getText(0).trim();
+                        if (!tsString.isEmpty()) {
+                            currentTimestamp = ExcelReader.normalizeTimestamp(tsString, sheetName, rowNumber);
+                        }
+                    }
+                } catch (Exception e) {
+                    logger.warn("Error reading timestamp in '{}', Row {}: {}. Skipping timestamp for this row.", sheetName, rowNumber, e.getMessage());
+                    currentTimestamp = "Invalid Timestamp @ Row " + rowNumber;
+                }
+            }
+            if (currentTimestamp == null || currentTimestamp.trim().isEmpty()) {
+                logger.warn("Missing or invalid timestamp in '{}', Row {}. Skipping row.", sheetName, rowNumber);
+                return;
+            }
+            // --- Read Data Values (Columns 1 to N) ---
+            Arrays.fill(rowValues, Double.NaN);
+            for (int i = 0; i < row.getCellCount(); i++) {
+                int col = row.getColumn(i);
+                if (col < rowValues.length && builder.isColumnStored(col)) { // Skips empty headers and projected-out columns
+                    rowValues[col] = row.getNumber(i);
+                }
+            }
+            builder.addRow(currentTimestamp, rowValues);
+        }
+
+        private void readHeaders(SheetRow row) {
+            for (int i = 0; i < row.getCellCount(); i++) {
+                int col = row.getColumn(i);
+                while (headers.size() <= col) headers.add(""); // Blank header cells
+                String text = row.getText(i);
+                headers.set(col, text == null ? "" : text.trim());
+            }
+            ExcelReader.validateTimeSeriesHeaders(headers, sheetName);
+            rowValues = new double[headers.size()];
+            builder = new ExcelData.Builder(headers, 0, projection); // Row count unknown while streaming
+            headerRead = true;
+            logger.debug("Read {} headers from '{}': {}", headers.size(), sheetName, headers);
+        }
+
+        ExcelData.Builder finish() {
+            monitor.rowsRead(rowsSinceReport);
+            rowsSinceReport = 0;
+            if (!headerRead) {
+                throw new RuntimeException("Sheet '" + sheetName + "' is missing the header row (Row 1).");
+            }
+            return builder;
+        }
+    }
+
+    // --- SAX plumbing ---
+
+    /** Receives parsed worksheet rows. The row view is only valid during the call. */
+    private interface RowListener {
+        void onRow(SheetRow row);
+    }
+
+    /** Resolves shared strings and cell styles for the SAX handler. */
+    private static final class CellDecoder {
+        private final SharedStrings sharedStrings;
+        private final StylesTable styles;
+        private final DataFormatter formatter = new DataFormatter();
+        private final Map<Integer, Boolean> dateStyleCache = new HashMap<>();
+
+        CellDecoder(SharedStrings sharedStrings, StylesTable styles) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+        }
+
+        String sharedString(String index) {
+            return sharedStrings.getItemAt(Integer.parseInt(index.trim())).getString();
+        }
+
+        boolean isDateStyle(int styleIndex) {
+            if (styles == null || styleIndex < 0) return false;
+            return dateStyleCache.computeIfAbsent(styleIndex, idx -> {
+                XSSFCellStyle style = styles.getStyleAt(idx);
+                return style != null && style.getDataFormatString() != null
+                        && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+            });
+        }
+
+        String formatNumber(double value, int styleIndex) {
+            XSSFCellStyle style = (styles != null && styleIndex >= 0) ? styles.getStyleAt(styleIndex) : null;
+            if (style == null || style.getDataFormatString() == null) {
+                return formatter.formatRawCellContents(value, 0, "General");
+            }
+            return formatter.formatRawCellContents(value, style.getDataFormat(), style.getDataFormatString());
+        }
+    }
+
+    /** Reusable buffer holding the raw cells of the current row, decoded on demand. */
+    private static final class SheetRow {
+        private final CellDecoder decoder;
+        private int rowIndex;
+        private int size;
+        private int[] columns = new int[16];
+        private String[] types = new String[16];
+        private int[] styleIndexes = new int[16];
+        private String[] rawValues = new String[16]; // null for numeric cells decoded into numbers
+        private double[] numbers = new double[16];
+
+        SheetRow(CellDecoder decoder) { this.decoder = decoder; }
+
+        void reset(int rowIndex) { this.rowIndex = rowIndex; this.size = 0; }
+
+        void addCell(int column, String type, int styleIndex, String rawValue) {
+            if (size == columns.length) {
+                int newLength = size * 2;
+                columns = Arrays.copyOf(columns, newLength); types = Arrays.copyOf(types, newLength);
+                styleIndexes = Arrays.copyOf(styleIndexes, newLength); rawValues = Arrays.copyOf(rawValues, newLength);
+                numbers = Arrays.copyOf(numbers, newLength);
+            }
+            columns[size] = column; types[size] = type; styleIndexes[size] = styleIndex; rawValues[size] = rawValue;
+            numbers[size] = Double.NaN;
+            size++;
+        }
+
+        /** Adds a numeric cell straight from the value characters (no String per cell). */
+        void addNumericCell(int column, int styleIndex, CharSequence rawValue) {
+            double number = NumberParser.parseNumeric(rawValue);
+            if (Double.isNaN(number)) { // Not a plain number: keep the text like before
+                addCell(column, "n", styleIndex, rawValue.toString());
+                return;
+            }
+            addCell(column, "n", styleIndex, null);
+            numbers[size - 1] = number;
+        }
+
+        int getRowIndex() { return rowIndex; }
+        int getCellCount() { return size; }
+        int getColumn(int i) { return columns[i]; }
+
+        boolean isDateFormatted(int i) { return "n".equals(types[i]) && decoder.isDateStyle(styleIndexes[i]); }
+
+        /** Cell text as displayed by Excel (like {@link DataFormatter#formatCellValue}). */
+        String getText(int i) {
+            String raw = rawValues[i];
+            switch (types[i]) {
+                case "s": return decoder.sharedString(raw);
+                case "b": return "1".equals(raw) ? "TRUE" : "FALSE";
+                case "n": return raw != null ? raw : decoder.formatNumber(numbers[i], styleIndexes[i]);
+                default: return raw; // inlineStr, str (formula string), e (error), d (ISO date)
+            }
+        }
+
+        /** Numeric cell value, parsing text cells like {@link ExcelReader}. Returns NaN for errors. */
+        double getNumber(int i) {
+            String raw = rawValues[i];
+            switch (types[i]) {
+                case "n": return raw != null ? ExcelReader.parseDoubleWithOptionalUnit(raw, null) : numbers[i];
+                case "b": return "1".equals(raw) ? 1.0 : 0.0;
+                case "e":
+                    logger.warn("Cell in row {} (column {}) contains an error code: {}", rowIndex + 1, columns[i] + 1, raw);
+                    return Double.NaN;
+                default: return ExcelReader.parseDoubleWithOptionalUnit(getText(i), null);
+            }
+        }
+    }
+
+    /** SAX handler for a worksheet part; collects one row at a time and hands it to the listener. */
+    private static final class SheetHandler extends DefaultHandler {
+        private final RowListener listener;
+        private final SheetRow row;
+        private final StringBuilder value = new StringBuilder();
+        private boolean collecting;
+        private boolean inInlineString;
+        private boolean hasValue;
+        private int nextRowIndex = 0;
+        private int nextColumn = 0;
+        private int cellColumn;
+        private String cellType;
+        private int cellStyle;
+
+        SheetHandler(CellDecoder decoder, RowListener listener) {
+            this.listener = listener;
+            this.row = new SheetRow(decoder);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row": {
+                    String r = attributes.getValue("r");
+                    int rowIndex = (r != null) ? Integer.parseInt(r) - 1 : nextRowIndex;
+                    row.reset(rowIndex);
+                    nextRowIndex = rowIndex + 1;
+                    nextColumn = 0;
+                    break;
+                }
+                case "c": {
+                    String ref = attributes.getValue("r");
+                    cellColumn = (ref != null) ? columnIndex(ref) : nextColumn;
+                    nextColumn = cellColumn + 1;
+                    String t = attributes.getValue("t");
+                    cellType = (t != null) ? t : "n";
+                    String s = attributes.getValue("s");
+                    cellStyle = (s != null) ? Integer.parseInt(s) : -1;
+                    value.setLength(0);
+                    hasValue = false;
+                    break;
+                }
+                case "v":
+                    collecting = true; hasValue = true;
+                    break;
+                case "is":
+                    inInlineString = true;
+                    break;
+                case "t":
+                    if (inInlineString) { collecting = true; hasValue = true; }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) value.append(ch, start, length);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v":
+                case "t":
+                    collecting = false;
+                    break;
+                case "is":
+                    inInlineString = false;
+                    break;
+                case "c":
+                    // Cells without a value are blank (only styled) and are left out
+                    if (!hasValue) break;
+                    if ("n".equals(cellType)) row.addNumericCell(cellColumn, cellStyle, value);
+                    else row.addCell(cellColumn, "inlineStr".equals(cellType) ? "str" : cellType, cellStyle, value.toString());
+                    break;
+                case "row":
+                    listener.onRow(row);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /** Converts the letters of an A1 style reference ("AB12") to a 0-based column index. */
+        private static int columnIndex(String ref) {
+            int col = 0;
+            for (int i = 0; i < ref.length(); i++) {
+                char c = ref.charAt(i);
+                if (c < 'A' || c > 'Z') break;
+                col = col * 26 + (c - 'A' + 1);
+            }
+            return col - 1;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Picks up the rows appended to an export after it was loaded and appends them to the loaded
+ * {@link ExcelData} in place (see {@link ExcelData#appendRows}), so the dataset does not have to be
+ * replaced and re-indexed while a plant is still writing its export.
+ * <ul>
+ * <li>CSV exports: only the bytes after the last complete line that was read are parsed.</li>
+ * <li>Workbooks: a zip container cannot be read from an offset, so the file is re-read with the
+ *     streaming reader when its size or modification time changed, and only the newer rows are appended.</li>
+ * </ul>
+ * If the file shrank (rotated or rewritten export) the caller has to reload it completely.
+ * Calls to {@link #poll()} must not overlap.
+ */
+public class TailIngestor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TailIngestor.class);
+
+    private final File file;
+    private final ExcelData data;
+    private final boolean csv;
+    private final ColumnProjection projection; // Projection of the initial load (workbook re-read)
+    private final boolean[] selected; // Columns loaded initially (CSV tail parse)
+    private long lastSize;
+    private long lastModified;
+
+    /** Result of one {@link #poll()}. */
+    public static final class Delta {
+        private final int firstRow;
+        private final int rowCount;
+        private final boolean reloadRequired;
+
+        Delta(int firstRow, int rowCount, boolean reloadRequired) {
+            this.firstRow = firstRow;
+            this.rowCount = rowCount;
+            this.reloadRequired = reloadRequired;
+        }
+
+        /** @return Index of the first appended row. */
+        public int getFirstRow() { return firstRow; }
+        /** @return Number of appended rows (0 if nothing new was found). */
+        public int getRowCount() { return rowCount; }
+        /** @return true if the file shrank and has to be loaded again completely. */
+        public boolean isReloadRequired() { return reloadRequired; }
+
+        @Override
+        public String toString() {
+            return "Delta{firstRow=" + firstRow + ", rows=" + rowCount + (reloadRequired ? ", reloadRequired" : "") + '}';
+        }
+    }
+
+    /**
+     * @param file The export the data was loaded from.
+     * @param data The loaded, uncompressed data of this file.
+     * @param projection The projection the data was loaded with; workbooks are re-read with it.
+     * @throws IllegalArgumentException If the data is compressed or a CSV dataset has no read position.
+     */
+    public TailIngestor(File file, ExcelData data, ColumnProjection projection) {
+        this.file = Objects.requireNonNull(file, "File cannot be null.");
+        this.data = Objects.requireNonNull(data, "Data cannot be null.");
+        this.projection = Objects.requireNonNull(projection, "Projection cannot be null.");
+        if (data.isCompressed()) throw new IllegalArgumentException("Compressed datasets cannot be extended.");
+        this.csv = file.getName().toLowerCase().endsWith(".csv");
+        if (csv && data.getSourceOffset() < 0) throw new IllegalArgumentException("Dataset does not record a read position in '" + file.getName() + "'.");
+        this.selected = new boolean[data.getSheet1Headers().size()];
+        for (int col = 1; col < selected.length; col++) selected[col] = data.hasColumnData(col);
+        this.lastSize = file.length();
+        this.lastModified = file.lastModified();
+    }
+
+    /** @return The dataset that is extended. */
+    public ExcelData getData() {
+        return data;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads the rows appended since the last call (or since the initial load) and appends them to the dataset.
+     *
+     * @return The appended row range, or a delta with {@link Delta#isReloadRequired()} set.
+     * @throws IOException If the file cannot be read or its headers changed.
+     */
+    public Delta poll() throws IOException {
+        int firstRow = data.getRowCount();
+        long size = file.length(), modified = file.lastModified();
+        if (!file.isFile()) throw new IOException("File '" + file.getName() + "' no longer exists.");
+        if (size < (csv ? data.getSourceOffset() : lastSize)) {
+            logger.info("File '{}' shrank from {} to {} bytes. A full reload is required.", file.getName(), lastSize, size);
+            return new Delta(firstRow, 0, true);
+        }
+        if (size == lastSize && modified == lastModified) return new Delta(firstRow, 0, false);
+
+        long start = System.nanoTime();
+        ExcelData delta = csv
+                ? new CsvDataReader().readTail(file, data.getSheet1Headers(), selected, data.getSourceOffset())
+                : new StreamingExcelReader().readExcel(file, projection);
+        int appended;
+        try {
+            appended = data.appendRows(delta);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Appended data of '" + file.getName() + "' does not match the loaded data: " + e.getMessage(), e);
+        }
+        lastSize = size;
+        lastModified = modified;
+        logger.info("Appended {} of {} new rows from '{}' in {} ms.", appended, delta.getRowCount(), file.getName(), (System.nanoTime() - start) / 1_000_000);
+        return new Delta(firstRow, appended, false);
+    }
+}
@@ -0,0 +1,387 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.*;
+
+/**
+ * Immutable time axis of the Sheet1 rows, stored as a {@code long[]} of epoch minutes
+ * (local wall-clock time, no time zone). The display labels use the common
+ * {@code dd.MM.yyyy HH:mm} format and are produced on demand.
+ * <p>
+ * Lookups use binary search if the axis is strictly ascending; otherwise (unsorted files,
+ * duplicate or unparsable timestamps) a hash index over the labels is used. All parsing
+ * and formatting goes through {@code java.time} and is thread-safe.
+ * <p>
+ * {@link #compress()} returns an equivalent axis whose minutes are kept delta-of-delta encoded
+ * ({@link DeltaOfDeltaMinutes}); lookups then decode only the block they need.
+ */
+public final class TimestampAxis {
+
+    /** Marker for labels that could not be parsed as a timestamp. */
+    public static final long INVALID = Long.MIN_VALUE;
+    /** Display pattern of all timestamps in the application. */
+    public static final String PATTERN = "dd.MM.yyyy HH:mm";
+
+    private static final DateTimeFormatter DISPLAY_FORMAT = DateTimeFormatter.ofPattern("dd.MM.uuuu HH:mm").withResolverStyle(ResolverStyle.STRICT);
+    // Tolerant input format (single digit day/month/hour, optional seconds)
+    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("d.M.uuuu H:mm[:ss]").withResolverStyle(ResolverStyle.STRICT);
+    private static final TimestampAxis EMPTY = new TimestampAxis(new long[0], null, 0, null);
+    /** Number of leading steps used to estimate the typical step. */
+    private static final int STEP_SAMPLE = 4096;
+
+    private final long[] minutes; // null if compressed
+    private final DeltaOfDeltaMinutes packedMinutes; // Only for compressed axes
+    private final int size;
+    private final String[] rawLabels; // Only kept if a label is not the canonical form of its minute
+    private final boolean sorted;
+    private final Map<String, Integer> labelIndex; // Only for unsorted axes
+    private final List<String> labelView = new LabelList();
+
+    private TimestampAxis(long[] minutes, DeltaOfDeltaMinutes packedMinutes, int size, String[] rawLabels) {
+        this.minutes = minutes;
+        this.packedMinutes = packedMinutes;
+        this.size = size;
+        this.rawLabels = rawLabels;
+        boolean ascending = true;
+        long previous = INVALID;
+        for (int i = 0; i < size && ascending; i++) {
+            long minute = minuteAt(i);
+            if (minute == INVALID || (i > 0 && minute <= previous)) ascending = false;
+            previous = minute;
+        }
+        this.sorted = ascending;
+        if (ascending) {
+            this.labelIndex = null;
+        } else {
+            Map<String, Integer> index = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) index.putIfAbsent(getLabel(i), i); // First occurrence, like List.indexOf
+            this.labelIndex = index;
+        }
+    }
+
+    /** @return The empty axis. */
+    public static TimestampAxis empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Creates an axis from timestamp labels. Labels that cannot be parsed are kept as they are
+     * and can still be looked up by label.
+     */
+    public static TimestampAxis of(List<String> labels) {
+        Objects.requireNonNull(labels, "Labels cannot be null.");
+        if (labels.isEmpty()) return EMPTY;
+        int n = labels.size();
+        long[] minutes = new long[n];
+        String[] raw = null;
+        for (int i = 0; i < n; i++) {
+            String label = labels.get(i);
+            minutes[i] = parseEpochMinute(label);
+            if (minutes[i] == INVALID || !isCanonical(label, minutes[i])) {
+                if (raw == null) raw = new String[n];
+                raw[i] = label;
+            }
+        }
+        return new TimestampAxis(minutes, null, n, raw);
+    }
+
+    /**
+     * Creates an axis that takes ownership of the given epoch minutes (no copy).
+     * Only the first {@code count} entries are used; {@link #INVALID} entries are not allowed.
+     */
+    public static TimestampAxis ofEpochMinutes(long[] epochMinutes, int count) {
+        Objects.requireNonNull(epochMinutes, "Epoch minutes cannot be null.");
+        Objects.checkFromToIndex(0, count, epochMinutes.length);
+        for (int i = 0; i < count; i++) {
+            if (epochMinutes[i] == INVALID) throw new IllegalArgumentException("Invalid epoch minute at index " + i + ".");
+        }
+        return count == 0 ? EMPTY : new TimestampAxis(epochMinutes, null, count, null);
+    }
+
+    /**
+     * Creates an axis from parser output (no copy). {@code rawLabels[i]} is used as label where
+     * {@code epochMinutes[i]} is {@link #INVALID}; the array may be null if all minutes are valid.
+     */
+    static TimestampAxis of(long[] epochMinutes, String[] rawLabels, int count) {
+        Objects.checkFromToIndex(0, count, epochMinutes.length);
+        String[] raw = null;
+        for (int i = 0; i < count; i++) {
+            if (epochMinutes[i] != INVALID) continue;
+            if (rawLabels == null || rawLabels[i] == null) throw new IllegalArgumentException("Missing label for invalid timestamp at index " + i + ".");
+            if (raw == null) raw = new String[count];
+            raw[i] = rawLabels[i];
+        }
+        return count == 0 ? EMPTY : new TimestampAxis(epochMinutes, null, count, raw);
+    }
+
+    /** Constructor for {@link #append}: state of the new axis is derived from the previous one. */
+    private TimestampAxis(long[] minutes, int size, String[] rawLabels, boolean sorted, Map<String, Integer> labelIndex) {
+        this.minutes = minutes;
+        this.packedMinutes = null;
+        this.size = size;
+        this.rawLabels = rawLabels;
+        this.sorted = sorted;
+        this.labelIndex = labelIndex;
+    }
+
+    /**
+     * Returns an axis with the given rows appended (incremental ingestion). The backing array grows
+     * geometrically and is shared with this axis, which stays valid because it never reads beyond
+     * its own size; for sorted axes the cost is proportional to the number of new rows. Must be
+     * called at most once per axis instance and not on compressed axes.
+     *
+     * @param newRawLabels Labels for {@link #INVALID} minutes (like {@link #of(long[], String[], int)}), or null.
+     */
+    TimestampAxis append(long[] newMinutes, String[] newRawLabels, int from, int count) {
+        if (packedMinutes != null) throw new IllegalStateException("Cannot append to a compressed timestamp axis.");
+        Objects.checkFromIndexSize(from, count, newMinutes.length);
+        if (count == 0) return this;
+        int newSize = size + count;
+        long[] target = minutes.length >= newSize ? minutes : Arrays.copyOf(minutes, Math.max(newSize, size + (size >> 1) + 16));
+        String[] raw = rawLabels != null && rawLabels.length < target.length ? Arrays.copyOf(rawLabels, target.length) : rawLabels;
+        boolean ascending = sorted;
+        long previous = size > 0 ? minutes[size - 1] : INVALID;
+        for (int i = 0; i < count; i++) {
+            long minute = newMinutes[from + i];
+            target[size + i] = minute;
+            if (minute == INVALID) {
+                if (newRawLabels == null || newRawLabels[from + i] == null) throw new IllegalArgumentException("Missing label for invalid timestamp at index " + (size + i) + ".");
+                if (raw == null) raw = new String[target.length];
+                raw[size + i] = newRawLabels[from + i];
+            }
+            if (minute == INVALID || (size + i > 0 && minute <= previous)) ascending = false;
+            previous = minute;
+        }
+        if (ascending) return new TimestampAxis(target, newSize, raw, true, null);
+        // Unsorted: extend the existing label index, or build it if the axis just became unsorted
+        TimestampAxis grown = new TimestampAxis(target, newSize, raw, false, null);
+        boolean extend = !sorted && labelIndex != null;
+        Map<String, Integer> index = extend ? new HashMap<>(labelIndex) : new HashMap<>(newSize * 2);
+        for (int i = extend ? size : 0; i < newSize; i++) index.putIfAbsent(grown.getLabel(i), i);
+        return new TimestampAxis(target, newSize, raw, false, index);
+    }
+
+    /**
+     * @return An equivalent axis with delta-of-delta encoded minutes (this axis if it is already
+     *         compressed or empty).
+     */
+    public TimestampAxis compress() {
+        if (packedMinutes != null || size == 0) return this;
+        return new TimestampAxis(null, DeltaOfDeltaMinutes.encode(minutes, size), size, rawLabels);
+    }
+
+    /** @return true if the minutes are kept delta-of-delta encoded. */
+    public boolean isCompressed() {
+        return packedMinutes != null;
+    }
+
+    /** @return Approximate heap size of the epoch minutes in bytes (labels of unparsable rows not included). */
+    public long estimateMinutesBytes() {
+        return packedMinutes != null ? packedMinutes.sizeInBytes() : 16L + minutes.length * 8L;
+    }
+
+    // --- Access ---
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return true if all timestamps are valid and strictly ascending. */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    /**
+     * @return Typical sample step in minutes: median of the steps between the leading rows, at most one
+     *         day; 0 if the axis is not sorted or has fewer than two rows.
+     */
+    public int getTypicalStepMinutes() {
+        if (!sorted || size < 2) return 0;
+        int n = Math.min(size, STEP_SAMPLE + 1);
+        long[] steps = new long[n - 1];
+        for (int row = 1; row < n; row++) steps[row - 1] = minuteAt(row) - minuteAt(row - 1);
+        Arrays.sort(steps);
+        return (int) Math.min(24 * 60, steps[steps.length / 2]);
+    }
+
+    /** @return Epoch minute of the row, or {@link #INVALID} if the label could not be parsed. */
+    public long getEpochMinute(int index) {
+        Objects.checkIndex(index, size);
+        return minuteAt(index);
+    }
+
+    /** @return Display label of the row ({@code dd.MM.yyyy HH:mm}, or the raw text for unparsable labels). */
+    public String getLabel(int index) {
+        Objects.checkIndex(index, size);
+        if (rawLabels != null && rawLabels[index] != null) return rawLabels[index];
+        return format(minuteAt(index));
+    }
+
+    /** @return Unmodifiable list view of the labels; indexOf/contains use the axis index. */
+    public List<String> asLabelList() {
+        return labelView;
+    }
+
+    /** @return Row index of the label, or -1 if not present. */
+    public int indexOf(String label) {
+        if (label == null || size == 0) return -1;
+        if (!sorted) {
+            Integer idx = labelIndex.get(label);
+            return idx == null ? -1 : idx;
+        }
+        long minute = parseEpochMinute(label);
+        int idx = indexOfEpochMinute(minute);
+        return (idx >= 0 && getLabel(idx).equals(label)) ? idx : -1;
+    }
+
+    /** @return Row index of the exact epoch minute, or -1 if not present. */
+    public int indexOfEpochMinute(long epochMinute) {
+        if (epochMinute == INVALID || size == 0) return -1;
+        if (sorted) {
+            int idx = search(epochMinute);
+            return idx >= 0 ? idx : -1;
+        }
+        Integer idx = labelIndex.get(format(epochMinute));
+        return idx == null ? -1 : idx;
+    }
+
+    /**
+     * Index of the first row at or after the given minute (sorted axes only).
+     * @return Insertion point in [0, size].
+     */
+    public int ceilingIndex(long epochMinute) {
+        requireSorted();
+        int idx = search(epochMinute);
+        return idx >= 0 ? idx : -idx - 1;
+    }
+
+    /**
+     * Index of the last row at or before the given minute (sorted axes only).
+     * @return Index in [-1, size - 1].
+     */
+    public int floorIndex(long epochMinute) {
+        requireSorted();
+        int idx = search(epochMinute);
+        return idx >= 0 ? idx : -idx - 2;
+    }
+
+    private long minuteAt(int index) {
+        return minutes != null ? minutes[index] : packedMinutes.get(index);
+    }
+
+    /** Binary search over the (sorted) minutes, see {@link Arrays#binarySearch(long[], int, int, long)}. */
+    private int search(long epochMinute) {
+        return minutes != null ? Arrays.binarySearch(minutes, 0, size, epochMinute) : packedMinutes.binarySearch(epochMinute);
+    }
+
+    private void requireSorted() {
+        if (!sorted) throw new IllegalStateException("Timestamp axis is not strictly ascending.");
+    }
+
+    // --- Parsing & Formatting (thread-safe) ---
+
+    /**
+     * Parses a timestamp in the display format ({@code dd.MM.yyyy HH:mm}, single digits and
+     * seconds tolerated) to epoch minutes.
+     * @return The epoch minute, or {@link #INVALID} if the text cannot be parsed.
+     */
+    public static long parseEpochMinute(String text) {
+        if (text == null) return INVALID;
+        long fast = parseCanonical(text);
+        if (fast != INVALID) return fast;
+        try {
+            return toEpochMinute(LocalDateTime.parse(text.trim(), INPUT_FORMAT));
+        } catch (DateTimeParseException e) {
+            return INVALID;
+        }
+    }
+
+    /** @return The parsed date/time, or null if the text cannot be parsed. */
+    public static LocalDateTime parse(String text) {
+        long minute = parseEpochMinute(text);
+        return minute == INVALID ? null : toLocalDateTime(minute);
+    }
+
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay() * 1440L + dateTime.getHour() * 60L + dateTime.getMinute();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochMinute, 1440L)).atStartOfDay().plusMinutes(Math.floorMod(epochMinute, 1440L));
+    }
+
+    /** Formats a date/time with the display pattern (seconds are dropped). */
+    public static String format(LocalDateTime dateTime) {
+        return DISPLAY_FORMAT.format(dateTime);
+    }
+
+    /** Formats an epoch minute with the display pattern. */
+    public static String format(long epochMinute) {
+        if (epochMinute == INVALID) throw new IllegalArgumentException("Cannot format an invalid epoch minute.");
+        LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(epochMinute, 1440L));
+        int minuteOfDay = (int) Math.floorMod(epochMinute, 1440L);
+        int year = date.getYear();
+        if (year < 0 || year > 9999) return format(toLocalDateTime(epochMinute));
+        char[] c = new char[16];
+        put2(c, 0, date.getDayOfMonth()); c[2] = '.';
+        put2(c, 3, date.getMonthValue()); c[5] = '.';
+        put2(c, 6, year / 100); put2(c, 8, year % 100); c[10] = ' ';
+        put2(c, 11, minuteOfDay / 60); c[13] = ':';
+        put2(c, 14, minuteOfDay % 60);
+        return new String(c);
+    }
+
+    private static void put2(char[] c, int pos, int value) {
+        c[pos] = (char) ('0' + value / 10);
+        c[pos + 1] = (char) ('0' + value % 10);
+    }
+
+    /** Fast path for the exact display format "dd.MM.yyyy HH:mm". */
+    private static long parseCanonical(String s) {
+        if (s.length() != 16 || s.charAt(2) != '.' || s.charAt(5) != '.' || s.charAt(10) != ' ' || s.charAt(13) != ':') return INVALID;
+        int day = digits(s, 0, 2), month = digits(s, 3, 2), year = digits(s, 6, 4), hour = digits(s, 11, 2), minute = digits(s, 14, 2);
+        if (day < 0 || month < 0 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59) return INVALID;
+        try {
+            return LocalDate.of(year, month, day).toEpochDay() * 1440L + hour * 60L + minute;
+        } catch (DateTimeException e) {
+            return INVALID;
+        }
+    }
+
+    private static int digits(String s, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char ch = s.charAt(i);
+            if (ch < '0' || ch > '9') return -1;
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+
+    private static boolean isCanonical(String label, long minute) {
+        return label.length() == 16 && parseCanonical(label) == minute;
+    }
+
+    @Override
+    public String toString() {
+        return "TimestampAxis{size=" + size + ", sorted=" + sorted + (packedMinutes != null ? ", compressed" : "")
+                + (size > 0 ? ", first='" + getLabel(0) + "', last='" + getLabel(size - 1) + "'" : "") + '}';
+    }
+
+    /** Lazy label view; lookups are delegated to the axis instead of scanning. */
+    private final class LabelList extends AbstractList<String> implements RandomAccess {
+        @Override public String get(int index) { return getLabel(index); }
+        @Override public int size() { return size; }
+        @Override public int indexOf(Object o) { return (o instanceof String) ? TimestampAxis.this.indexOf((String) o) : -1; }
+        @Override public boolean contains(Object o) { return indexOf(o) >= 0; }
+    }
+}
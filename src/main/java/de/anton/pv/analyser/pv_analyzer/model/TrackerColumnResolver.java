@@ -0,0 +1,100 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Resolves the DC power and voltage column of every tracker from Sheet2 once at load time.
+ * <p>
+ * The tracker names in Sheet2 and the header prefixes in Sheet1 differ between plants
+ * ("TR#02.1" vs. "TR#02.1 /DC-Leistung(kW)", "TR 1.1", "TR#1.1" ...). An exact match of the
+ * prefix wins; otherwise names are compared in a normalized form without whitespace and '#',
+ * case-insensitive and with leading zeros of number groups removed ("TR#02.1" -> "TR2.1").
+ * Metric names are compared without whitespace and case-insensitive.
+ */
+final class TrackerColumnResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackerColumnResolver.class);
+
+    /** Index of the DC power column in the resolved pair. */
+    static final int POWER = 0;
+    /** Index of the DC voltage column in the resolved pair. */
+    static final int VOLTAGE = 1;
+
+    private TrackerColumnResolver() {}
+
+    /**
+     * @return Map of tracker name to {power column, voltage column} (header column indexes, -1 if missing)
+     *         for every tracker in the map.
+     */
+    static Map<String, int[]> resolve(ExcelData data, Collection<String> trackerNames) {
+        int powerMetric = findMetric(data.getMetricNames(), ExcelData.METRIC_DC_POWER);
+        int voltageMetric = findMetric(data.getMetricNames(), ExcelData.METRIC_DC_VOLTAGE);
+
+        // Normalized header prefix -> dense tracker index (first one wins)
+        Map<String, Integer> normalizedIndex = new HashMap<>();
+        List<String> seriesNames = data.getSeriesTrackerNames();
+        for (int t = 0; t < seriesNames.size(); t++) {
+            Integer previous = normalizedIndex.putIfAbsent(normalizeTrackerName(seriesNames.get(t)), t);
+            if (previous != null) {
+                logger.warn("Sheet1 headers '{}' and '{}' refer to the same tracker. Using '{}'.", seriesNames.get(previous), seriesNames.get(t), seriesNames.get(previous));
+            }
+        }
+
+        Map<String, int[]> resolved = new HashMap<>(trackerNames.size() * 2);
+        int unresolved = 0;
+        for (String name : trackerNames) {
+            int exact = data.getTrackerIndex(name);
+            Integer normalized = normalizedIndex.get(normalizeTrackerName(name));
+            int[] columns = new int[2];
+            columns[POWER] = pick(data, exact, normalized, powerMetric);
+            columns[VOLTAGE] = pick(data, exact, normalized, voltageMetric);
+            if (columns[POWER] < 0 && columns[VOLTAGE] < 0) unresolved++;
+            resolved.put(name, columns);
+        }
+        if (unresolved > 0) {
+            logger.warn("No DC power/voltage columns found in Sheet1 for {} of {} trackers.", unresolved, trackerNames.size());
+        }
+        return resolved;
+    }
+
+    /** Exact tracker match first, normalized match as fallback (per metric). */
+    private static int pick(ExcelData data, int exactTracker, Integer normalizedTracker, int metric) {
+        int column = data.getColumnIndex(exactTracker, metric);
+        if (column < 0 && normalizedTracker != null) column = data.getColumnIndex(normalizedTracker, metric);
+        return column;
+    }
+
+    private static int findMetric(List<String> metricNames, String metric) {
+        String wanted = ColumnProjection.compact(metric);
+        for (int m = 0; m < metricNames.size(); m++) {
+            if (metricNames.get(m).equals(metric)) return m;
+        }
+        for (int m = 0; m < metricNames.size(); m++) {
+            if (ColumnProjection.compact(metricNames.get(m)).equals(wanted)) return m;
+        }
+        return -1;
+    }
+
+    /** Normalized tracker key: no whitespace or '#', upper case, no leading zeros in digit groups. */
+    static String normalizeTrackerName(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        boolean inNumber = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c) || c == '#') continue;
+            if (c >= '0' && c <= '9') {
+                // Skip a leading zero unless it is the last digit of the group
+                boolean nextIsDigit = i + 1 < name.length() && Character.isDigit(name.charAt(i + 1));
+                if (!inNumber && c == '0' && nextIsDigit) continue;
+                inNumber = true;
+            } else {
+                inNumber = false;
+            }
+            sb.append(Character.toUpperCase(c));
+        }
+        return sb.toString();
+    }
+}
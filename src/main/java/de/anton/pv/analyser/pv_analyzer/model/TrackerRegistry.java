@@ -0,0 +1,130 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dense int IDs for the trackers of one dataset (the keys of its tracker info map).
+ * <p>
+ * IDs are assigned in ascending name order, so sorting by ID gives the same order as sorting
+ * by name. Names are interned, and the inverter and tracker numbers of names like "TR 1.2" or
+ * "TR#02.1" as well as the DC power/voltage columns are resolved once when the registry is built.
+ * Analysis code can then address a tracker with an int (array index, int compare) instead of
+ * hashing and comparing the name.
+ */
+public final class TrackerRegistry {
+
+    /** Inverter/tracker number of names in the common form "TR 1.2", "TR#1.2" or "TR1.2". */
+    private static final Pattern INVERTER_TRACKER = Pattern.compile("^TR(?:#| )?(\\d+)\\.(\\d+)$", Pattern.CASE_INSENSITIVE);
+    private static final TrackerRegistry EMPTY = new TrackerRegistry(new String[0], new TrackerInfo[0], Collections.emptyMap(), Collections.emptyMap());
+
+    private final String[] names;
+    private final TrackerInfo[] infos;
+    private final int[] inverterNumbers;
+    private final int[] trackerNumbers;
+    private final int[] powerColumns;
+    private final int[] voltageColumns;
+    private final Map<String, Integer> ids;
+
+    private TrackerRegistry(String[] names, TrackerInfo[] infos, Map<String, int[]> columns, Map<String, Integer> ids) {
+        int n = names.length;
+        this.names = names;
+        this.infos = infos;
+        this.ids = ids;
+        this.inverterNumbers = new int[n];
+        this.trackerNumbers = new int[n];
+        this.powerColumns = new int[n];
+        this.voltageColumns = new int[n];
+        for (int id = 0; id < n; id++) {
+            int[] numbers = parseNumbers(names[id]);
+            inverterNumbers[id] = numbers[0];
+            trackerNumbers[id] = numbers[1];
+            int[] cols = columns.get(names[id]);
+            powerColumns[id] = cols == null ? -1 : cols[TrackerColumnResolver.POWER];
+            voltageColumns[id] = cols == null ? -1 : cols[TrackerColumnResolver.VOLTAGE];
+        }
+    }
+
+    /** @return The registry without trackers. */
+    public static TrackerRegistry empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param trackerInfoMap Tracker name to info (Sheet2).
+     * @param columns Tracker name to {power column, voltage column} as resolved by {@link TrackerColumnResolver}.
+     */
+    static TrackerRegistry of(Map<String, TrackerInfo> trackerInfoMap, Map<String, int[]> columns) {
+        if (trackerInfoMap.isEmpty()) return EMPTY;
+        String[] names = trackerInfoMap.keySet().toArray(new String[0]);
+        Arrays.sort(names);
+        TrackerInfo[] infos = new TrackerInfo[names.length];
+        Map<String, Integer> ids = new HashMap<>(names.length * 2);
+        for (int id = 0; id < names.length; id++) {
+            infos[id] = trackerInfoMap.get(names[id]);
+            names[id] = names[id].intern();
+            ids.put(names[id], id);
+        }
+        return new TrackerRegistry(names, infos, columns, Collections.unmodifiableMap(ids));
+    }
+
+    /**
+     * Parses the inverter and tracker number of a tracker name ("TR 1.2" -> {1, 2}).
+     * @return {inverter, tracker}, both -1 if the name does not have the common form.
+     */
+    public static int[] parseNumbers(String name) {
+        Matcher matcher = name == null ? null : INVERTER_TRACKER.matcher(name.trim());
+        if (matcher == null || !matcher.matches()) return new int[]{-1, -1};
+        try {
+            return new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))};
+        } catch (NumberFormatException e) { // Too many digits
+            return new int[]{-1, -1};
+        }
+    }
+
+    /** @return Number of trackers; IDs are 0 to size() - 1. */
+    public int size() {
+        return names.length;
+    }
+
+    /** @return ID of the tracker name (exact match), or -1 if not present. */
+    public int getId(String name) {
+        Integer id = name == null ? null : ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /** @return The interned tracker name. */
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public TrackerInfo getTrackerInfo(int id) {
+        return infos[id];
+    }
+
+    /** @return Inverter number parsed from the name, or -1 if the name does not have the form "TR x.y". */
+    public int getInverterNumber(int id) {
+        return inverterNumbers[id];
+    }
+
+    /** @return Tracker number (within the inverter) parsed from the name, or -1 if the name does not have the form "TR x.y". */
+    public int getTrackerNumber(int id) {
+        return trackerNumbers[id];
+    }
+
+    /** @return Header column of the DC power series, or -1 if not present. */
+    public int getPowerColumn(int id) {
+        return powerColumns[id];
+    }
+
+    /** @return Header column of the DC voltage series, or -1 if not present. */
+    public int getVoltageColumn(int id) {
+        return voltageColumns[id];
+    }
+
+    @Override
+    public String toString() {
+        return "TrackerRegistry{size=" + names.length + '}';
+    }
+}
@@ -0,0 +1,230 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Cheap look at the size of a file before it is parsed: the {@code <dimension>} of Sheet1 and
+ * the shared strings of an .xlsx/.xlsm package (only the zip directory and the first kilobytes
+ * of the XML parts are read), or the header line and average line length of a CSV export.
+ * Legacy .xls files are not inspected ({@link #isExact()} false, row count unknown).
+ */
+public final class WorkbookProbe {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkbookProbe.class);
+    private static final int HEAD_BYTES = 64 * 1024;
+    private static final Pattern SHEET = Pattern.compile("<(?:\\w+:)?sheet\\s[^>]*>");
+    private static final Pattern RELATIONSHIP = Pattern.compile("<Relationship\\s[^>]*>");
+    private static final Pattern ATTRIBUTE = Pattern.compile("([\\w:]+)=\"([^\"]*)\"");
+    private static final Pattern DIMENSION = Pattern.compile("<(?:\\w+:)?dimension\\s+ref=\"([A-Z]+)(\\d+)(?::([A-Z]+)(\\d+))?\"");
+    private static final Pattern UNIQUE_COUNT = Pattern.compile("\\buniqueCount=\"(\\d+)\"");
+    private static final Pattern CELL = Pattern.compile("<(?:\\w+:)?c[\\s>]");
+    private static final Pattern ROW_END = Pattern.compile("</(?:\\w+:)?row>");
+
+    private final long fileBytes;
+    private final long sheetBytes;
+    private final int dataRows;
+    private final int columns;
+    private final long sharedStringCount;
+    private final long sharedStringsBytes;
+    private final List<String> headers;
+    private final boolean exact;
+
+    private WorkbookProbe(long fileBytes, long sheetBytes, int dataRows, int columns, long sharedStringCount, long sharedStringsBytes, List<String> headers, boolean exact) {
+        this.fileBytes = fileBytes;
+        this.sheetBytes = sheetBytes;
+        this.dataRows = dataRows;
+        this.columns = columns;
+        this.sharedStringCount = sharedStringCount;
+        this.sharedStringsBytes = sharedStringsBytes;
+        this.headers = headers;
+        this.exact = exact;
+    }
+
+    /**
+     * @param file An .xlsx/.xlsm workbook, a CSV export or an .xls workbook.
+     * @return The size information of the file.
+     * @throws IOException If the file cannot be read or is not a valid zip package.
+     */
+    public static WorkbookProbe probe(File file) throws IOException {
+        Objects.requireNonNull(file, "Input file cannot be null.");
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) return probeCsv(file);
+        if (name.endsWith(".xlsx") || name.endsWith(".xlsm")) return probeOoxml(file);
+        return new WorkbookProbe(file.length(), file.length(), -1, -1, 0, 0, Collections.emptyList(), false);
+    }
+
+    // --- OOXML ---
+
+    private static WorkbookProbe probeOoxml(File file) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry sheet = zip.getEntry(findSheet1Part(zip));
+            if (sheet == null) throw new IOException("Sheet '" + ExcelReader.SHEET1_NAME + "' not found in '" + file.getName() + "'.");
+            long sheetBytes = uncompressedSize(sheet);
+            String head = readHead(zip, sheet);
+
+            long stringCount = 0, stringBytes = 0;
+            ZipEntry strings = zip.getEntry("xl/sharedStrings.xml");
+            if (strings != null) {
+                stringBytes = uncompressedSize(strings);
+                Matcher count = UNIQUE_COUNT.matcher(readHead(zip, strings));
+                stringCount = count.find() ? Long.parseLong(count.group(1)) : stringBytes / 32;
+            }
+
+            Matcher dimension = DIMENSION.matcher(head);
+            if (dimension.find() && dimension.group(3) != null) {
+                int columns = columnNumber(dimension.group(3)) - columnNumber(dimension.group(1)) + 1;
+                int rows = Integer.parseInt(dimension.group(4)) - Integer.parseInt(dimension.group(2)); // Without the header row
+                return new WorkbookProbe(file.length(), sheetBytes, Math.max(0, rows), columns, stringCount, stringBytes, Collections.emptyList(), true);
+            }
+            // No (or a single cell) dimension: extrapolate from the rows in the first kilobytes
+            int[] shape = estimateShape(head, sheetBytes);
+            logger.debug("No sheet dimension in '{}'. Estimated {} rows x {} columns from the first rows.", file.getName(), shape[0], shape[1]);
+            return new WorkbookProbe(file.length(), sheetBytes, shape[0], shape[1], stringCount, stringBytes, Collections.emptyList(), false);
+        }
+    }
+
+    /** Zip path of Sheet1 via workbook.xml and its relationships (first sheet if Sheet1 is not named). */
+    private static String findSheet1Part(ZipFile zip) throws IOException {
+        ZipEntry workbook = zip.getEntry("xl/workbook.xml");
+        ZipEntry rels = zip.getEntry("xl/_rels/workbook.xml.rels");
+        if (workbook == null || rels == null) return "xl/worksheets/sheet1.xml";
+        String relationId = null;
+        Matcher sheet = SHEET.matcher(readAll(zip, workbook));
+        while (sheet.find()) {
+            Map<String, String> attributes = attributes(sheet.group());
+            if (relationId == null) relationId = attributes.get("r:id"); // First sheet as fallback
+            if (ExcelReader.SHEET1_NAME.equalsIgnoreCase(attributes.get("name"))) { relationId = attributes.get("r:id"); break; }
+        }
+        if (relationId == null) return "xl/worksheets/sheet1.xml";
+        Matcher relationship = RELATIONSHIP.matcher(readAll(zip, rels));
+        while (relationship.find()) {
+            Map<String, String> attributes = attributes(relationship.group());
+            String target = attributes.get("Target");
+            if (!relationId.equals(attributes.get("Id")) || target == null) continue;
+            return target.startsWith("/") ? target.substring(1) : "xl/" + target;
+        }
+        return "xl/worksheets/sheet1.xml";
+    }
+
+    private static Map<String, String> attributes(String element) {
+        Map<String, String> attributes = new HashMap<>();
+        Matcher attribute = ATTRIBUTE.matcher(element);
+        while (attribute.find()) attributes.put(attribute.group(1), attribute.group(2));
+        return attributes;
+    }
+
+    /** {rows, columns} extrapolated from the complete rows found in the head of the sheet XML. */
+    private static int[] estimateShape(String head, long sheetBytes) {
+        Matcher rowEnd = ROW_END.matcher(head);
+        int rows = 0, firstRowEnd = -1, lastRowEnd = -1;
+        while (rowEnd.find()) {
+            if (firstRowEnd < 0) firstRowEnd = rowEnd.start();
+            lastRowEnd = rowEnd.end();
+            rows++;
+        }
+        if (rows == 0) return new int[]{(int) Math.min(Integer.MAX_VALUE, sheetBytes / 1024), 1};
+        int columns = 0;
+        Matcher cell = CELL.matcher(head).region(0, firstRowEnd);
+        while (cell.find()) columns++;
+        long totalRows = sheetBytes * rows / Math.max(1, lastRowEnd);
+        return new int[]{(int) Math.min(Integer.MAX_VALUE, Math.max(0, totalRows - 1)), Math.max(1, columns)};
+    }
+
+    private static int columnNumber(String letters) {
+        int number = 0;
+        for (int i = 0; i < letters.length(); i++) number = number * 26 + (letters.charAt(i) - 'A' + 1);
+        return number;
+    }
+
+    private static long uncompressedSize(ZipEntry entry) {
+        // Unknown for streamed zip entries; deflated XML is typically 5-10x smaller
+        return entry.getSize() >= 0 ? entry.getSize() : Math.max(0, entry.getCompressedSize()) * 8;
+    }
+
+    private static String readHead(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            return new String(in.readNBytes(HEAD_BYTES), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String readAll(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // --- CSV ---
+
+    private static WorkbookProbe probeCsv(File file) throws IOException {
+        long size = file.length();
+        byte[] head;
+        try (InputStream in = new FileInputStream(file)) {
+            head = in.readNBytes(HEAD_BYTES);
+        }
+        String text = new String(head, StandardCharsets.UTF_8);
+        int bom = text.startsWith("\uFEFF") ? 3 : 0;
+        if (bom > 0) text = text.substring(1);
+        int headerEnd = text.indexOf('\n');
+        String headerLine = (headerEnd < 0 ? text : text.substring(0, headerEnd)).trim();
+        List<String> headers = new ArrayList<>();
+        for (String header : headerLine.split(";", -1)) headers.add(header.trim());
+
+        boolean complete = head.length >= size; // The whole file is in the head
+        long rows = 0;
+        if (headerEnd >= 0) {
+            int lines = 0, lastLineEnd = headerEnd;
+            for (int i = headerEnd + 1; i < text.length(); i++) {
+                if (text.charAt(i) == '\n') { lines++; lastLineEnd = i; }
+            }
+            if (complete) {
+                rows = lines + (lastLineEnd < text.length() - 1 ? 1 : 0); // Last line without line break
+            } else if (lines > 0) {
+                long headerBytes = bom + text.substring(0, headerEnd + 1).getBytes(StandardCharsets.UTF_8).length;
+                long sampleBytes = text.substring(headerEnd + 1, lastLineEnd + 1).getBytes(StandardCharsets.UTF_8).length;
+                rows = (size - headerBytes) * lines / Math.max(1, sampleBytes);
+            } else {
+                rows = (size - bom) / Math.max(1, headerLine.length()); // A single partial data line: assume header-sized lines
+            }
+        }
+        return new WorkbookProbe(size, size, (int) Math.min(Integer.MAX_VALUE, rows), headers.size(), 0, 0, Collections.unmodifiableList(headers), complete);
+    }
+
+    // --- Getters ---
+
+    /** @return Size of the file on disk in bytes. */
+    public long getFileBytes() { return fileBytes; }
+    /** @return Uncompressed size of the Sheet1 XML (file size for CSV and .xls) in bytes. */
+    public long getSheetBytes() { return sheetBytes; }
+    /** @return Number of data rows without the header row (estimated unless {@link #isExact()}), -1 if unknown. */
+    public int getDataRows() { return dataRows; }
+    /** @return Number of Sheet1 columns incl. the timestamp column, -1 if unknown. */
+    public int getColumns() { return columns; }
+    /** @return Number of unique shared strings (0 for CSV). */
+    public long getSharedStringCount() { return sharedStringCount; }
+    /** @return Uncompressed size of the shared strings XML in bytes (0 for CSV). */
+    public long getSharedStringsBytes() { return sharedStringsBytes; }
+    /** @return The CSV header line (empty for workbooks, whose headers are shared strings). */
+    public List<String> getHeaders() { return headers; }
+    /** @return true if rows and columns come from the sheet dimension (or a fully read CSV). */
+    public boolean isExact() { return exact; }
+    /** @return true if the row and column counts are known (not for .xls). */
+    public boolean hasShape() { return dataRows >= 0 && columns > 0; }
+
+    @Override
+    public String toString() {
+        return "WorkbookProbe{rows=" + dataRows + ", columns=" + columns + (exact ? "" : " (estimated)") + ", sheetBytes=" + sheetBytes
+                + ", sharedStrings=" + sharedStringCount + "/" + sharedStringsBytes + " bytes}";
+    }
+}
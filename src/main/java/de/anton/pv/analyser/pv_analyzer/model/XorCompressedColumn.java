@@ -0,0 +1,154 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Immutable {@code double} column compressed with the XOR scheme of Facebook's Gorilla time series
+ * database, in independent blocks of {@value #BLOCK_ROWS} rows.
+ * <p>
+ * The first value of a block is stored with 64 bits; every further value is XORed with its
+ * predecessor. An identical value (nights with zero power, NaN runs) costs a single '0' bit;
+ * otherwise the meaningful bits of the XOR are written, reusing the leading/trailing zero window
+ * of the previous value when it fits. Values are bit-exact (including NaN payloads and -0.0).
+ * Reads decode only the blocks of the requested rows; the most recently decoded block is cached.
+ */
+final class XorCompressedColumn {
+
+    static final int BLOCK_ROWS = 1024;
+
+    private final long[] bits;
+    private final long[] blockOffsets; // Bit position of every block
+    private final int size;
+    private volatile DecodedBlock lastBlock; // Immutable, so it can be swapped without locking
+
+    private static final class DecodedBlock {
+        final int index;
+        final double[] values;
+        DecodedBlock(int index, double[] values) { this.index = index; this.values = values; }
+    }
+
+    private XorCompressedColumn(long[] bits, long[] blockOffsets, int size) {
+        this.bits = bits;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+    }
+
+    /** Encodes the first {@code count} values. */
+    static XorCompressedColumn encode(double[] values, int count) {
+        BitStream.Writer out = new BitStream.Writer();
+        int blocks = (count + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        long[] offsets = new long[blocks];
+        for (int b = 0; b < blocks; b++) {
+            offsets[b] = out.position();
+            int from = b * BLOCK_ROWS, to = Math.min(count, from + BLOCK_ROWS);
+            long previous = Double.doubleToRawLongBits(values[from]);
+            out.write(previous, 64);
+            int leading = -1, trailing = 0; // Current window; -1 = none yet
+            for (int i = from + 1; i < to; i++) {
+                long current = Double.doubleToRawLongBits(values[i]);
+                long xor = current ^ previous;
+                previous = current;
+                if (xor == 0) {
+                    out.writeBit(false);
+                    continue;
+                }
+                out.writeBit(true);
+                int lz = Math.min(Long.numberOfLeadingZeros(xor), 63);
+                int tz = Long.numberOfTrailingZeros(xor);
+                if (leading >= 0 && lz >= leading && tz >= trailing) {
+                    out.writeBit(false); // Fits into the previous window
+                    out.write(xor >>> trailing, 64 - leading - trailing);
+                } else {
+                    out.writeBit(true);
+                    leading = lz;
+                    trailing = tz;
+                    int meaningful = 64 - lz - tz; // 1..64
+                    out.write(lz, 6);
+                    out.write(meaningful - 1, 6);
+                    out.write(xor >>> tz, meaningful);
+                }
+            }
+        }
+        return new XorCompressedColumn(out.toWords(), offsets, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    double get(int row) {
+        Objects.checkIndex(row, size);
+        return block(row / BLOCK_ROWS)[row % BLOCK_ROWS];
+    }
+
+    /** Decodes rows [from, to) into {@code dst} starting at {@code offset}. */
+    void copy(int from, int to, double[] dst, int offset) {
+        Objects.checkFromToIndex(from, to, size);
+        int row = from;
+        while (row < to) {
+            int block = row / BLOCK_ROWS, inBlock = row % BLOCK_ROWS;
+            int n = Math.min(to - row, BLOCK_ROWS - inBlock);
+            System.arraycopy(block(block), inBlock, dst, offset, n);
+            offset += n;
+            row += n;
+        }
+    }
+
+    /** @return Approximate heap size of the compressed data in bytes. */
+    long sizeInBytes() {
+        return 16L + bits.length * 8L + 16L + blockOffsets.length * 8L;
+    }
+
+    /** @return Number of bytes written by {@link #writeTo}. */
+    int serializedBytes() {
+        return 3 * Integer.BYTES + (bits.length + blockOffsets.length) * Long.BYTES;
+    }
+
+    /** Writes the encoded column (size, word and block count, words, block offsets) for {@link #readFrom}. */
+    void writeTo(ByteBuffer out) {
+        out.putInt(size).putInt(bits.length).putInt(blockOffsets.length);
+        for (long word : bits) out.putLong(word);
+        for (long offset : blockOffsets) out.putLong(offset);
+    }
+
+    /** Reads a column written by {@link #writeTo}. */
+    static XorCompressedColumn readFrom(ByteBuffer in) {
+        int size = in.getInt();
+        long[] bits = new long[in.getInt()];
+        long[] offsets = new long[in.getInt()];
+        if (offsets.length != (size + BLOCK_ROWS - 1) / BLOCK_ROWS) throw new IllegalArgumentException("Corrupt XOR column: " + offsets.length + " blocks for " + size + " values.");
+        for (int i = 0; i < bits.length; i++) bits[i] = in.getLong();
+        for (int i = 0; i < offsets.length; i++) offsets[i] = in.getLong();
+        return new XorCompressedColumn(bits, offsets, size);
+    }
+
+    private double[] block(int index) {
+        DecodedBlock cached = lastBlock;
+        if (cached != null && cached.index == index) return cached.values;
+        double[] values = decodeBlock(index);
+        lastBlock = new DecodedBlock(index, values);
+        return values;
+    }
+
+    private double[] decodeBlock(int index) {
+        int from = index * BLOCK_ROWS, count = Math.min(size - from, BLOCK_ROWS);
+        double[] values = new double[count];
+        BitStream.Reader in = new BitStream.Reader(bits, blockOffsets[index]);
+        long previous = in.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0, trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.read(6);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                previous ^= in.read(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+}
@@ -14,8 +14,8 @@ public record AnalysisConfiguration(
     ExcelData excelData,
     AnalysisMode mode,
     String timestamp, // Used for SINGLE_TIMESTAMP mode
-    String intervalStart, // Used for MAX_VECTOR_INTERVAL mode
-    String intervalEnd,   // Used for MAX_VECTOR_INTERVAL mode
+    String intervalStart, // Used for MAX_VECTOR_INTERVAL, ROLLING_WINDOW and DAY_SWEEP mode
+    String intervalEnd,   // Used for MAX_VECTOR_INTERVAL, ROLLING_WINDOW and DAY_SWEEP mode
     double opticsEpsilon,
     int opticsMinPts,
     ScalingType opticsScalingType,
@@ -25,7 +25,19 @@ public record AnalysisConfiguration(
     String selectedXVarName,
     String selectedYVarName,
     Function<CalculatedDataPoint, Double> xExtractor,
-    Function<CalculatedDataPoint, Double> yExtractor
+    Function<CalculatedDataPoint, Double> yExtractor,
+    int windowMinutes // Used for ROLLING_WINDOW mode
 ) {
-    // No additional methods needed for a simple record
+    /** Window width of the rolling-window mode if none is given. */
+    public static final int DEFAULT_WINDOW_MINUTES = 60;
+
+    /** Configuration with the default window width (only relevant for the rolling-window mode). */
+    public AnalysisConfiguration(ExcelData excelData, AnalysisMode mode, String timestamp, String intervalStart, String intervalEnd,
+                                 double opticsEpsilon, int opticsMinPts, ScalingType opticsScalingType,
+                                 double dbscanEpsilon, int dbscanMinPts, ScalingType dbscanScalingType,
+                                 String selectedXVarName, String selectedYVarName,
+                                 Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor) {
+        this(excelData, mode, timestamp, intervalStart, intervalEnd, opticsEpsilon, opticsMinPts, opticsScalingType,
+             dbscanEpsilon, dbscanMinPts, dbscanScalingType, selectedXVarName, selectedYVarName, xExtractor, yExtractor, DEFAULT_WINDOW_MINUTES);
+    }
 }
\ No newline at end of file
@@ -2,18 +2,19 @@ package de.anton.pv.analyser.pv_analyzer.service; // Beispiel-Package
 
 import de.anton.pv.analyser.pv_analyzer.model.*;
 import de.anton.pv.analyser.pv_analyzer.model.AnalysisModel.AnalysisMode;
+import de.anton.pv.analyser.pv_analyzer.algorithms.IndexedDistance;
 import de.anton.pv.analyser.pv_analyzer.algorithms.MyDBSCAN;
 import de.anton.pv.analyser.pv_analyzer.algorithms.MyOPTICS;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service responsible for performing the core data analysis steps:
@@ -23,10 +24,9 @@ import java.util.stream.Collectors;
 public class AnalysisService {
 
     private static final Logger logger = LoggerFactory.getLogger(AnalysisService.class);
-    private static final double MIN_POWER_THRESHOLD_KW = 0.05;//min 0.05 kW DC-Leistung
     private static final double MIN_MAX_EPSILON = 1e-9;
-    private static final SimpleDateFormat DATE_FORMAT_PARSER = new SimpleDateFormat("dd.MM.yyyy HH:mm");
-    static { DATE_FORMAT_PARSER.setLenient(false); }
+    /** Tracker count from which the per-tracker interval scan runs in parallel. */
+    private static final int PARALLEL_MIN_TRACKERS = 128;
 
 
     /**
@@ -38,16 +38,34 @@ public class AnalysisService {
         public final Map<String, List<CalculatedDataPoint>> dataByOrientation;
         public final int numberOfClusters;
         public final boolean outliersFound; // True if *any* valid outliers were detected before threshold check
+        public final List<WindowResult> windows; // Per window in ROLLING_WINDOW mode, empty otherwise
+        public final SweepResult sweep; // Tracker x timestamp matrices in DAY_SWEEP mode, null otherwise
 
         // Private constructor to force usage of builder or factory method if needed
         private AnalysisResult(List<CalculatedDataPoint> data, Map<String, List<CalculatedDataPoint>> byOrientation, int clusters, boolean outliersFound) {
+            this(data, byOrientation, clusters, outliersFound, null, null);
+        }
+
+        private AnalysisResult(List<CalculatedDataPoint> data, Map<String, List<CalculatedDataPoint>> byOrientation, int clusters, boolean outliersFound, List<WindowResult> windows, SweepResult sweep) {
             this.processedDataPoints = data != null ? Collections.unmodifiableList(data) : Collections.emptyList();
             this.dataByOrientation = byOrientation != null ? Collections.unmodifiableMap(byOrientation) : Collections.emptyMap();
             this.numberOfClusters = clusters;
             this.outliersFound = outliersFound;
+            this.windows = windows != null ? Collections.unmodifiableList(windows) : Collections.emptyList();
+            this.sweep = sweep;
         }
     }
 
+    /**
+     * Result of one window of the rolling-window mode: the max-vector points of the rows between
+     * {@code windowStart} and {@code windowEnd} (each point carries the timestamp of its maximum),
+     * clustered and labelled on their own.
+     */
+    public record WindowResult(String windowStart, String windowEnd, List<CalculatedDataPoint> points, int numberOfClusters, boolean outliersFound) {}
+
+    /** Rows [startRow, endRow] covered by one rolling window and its max-vector points. */
+    private record WindowPoints(int startRow, int endRow, List<CalculatedDataPoint> points) {}
+
     /**
      * Executes the complete analysis pipeline based on the provided configuration.
      *
@@ -58,8 +76,11 @@ public class AnalysisService {
      */
     public AnalysisResult runFullAnalysis(AnalysisConfiguration config) throws InterruptedException, Exception {
         String configDesc = (config.mode() == AnalysisMode.SINGLE_TIMESTAMP) ? "Timestamp: " + config.timestamp() : "Interval: " + config.intervalStart() + " -> " + config.intervalEnd();
+        if (config.mode() == AnalysisMode.ROLLING_WINDOW) configDesc += " (Window: " + config.windowMinutes() + " min)";
         logger.info("Service: Starting full analysis process (Mode: {}, X={}, Y={}) for {}.",
                     config.mode(), config.selectedXVarName(), config.selectedYVarName(), configDesc);
+        if (config.mode() == AnalysisMode.ROLLING_WINDOW) return runRollingWindowAnalysis(config);
+        if (config.mode() == AnalysisMode.DAY_SWEEP) return runDaySweepAnalysis(config);
 
         // 1. Prepare Data based on mode
         List<CalculatedDataPoint> preparedData = prepareAnalysisData(
@@ -69,7 +90,19 @@ public class AnalysisService {
              logger.warn("Service: Analysis aborted: No processable data found after processing for mode {}.", config.mode());
              return new AnalysisResult(Collections.emptyList(), Collections.emptyMap(), 0, false);
         }
+        return clusterPreparedData(preparedData, config);
+    }
+
+    /** Runs OPTICS, the DBSCAN outlier detection per orientation and the performance labelling on prepared points. */
+    private AnalysisResult clusterPreparedData(List<CalculatedDataPoint> preparedData, AnalysisConfiguration config) throws InterruptedException, Exception {
+        return clusterPreparedData(preparedData, config, () -> Thread.currentThread().isInterrupted(), true);
+    }
 
+    /**
+     * Like {@link #clusterPreparedData(List, AnalysisConfiguration)}, stopping with an {@link InterruptedException} once
+     * {@code cancelled} reports true between the steps; with {@code verbose} false the progress is only logged at debug level.
+     */
+    private AnalysisResult clusterPreparedData(List<CalculatedDataPoint> preparedData, AnalysisConfiguration config, BooleanSupplier cancelled, boolean verbose) throws InterruptedException, Exception {
         Map<String, List<CalculatedDataPoint>> dataByOrientation = groupDataByOrientation(preparedData);
         preparedData.forEach(p -> { if (p != null) { p.setClusterGroup(MyOPTICS.NOISE); p.setOutlier(false); p.setPerformanceLabel(""); } });
 
@@ -77,15 +110,15 @@ public class AnalysisService {
         boolean outliersWereFound = false;
 
         try {
-            if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Analysis cancelled before clustering.");
-            clusterCount = performOpticsClustering( preparedData, config.opticsEpsilon(), config.opticsMinPts(), config.opticsScalingType(), config.xExtractor(), config.yExtractor(), config.selectedXVarName(), config.selectedYVarName());
-            if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Analysis cancelled before outlier detection.");
-            outliersWereFound = performDbscanOutlierDetection( dataByOrientation, config.dbscanEpsilon(), config.dbscanMinPts(), config.dbscanScalingType(), config.xExtractor(), config.yExtractor(), config.selectedXVarName(), config.selectedYVarName());
-            if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Analysis cancelled before performance labelling.");
+            if (cancelled.getAsBoolean()) throw new InterruptedException("Analysis cancelled before clustering.");
+            clusterCount = performOpticsClustering( preparedData, config.opticsEpsilon(), config.opticsMinPts(), config.opticsScalingType(), config.xExtractor(), config.yExtractor(), config.selectedXVarName(), config.selectedYVarName(), cancelled, verbose);
+            if (cancelled.getAsBoolean()) throw new InterruptedException("Analysis cancelled before outlier detection.");
+            outliersWereFound = performDbscanOutlierDetection( dataByOrientation, config.dbscanEpsilon(), config.dbscanMinPts(), config.dbscanScalingType(), config.xExtractor(), config.yExtractor(), config.selectedXVarName(), config.selectedYVarName(), cancelled, verbose);
+            if (cancelled.getAsBoolean()) throw new InterruptedException("Analysis cancelled before performance labelling.");
             calculateAndSetPerformanceLabels(dataByOrientation);
-            logger.info("Service: Full analysis process completed successfully.");
+            logProgress(verbose, "Service: Full analysis process completed successfully.");
         } catch (InterruptedException e) {
-            logger.info("Service: Analysis process was interrupted.");
+            logProgress(verbose, "Service: Analysis process was interrupted.");
             preparedData.forEach(p -> { if (p != null) { p.setClusterGroup(MyOPTICS.NOISE); p.setOutlier(false); p.setPerformanceLabel(""); } });
             throw e; // Re-throw
         } catch (Exception e) {
@@ -97,6 +130,82 @@ public class AnalysisService {
         return new AnalysisResult(preparedData, dataByOrientation, clusterCount, outliersWereFound);
     }
 
+    /**
+     * Rolling-window mode: the max-vector points of every window of {@code windowMinutes} sliding row by row over
+     * the interval, each window clustered and labelled on its own. The combined result holds the points of all
+     * windows, the highest cluster count of a window and whether any window had outliers.
+     */
+    private AnalysisResult runRollingWindowAnalysis(AnalysisConfiguration config) throws InterruptedException, Exception {
+        List<WindowPoints> windows = prepareRollingWindows(config.excelData(), config.intervalStart(), config.intervalEnd(), config.windowMinutes());
+        if (windows.isEmpty()) {
+            logger.warn("Service: Analysis aborted: No window with processable data in interval {} -> {}.", config.intervalStart(), config.intervalEnd());
+            return new AnalysisResult(Collections.emptyList(), Collections.emptyMap(), 0, false);
+        }
+        List<String> timestamps = config.excelData().getTimestamps();
+        List<WindowResult> windowResults = new ArrayList<>(windows.size());
+        List<CalculatedDataPoint> allPoints = new ArrayList<>();
+        int maxClusters = 0;
+        boolean anyOutliers = false;
+        for (WindowPoints window : windows) {
+            if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Rolling-window analysis cancelled.");
+            AnalysisResult windowResult = clusterPreparedData(window.points(), config);
+            windowResults.add(new WindowResult(timestamps.get(window.startRow()), timestamps.get(window.endRow()), windowResult.processedDataPoints, windowResult.numberOfClusters, windowResult.outliersFound));
+            allPoints.addAll(window.points());
+            maxClusters = Math.max(maxClusters, windowResult.numberOfClusters);
+            anyOutliers |= windowResult.outliersFound;
+        }
+        logger.info("Service: Rolling-window analysis of {} windows completed ({} points, up to {} clusters per window).", windowResults.size(), allPoints.size(), maxClusters);
+        return new AnalysisResult(allPoints, groupDataByOrientation(allPoints), maxClusters, anyOutliers, windowResults, null);
+    }
+
+
+    /**
+     * Executes the analysis on a slice of a {@link SegmentStore} instead of the loaded ExcelData.
+     * Only the segments covering the timestamp or interval of the configuration are read; for
+     * intervals, segments whose DC power statistics never exceed the power threshold (e.g. nights)
+     * are skipped without being mapped. The ExcelData of the configuration is ignored.
+     *
+     * @param store  The history store of the plant.
+     * @param config Mode, timestamp/interval and clustering parameters.
+     * @return An AnalysisResult object containing the results.
+     * @throws IOException          If the store cannot be read.
+     * @throws InterruptedException If the process is interrupted.
+     * @throws Exception For other analysis errors.
+     */
+    public AnalysisResult runFullAnalysis(SegmentStore store, AnalysisConfiguration config) throws IOException, InterruptedException, Exception {
+        Objects.requireNonNull(store, "Store cannot be null.");
+        Objects.requireNonNull(config, "Configuration cannot be null.");
+        ExcelData slice;
+        String timestamp = config.timestamp(), intervalStart = config.intervalStart(), intervalEnd = config.intervalEnd();
+        if (config.mode() == AnalysisMode.SINGLE_TIMESTAMP) {
+            long minute = TimestampAxis.parseEpochMinute(config.timestamp());
+            if (minute == TimestampAxis.INVALID) throw new IllegalArgumentException("Invalid or missing timestamp for SINGLE_TIMESTAMP mode.");
+            slice = store.read(minute, minute, ColumnProjection.ANALYSIS);
+            if (slice.getRowCount() == 0) throw new IllegalArgumentException("Timestamp " + config.timestamp() + " is not in the store.");
+            timestamp = slice.getTimestampAxis().getLabel(0); // Canonical label of the stored row
+        } else {
+            long startMinute = TimestampAxis.parseEpochMinute(intervalStart), endMinute = TimestampAxis.parseEpochMinute(intervalEnd);
+            if (startMinute == TimestampAxis.INVALID || endMinute == TimestampAxis.INVALID) throw new IllegalArgumentException("Invalid or missing interval timestamps.");
+            if (startMinute > endMinute) throw new IllegalArgumentException("Interval start must be before or equal to end.");
+            List<String> headers = store.getHeaders();
+            ColumnProjection power = ColumnProjection.metrics(ExcelData.METRIC_DC_POWER);
+            List<Integer> powerColumns = new ArrayList<>();
+            for (int col = 1; col < headers.size(); col++) if (power.includes(headers.get(col))) powerColumns.add(col);
+            // A segment can only contribute if some tracker exceeds the power threshold in it
+            slice = store.read(startMinute, endMinute, ColumnProjection.ANALYSIS, segment -> powerColumns.stream().anyMatch(col -> segment.getMax(col) > DataQuality.MIN_POWER_KW));
+            if (slice.getRowCount() == 0) {
+                logger.warn("Service: No stored segments with production found in interval {} -> {}.", intervalStart, intervalEnd);
+                return new AnalysisResult(Collections.emptyList(), Collections.emptyMap(), 0, false);
+            }
+            TimestampAxis axis = slice.getTimestampAxis();
+            intervalStart = axis.getLabel(0);
+            intervalEnd = axis.getLabel(axis.size() - 1);
+        }
+        logger.info("Service: Read {} rows from store '{}' for analysis.", slice.getRowCount(), store.getDirectory());
+        return runFullAnalysis(new AnalysisConfiguration(slice, config.mode(), timestamp, intervalStart, intervalEnd,
+                config.opticsEpsilon(), config.opticsMinPts(), config.opticsScalingType(), config.dbscanEpsilon(), config.dbscanMinPts(), config.dbscanScalingType(),
+                config.selectedXVarName(), config.selectedYVarName(), config.xExtractor(), config.yExtractor(), config.windowMinutes()));
+    }
 
     /** Prepares data based on the selected mode. */
     private List<CalculatedDataPoint> prepareAnalysisData(
@@ -110,131 +219,347 @@ public class AnalysisService {
         }
 
         if (mode == AnalysisMode.SINGLE_TIMESTAMP) {
-            if (timestamp == null || !excelData.getTimestamps().contains(timestamp)) {
+            if (excelData.getTimestampIndex(timestamp) < 0) {
                 throw new IllegalArgumentException("Invalid or missing timestamp for SINGLE_TIMESTAMP mode.");
             }
             return processDataForSingleTimestamp(excelData, timestamp);
-        } else { // MAX_VECTOR_INTERVAL
-             if (intervalStart == null || intervalEnd == null ||
-                 !excelData.getTimestamps().contains(intervalStart) ||
-                 !excelData.getTimestamps().contains(intervalEnd)) {
-                throw new IllegalArgumentException("Invalid or missing interval timestamps.");
-            }
-             Date startDate = parseTimestamp(intervalStart);
-             Date endDate = parseTimestamp(intervalEnd);
-             if (startDate == null || endDate == null || startDate.after(endDate)) {
-                throw new IllegalArgumentException("Interval start must be before or equal to end.");
-            }
+        } else { // MAX_VECTOR_INTERVAL (ROLLING_WINDOW and DAY_SWEEP are prepared per window / timestamp)
+            resolveIntervalRows(excelData, intervalStart, intervalEnd);
             return processDataForIntervalMaxVector(excelData, intervalStart, intervalEnd);
         }
     }
 
+    /** @return {start row, end row} of the interval; throws if a timestamp is missing or the start lies after the end. */
+    private int[] resolveIntervalRows(ExcelData excelData, String intervalStart, String intervalEnd) throws IllegalArgumentException {
+        int startIndex = excelData.getTimestampIndex(intervalStart);
+        int endIndex = excelData.getTimestampIndex(intervalEnd);
+        if (startIndex < 0 || endIndex < 0) {
+            throw new IllegalArgumentException("Invalid or missing interval timestamps.");
+        }
+        TimestampAxis axis = excelData.getTimestampAxis();
+        long startMinute = axis.getEpochMinute(startIndex);
+        long endMinute = axis.getEpochMinute(endIndex);
+        if (startMinute == TimestampAxis.INVALID || endMinute == TimestampAxis.INVALID || startMinute > endMinute) {
+            throw new IllegalArgumentException("Interval start must be before or equal to end.");
+        }
+        return new int[]{startIndex, endIndex};
+    }
+
 
     /** Processes data for a single timestamp. */
     private List<CalculatedDataPoint> processDataForSingleTimestamp(ExcelData excelData, String timestamp) {
          logger.debug("Service: Processing raw data for timestamp: {}", timestamp);
-         Map<String, Double> dataRow = excelData.getDataRowForTimestamp(timestamp);
-         if (dataRow == null || dataRow.isEmpty()) { logger.warn("Service: No data found for timestamp: {}", timestamp); return Collections.emptyList(); }
-         ModuleInfo modInfo = excelData.getModuleInfo(); Map<String, TrackerInfo> trackerInfoMap = excelData.getTrackerInfoMap();
-         if (trackerInfoMap == null || trackerInfoMap.isEmpty()) { logger.error("Service: Tracker information missing."); return Collections.emptyList(); }
-         List<CalculatedDataPoint> processedPoints = new ArrayList<>();
-         for (Map.Entry<String, TrackerInfo> entry : trackerInfoMap.entrySet()) {
-             String trackerName = entry.getKey(); TrackerInfo trackerInfo = entry.getValue(); if (trackerInfo == null) continue;
-             String powerKey = trackerName + "/DC-Leistung(kW)"; String voltageKey = trackerName + "/DC-Spannung(V)";
-             Double powerKW = dataRow.getOrDefault(powerKey, Double.NaN); Double voltageV = dataRow.getOrDefault(voltageKey, Double.NaN);
-             processedPoints.add(new CalculatedDataPoint(trackerName, powerKW, voltageV, trackerInfo, modInfo, timestamp));
+         int row = excelData.getTimestampIndex(timestamp);
+         if (row < 0) { logger.warn("Service: No data found for timestamp: {}", timestamp); return Collections.emptyList(); }
+         ModuleInfo modInfo = excelData.getModuleInfo(); TrackerRegistry registry = excelData.getTrackerRegistry();
+         if (registry.size() == 0) { logger.error("Service: Tracker information missing."); return Collections.emptyList(); }
+         // Tracker IDs are assigned in name order, so the points come out sorted by name
+         List<CalculatedDataPoint> processedPoints = new ArrayList<>(registry.size());
+         for (int id = 0; id < registry.size(); id++) {
+             if (registry.getTrackerInfo(id) == null) continue;
+             double powerKW = excelData.getValue(registry.getPowerColumn(id), row); double voltageV = excelData.getValue(registry.getVoltageColumn(id), row);
+             processedPoints.add(new CalculatedDataPoint(registry, id, powerKW, voltageV, modInfo, timestamp));
          }
-         processedPoints.sort(Comparator.comparing(CalculatedDataPoint::getName, Comparator.nullsLast(String::compareTo)));
          return processedPoints;
      }
 
      /** Processes data for interval max vector mode (including scaling). */
      private List<CalculatedDataPoint> processDataForIntervalMaxVector(ExcelData excelData, String intervalStart, String intervalEnd) throws InterruptedException {
          logger.debug("Service: Processing data for interval (Max Scaled Vector): {} -> {}", intervalStart, intervalEnd);
-         List<String> allTimestamps = excelData.getTimestamps(); List<Map<String, Double>> allDataRows = excelData.getSheet1Data(); ModuleInfo modInfo = excelData.getModuleInfo(); Map<String, TrackerInfo> trackerInfoMap = excelData.getTrackerInfoMap();
-         if (trackerInfoMap == null || trackerInfoMap.isEmpty()) { logger.error("Service: Tracker information missing for interval."); return Collections.emptyList(); }
-         int startIndex = allTimestamps.indexOf(intervalStart); int endIndex = allTimestamps.indexOf(intervalEnd);
+         List<String> allTimestamps = excelData.getTimestamps(); ModuleInfo modInfo = excelData.getModuleInfo(); TrackerRegistry registry = excelData.getTrackerRegistry();
+         if (registry.size() == 0) { logger.error("Service: Tracker information missing for interval."); return Collections.emptyList(); }
+         int startIndex = excelData.getTimestampIndex(intervalStart); int endIndex = excelData.getTimestampIndex(intervalEnd);
          if (startIndex == -1 || endIndex == -1 || startIndex > endIndex) { logger.error("Service: Invalid interval indices: start={}, end={}", startIndex, endIndex); return Collections.emptyList(); }
 
-         double globalMinPower = Double.POSITIVE_INFINITY; double globalMaxPower = Double.NEGATIVE_INFINITY; double globalMinVoltage = Double.POSITIVE_INFINITY; double globalMaxVoltage = Double.NEGATIVE_INFINITY; boolean foundValidData = false;
-         logger.debug("Service: Pass 1: Finding Min/Max Power and Voltage in interval...");
-         for (int i = startIndex; i <= endIndex; i++) { if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Interval Pass 1 interrupted."); Map<String, Double> dataRow = allDataRows.get(i); for (String trackerName : trackerInfoMap.keySet()) { String powerKey = trackerName + "/DC-Leistung(kW)"; String voltageKey = trackerName + "/DC-Spannung(V)"; Double powerKW = dataRow.getOrDefault(powerKey, Double.NaN); Double voltageV = dataRow.getOrDefault(voltageKey, Double.NaN); if (!Double.isNaN(powerKW) && !Double.isNaN(voltageV) && powerKW > MIN_POWER_THRESHOLD_KW) { globalMinPower = Math.min(globalMinPower, powerKW); globalMaxPower = Math.max(globalMaxPower, powerKW); globalMinVoltage = Math.min(globalMinVoltage, voltageV); globalMaxVoltage = Math.max(globalMaxVoltage, voltageV); foundValidData = true; } } }
+         // Column indexes are resolved at load time (tolerates "TR#02.1 /DC-Leistung(kW)" etc.)
+         int trackerCount = registry.size();
+         int[] powerCols = new int[trackerCount]; int[] voltageCols = new int[trackerCount];
+         for (int k = 0; k < trackerCount; k++) { powerCols[k] = registry.getPowerColumn(k); voltageCols[k] = registry.getVoltageColumn(k); }
+         // Only usable samples (no gaps, negative power or implausible voltage, power above the threshold); the rows of the
+         // power extremes come from the range index built at load time, only the partial blocks at the interval edges are scanned
+         DataQuality quality = excelData.getDataQuality();
+
+         // One fused pass per tracker (in parallel on the common ForkJoin pool for wide plants): rows of the first maximum and of the
+         // minimum power and the first usable row. The global min/max is only a side reduction of these rows
+         logger.debug("Service: Finding max power point per tracker in interval ({})...", excelData.getPowerRangeIndex());
+         Thread caller = Thread.currentThread();
+         IntStream trackerIds = IntStream.range(0, trackerCount); if (trackerCount >= PARALLEL_MIN_TRACKERS) trackerIds = trackerIds.parallel();
+         int[][] trackerRows; // [tracker] -> {max row, min row, first usable row}, null without usable sample
+         try {
+             trackerRows = trackerIds.mapToObj(k -> {
+                 // Interruption of the analysis thread is not visible to pool workers, so it is checked per tracker
+                 if (caller.isInterrupted()) throw new RuntimeException(new InterruptedException("Interval scan interrupted."));
+                 int maxRow = excelData.getMaxPowerRow(k, startIndex, endIndex + 1);
+                 if (maxRow < 0) return null; // No usable sample: the min and first usable rows do not exist either
+                 int minRow = excelData.getMinPowerRow(k, startIndex, endIndex + 1);
+                 return new int[]{maxRow, minRow, quality.nextUsableRow(k, startIndex)};
+             }).toArray(int[][]::new);
+         } catch (RuntimeException e) {
+             // Unwrap the interruption of a worker so the caller sees the same exception as for a sequential scan
+             if (e.getCause() instanceof InterruptedException) throw (InterruptedException) e.getCause();
+             throw e;
+         }
+
+         // Global min/max over the per-tracker extremes (range used for scaling)
+         double globalMinPower = Double.POSITIVE_INFINITY;
+         double globalMaxPower = Double.NEGATIVE_INFINITY;
+         boolean foundValidData = false;
+         for (int k = 0; k < trackerCount; k++) {
+             if (trackerRows[k] == null) continue;
+             globalMinPower = Math.min(globalMinPower, excelData.getValue(powerCols[k], trackerRows[k][1]));
+             globalMaxPower = Math.max(globalMaxPower, excelData.getValue(powerCols[k], trackerRows[k][0]));
+             foundValidData = true;
+         }
          if (!foundValidData) { logger.warn("Service: No valid data points found in interval meeting power threshold."); return Collections.emptyList(); }
-         double powerRange = globalMaxPower - globalMinPower; double voltageRange = globalMaxVoltage - globalMinVoltage; boolean powerIsConstant = Math.abs(powerRange) < MIN_MAX_EPSILON; boolean voltageIsConstant = Math.abs(voltageRange) < MIN_MAX_EPSILON;
+         double powerRange = globalMaxPower - globalMinPower; boolean powerIsConstant = Math.abs(powerRange) < MIN_MAX_EPSILON;
 
-         logger.debug("Service: Pass 2: Finding max scaled vector point per tracker...");
          List<CalculatedDataPoint> maxVectorPoints = new ArrayList<>();
-         for (Map.Entry<String, TrackerInfo> trackerEntry : trackerInfoMap.entrySet()) {
-             if (Thread.currentThread().isInterrupted()) throw new InterruptedException("Interval Pass 2 interrupted for tracker " + trackerEntry.getKey());
-             String trackerName = trackerEntry.getKey(); TrackerInfo trackerInfo = trackerEntry.getValue(); if (trackerInfo == null) continue;
-             double maxScaledVectorLengthSq = -1.0; 
-             double bestRawPower = Double.NaN; 
-             double bestRawVoltage = Double.NaN; 
-             String bestTimestamp = null;
-             for (int i = startIndex; i <= endIndex; i++) { 
-            	 Map<String, Double> dataRow = allDataRows.get(i); 
-            	 String currentTsString = allTimestamps.get(i); 
-            	 String powerKey = trackerName + "/DC-Leistung(kW)"; 
-            	 String voltageKey = trackerName + "/DC-Spannung(V)"; 
-            	 Double powerKW = dataRow.getOrDefault(powerKey, Double.NaN); 
-            	 //because of variability in the Variable names
-            	 if(Double.isNaN(powerKW)) {
-            		 powerKey = trackerName + " /DC-Leistung(kW)"; 
-            		 powerKW = dataRow.getOrDefault(powerKey, Double.NaN); 
-            	 }
-            	 Double voltageV = dataRow.getOrDefault(voltageKey, Double.NaN);
-            	 if(Double.isNaN(voltageV)) {
-            		 voltageKey = trackerName + " /DC-Spannung(V)"; 
-            		 voltageV = dataRow.getOrDefault(voltageKey, Double.NaN);
-            	 }
-            	 
-            	 if(trackerName.equals("TR#24.4")) {
-            		 System.out.println(trackerName+": "+ powerKW+"; "+voltageV);
-            	 }
-            	 
-                 if (!Double.isNaN(powerKW) && !Double.isNaN(voltageV) && powerKW > MIN_POWER_THRESHOLD_KW) {
-                	 
-                	 //TR#02.1 /DC-Leistung(kW)
-                	 //TR#01.4/DC-Leistung(kW)
-                	 
-                     double scaledPower = powerIsConstant ? 0.5 : ((powerRange < MIN_MAX_EPSILON) ? 0.5 : (powerKW - globalMinPower) / powerRange);
-                     //double scaledVoltage = voltageIsConstant ? 0.5 : ((voltageRange < MIN_MAX_EPSILON) ? 0.5 : (voltageV - globalMinVoltage) / voltageRange);
-                     
-                     /** my simplification to analyse just the power value*/ 
-                     double currentScaledVectorLengthSq = scaledPower; //(scaledPower * scaledPower) + (scaledVoltage * scaledVoltage);
-                     
-                     
-                     if (currentScaledVectorLengthSq > maxScaledVectorLengthSq) { 
-                    	 maxScaledVectorLengthSq = currentScaledVectorLengthSq; 
-                    	 bestRawPower = powerKW; 
-                    	 bestRawVoltage = voltageV; 
-                    	 bestTimestamp = currentTsString; 
-                    	 }
-                 }
-             }
-             if (bestTimestamp != null) { 
-            	 maxVectorPoints.add(new CalculatedDataPoint( trackerName, bestRawPower, bestRawVoltage, trackerInfo, modInfo, bestTimestamp )); 
+         for (int k = 0; k < trackerCount; k++) {
+             String trackerName = registry.getName(k); TrackerInfo trackerInfo = registry.getTrackerInfo(k);
+             if (trackerInfo == null) continue;
+             /** my simplification to analyse just the power value*/
+             // The scaled power (power - min) / range is monotonic in the power, so the first maximum of the raw power is selected;
+             // with constant power every sample scales to 0.5 and the first usable sample wins
+             int bestRow = trackerRows[k] == null ? -1 : powerIsConstant ? trackerRows[k][2] : trackerRows[k][0];
+             if (bestRow >= 0) { 
+            	 maxVectorPoints.add(new CalculatedDataPoint( registry, k, excelData.getValue(powerCols[k], bestRow), excelData.getValue(voltageCols[k], bestRow), modInfo, allTimestamps.get(bestRow) )); 
              } else { 
             	 logger.warn("Service: No valid point meeting criteria found for tracker {} in interval.", trackerName); 
              }
          }
-         maxVectorPoints.sort(Comparator.comparing(CalculatedDataPoint::getName, Comparator.nullsLast(String::compareTo)));
-         return maxVectorPoints;
+         return maxVectorPoints; // In tracker ID (= name) order
       }
 
+    /**
+     * Day sweep: the single-timestamp analysis (preparation, OPTICS, DBSCAN per orientation, labels) for every row of the
+     * interval, as independent tasks on the common ForkJoin pool. Each timestamp gets the same result as analysing it alone;
+     * the combined result holds the points of all timestamps, the tracker x timestamp matrices, the highest cluster count
+     * of a timestamp and whether any timestamp had outliers.
+     */
+    private AnalysisResult runDaySweepAnalysis(AnalysisConfiguration config) throws InterruptedException, Exception {
+        ExcelData excelData = config.excelData();
+        if (excelData == null || excelData.getTimestamps() == null || excelData.getTimestamps().isEmpty()) {
+            logger.warn("Service: Analysis aborted: Excel data not loaded or contains no timestamps.");
+            return new AnalysisResult(Collections.emptyList(), Collections.emptyMap(), 0, false);
+        }
+        int[] intervalRows = resolveIntervalRows(excelData, config.intervalStart(), config.intervalEnd());
+        int startIndex = intervalRows[0], count = intervalRows[1] - intervalRows[0] + 1;
+        if (count <= 0) throw new IllegalArgumentException("Interval start must be before or equal to end.");
+        List<String> timestamps = excelData.getTimestamps().subList(startIndex, startIndex + count);
+        int[] clusterCounts = new int[count];
+        // Shared cancellation flag, checked by the tasks between their steps (pool workers do not see the interrupt of the caller);
+        // the first failing task sets it so the remaining tasks stop instead of running to the end
+        Thread caller = Thread.currentThread();
+        AtomicBoolean stop = new AtomicBoolean();
+        BooleanSupplier cancelled = () -> stop.get() || caller.isInterrupted();
+        long startTime = System.currentTimeMillis();
+        List<List<CalculatedDataPoint>> pointsPerTimestamp;
+        try {
+            pointsPerTimestamp = IntStream.range(0, count).parallel()
+                    .mapToObj(t -> analyseSweepTimestamp(config, timestamps.get(t), t, clusterCounts, cancelled, stop))
+                    .collect(Collectors.toList());
+        } catch (RuntimeException e) {
+            // Exceptions of pool workers are wrapped once more when rethrown in the caller, so the whole cause chain is searched
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof InterruptedException interrupted) throw interrupted;
+            }
+            throw e;
+        }
+
+        SweepResult sweep = SweepResult.of(excelData.getTrackerRegistry(), startIndex, excelData.getTimestampAxis().getTypicalStepMinutes(), timestamps, pointsPerTimestamp, clusterCounts);
+        List<CalculatedDataPoint> allPoints = new ArrayList<>();
+        int maxClusters = 0;
+        boolean anyOutliers = false;
+        for (int t = 0; t < count; t++) {
+            List<CalculatedDataPoint> points = pointsPerTimestamp.get(t);
+            allPoints.addAll(points);
+            maxClusters = Math.max(maxClusters, clusterCounts[t]);
+            anyOutliers |= points.stream().anyMatch(CalculatedDataPoint::isOutlier); // Flags of a group with > 50% outliers are already reset
+        }
+        logger.info("Service: Day sweep of {} timestamps completed in {} ms ({} points, up to {} clusters per timestamp).", count, System.currentTimeMillis() - startTime, allPoints.size(), maxClusters);
+        if (allPoints.isEmpty()) return new AnalysisResult(Collections.emptyList(), Collections.emptyMap(), 0, false);
+        return new AnalysisResult(allPoints, groupDataByOrientation(allPoints), maxClusters, anyOutliers, null, sweep);
+    }
+
+    /**
+     * One task of the day sweep; checked exceptions are wrapped. {@code cancelled} is checked before the task and between
+     * its clustering steps, a failure sets {@code stop} for the other tasks. Progress is logged at debug level only.
+     */
+    private List<CalculatedDataPoint> analyseSweepTimestamp(AnalysisConfiguration config, String timestamp, int t, int[] clusterCounts, BooleanSupplier cancelled, AtomicBoolean stop) {
+        try {
+            if (cancelled.getAsBoolean()) throw new InterruptedException("Day sweep interrupted.");
+            List<CalculatedDataPoint> points = processDataForSingleTimestamp(config.excelData(), timestamp);
+            if (points.isEmpty()) return points;
+            clusterCounts[t] = clusterPreparedData(points, config, cancelled, false).numberOfClusters;
+            return points;
+        } catch (RuntimeException e) {
+            stop.set(true);
+            throw e;
+        } catch (Exception e) {
+            stop.set(true);
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Prepares the windows of the rolling-window mode. Each row of the interval ends one window that covers the rows with
+     * timestamps in (t - W, t]; windows start with the first row whose window reaches back to the interval start (one sample
+     * step before it, so the first window holds W minutes of samples). An interval shorter than W is a single window.
+     * Per window the points are selected like in {@link #processDataForIntervalMaxVector}: first maximum of the usable power,
+     * first usable row if the power of all trackers is constant within the window. Windows without usable sample are skipped.
+     */
+    private List<WindowPoints> prepareRollingWindows(ExcelData excelData, String intervalStart, String intervalEnd, int windowMinutes) throws InterruptedException {
+        if (excelData == null || excelData.getTimestamps() == null || excelData.getTimestamps().isEmpty()) {
+            logger.warn("Service: Cannot prepare windows: Excel data not loaded or contains no timestamps.");
+            return Collections.emptyList();
+        }
+        if (windowMinutes <= 0) throw new IllegalArgumentException("Window width must be positive.");
+        TimestampAxis axis = excelData.getTimestampAxis();
+        if (!axis.isSorted()) throw new IllegalArgumentException("Rolling windows need valid timestamps in ascending order.");
+        int[] intervalRows = resolveIntervalRows(excelData, intervalStart, intervalEnd);
+        int startIndex = intervalRows[0], endIndex = intervalRows[1];
+        ModuleInfo modInfo = excelData.getModuleInfo(); TrackerRegistry registry = excelData.getTrackerRegistry();
+        if (registry.size() == 0) { logger.error("Service: Tracker information missing for rolling windows."); return Collections.emptyList(); }
+
+        // Window bounds with two pointers over the ascending axis
+        long startMinute = axis.getEpochMinute(startIndex);
+        int step = excelData.getTimestampAxis().getTypicalStepMinutes();
+        int[] windowStart = new int[endIndex - startIndex + 1], windowEnd = new int[endIndex - startIndex + 1];
+        int windowCount = 0;
+        for (int row = startIndex, lo = startIndex; row <= endIndex; row++) {
+            long from = axis.getEpochMinute(row) - windowMinutes;
+            while (axis.getEpochMinute(lo) <= from) lo++;
+            if (from >= startMinute - step) { windowStart[windowCount] = lo; windowEnd[windowCount++] = row; }
+        }
+        if (windowCount == 0) { windowStart[0] = startIndex; windowEnd[0] = endIndex; windowCount = 1; }
+        logger.debug("Service: Sliding {} windows of {} min over rows {}..{} (step {} min).", windowCount, windowMinutes, startIndex, endIndex, step);
+
+        // One sweep per tracker (in parallel for wide plants) yields the rows of max, min and first usable sample of every window
+        int trackerCount = registry.size(), windows = windowCount;
+        int[] powerCols = new int[trackerCount]; int[] voltageCols = new int[trackerCount];
+        for (int k = 0; k < trackerCount; k++) { powerCols[k] = registry.getPowerColumn(k); voltageCols[k] = registry.getVoltageColumn(k); }
+        DataQuality quality = excelData.getDataQuality();
+        Thread caller = Thread.currentThread();
+        IntStream trackerIds = IntStream.range(0, trackerCount); if (trackerCount >= PARALLEL_MIN_TRACKERS) trackerIds = trackerIds.parallel();
+        int[][][] trackerRows; // [tracker] -> {max rows, min rows, first usable rows} per window, -1 without usable sample
+        try {
+            // slideWindows checks the interruption of the analysis thread itself (pool workers do not see it)
+            trackerRows = trackerIds
+                    .mapToObj(k -> slideWindows(excelData, quality, k, powerCols[k], windowStart, windowEnd, windows, caller))
+                    .toArray(int[][][]::new);
+        } catch (RuntimeException e) {
+            // Unwrap the interruption of a worker so the caller sees the same exception as for a sequential sweep
+            if (e.getCause() instanceof InterruptedException) throw (InterruptedException) e.getCause();
+            throw e;
+        }
+
+        List<String> allTimestamps = excelData.getTimestamps();
+        List<WindowPoints> result = new ArrayList<>(windows);
+        for (int w = 0; w < windows; w++) {
+            // Min/max over the per-tracker extremes of this window (constant power check)
+            double minPower = Double.POSITIVE_INFINITY;
+            double maxPower = Double.NEGATIVE_INFINITY;
+            boolean foundValidData = false;
+            for (int k = 0; k < trackerCount; k++) {
+                int[][] rows = trackerRows[k];
+                if (rows[0][w] < 0) continue; // No usable sample of this tracker in the window
+                minPower = Math.min(minPower, excelData.getValue(powerCols[k], rows[1][w]));
+                maxPower = Math.max(maxPower, excelData.getValue(powerCols[k], rows[0][w]));
+                foundValidData = true;
+            }
+            if (!foundValidData) continue;
+            boolean powerIsConstant = Math.abs(maxPower - minPower) < MIN_MAX_EPSILON;
+            List<CalculatedDataPoint> points = new ArrayList<>(trackerCount);
+            for (int k = 0; k < trackerCount; k++) {
+                if (registry.getTrackerInfo(k) == null) continue;
+                int[][] rows = trackerRows[k];
+                int bestRow = rows[0][w] < 0 ? -1 : powerIsConstant ? rows[2][w] : rows[0][w];
+                if (bestRow >= 0) points.add(new CalculatedDataPoint(registry, k, excelData.getValue(powerCols[k], bestRow), excelData.getValue(voltageCols[k], bestRow), modInfo, allTimestamps.get(bestRow)));
+            }
+            result.add(new WindowPoints(windowStart[w], windowEnd[w], points));
+        }
+        logger.debug("Service: {} of {} windows contain usable samples.", result.size(), windows);
+        return result;
+    }
+
+    /**
+     * Sweeps the rows of all windows once for one tracker. Monotonic deques of the usable rows hold the candidates of the
+     * current window: power non-increasing for the maximum (a new row only displaces strictly lower ones, so the first
+     * maximum stays in front), non-decreasing for the minimum, and plain row order for the first usable row. Every row
+     * enters and leaves each deque at most once, so the sweep is linear in the rows.
+     *
+     * @return {max rows, min rows, first usable rows} per window, -1 where the window has no usable sample.
+     */
+    private static int[][] slideWindows(ExcelData excelData, DataQuality quality, int trackerId, int powerCol, int[] windowStart, int[] windowEnd, int windows, Thread caller) {
+        int[] maxRows = new int[windows], minRows = new int[windows], firstRows = new int[windows];
+        RowDeque maxDeque = new RowDeque(), minDeque = new RowDeque(), usableRows = new RowDeque();
+        int next = windowStart[0];
+        for (int w = 0; w < windows; w++) {
+            if ((w & 1023) == 0 && caller.isInterrupted()) throw new RuntimeException(new InterruptedException("Rolling-window sweep interrupted."));
+            for (; next <= windowEnd[w]; next++) {
+                if (!quality.isUsable(trackerId, next)) continue;
+                double power = excelData.getValue(powerCol, next);
+                while (!maxDeque.isEmpty() && excelData.getValue(powerCol, maxDeque.last()) < power) maxDeque.removeLast();
+                while (!minDeque.isEmpty() && excelData.getValue(powerCol, minDeque.last()) > power) minDeque.removeLast();
+                maxDeque.addLast(next);
+                minDeque.addLast(next);
+                usableRows.addLast(next);
+            }
+            maxDeque.removeBefore(windowStart[w]);
+            minDeque.removeBefore(windowStart[w]);
+            usableRows.removeBefore(windowStart[w]);
+            maxRows[w] = maxDeque.first();
+            minRows[w] = minDeque.first();
+            firstRows[w] = usableRows.first();
+        }
+        return new int[][]{maxRows, minRows, firstRows};
+    }
+
+    /** Growable ring buffer of ascending row indexes, used as monotonic deque by the rolling-window sweep. */
+    private static final class RowDeque {
+        private int[] rows = new int[16];
+        private int head, size;
+
+        boolean isEmpty() { return size == 0; }
+
+        /** @return The oldest row, or -1 if empty. */
+        int first() { return size == 0 ? -1 : rows[head]; }
+
+        int last() { return rows[(head + size - 1) & (rows.length - 1)]; }
+
+        void addLast(int row) {
+            if (size == rows.length) {
+                int[] grown = new int[rows.length << 1];
+                for (int i = 0; i < size; i++) grown[i] = rows[(head + i) & (rows.length - 1)];
+                rows = grown;
+                head = 0;
+            }
+            rows[(head + size++) & (rows.length - 1)] = row;
+        }
+
+        void removeLast() { size--; }
+
+        /** Drops the rows before {@code row} from the front. */
+        void removeBefore(int row) {
+            while (size > 0 && rows[head] < row) { head = (head + 1) & (rows.length - 1); size--; }
+        }
+    }
+
     /** Groups the prepared data points by orientation. */
     private Map<String, List<CalculatedDataPoint>> groupDataByOrientation(List<CalculatedDataPoint> points) { return points.stream().filter(p -> p != null && p.getAusrichtung() != null) .collect(Collectors.groupingBy( CalculatedDataPoint::getAusrichtung, LinkedHashMap::new, Collectors.toList() )); }
 
     /** Performs OPTICS clustering. */
-    private int performOpticsClustering(List<CalculatedDataPoint> dataPoints, double epsilon, int minPts, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor, String selectedXVarName, String selectedYVarName) throws InterruptedException { logger.info("Service: Starting OPTICS clustering (X={}, Y={}, Scale={})", selectedXVarName, selectedYVarName, scalingType); if (dataPoints == null || dataPoints.isEmpty()) { logger.warn("Service: OPTICS skipped, no data points."); return 0; } if (Thread.currentThread().isInterrupted()) throw new InterruptedException("OPTICS cancelled before starting."); List<CalculatedDataPoint> validPoints = dataPoints.stream().filter(p -> p != null && !Double.isNaN(xExtractor.apply(p)) && !Double.isNaN(yExtractor.apply(p))).collect(Collectors.toList()); logger.debug("Service: Found {} valid points for OPTICS.", validPoints.size()); if (validPoints.size() < minPts) { logger.warn("Service: OPTICS skipped: Not enough valid points ({}) < minPts ({}).", validPoints.size(), minPts); return 0; } BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunc; try { distanceFunc = createDistanceFunction(validPoints, scalingType, xExtractor, yExtractor, "OPTICS"); } catch (Exception e) { logger.error("Service: Failed to create distance function for OPTICS.", e); throw new RuntimeException("Fehler bei Distanzfunktion-Erstellung (OPTICS)", e); } MyOPTICS optics = new MyOPTICS(validPoints, epsilon, minPts, distanceFunc); optics.run(); int clusterCount = (int) validPoints.stream().mapToInt(CalculatedDataPoint::getClusterGroup).filter(id -> id >= 0).distinct().count(); logger.info("Service: OPTICS finished, found {} clusters.", clusterCount); return clusterCount; }
+    private int performOpticsClustering(List<CalculatedDataPoint> dataPoints, double epsilon, int minPts, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor, String selectedXVarName, String selectedYVarName, BooleanSupplier cancelled, boolean verbose) throws InterruptedException { logProgress(verbose, "Service: Starting OPTICS clustering (X={}, Y={}, Scale={})", selectedXVarName, selectedYVarName, scalingType); if (dataPoints == null || dataPoints.isEmpty()) { logger.warn("Service: OPTICS skipped, no data points."); return 0; } if (cancelled.getAsBoolean()) throw new InterruptedException("OPTICS cancelled before starting."); List<CalculatedDataPoint> validPoints = dataPoints.stream().filter(p -> p != null && !Double.isNaN(xExtractor.apply(p)) && !Double.isNaN(yExtractor.apply(p))).collect(Collectors.toList()); logger.debug("Service: Found {} valid points for OPTICS.", validPoints.size()); if (validPoints.size() < minPts) { logger.warn("Service: OPTICS skipped: Not enough valid points ({}) < minPts ({}).", validPoints.size(), minPts); return 0; } IndexedDistance distanceFunc; try { distanceFunc = createDistanceFunction(validPoints, scalingType, xExtractor, yExtractor, "OPTICS"); } catch (Exception e) { logger.error("Service: Failed to create distance function for OPTICS.", e); throw new RuntimeException("Fehler bei Distanzfunktion-Erstellung (OPTICS)", e); } MyOPTICS optics = new MyOPTICS(validPoints, epsilon, minPts, distanceFunc); optics.run(); int clusterCount = (int) validPoints.stream().mapToInt(CalculatedDataPoint::getClusterGroup).filter(id -> id >= 0).distinct().count(); logProgress(verbose, "Service: OPTICS finished, found {} clusters.", clusterCount); return clusterCount; }
 
     /** Performs DBSCAN outlier detection per orientation group. */
-    private boolean performDbscanOutlierDetection(Map<String, List<CalculatedDataPoint>> dataByOrientation, double epsilon, int minPts, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor, String selectedXVarName, String selectedYVarName) throws InterruptedException { logger.info("Service: Starting DBSCAN outlier detection per orientation (X={}, Y={}, Scale={})", selectedXVarName, selectedYVarName, scalingType); if (dataByOrientation == null || dataByOrientation.isEmpty()) { logger.warn("Service: DBSCAN skipped, no data by orientation."); return false; } if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled before orientation loop."); logger.info("Service: Running DBSCAN per orientation: ε={}, minPts={}", epsilon, minPts); boolean anyOutliersFoundOverall = false; for (Map.Entry<String, List<CalculatedDataPoint>> entry : dataByOrientation.entrySet()) { String orientation = entry.getKey(); List<CalculatedDataPoint> orientationData = entry.getValue(); if (orientationData == null || orientationData.isEmpty()) continue; if (Thread.currentThread().isInterrupted()) throw new InterruptedException("DBSCAN cancelled during loop for orientation " + orientation); List<CalculatedDataPoint> validPoints = orientationData.stream().filter(p -> p != null && !Double.isNaN(xExtractor.apply(p)) && !Double.isNaN(yExtractor.apply(p))).collect(Collectors.toList()); logger.trace("Service: Orientation '{}': Found {} valid points for DBSCAN.", orientation, validPoints.size()); if (validPoints.size() < minPts) { logger.info("Service: Skipping DBSCAN for orientation '{}': {} valid points < minPts ({}).", orientation, validPoints.size(), minPts); continue; } BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> distanceFunc; try { distanceFunc = createDistanceFunction(validPoints, scalingType, xExtractor, yExtractor, "DBSCAN (Orientation: " + orientation + ")"); } catch (Exception e) { logger.error("Service: Failed to create distance function for DBSCAN orientation '{}'. Skipping.", orientation, e); continue; } MyDBSCAN dbscan = null; long groupOutlierCount = 0; boolean groupHadValidOutliers = false; try { logger.debug("Service: Running DBSCAN for orientation '{}'...", orientation); long startTime = System.currentTimeMillis(); dbscan = new MyDBSCAN(validPoints, epsilon, minPts, distanceFunc); dbscan.run(); long duration = System.currentTimeMillis() - startTime; groupOutlierCount = validPoints.stream().filter(CalculatedDataPoint::isOutlier).count(); logger.debug("Service: Orientation '{}': DBSCAN finished in {} ms. Found {} potential outliers.", orientation, duration, groupOutlierCount); if (groupOutlierCount * 2 > validPoints.size()) { logger.warn("Service: Orientation '{}': More than 50% outliers ({}/{}) detected. Discarding labels.", orientation, groupOutlierCount, validPoints.size()); validPoints.forEach(p -> p.setOutlier(false)); } else if (groupOutlierCount > 0) { groupHadValidOutliers = true; } } catch (InterruptedException e) { logger.info("Service: DBSCAN execution interrupted for orientation '{}'.", orientation); validPoints.forEach(p -> { if (p != null) p.setOutlier(false); }); throw e; } catch (Exception e) { logger.error("Service: Error during DBSCAN execution for orientation '{}'", orientation, e); validPoints.forEach(p -> { if (p != null) p.setOutlier(false); }); /* Continue? */ } if (groupHadValidOutliers) { anyOutliersFoundOverall = true; } } logger.info("Service: DBSCAN outlier detection finished. Any valid outliers found overall: {}", anyOutliersFoundOverall); return anyOutliersFoundOverall; }
+    private boolean performDbscanOutlierDetection(Map<String, List<CalculatedDataPoint>> dataByOrientation, double epsilon, int minPts, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor, String selectedXVarName, String selectedYVarName, BooleanSupplier cancelled, boolean verbose) throws InterruptedException { logProgress(verbose, "Service: Starting DBSCAN outlier detection per orientation (X={}, Y={}, Scale={})", selectedXVarName, selectedYVarName, scalingType); if (dataByOrientation == null || dataByOrientation.isEmpty()) { logger.warn("Service: DBSCAN skipped, no data by orientation."); return false; } if (cancelled.getAsBoolean()) throw new InterruptedException("DBSCAN cancelled before orientation loop."); logProgress(verbose, "Service: Running DBSCAN per orientation: ε={}, minPts={}", epsilon, minPts); boolean anyOutliersFoundOverall = false; for (Map.Entry<String, List<CalculatedDataPoint>> entry : dataByOrientation.entrySet()) { String orientation = entry.getKey(); List<CalculatedDataPoint> orientationData = entry.getValue(); if (orientationData == null || orientationData.isEmpty()) continue; if (cancelled.getAsBoolean()) throw new InterruptedException("DBSCAN cancelled during loop for orientation " + orientation); List<CalculatedDataPoint> validPoints = orientationData.stream().filter(p -> p != null && !Double.isNaN(xExtractor.apply(p)) && !Double.isNaN(yExtractor.apply(p))).collect(Collectors.toList()); logger.trace("Service: Orientation '{}': Found {} valid points for DBSCAN.", orientation, validPoints.size()); if (validPoints.size() < minPts) { logProgress(verbose, "Service: Skipping DBSCAN for orientation '{}': {} valid points < minPts ({}).", orientation, validPoints.size(), minPts); continue; } IndexedDistance distanceFunc; try { distanceFunc = createDistanceFunction(validPoints, scalingType, xExtractor, yExtractor, "DBSCAN (Orientation: " + orientation + ")"); } catch (Exception e) { logger.error("Service: Failed to create distance function for DBSCAN orientation '{}'. Skipping.", orientation, e); continue; } MyDBSCAN dbscan = null; long groupOutlierCount = 0; boolean groupHadValidOutliers = false; try { logger.debug("Service: Running DBSCAN for orientation '{}'...", orientation); long startTime = System.currentTimeMillis(); dbscan = new MyDBSCAN(validPoints, epsilon, minPts, distanceFunc); dbscan.run(); long duration = System.currentTimeMillis() - startTime; groupOutlierCount = validPoints.stream().filter(CalculatedDataPoint::isOutlier).count(); logger.debug("Service: Orientation '{}': DBSCAN finished in {} ms. Found {} potential outliers.", orientation, duration, groupOutlierCount); if (groupOutlierCount * 2 > validPoints.size()) { logger.warn("Service: Orientation '{}': More than 50% outliers ({}/{}) detected. Discarding labels.", orientation, groupOutlierCount, validPoints.size()); validPoints.forEach(p -> p.setOutlier(false)); } else if (groupOutlierCount > 0) { groupHadValidOutliers = true; } } catch (InterruptedException e) { logProgress(verbose, "Service: DBSCAN execution interrupted for orientation '{}'.", orientation); validPoints.forEach(p -> { if (p != null) p.setOutlier(false); }); throw e; } catch (Exception e) { logger.error("Service: Error during DBSCAN execution for orientation '{}'", orientation, e); validPoints.forEach(p -> { if (p != null) p.setOutlier(false); }); /* Continue? */ } if (groupHadValidOutliers) { anyOutliersFoundOverall = true; } } logProgress(verbose, "Service: DBSCAN outlier detection finished. Any valid outliers found overall: {}", anyOutliersFoundOverall); return anyOutliersFoundOverall; }
 
     /** Calculates and sets performance labels. */
     private void calculateAndSetPerformanceLabels(Map<String, List<CalculatedDataPoint>> dataByOrientation) { logger.debug("Service: Calculating performance labels..."); if (dataByOrientation == null || dataByOrientation.isEmpty()) { logger.warn("Service: Cannot calculate performance labels: No data grouped by orientation."); return; } AtomicBoolean labelsChanged = new AtomicBoolean(false); for (Map.Entry<String, List<CalculatedDataPoint>> entry : dataByOrientation.entrySet()) { String orientation = entry.getKey(); List<CalculatedDataPoint> pointsInOrientation = entry.getValue(); List<Double> specificPowers = pointsInOrientation.stream().map(CalculatedDataPoint::getSpezifischeLeistung).filter(val -> val != null && !Double.isNaN(val)).sorted().collect(Collectors.toList()); if (specificPowers.isEmpty()) { logger.warn("Service: No valid specific power values for orientation '{}'.", orientation); pointsInOrientation.forEach(p -> { if(p != null && !p.getPerformanceLabel().isEmpty()) { p.setPerformanceLabel(""); labelsChanged.set(true);} }); continue; } double medianSpecificPower; int n = specificPowers.size(); if (n % 2 == 1) { medianSpecificPower = specificPowers.get(n / 2); } else { medianSpecificPower = (specificPowers.get(n / 2 - 1) + specificPowers.get(n / 2)) / 2.0; } logger.trace("Service: Orientation '{}': Median Specific Power = {}", orientation, String.format("%.4f", medianSpecificPower)); for (CalculatedDataPoint point : pointsInOrientation) { if (point == null) continue; double pointSpecificPower = point.getSpezifischeLeistung(); String newLabel = ""; if (!Double.isNaN(pointSpecificPower)) { if (pointSpecificPower > medianSpecificPower + 1e-9) { newLabel = "hoch"; } else if (pointSpecificPower < medianSpecificPower - 1e-9) { newLabel = "niedrig"; } else { newLabel = "median"; } } if (!Objects.equals(point.getPerformanceLabel(), newLabel)) { point.setPerformanceLabel(newLabel); labelsChanged.set(true); } } } logger.debug("Service: Performance labels calculation finished. Labels changed: {}", labelsChanged.get()); }
 
-    /** Helper to create distance function. */
-    private BiFunction<CalculatedDataPoint, CalculatedDataPoint, Double> createDistanceFunction(List<CalculatedDataPoint> points, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor, String algorithmName) { logger.debug("Service [{}]: Creating distance function, Scaling='{}'", algorithmName, scalingType); if (xExtractor == null || yExtractor == null) throw new IllegalStateException("Extractors null"); if (scalingType == ScalingType.NONE) { return (p1, p2) -> { if (p1 == null || p2 == null) return Double.POSITIVE_INFINITY; try { double x1 = xExtractor.apply(p1); double y1 = yExtractor.apply(p1); double x2 = xExtractor.apply(p2); double y2 = yExtractor.apply(p2); if (Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(x2) || Double.isNaN(y2)) return Double.POSITIVE_INFINITY; double dx = x1 - x2; double dy = y1 - y2; return Math.sqrt(dx * dx + dy * dy); } catch (Exception e) { logger.warn("Service [{}] Error extracting data (unscaled): {}", algorithmName, e.getMessage()); return Double.POSITIVE_INFINITY; } }; } logger.debug("Service [{}]: Preparing data for {} scaling.", algorithmName, scalingType); int nPoints = points.size(); if (nPoints == 0) return (p1, p2) -> Double.POSITIVE_INFINITY; double[][] rawData = new double[nPoints][2]; Map<CalculatedDataPoint, Integer> pointToIndex = new HashMap<>(nPoints); for (int i = 0; i < nPoints; i++) { CalculatedDataPoint p = points.get(i); if (p == null) { rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; continue; } try { rawData[i][0] = xExtractor.apply(p); rawData[i][1] = yExtractor.apply(p); pointToIndex.put(p, i); } catch (Exception e) { logger.warn("Service [{}] Error extracting data for scaling prep for {}: {}", algorithmName, p.getName(), e.getMessage()); rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; } } double[][] scaledData; try { scaledData = DataScaler.scaleData(rawData, scalingType); if (scaledData == rawData && scalingType != ScalingType.NONE) { logger.warn("Service [{}]: Scaling type {} no change. Falling back to unscaled.", algorithmName, scalingType); return (p1, p2) -> { if (p1 == null || p2 == null) return Double.POSITIVE_INFINITY; try { double x1 = xExtractor.apply(p1); double y1 = yExtractor.apply(p1); double x2 = xExtractor.apply(p2); double y2 = yExtractor.apply(p2); if (Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(x2) || Double.isNaN(y2)) return Double.POSITIVE_INFINITY; double dx = x1 - x2; double dy = y1 - y2; return Math.sqrt(dx * dx + dy * dy); } catch (Exception e) { return Double.POSITIVE_INFINITY; } }; } logger.debug("Service [{}]: Data scaling ({}) completed.", algorithmName, scalingType); } catch (Exception e) { logger.error("Service [{}]: Error during data scaling ({}).", algorithmName, scalingType, e); throw new RuntimeException("Fehler bei der Datenskalierung (" + scalingType + "): " + e.getMessage(), e); } final double[][] finalScaledData = scaledData; return (p1, p2) -> { if (p1 == null || p2 == null) return Double.POSITIVE_INFINITY; Integer idx1 = pointToIndex.get(p1); Integer idx2 = pointToIndex.get(p2); if (idx1 == null || idx2 == null || idx1 < 0 || idx1 >= finalScaledData.length || idx2 < 0 || idx2 >= finalScaledData.length) { return Double.POSITIVE_INFINITY; } try { double x1 = finalScaledData[idx1][0]; double y1 = finalScaledData[idx1][1]; double x2 = finalScaledData[idx2][0]; double y2 = finalScaledData[idx2][1]; if (Double.isNaN(x1) || Double.isNaN(y1) || Double.isNaN(x2) || Double.isNaN(y2)) return Double.POSITIVE_INFINITY; double dx = x1 - x2; double dy = y1 - y2; return Math.sqrt(dx * dx + dy * dy); } catch (ArrayIndexOutOfBoundsException e) { logger.error("Service [{}] Array index out of bounds ({},{}) in scaled distance calc.", algorithmName, idx1, idx2, e); return Double.POSITIVE_INFINITY; } }; }
-    private Date parseTimestamp(String timestampStr) { if (timestampStr == null) return null; try { synchronized (DATE_FORMAT_PARSER) { return DATE_FORMAT_PARSER.parse(timestampStr); } } catch (ParseException e) { logger.warn("Could not parse timestamp string: {}", timestampStr, e); return null; } }
+    /** Logs at info level, or at debug level for the many small runs of the day sweep ({@code verbose} false). */
+    private static void logProgress(boolean verbose, String format, Object... args) { if (verbose) logger.info(format, args); else logger.debug(format, args); }
+
+    /** Helper to create the distance over the point positions: coordinates are extracted (and scaled) once, so a distance is two array reads. */
+    private IndexedDistance createDistanceFunction(List<CalculatedDataPoint> points, ScalingType scalingType, Function<CalculatedDataPoint, Double> xExtractor, Function<CalculatedDataPoint, Double> yExtractor, String algorithmName) { logger.debug("Service [{}]: Creating distance function, Scaling='{}'", algorithmName, scalingType); if (xExtractor == null || yExtractor == null) throw new IllegalStateException("Extractors null"); int nPoints = points.size(); double[][] rawData = new double[nPoints][2]; for (int i = 0; i < nPoints; i++) { CalculatedDataPoint p = points.get(i); if (p == null) { rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; continue; } try { rawData[i][0] = xExtractor.apply(p); rawData[i][1] = yExtractor.apply(p); } catch (Exception e) { logger.warn("Service [{}] Error extracting data for {}: {}", algorithmName, p.getName(), e.getMessage()); rawData[i][0] = Double.NaN; rawData[i][1] = Double.NaN; } } if (scalingType == ScalingType.NONE || nPoints == 0) { return IndexedDistance.euclidean(rawData); } logger.debug("Service [{}]: Preparing data for {} scaling.", algorithmName, scalingType); double[][] scaledData; try { scaledData = DataScaler.scaleData(rawData, scalingType); if (scaledData == rawData) { logger.warn("Service [{}]: Scaling type {} no change. Falling back to unscaled.", algorithmName, scalingType); } else { logger.debug("Service [{}]: Data scaling ({}) completed.", algorithmName, scalingType); } } catch (Exception e) { logger.error("Service [{}]: Error during data scaling ({}).", algorithmName, scalingType, e); throw new RuntimeException("Fehler bei der Datenskalierung (" + scalingType + "): " + e.getMessage(), e); } return IndexedDistance.euclidean(scaledData); }
 }
\ No newline at end of file
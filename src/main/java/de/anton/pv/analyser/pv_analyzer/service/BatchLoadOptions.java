@@ -0,0 +1,76 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import de.anton.pv.analyser.pv_analyzer.model.ColumnProjection;
+import de.anton.pv.analyser.pv_analyzer.model.ExcelData;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Immutable options for loading all plant workbooks below a directory
+ * (see {@link ExcelDataService#loadPlants}).
+ *
+ * @param parallelism     Maximum number of files loaded at the same time (at least 1).
+ * @param heapBudgetBytes Estimated heap all concurrently loading files may use together; a file
+ *                        whose estimate exceeds the budget is loaded alone.
+ * @param projection      Sheet1 columns to keep.
+ * @param fileFilter      Selects the files to load.
+ * @param compress        Keep the loaded time series compressed in memory (see {@link ExcelData#compress()}).
+ */
+public record BatchLoadOptions(
+    int parallelism,
+    long heapBudgetBytes,
+    ColumnProjection projection,
+    Predicate<Path> fileFilter,
+    boolean compress
+) {
+    public BatchLoadOptions {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1. Got: " + parallelism);
+        if (heapBudgetBytes <= 0) throw new IllegalArgumentException("Heap budget must be positive. Got: " + heapBudgetBytes);
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(fileFilter, "File filter cannot be null.");
+    }
+
+    /**
+     * Defaults: one file per core, half of the maximum heap as budget, analysis columns only
+     * and all plant workbooks/exports (see {@link #isPlantDataFile}), uncompressed.
+     */
+    public static BatchLoadOptions defaults() {
+        return new BatchLoadOptions(Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / 2,
+                ColumnProjection.ANALYSIS, BatchLoadOptions::isPlantDataFile, false);
+    }
+
+    public BatchLoadOptions withParallelism(int parallelism) {
+        return new BatchLoadOptions(parallelism, heapBudgetBytes, projection, fileFilter, compress);
+    }
+
+    public BatchLoadOptions withHeapBudgetBytes(long heapBudgetBytes) {
+        return new BatchLoadOptions(parallelism, heapBudgetBytes, projection, fileFilter, compress);
+    }
+
+    public BatchLoadOptions withProjection(ColumnProjection projection) {
+        return new BatchLoadOptions(parallelism, heapBudgetBytes, projection, fileFilter, compress);
+    }
+
+    public BatchLoadOptions withFileFilter(Predicate<Path> fileFilter) {
+        return new BatchLoadOptions(parallelism, heapBudgetBytes, projection, fileFilter, compress);
+    }
+
+    public BatchLoadOptions withCompress(boolean compress) {
+        return new BatchLoadOptions(parallelism, heapBudgetBytes, projection, fileFilter, compress);
+    }
+
+    /**
+     * Workbooks (.xlsx, .xlsm, .xls) and SCADA exports (export_*.csv) of a plant. Excel lock
+     * files ("~$...") and analysis results written by this application ("..._Analyse_...") are skipped.
+     */
+    public static boolean isPlantDataFile(Path path) {
+        String name = path.getFileName().toString();
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (name.startsWith("~$") || name.contains("_Analyse_")) return false;
+        return lower.endsWith(".xlsx") || lower.endsWith(".xlsm") || lower.endsWith(".xls")
+            || (lower.endsWith(".csv") && lower.startsWith("export_"));
+    }
+}
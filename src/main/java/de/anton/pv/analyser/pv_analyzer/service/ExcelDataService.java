@@ -1,28 +1,63 @@
 package de.anton.pv.analyser.pv_analyzer.service; // Beispiel-Package für Services
 
+import de.anton.pv.analyser.pv_analyzer.model.ColumnProjection;
+import de.anton.pv.analyser.pv_analyzer.model.CsvDataReader;
+import de.anton.pv.analyser.pv_analyzer.model.DatasetCache;
 import de.anton.pv.analyser.pv_analyzer.model.ExcelData;
+import de.anton.pv.analyser.pv_analyzer.model.ExcelDataMerger;
 import de.anton.pv.analyser.pv_analyzer.model.ExcelReader; // Reader wird hier verwendet
+import de.anton.pv.analyser.pv_analyzer.model.LoadMonitor;
+import de.anton.pv.analyser.pv_analyzer.model.StreamingExcelReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Objects;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Service responsible for loading data from Excel files.
+ * Service responsible for loading data from Excel files and CSV exports.
  */
 public class ExcelDataService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExcelDataService.class);
     private final ExcelReader excelReader;
+    private final StreamingExcelReader streamingExcelReader;
+    private final CsvDataReader csvDataReader;
+    private final DatasetCache datasetCache; // null = caching disabled
+
+    /** How the workbook is read into memory. */
+    public enum LoadMode {
+        /** Builds the full POI object model (works for .xls and .xlsx, evaluates formulas). */
+        WORKBOOK,
+        /** Streams .xlsx sheets via the XSSF event API with bounded memory (uses cached formula results). */
+        STREAMING,
+        /** Memory-maps a semicolon separated SCADA export (.csv) and parses it in parallel; tracker info from a Tabelle2 sidecar CSV. */
+        CSV
+    }
 
     public ExcelDataService() {
+        this(new DatasetCache(DatasetCache.defaultDirectory()));
+    }
+
+    /** @param datasetCache Cache for parsed workbooks, or null to always parse the file. */
+    public ExcelDataService(DatasetCache datasetCache) {
         this.excelReader = new ExcelReader(); // Instantiate the reader internally
+        this.streamingExcelReader = new StreamingExcelReader();
+        this.csvDataReader = new CsvDataReader();
+        this.datasetCache = datasetCache;
     }
 
     /**
-     * Loads data from the specified Excel file.
+     * Loads data from the specified file, streaming .xlsx/.xlsm files, parsing .csv exports
+     * and falling back to the full workbook model for other formats (e.g. .xls). The load mode
+     * is chosen by {@link #planLoad}.
      *
      * @param file The Excel file to load.
      * @return An ExcelData object containing the parsed data.
@@ -30,16 +65,321 @@ public class ExcelDataService {
      * @throws NullPointerException if the file is null.
      */
     public ExcelData loadDataFromFile(File file) throws IOException {
+        return loadDataFromFile(file, ColumnProjection.ALL);
+    }
+
+    /**
+     * Loads only the Sheet1 columns selected by the projection. The load mode is chosen by
+     * {@link #planLoad}; data that would take more than half of the available heap is compressed
+     * right after loading.
+     *
+     * @param file       The Excel file to load.
+     * @param projection The Sheet1 columns to keep (e.g. {@link ColumnProjection#ANALYSIS}).
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException           If an error occurs during file reading or parsing.
+     * @throws NullPointerException if the file or projection is null.
+     */
+    public ExcelData loadDataFromFile(File file, ColumnProjection projection) throws IOException {
+        return loadDataFromFile(file, projection, LoadMonitor.none());
+    }
+
+    /**
+     * Loads the file like {@link #loadDataFromFile(File, ColumnProjection)}, reporting the parsed rows
+     * (out of the rows estimated by the load plan) to the monitor. Cancelling the monitor stops the
+     * reader between blocks of rows.
+     *
+     * @param file       The Excel file to load.
+     * @param projection The Sheet1 columns to keep.
+     * @param monitor    Progress and cancellation of the load.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException           If an error occurs during file reading or parsing.
+     * @throws CancellationException If the monitor was cancelled.
+     * @throws NullPointerException if the file, projection or monitor is null.
+     */
+    public ExcelData loadDataFromFile(File file, ColumnProjection projection, LoadMonitor monitor) throws IOException {
         Objects.requireNonNull(file, "Input file cannot be null.");
-        logger.info("Data Service: Attempting to load Excel file: {}", file.getAbsolutePath());
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(monitor, "Monitor cannot be null.");
+        LoadPlan plan = planLoad(file, projection);
+        monitor.expectRows(plan.dataRows());
+        return loadPlanned(file, plan, projection, monitor);
+    }
+
+    /** Loads the file with the mode of its plan and compresses it afterwards if the plan says so. */
+    private ExcelData loadPlanned(File file, LoadPlan plan, ColumnProjection projection, LoadMonitor monitor) throws IOException {
+        if (plan.feasibility() != LoadPlan.Feasibility.OK) {
+            logger.warn("Data Service: Loading '{}' needs an estimated {} bytes of {} available ({}).", file.getName(), plan.peakBytes(), plan.availableBytes(), plan.feasibility());
+        }
+        ExcelData data = loadDataFromFile(file, plan.mode(), projection, monitor);
+        if (plan.compressAfterLoad()) {
+            monitor.checkCancelled();
+            logger.info("Data Service: Compressing '{}' in memory to leave heap for the analysis.", file.getName());
+            data = data.compress();
+        }
+        return data;
+    }
+
+    /**
+     * Estimates the heap needed to load the file and picks its load mode (see {@link LoadPlanner}),
+     * without parsing the file. Used to warn before loading files that do not fit into the heap.
+     *
+     * @param file       The file to load.
+     * @param projection The Sheet1 columns that will be kept.
+     * @return The plan for the currently available heap.
+     */
+    public LoadPlan planLoad(File file, ColumnProjection projection) {
+        return LoadPlanner.plan(file, projection, LoadPlanner.availableHeapBytes());
+    }
+
+    /**
+     * Loads data from the specified Excel file using the given load mode. Workbooks are served
+     * from the {@link DatasetCache} if the file is unchanged since it was last parsed.
+     *
+     * @param file The Excel file to load.
+     * @param mode The load mode; STREAMING requires an OOXML (.xlsx/.xlsm) file.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException           If an error occurs during file reading or parsing.
+     * @throws NullPointerException if the file or mode is null.
+     */
+    public ExcelData loadDataFromFile(File file, LoadMode mode) throws IOException {
+        return loadDataFromFile(file, mode, ColumnProjection.ALL);
+    }
+
+    /**
+     * Loads data from the specified Excel file using the given load mode and column projection.
+     *
+     * @param file       The Excel file to load.
+     * @param mode       The load mode; STREAMING requires an OOXML (.xlsx/.xlsm) file.
+     * @param projection The Sheet1 columns to keep; other columns are skipped at parse time.
+     * @return An ExcelData object containing the parsed data.
+     * @throws IOException           If an error occurs during file reading or parsing.
+     * @throws NullPointerException if the file, mode or projection is null.
+     */
+    public ExcelData loadDataFromFile(File file, LoadMode mode, ColumnProjection projection) throws IOException {
+        return loadDataFromFile(file, mode, projection, LoadMonitor.none());
+    }
+
+    private ExcelData loadDataFromFile(File file, LoadMode mode, ColumnProjection projection, LoadMonitor monitor) throws IOException {
+        Objects.requireNonNull(file, "Input file cannot be null.");
+        Objects.requireNonNull(mode, "Load mode cannot be null.");
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        logger.info("Data Service: Attempting to load Excel file ({}, {}): {}", mode, projection, file.getAbsolutePath());
+        // CSV exports are not cached: parsing is already I/O bound and depends on sidecar files
+        boolean cacheable = datasetCache != null && mode != LoadMode.CSV;
+        String cacheVariant = mode.name() + "|" + projection.key();
+        if (cacheable) {
+            Optional<ExcelData> cached = datasetCache.read(file, cacheVariant);
+            if (cached.isPresent()) {
+                monitor.rowsRead(cached.get().getRowCount());
+                return cached.get();
+            }
+        }
         try {
-            ExcelData data = excelReader.readExcel(file);
-            logger.info("Data Service: Excel data loaded successfully from {}", file.getName());
+            ExcelData data;
+            switch (mode) {
+                case STREAMING: data = streamingExcelReader.readExcel(file, projection, monitor); break;
+                case CSV: data = csvDataReader.readCsv(file, projection, monitor); break;
+                default: data = excelReader.readExcel(file, projection, monitor); break;
+            }
+            monitor.checkCancelled(); // Do not cache data of a load that was cancelled meanwhile
+            if (cacheable) datasetCache.write(file, cacheVariant, data);
+            logger.info("Data Service: Excel data loaded successfully from {} (data quality: {})", file.getName(), data.getDataQuality().summary());
             return data;
+        } catch (CancellationException e) {
+            logger.info("Data Service: Loading {} cancelled.", file.getName());
+            throw e;
         } catch (IOException | RuntimeException e) {
             logger.error("Data Service: Failed to load or parse Excel file: {}", file.getAbsolutePath(), e);
             // Re-throw specific exception types if needed, or a general one
-            throw new IOException("Fehler beim Lesen oder Verarbeiten der Excel-Datei: " + e.getMessage(), e);
+            throw new IOException("Fehler beim Lesen oder Verarbeiten der " + (mode == LoadMode.CSV ? "CSV" : "Excel") + "-Datei: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads several files of one plant (e.g. daily exports) concurrently and merges them into
+     * one continuous, strictly ascending time series (see {@link ExcelDataMerger}). Duplicate
+     * timestamps keep the row of the file listed first.
+     *
+     * @param files      The files to merge (at least one), each loaded with its default load mode.
+     * @param projection The Sheet1 columns to keep.
+     * @return The merged data.
+     * @throws IOException If a file cannot be loaded or the tracker sets of the files differ.
+     */
+    public ExcelData loadAndMergeFiles(List<File> files, ColumnProjection projection) throws IOException {
+        return loadAndMergeFiles(files, projection, LoadMonitor.none());
+    }
+
+    /**
+     * Loads and merges the files like {@link #loadAndMergeFiles(List, ColumnProjection)}, reporting the
+     * parsed rows of all files (out of the rows estimated by their load plans) to the monitor.
+     * If the monitor is cancelled or a file fails, the remaining loads are stopped.
+     *
+     * @param files      The files to merge (at least one), each loaded with its default load mode.
+     * @param projection The Sheet1 columns to keep.
+     * @param monitor    Progress and cancellation of the load.
+     * @return The merged data.
+     * @throws IOException If a file cannot be loaded or the tracker sets of the files differ.
+     * @throws CancellationException If the monitor was cancelled.
+     */
+    public ExcelData loadAndMergeFiles(List<File> files, ColumnProjection projection, LoadMonitor monitor) throws IOException {
+        Objects.requireNonNull(files, "Files cannot be null.");
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        Objects.requireNonNull(monitor, "Monitor cannot be null.");
+        if (files.isEmpty()) throw new IllegalArgumentException("At least one file is required.");
+        if (files.size() == 1) return loadDataFromFile(files.get(0), projection, monitor);
+        long start = System.nanoTime();
+        List<LoadPlan> plans = new ArrayList<>(files.size());
+        for (File file : files) plans.add(planLoad(Objects.requireNonNull(file, "Input file cannot be null."), projection));
+        for (LoadPlan plan : plans) monitor.expectRows(plan.dataRows());
+        if (LoadPlanner.combinedFeasibility(plans, LoadPlanner.availableHeapBytes()) == LoadPlan.Feasibility.INSUFFICIENT) {
+            logger.warn("Data Service: Merging {} files will most likely exceed the available heap.", files.size());
         }
+        int threads = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pv-merge-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        boolean merged = false;
+        try {
+            List<Future<ExcelData>> futures = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                File file = files.get(i);
+                LoadPlan plan = plans.get(i);
+                futures.add(executor.submit(() -> loadPlanned(file, plan, projection, monitor)));
+            }
+            List<ExcelData> sources = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    sources.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof CancellationException) throw (CancellationException) cause;
+                    if (cause instanceof IOException) throw (IOException) cause; // Already names the file
+                    throw new IOException("Fehler beim Laden von '" + files.get(i).getName() + "': " + cause.getMessage(), cause);
+                }
+            }
+            monitor.checkCancelled();
+            ExcelData result = ExcelDataMerger.merge(sources);
+            merged = true;
+            logger.info("Data Service: {} files merged into {} rows in {} ms.", files.size(), result.getRowCount(), (System.nanoTime() - start) / 1_000_000);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Laden der Dateien wurde unterbrochen.", e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Dateien können nicht zusammengeführt werden: " + e.getMessage(), e);
+        } finally {
+            if (!merged) monitor.cancel(); // Stops the parallel parsers of the other files, which shutdownNow does not interrupt
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads all plant files below the root directory concurrently.
+     * <p>
+     * Files are selected by {@link BatchLoadOptions#fileFilter()} and grouped by plant, i.e. the
+     * directory of the file relative to the root ("Pleetz", "Wolfsruh/2025", ...; files directly in
+     * the root use the root name). At most {@code parallelism} files are parsed at the same time, and
+     * a file only starts once its estimated heap demand fits into the remaining heap budget. When it
+     * starts, it is planned again against the free heap minus the budget held by the running loads,
+     * and compressed after loading if that plan (or {@link BatchLoadOptions#compress()}) says so.
+     * Failed files do not abort the run; they are reported with their error.
+     *
+     * @param root    Root directory, e.g. {@code PV-Anlagen}.
+     * @param options Parallelism, heap budget, projection and file filter.
+     * @return Results per plant (sorted by plant name, files in path order).
+     * @throws IOException          If the directory tree cannot be listed.
+     * @throws InterruptedException If the calling thread is interrupted; pending loads are cancelled.
+     */
+    public Map<String, List<FileLoadResult>> loadPlants(Path root, BatchLoadOptions options) throws IOException, InterruptedException {
+        Objects.requireNonNull(root, "Root directory cannot be null.");
+        Objects.requireNonNull(options, "Options cannot be null.");
+        if (!Files.isDirectory(root)) throw new IllegalArgumentException("Not a directory: " + root);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).filter(options.fileFilter()).sorted().collect(Collectors.toList());
+        }
+        logger.info("Batch load: {} files below {} (parallelism {}, heap budget {} MB).", files.size(), root, options.parallelism(), options.heapBudgetBytes() >> 20);
+
+        // Heap budget in KB permits (fits into an int for budgets up to 2 TB)
+        int budgetKb = (int) Math.min(Integer.MAX_VALUE, Math.max(1, options.heapBudgetBytes() >> 10));
+        Semaphore heapBudget = new Semaphore(budgetKb, true);
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.parallelism(), Math.max(1, files.size())), runnable -> {
+            Thread thread = new Thread(runnable, "pv-batch-loader-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        List<Future<FileLoadResult>> futures = new ArrayList<>(files.size());
+        try {
+            for (Path path : files) {
+                String plant = plantName(root, path);
+                LoadPlan plan = planLoad(path.toFile(), options.projection());
+                int permits = (int) Math.min(budgetKb, Math.max(1, plan.peakBytes() >> 10));
+                futures.add(executor.submit(() -> loadForBatch(plant, path.toFile(), options, heapBudget, budgetKb, permits, plan)));
+            }
+            Map<String, List<FileLoadResult>> results = new TreeMap<>();
+            int failed = 0;
+            for (Future<FileLoadResult> future : futures) {
+                FileLoadResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) { // loadForBatch reports errors itself; only unexpected failures end up here
+                    throw new IllegalStateException("Batch load task failed unexpectedly.", e.getCause());
+                }
+                if (!result.isSuccess()) failed++;
+                results.computeIfAbsent(result.plant(), k -> new ArrayList<>()).add(result);
+            }
+            logger.info("Batch load: {} files of {} plants loaded in {} ms ({} failed).", files.size(), results.size(), (System.nanoTime() - start) / 1_000_000, failed);
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Loads one file once enough heap budget is available; errors are captured in the result. */
+    private FileLoadResult loadForBatch(String plant, File file, BatchLoadOptions options, Semaphore heapBudget, int budgetKb, int permits, LoadPlan plan) throws InterruptedException {
+        if (plan.feasibility() == LoadPlan.Feasibility.INSUFFICIENT) { // Fail early instead of risking an OutOfMemoryError for all loads
+            return new FileLoadResult(plant, file, null, new IOException(plan.describe()), 0);
+        }
+        heapBudget.acquire(permits);
+        long start = System.nanoTime();
+        try {
+            // The running loads may still allocate up to the budget they hold
+            long reservedByOthers = (long) Math.max(0, budgetKb - heapBudget.availablePermits() - permits) << 10;
+            LoadPlan current = LoadPlanner.replan(plan, Math.max(0, LoadPlanner.availableHeapBytes() - reservedByOthers));
+            if (current.feasibility() == LoadPlan.Feasibility.INSUFFICIENT) {
+                return new FileLoadResult(plant, file, null, new IOException(current.describe()), (System.nanoTime() - start) / 1_000_000);
+            }
+            ExcelData data = loadPlanned(file, current, options.projection(), LoadMonitor.none());
+            if (options.compress() && !data.isCompressed()) data = data.compress();
+            return new FileLoadResult(plant, file, data, null, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            return new FileLoadResult(plant, file, null, e, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            heapBudget.release(permits);
+        }
+    }
+
+    /** Plant name of a file: its directory relative to the batch root (with '/' separators). */
+    private static String plantName(Path root, Path file) {
+        Path dir = root.relativize(file.getParent());
+        if (dir.toString().isEmpty()) {
+            Path name = root.toAbsolutePath().normalize().getFileName();
+            return name != null ? name.toString() : root.toString();
+        }
+        return dir.toString().replace(File.separatorChar, '/');
+    }
+
+    /** Default load mode for a file: CSV for .csv, streaming for OOXML workbooks, full workbook model otherwise. */
+    public static LoadMode defaultLoadMode(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) return LoadMode.CSV;
+        return (name.endsWith(".xlsx") || name.endsWith(".xlsm")) ? LoadMode.STREAMING : LoadMode.WORKBOOK;
     }
-}
\ No newline at end of file
+}
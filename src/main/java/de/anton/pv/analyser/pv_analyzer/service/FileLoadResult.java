@@ -0,0 +1,26 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import de.anton.pv.analyser.pv_analyzer.model.ExcelData;
+
+import java.io.File;
+
+/**
+ * Outcome of loading one file in a batch run.
+ *
+ * @param plant          Plant name (directory of the file relative to the batch root).
+ * @param file           The loaded file.
+ * @param data           The parsed data, or null if loading failed.
+ * @param error          The failure, or null on success.
+ * @param durationMillis Wall-clock time spent loading (excluding the wait for a free slot).
+ */
+public record FileLoadResult(
+    String plant,
+    File file,
+    ExcelData data,
+    Throwable error,
+    long durationMillis
+) {
+    public boolean isSuccess() {
+        return error == null && data != null;
+    }
+}
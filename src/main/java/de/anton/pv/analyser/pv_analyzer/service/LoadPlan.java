@@ -0,0 +1,66 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Memory estimate and chosen strategy for loading one file (see {@link LoadPlanner}).
+ * All sizes are heap bytes.
+ *
+ * @param file              The planned file.
+ * @param mode              Load mode with the lowest peak heap demand for this file type.
+ * @param dataRows          Estimated number of Sheet1 data rows (-1 if unknown).
+ * @param storedColumns     Number of value columns kept after the projection (upper bound for workbooks).
+ * @param workbookBytes     Resident size of the full POI workbook model.
+ * @param columnarBytes     Resident size of the parsed columns ({@code double[]} per column plus timestamps).
+ * @param compressedBytes   Resident size of the columns after {@link de.anton.pv.analyser.pv_analyzer.model.ExcelData#compress()}.
+ * @param peakBytes         Peak heap demand while loading with {@code mode}.
+ * @param availableBytes    Heap that is currently available ({@code -Xmx} minus used heap).
+ * @param compressAfterLoad true if the columns should be compressed right after loading to leave room for the analysis.
+ * @param feasibility       Whether the load fits into the available heap.
+ */
+public record LoadPlan(
+    File file,
+    ExcelDataService.LoadMode mode,
+    int dataRows,
+    int storedColumns,
+    long workbookBytes,
+    long columnarBytes,
+    long compressedBytes,
+    long peakBytes,
+    long availableBytes,
+    boolean compressAfterLoad,
+    Feasibility feasibility
+) {
+    /** Result of comparing the peak demand with the available heap. */
+    public enum Feasibility {
+        /** Fits comfortably. */
+        OK,
+        /** Fits, but uses more than half of the available heap; the analysis may run short of memory. */
+        TIGHT,
+        /** Will most likely fail with an OutOfMemoryError. */
+        INSUFFICIENT
+    }
+
+    /** @return User message (German) describing the estimate, with a hint if the heap is too small. */
+    public String describe() {
+        String size = dataRows >= 0 ? String.format(Locale.GERMANY, "ca. %,d Zeilen × %d Spalten", dataRows, storedColumns) : "unbekannte Größe";
+        String text = String.format(Locale.GERMANY, "Datei '%s' (%s): geschätzter Speicherbedarf beim Laden %s, verfügbar %s (maximaler Heap %s).",
+                file.getName(), size, formatBytes(peakBytes), formatBytes(availableBytes), formatBytes(Runtime.getRuntime().maxMemory()));
+        switch (feasibility) {
+            case INSUFFICIENT:
+                return text + "\nDer Arbeitsspeicher reicht voraussichtlich nicht aus. Bitte die Anwendung mit mehr Speicher starten (z. B. -Xmx"
+                        + Math.max(1, (peakBytes * 2 + Runtime.getRuntime().maxMemory() - availableBytes + (1L << 30) - 1) >> 30) + "g) oder die Datei aufteilen.";
+            case TIGHT:
+                return text + "\nDer Speicher wird knapp; Analyse und Diagramme können langsam werden oder fehlschlagen.";
+            default:
+                return text;
+        }
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes >= (1L << 30)) return String.format(Locale.GERMANY, "%.1f GB", bytes / (double) (1L << 30));
+        if (bytes >= (1L << 20)) return String.format(Locale.GERMANY, "%.0f MB", bytes / (double) (1L << 20));
+        return String.format(Locale.GERMANY, "%d KB", Math.max(1, bytes >> 10));
+    }
+}
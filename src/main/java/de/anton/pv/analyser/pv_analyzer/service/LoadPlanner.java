@@ -0,0 +1,152 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import de.anton.pv.analyser.pv_analyzer.model.ColumnProjection;
+import de.anton.pv.analyser.pv_analyzer.model.WorkbookProbe;
+import de.anton.pv.analyser.pv_analyzer.service.ExcelDataService.LoadMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Estimates the heap needed to load a file before it is parsed (from a {@link WorkbookProbe}) and
+ * picks the load mode with the lowest peak demand, so that files that cannot fit fail early with a
+ * clear message instead of an OutOfMemoryError after minutes of parsing.
+ * <p>
+ * The per-cell costs are deliberately conservative: the POI workbook model keeps an XML bean
+ * per cell (roughly 500 bytes), the event API only the shared strings table (UTF-16) plus the
+ * growing column arrays, the CSV reader the column arrays and one label slot per row.
+ */
+public final class LoadPlanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadPlanner.class);
+
+    // Rough heap needed per byte of file if the shape of the sheet is unknown (.xls, unreadable package)
+    static final int WORKBOOK_HEAP_FACTOR = 30;
+    static final int STREAMING_HEAP_FACTOR = 4;
+    static final int CSV_HEAP_FACTOR = 3;
+
+    private static final long WORKBOOK_BYTES_PER_CELL = 500;
+    private static final long BYTES_PER_SHARED_STRING = 56; // String + char[] headers and the table slot
+    private static final long BYTES_PER_ROW_OVERHEAD = 16; // Epoch minute and label slot
+    private static final double BUILDER_GROWTH = 1.5; // Column arrays grow by 50% while streaming
+    private static final double COMPRESSION_RATIO = 1 / 3.0; // See ExcelData#compress()
+    private static final double TIGHT_SHARE = 0.5;
+    private static final double INSUFFICIENT_SHARE = 0.9;
+
+    private LoadPlanner() {}
+
+    /** @return Heap that can still be allocated: maximum heap minus the heap currently in use. */
+    public static long availableHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * @param file           The file to load.
+     * @param projection     The Sheet1 columns that will be kept.
+     * @param availableBytes Heap available for the load (see {@link #availableHeapBytes()}).
+     * @return The plan; if the file cannot be probed, estimates fall back to the file size.
+     */
+    public static LoadPlan plan(File file, ColumnProjection projection, long availableBytes) {
+        Objects.requireNonNull(file, "Input file cannot be null.");
+        Objects.requireNonNull(projection, "Projection cannot be null.");
+        WorkbookProbe probe = null;
+        try {
+            probe = WorkbookProbe.probe(file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not inspect '{}' before loading ({}). Estimating from the file size.", file.getName(), e.getMessage());
+        }
+        LoadMode defaultMode = ExcelDataService.defaultLoadMode(file);
+        if (probe == null || !probe.hasShape()) return fallbackPlan(file, defaultMode, availableBytes);
+
+        long rows = probe.getDataRows();
+        int storedColumns = storedColumns(probe, projection);
+        long columnar = rows * (storedColumns * 8L + BYTES_PER_ROW_OVERHEAD) + storedColumns * 16L;
+        long compressed = (long) (rows * BYTES_PER_ROW_OVERHEAD / 4 + rows * storedColumns * 8L * COMPRESSION_RATIO);
+        long cells = rows * Math.max(1, probe.getColumns());
+        long sharedStrings = probe.getSharedStringsBytes() * 2 + probe.getSharedStringCount() * BYTES_PER_SHARED_STRING;
+        long workbook = cells * WORKBOOK_BYTES_PER_CELL + sharedStrings;
+
+        Map<LoadMode, Long> peaks = new EnumMap<>(LoadMode.class);
+        switch (defaultMode) {
+            case CSV:
+                peaks.put(LoadMode.CSV, columnar + rows * 8L); // Raw label array next to the columns
+                break;
+            case STREAMING:
+                peaks.put(LoadMode.STREAMING, (long) (columnar * BUILDER_GROWTH) + sharedStrings);
+                peaks.put(LoadMode.WORKBOOK, workbook + columnar);
+                break;
+            default:
+                peaks.put(LoadMode.WORKBOOK, workbook + columnar);
+                break;
+        }
+        LoadMode mode = defaultMode;
+        for (Map.Entry<LoadMode, Long> entry : peaks.entrySet()) {
+            if (entry.getValue() < peaks.get(mode)) mode = entry.getKey();
+        }
+        long peak = peaks.get(mode);
+        LoadPlan.Feasibility feasibility = feasibility(peak, availableBytes);
+        // Keep the resident columns small if they would take more than the share a comfortable load may use
+        boolean compress = feasibility != LoadPlan.Feasibility.INSUFFICIENT && columnar > availableBytes * TIGHT_SHARE;
+        LoadPlan plan = new LoadPlan(file, mode, (int) rows, storedColumns, workbook, columnar, compressed, peak, availableBytes, compress, feasibility);
+        logger.debug("Load plan for '{}': {} ({}), {} rows x {} columns, peak {} bytes of {} available{}.", file.getName(), mode, feasibility, rows, storedColumns,
+                peak, availableBytes, compress ? ", compress after load" : "");
+        return plan;
+    }
+
+    /**
+     * Checks whether several files can be loaded and merged: all sources and the merged copy are resident at once.
+     *
+     * @return The feasibility of the combined load.
+     */
+    public static LoadPlan.Feasibility combinedFeasibility(List<LoadPlan> plans, long availableBytes) {
+        long sources = 0, largestPeak = 0;
+        for (LoadPlan plan : plans) {
+            sources += plan.compressAfterLoad() ? plan.compressedBytes() : plan.columnarBytes();
+            largestPeak = Math.max(largestPeak, plan.peakBytes());
+        }
+        long merged = plans.stream().mapToLong(LoadPlan::columnarBytes).sum();
+        return feasibility(Math.max(largestPeak, sources + merged), availableBytes);
+    }
+
+    /**
+     * Re-evaluates a plan for another amount of available heap without probing the file again,
+     * e.g. when a queued batch load starts and other loads already hold part of the heap.
+     *
+     * @return The plan with feasibility and compression decided for {@code availableBytes}.
+     */
+    public static LoadPlan replan(LoadPlan plan, long availableBytes) {
+        LoadPlan.Feasibility feasibility = feasibility(plan.peakBytes(), availableBytes);
+        boolean compress = plan.dataRows() >= 0 // Size-based fallback plans never compress
+                && feasibility != LoadPlan.Feasibility.INSUFFICIENT && plan.columnarBytes() > availableBytes * TIGHT_SHARE;
+        return new LoadPlan(plan.file(), plan.mode(), plan.dataRows(), plan.storedColumns(), plan.workbookBytes(), plan.columnarBytes(),
+                plan.compressedBytes(), plan.peakBytes(), availableBytes, compress, feasibility);
+    }
+
+    private static LoadPlan.Feasibility feasibility(long peak, long available) {
+        if (peak > available * INSUFFICIENT_SHARE) return LoadPlan.Feasibility.INSUFFICIENT;
+        return peak > available * TIGHT_SHARE ? LoadPlan.Feasibility.TIGHT : LoadPlan.Feasibility.OK;
+    }
+
+    /** Value columns kept after the projection; workbook headers are unknown before parsing (all columns). */
+    private static int storedColumns(WorkbookProbe probe, ColumnProjection projection) {
+        if (probe.getHeaders().isEmpty() || projection.isAll()) return Math.max(0, probe.getColumns() - 1);
+        int stored = 0;
+        for (boolean selected : projection.select(probe.getHeaders())) if (selected) stored++;
+        return stored;
+    }
+
+    private static LoadPlan fallbackPlan(File file, LoadMode mode, long availableBytes) {
+        long size = Math.max(file.length(), 1);
+        long peak = size * (mode == LoadMode.CSV ? CSV_HEAP_FACTOR : mode == LoadMode.STREAMING ? STREAMING_HEAP_FACTOR : WORKBOOK_HEAP_FACTOR);
+        long columnar = size * CSV_HEAP_FACTOR;
+        return new LoadPlan(file, mode, -1, -1, size * WORKBOOK_HEAP_FACTOR, columnar, (long) (columnar * COMPRESSION_RATIO),
+                peak, availableBytes, false, feasibility(peak, availableBytes));
+    }
+}
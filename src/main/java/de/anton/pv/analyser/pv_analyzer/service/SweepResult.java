@@ -0,0 +1,187 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import de.anton.pv.analyser.pv_analyzer.algorithms.MyOPTICS;
+import de.anton.pv.analyser.pv_analyzer.model.CalculatedDataPoint;
+import de.anton.pv.analyser.pv_analyzer.model.OutlierBitmap;
+import de.anton.pv.analyser.pv_analyzer.model.TimestampAxis;
+import de.anton.pv.analyser.pv_analyzer.model.TrackerRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Tracker x timestamp matrices of a day sweep (the full single-timestamp analysis for every
+ * timestamp of a range). Trackers are indexed by their ID in the {@link TrackerRegistry} of the
+ * dataset, timestamps by their position in the sweep ({@link #getRow} gives the data row).
+ * <p>
+ * Per sample the cluster ID is stored as short, the performance label as byte code and the
+ * outlier flag as one bit of an {@link OutlierBitmap} (consensus, run and range queries), i.e.
+ * about 3 bytes instead of a {@link CalculatedDataPoint}. Instances are immutable.
+ */
+public final class SweepResult {
+
+    /** Cluster ID of samples for which the tracker had no point. */
+    public static final short NO_POINT = Short.MIN_VALUE;
+
+    private static final String[] LABELS = {"", "niedrig", "median", "hoch"};
+    private static final byte LABEL_NO_POINT = -1;
+
+    private final int firstRow;
+    private final int stepMinutes;
+    private final String[] timestamps;
+    private final String[] trackerNames;
+    private final short[] clusterIds;  // [tracker * timestamps + t]
+    private final byte[] labels;       // [tracker * timestamps + t], index into LABELS
+    private final int[] clusterCounts; // [t]
+    private final OutlierBitmap outliers;
+
+    private SweepResult(int firstRow, int stepMinutes, String[] timestamps, String[] trackerNames, OutlierBitmap outliers) {
+        this.firstRow = firstRow;
+        this.outliers = outliers;
+        this.stepMinutes = stepMinutes;
+        this.timestamps = timestamps;
+        this.trackerNames = trackerNames;
+        int cells = trackerNames.length * timestamps.length;
+        this.clusterIds = new short[cells];
+        this.labels = new byte[cells];
+        this.clusterCounts = new int[timestamps.length];
+        Arrays.fill(clusterIds, NO_POINT);
+        Arrays.fill(labels, LABEL_NO_POINT);
+    }
+
+    /**
+     * Collects the analysed points of the sweep.
+     *
+     * @param registry      Trackers of the dataset (points are placed by their tracker ID).
+     * @param firstRow      Data row of the first timestamp.
+     * @param stepMinutes   Typical sample step of the data (0 if unknown), the duration of one sample.
+     * @param timestamps    Labels of the swept timestamps.
+     * @param points        Analysed points per timestamp (empty where nothing could be analysed).
+     * @param clusterCounts OPTICS cluster count per timestamp.
+     */
+    static SweepResult of(TrackerRegistry registry, int firstRow, int stepMinutes, List<String> timestamps, List<List<CalculatedDataPoint>> points, int[] clusterCounts) {
+        Objects.requireNonNull(registry, "Registry cannot be null.");
+        if (points.size() != timestamps.size() || clusterCounts.length != timestamps.size()) throw new IllegalArgumentException("One point list and cluster count per timestamp expected.");
+        String[] names = new String[registry.size()];
+        for (int id = 0; id < names.length; id++) names[id] = registry.getName(id);
+        int count = timestamps.size();
+        OutlierBitmap.Builder outliers = new OutlierBitmap.Builder(names.length, count);
+        for (int t = 0; t < count; t++) outliers.addPoints(t, points.get(t));
+        SweepResult result = new SweepResult(firstRow, Math.max(0, stepMinutes), timestamps.toArray(new String[0]), names, outliers.build());
+        for (int t = 0; t < count; t++) {
+            result.clusterCounts[t] = clusterCounts[t];
+            for (CalculatedDataPoint p : points.get(t)) {
+                int id = p.getTrackerId();
+                if (id < 0 || id >= names.length) continue;
+                int cell = id * count + t;
+                result.clusterIds[cell] = (short) Math.max(MyOPTICS.NOISE, Math.min(Short.MAX_VALUE, p.getClusterGroup()));
+                result.labels[cell] = labelCode(p.getPerformanceLabel());
+            }
+        }
+        return result;
+    }
+
+    private static byte labelCode(String label) {
+        for (byte code = 1; code < LABELS.length; code++) if (LABELS[code].equals(label)) return code;
+        return 0;
+    }
+
+    public int getTrackerCount() {
+        return trackerNames.length;
+    }
+
+    public int getTimestampCount() {
+        return timestamps.length;
+    }
+
+    /** @return Label of the t-th timestamp of the sweep. */
+    public String getTimestamp(int t) {
+        return timestamps[t];
+    }
+
+    /** @return Data row of the t-th timestamp of the sweep. */
+    public int getRow(int t) {
+        Objects.checkIndex(t, timestamps.length);
+        return firstRow + t;
+    }
+
+    /** @return Epoch minute of the t-th timestamp, or {@link TimestampAxis#INVALID}. */
+    public long getEpochMinute(int t) {
+        return TimestampAxis.parseEpochMinute(timestamps[t]);
+    }
+
+    /** @return Typical sample step in minutes, 0 if unknown. */
+    public int getStepMinutes() {
+        return stepMinutes;
+    }
+
+    /**
+     * @return Minutes covered by the timestamps [fromT, lastT] (from the first to the last timestamp plus one
+     *         sample step), or -1 if a timestamp has no valid time.
+     */
+    public long getDurationMinutes(int fromT, int lastT) {
+        long from = getEpochMinute(fromT), last = getEpochMinute(lastT);
+        return from == TimestampAxis.INVALID || last == TimestampAxis.INVALID ? -1 : last - from + stepMinutes;
+    }
+
+    /** @return The outlier flags of the sweep as bitmap for consensus, run and range queries. */
+    public OutlierBitmap getOutlierBitmap() {
+        return outliers;
+    }
+
+    public String getTrackerName(int trackerId) {
+        return trackerNames[trackerId];
+    }
+
+    /** @return true if the tracker had a point at the timestamp. */
+    public boolean hasPoint(int trackerId, int t) {
+        return clusterIds[cell(trackerId, t)] != NO_POINT;
+    }
+
+    /** @return OPTICS cluster ID ({@link MyOPTICS#NOISE} for noise), or {@link #NO_POINT}. */
+    public int getClusterId(int trackerId, int t) {
+        return clusterIds[cell(trackerId, t)];
+    }
+
+    /** @return true if DBSCAN flagged the tracker as outlier of its orientation at the timestamp. */
+    public boolean isOutlier(int trackerId, int t) {
+        cell(trackerId, t);
+        return outliers.isOutlier(trackerId, t);
+    }
+
+    /** @return "hoch", "median", "niedrig", or "" (no label or no point). */
+    public String getPerformanceLabel(int trackerId, int t) {
+        byte code = labels[cell(trackerId, t)];
+        return code < 0 ? "" : LABELS[code];
+    }
+
+    /** @return Number of OPTICS clusters at the timestamp. */
+    public int getClusterCount(int t) {
+        return clusterCounts[t];
+    }
+
+    /** @return Number of timestamps at which the tracker was flagged as outlier. */
+    public int countOutliers(int trackerId) {
+        return outliers.countOutliers(trackerId);
+    }
+
+    /** @return Number of timestamps at which the tracker had a point. */
+    public int countPoints(int trackerId) {
+        int count = 0;
+        for (int t = 0, base = trackerId * timestamps.length; t < timestamps.length; t++) if (clusterIds[base + t] != NO_POINT) count++;
+        return count;
+    }
+
+    private int cell(int trackerId, int t) {
+        Objects.checkIndex(trackerId, trackerNames.length);
+        Objects.checkIndex(t, timestamps.length);
+        return trackerId * timestamps.length + t;
+    }
+
+    @Override
+    public String toString() {
+        return "SweepResult{trackers=" + trackerNames.length + ", timestamps=" + timestamps.length
+                + (timestamps.length > 0 ? ", " + timestamps[0] + " -> " + timestamps[timestamps.length - 1] : "") + '}';
+    }
+}
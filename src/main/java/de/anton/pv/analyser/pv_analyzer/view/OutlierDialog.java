@@ -1,7 +1,9 @@
 package de.anton.pv.analyser.pv_analyzer.view;
 
 import de.anton.pv.analyser.pv_analyzer.model.CalculatedDataPoint;
+import de.anton.pv.analyser.pv_analyzer.model.OutlierBitmap;
 import de.anton.pv.analyser.pv_analyzer.algorithms.MyOPTICS;
+import de.anton.pv.analyser.pv_analyzer.service.SweepResult;
 
 import javax.swing.*;
 import javax.swing.table.*;
@@ -16,12 +18,25 @@ import java.util.stream.Collectors;
 
 /**
  * Dialog window displaying outliers, including performance label.
+ * After a day sweep a second tab ranks the trackers by how often they were outliers
+ * (consensus share, longest run) within a selectable part of the swept range.
  */
 public class OutlierDialog extends JDialog {
 
+    private static final int DEFAULT_CONSENSUS_PERCENT = 70;
+    private static final int DEFAULT_RUN_MINUTES = 30;
+
     private final JTable outlierTable;
     private final OutlierTableModel tableModel;
     private final boolean moduleInfoAvailable;
+    private final JTabbedPane tabs;
+    private final JPanel rankingPanel;
+    private final RankingTableModel rankingModel;
+    private final JComboBox<String> cmbRangeFrom, cmbRangeTo;
+    private final JSpinner spnConsensusPercent, spnRunMinutes;
+    private final JLabel lblRankingSummary;
+    private SweepResult sweep;
+    private boolean updatingRange;
 
     public OutlierDialog(Frame owner, boolean moduleInfoAvailable) {
         super(owner, "Zusammengefasste Ausreißer", false); // Slightly simpler title
@@ -35,7 +50,17 @@ public class OutlierDialog extends JDialog {
 
         setupTableRenderersAndWidths();
 
-        JScrollPane scrollPane = new JScrollPane(outlierTable); add(scrollPane, BorderLayout.CENTER);
+        JScrollPane scrollPane = new JScrollPane(outlierTable); tabs = new JTabbedPane(); tabs.addTab("Ausreißer", scrollPane); add(tabs, BorderLayout.CENTER);
+
+        rankingModel = new RankingTableModel(); JTable rankingTable = new JTable(rankingModel); rankingTable.setAutoCreateRowSorter(true); rankingTable.setFillsViewportHeight(true); rankingTable.getColumnModel().getColumn(1).setPreferredWidth(180);
+        cmbRangeFrom = new JComboBox<>(); cmbRangeFrom.setToolTipText("Erster Zeitstempel der Auswertung"); cmbRangeTo = new JComboBox<>(); cmbRangeTo.setToolTipText("Letzter Zeitstempel der Auswertung");
+        spnConsensusPercent = new JSpinner(new SpinnerNumberModel(DEFAULT_CONSENSUS_PERCENT, 1, 100, 5)); spnConsensusPercent.setToolTipText("Mindestanteil der Stichproben, in denen der Tracker Ausreißer war");
+        spnRunMinutes = new JSpinner(new SpinnerNumberModel(DEFAULT_RUN_MINUTES, 0, 24 * 60, 5)); spnRunMinutes.setToolTipText("Mindestdauer einer ununterbrochenen Ausreißer-Serie");
+        lblRankingSummary = new JLabel(" ");
+        JPanel pnlRankingControls = new JPanel(new FlowLayout(FlowLayout.LEFT)); pnlRankingControls.add(new JLabel("Von:")); pnlRankingControls.add(cmbRangeFrom); pnlRankingControls.add(new JLabel("bis")); pnlRankingControls.add(cmbRangeTo); pnlRankingControls.add(new JLabel("  Konsens ab (%):")); pnlRankingControls.add(spnConsensusPercent); pnlRankingControls.add(new JLabel("  Serie ab (min):")); pnlRankingControls.add(spnRunMinutes);
+        rankingPanel = new JPanel(new BorderLayout()); rankingPanel.add(pnlRankingControls, BorderLayout.NORTH); rankingPanel.add(new JScrollPane(rankingTable), BorderLayout.CENTER); rankingPanel.add(lblRankingSummary, BorderLayout.SOUTH);
+        cmbRangeFrom.addActionListener(e -> { if (!updatingRange) updateRankingTable(); }); cmbRangeTo.addActionListener(e -> { if (!updatingRange) updateRankingTable(); });
+        spnConsensusPercent.addChangeListener(e -> updateRankingTable()); spnRunMinutes.addChangeListener(e -> updateRankingTable());
         setSize(1350, 350); setMinimumSize(new Dimension(650, 200)); setLocationByPlatform(true);
     }
 
@@ -59,6 +84,44 @@ public class OutlierDialog extends JDialog {
     public void updateData(List<CalculatedDataPoint> outliers) { if (!SwingUtilities.isEventDispatchThread()) { SwingUtilities.invokeLater(() -> updateData(outliers)); return; } tableModel.setData(outliers); setTitle("Ausreißer (" + (outliers != null ? outliers.size() : 0) + ")"); }
     public boolean isModuleInfoAvailable() { return moduleInfoAvailable; }
 
+    /** Shows the tracker ranking of a day sweep over its whole range, or removes the tab if {@code sweep} is null or empty. */
+    public void updateRanking(SweepResult sweep) {
+        if (!SwingUtilities.isEventDispatchThread()) { SwingUtilities.invokeLater(() -> updateRanking(sweep)); return; }
+        this.sweep = (sweep != null && sweep.getTimestampCount() > 0) ? sweep : null;
+        int tabIndex = tabs.indexOfComponent(rankingPanel);
+        if (this.sweep == null) { if (tabIndex >= 0) tabs.removeTabAt(tabIndex); rankingModel.setData(null, Collections.emptyList(), 0, 0); return; }
+        updatingRange = true;
+        try {
+            String[] labels = new String[this.sweep.getTimestampCount()]; for (int t = 0; t < labels.length; t++) labels[t] = this.sweep.getTimestamp(t);
+            cmbRangeFrom.setModel(new DefaultComboBoxModel<>(labels)); cmbRangeTo.setModel(new DefaultComboBoxModel<>(labels)); cmbRangeFrom.setSelectedIndex(0); cmbRangeTo.setSelectedIndex(labels.length - 1);
+        } finally { updatingRange = false; }
+        if (tabIndex < 0) tabs.addTab("Rangliste (Durchlauf)", rankingPanel);
+        updateRankingTable();
+    }
+
+    /** Ranks the trackers within the selected range with the bitmap queries of the sweep. */
+    private void updateRankingTable() {
+        if (sweep == null) return;
+        int from = cmbRangeFrom.getSelectedIndex(), last = cmbRangeTo.getSelectedIndex();
+        if (from < 0 || last < 0) return;
+        if (from > last) { lblRankingSummary.setText("Start liegt nach dem Ende."); rankingModel.setData(sweep, Collections.emptyList(), 0, 0); return; }
+        double minShare = ((Number) spnConsensusPercent.getValue()).intValue() / 100.0; int minRunMinutes = ((Number) spnRunMinutes.getValue()).intValue();
+        List<OutlierBitmap.TrackerScore> ranking = sweep.getOutlierBitmap().rank(from, last + 1);
+        rankingModel.setData(sweep, ranking, minShare, minRunMinutes);
+        long consensus = ranking.stream().filter(s -> s.score() >= minShare).count(); long runs = ranking.stream().filter(s -> rankingModel.runMinutes(s) >= minRunMinutes).count();
+        lblRankingSummary.setText(String.format(" %d Zeitstempel, %d Tracker mit Ausreißern, %d mit Konsens ≥ %d %%, %d mit Serie ≥ %d min", last - from + 1, ranking.size(), consensus, Math.round(minShare * 100), runs, minRunMinutes));
+    }
+
+    private static class RankingTableModel extends AbstractTableModel {
+        private static final List<String> COLUMN_NAMES = List.of( "Rang", "Name", "Ausreißer", "Stichproben", "Anteil (%)", "Längste Serie (min)", "Serie von", "Serie bis", "Konsens", "Serie" );
+        private SweepResult sweep; private List<OutlierBitmap.TrackerScore> ranking = new ArrayList<>(); private double minShare; private int minRunMinutes;
+        public void setData(SweepResult sweep, List<OutlierBitmap.TrackerScore> ranking, double minShare, int minRunMinutes) { this.sweep = sweep; this.ranking = (ranking == null) ? new ArrayList<>() : ranking; this.minShare = minShare; this.minRunMinutes = minRunMinutes; fireTableDataChanged(); }
+        long runMinutes(OutlierBitmap.TrackerScore score) { OutlierBitmap.Run run = score.longestRun(); return (sweep == null || run.length() == 0) ? 0 : sweep.getDurationMinutes(run.start(), run.last()); }
+        @Override public int getRowCount() { return ranking.size(); } @Override public int getColumnCount() { return COLUMN_NAMES.size(); } @Override public String getColumnName(int column) { return COLUMN_NAMES.get(column); }
+        @Override public Class<?> getColumnClass(int columnIndex) { switch (columnIndex) { case 0: case 2: case 3: return Integer.class; case 4: return Double.class; case 5: return Long.class; case 8: case 9: return Boolean.class; default: return String.class; } }
+        @Override public Object getValueAt(int rowIndex, int columnIndex) { if (rowIndex < 0 || rowIndex >= ranking.size() || sweep == null) return null; OutlierBitmap.TrackerScore score = ranking.get(rowIndex); OutlierBitmap.Run run = score.longestRun(); switch (columnIndex) { case 0: return rowIndex + 1; case 1: return sweep.getTrackerName(score.trackerId()); case 2: return score.outliers(); case 3: return score.samples(); case 4: return Math.round(score.score() * 1000) / 10.0; case 5: return runMinutes(score); case 6: return run.length() == 0 ? "" : sweep.getTimestamp(run.start()); case 7: return run.length() == 0 ? "" : sweep.getTimestamp(run.last()); case 8: return score.score() >= minShare; case 9: return run.length() > 0 && runMinutes(score) >= minRunMinutes; default: return null; } }
+    }
+
     private static class OutlierTableModel extends AbstractTableModel {
          private List<CalculatedDataPoint> outlierData = new ArrayList<>(); private final boolean moduleInfoAvailable;
          private static final List<String> COLUMN_NAMES_BASE = List.of( "Name", "DC-Leistung (kW)", "Spez. Leistung", "Performance", "DC-Spannung (V)", "Nennleistung (kWp)", "Strom/String (A)", "Ohm (Ω)", "Anzahl Strings" );
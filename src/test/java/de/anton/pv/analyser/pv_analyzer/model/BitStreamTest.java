@@ -0,0 +1,87 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+
+/**
+ * Round trips of {@link BitStream}: fields of every width at every bit offset, including fields
+ * that straddle a word boundary.
+ */
+public class BitStreamTest extends TestCase {
+
+    public void testEmptyWriter() {
+        BitStream.Writer out = new BitStream.Writer();
+        out.write(0x5L, 0);
+        assertEquals(0, out.position());
+        assertEquals(0, out.toWords().length);
+    }
+
+    public void testSingleBits() {
+        BitStream.Writer out = new BitStream.Writer();
+        boolean[] bits = new boolean[200];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = i % 3 == 0 || i % 7 == 0;
+            out.writeBit(bits[i]);
+        }
+        assertEquals(bits.length, out.position());
+        assertEquals(4, out.toWords().length);
+        BitStream.Reader in = new BitStream.Reader(out.toWords(), 0);
+        for (int i = 0; i < bits.length; i++) assertEquals("bit " + i, bits[i], in.readBit());
+    }
+
+    public void testEveryWidthAtEveryOffset() {
+        long value = 0xF0E1D2C3B4A59687L;
+        for (int offset = 0; offset < 64; offset++) {
+            for (int width = 0; width <= 64; width++) {
+                BitStream.Writer out = new BitStream.Writer();
+                out.write(-1L, offset); // Prefix of ones to check the field does not touch it
+                out.write(value, width);
+                out.write(0b101, 3);
+                BitStream.Reader in = new BitStream.Reader(out.toWords(), 0);
+                assertEquals(offset == 64 ? -1L : (1L << offset) - 1, in.read(offset));
+                long expected = width == 64 ? value : value & ((1L << width) - 1);
+                assertEquals("offset " + offset + ", width " + width, expected, in.read(width));
+                assertEquals(0b101, in.read(3));
+            }
+        }
+    }
+
+    public void testHighBitsOfValueAreIgnored() {
+        BitStream.Writer out = new BitStream.Writer();
+        out.write(-1L, 5);
+        out.write(0, 5);
+        BitStream.Reader in = new BitStream.Reader(out.toWords(), 0);
+        assertEquals(31, in.read(5));
+        assertEquals(0, in.read(5));
+    }
+
+    public void testReaderStartsAtPosition() {
+        BitStream.Writer out = new BitStream.Writer();
+        out.write(0x3FF, 10);
+        long position = out.position();
+        out.write(0x1234_5678_9ABCL, 48);
+        out.write(Long.MIN_VALUE, 64);
+        BitStream.Reader in = new BitStream.Reader(out.toWords(), position);
+        assertEquals(0x1234_5678_9ABCL, in.read(48));
+        assertEquals(Long.MIN_VALUE, in.read(64));
+    }
+
+    public void testRandomFields() {
+        Random random = new Random(42);
+        int count = 10_000;
+        long[] values = new long[count];
+        int[] widths = new int[count];
+        BitStream.Writer out = new BitStream.Writer(); // Grows its backing array several times
+        long bits = 0;
+        for (int i = 0; i < count; i++) {
+            widths[i] = random.nextInt(65);
+            values[i] = widths[i] == 64 ? random.nextLong() : random.nextLong() & ((1L << widths[i]) - 1);
+            out.write(values[i], widths[i]);
+            bits += widths[i];
+        }
+        assertEquals(bits, out.position());
+        BitStream.Reader in = new BitStream.Reader(out.toWords(), 0);
+        for (int i = 0; i < count; i++) assertEquals("field " + i, values[i], in.read(widths[i]));
+    }
+}
@@ -0,0 +1,88 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Reads exports that are large enough to be split into chunks and checks that no line is lost,
+ * duplicated or cut wherever the split position falls within a line.
+ */
+public class CsvDataReaderTest extends TestCase {
+
+    private static final int ROWS = 20_000; // About 600 KB: split into two chunks on multi-core machines
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private static final LocalDateTime START = LocalDateTime.of(2025, 4, 4, 0, 0);
+
+    private File dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("csv-reader-test").toFile();
+        Files.write(new File(dir, "Tabelle2.csv").toPath(),
+                "Name;Nennleistung;Ausrichtung;Anzahl Strings\nTR 1.1;10;Süd;2\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        dir.delete();
+    }
+
+    public void testChunkSplitAtEveryPositionOfALine() throws IOException {
+        int lineLength = line(ROWS - 1, 0, "\r\n").length();
+        // Padding the last line moves the split position by half a byte per padding byte
+        for (int padding = 0; padding <= 2 * lineLength; padding++) {
+            String lineBreak = padding % 2 == 0 ? "\n" : "\r\n";
+            File file = writeExport("export_" + padding + ".csv", padding, lineBreak, true);
+            assertRows(new CsvDataReader().readCsv(file), "padding " + padding);
+            file.delete();
+        }
+    }
+
+    public void testLastLineWithoutLineBreak() throws IOException {
+        File file = writeExport("export.csv", 0, "\n", false);
+        assertRows(new CsvDataReader().readCsv(file), "no final line break");
+    }
+
+    private File writeExport(String name, int padding, String lineBreak, boolean finalLineBreak) throws IOException {
+        StringBuilder sb = new StringBuilder(ROWS * 40);
+        sb.append("date;TR 1.1/DC-Leistung(kW);TR 1.1/DC-Spannung(V)").append(lineBreak);
+        for (int row = 0; row < ROWS; row++) {
+            sb.append(line(row, row == ROWS - 1 ? padding : 0, row < ROWS - 1 || finalLineBreak ? lineBreak : ""));
+        }
+        File file = new File(dir, name);
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /** Data line of a row; the padding goes before the last value (blanks around numbers are ignored). */
+    private static String line(int row, int padding, String lineBreak) {
+        return START.plusMinutes(row).format(FORMAT) + ";" + power(row).replace('.', ',') + ";" + " ".repeat(padding) + voltage(row) + lineBreak;
+    }
+
+    private static String power(int row) {
+        return (row % 1000) + "." + (row % 7);
+    }
+
+    private static String voltage(int row) {
+        return String.valueOf(500 + row % 300);
+    }
+
+    private static void assertRows(ExcelData data, String message) {
+        assertEquals(message, ROWS, data.getRowCount());
+        List<String> timestamps = data.getTimestamps();
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals(message + ", row " + row, START.plusMinutes(row).format(FORMAT), timestamps.get(row));
+            assertEquals(message + ", row " + row, Double.parseDouble(power(row)), data.getValue(1, row), 0.0);
+            assertEquals(message + ", row " + row, Double.parseDouble(voltage(row)), data.getValue(2, row), 0.0);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Flags and usable-row masks of {@link DataQuality}: one hand-built sample per flag, the word
+ * boundaries of the bitsets and the rescan of appended rows.
+ */
+public class DataQualityTest extends TestCase {
+
+    private static final int G = DataQuality.GAP, N = DataQuality.NEGATIVE_POWER, V = DataQuality.IMPLAUSIBLE_VOLTAGE;
+    private static final int F = DataQuality.FROZEN, S = DataQuality.SPIKE, L = DataQuality.LOW_POWER;
+
+    // TR 1.1 (10 kWp: power spikes above 5 kW)
+    private static final double[] POWER = {0, 0, 3.0, 3.1, Double.NaN, 3.3, -0.5, 3.4, 3.5, 3.6, 9.9, 3.7, 4, 4, 4, 4, 4, 4, 4.2, 4.3};
+    private static final double[] VOLTAGE = {0, 0, 600, 600, 600, 600, 600, 600, 1600, 600, 600, 600, 600, 600, 600, 600, 600, 600, 600, 600};
+    private static final int[] FLAGS = {L, L, 0, 0, G, 0, N | L, 0, V | S, 0, S, 0, F, F, F, F, F, F, 0, 0};
+
+    public void testFlagsPerSample() {
+        ExcelData data = dataset(POWER, VOLTAGE);
+        DataQuality quality = data.getDataQuality();
+        int id = data.getTrackerRegistry().getId("TR 1.1");
+        assertEquals(POWER.length, quality.getRowCount());
+        for (int row = 0; row < POWER.length; row++) {
+            assertEquals("row " + row, FLAGS[row], quality.getFlags(id, row));
+        }
+        assertEquals(6, quality.countRows(id, F));
+        assertEquals(2, quality.countRows(id, S));
+        assertEquals(9, quality.countRows(id, F | L)); // Samples with any of the flags
+    }
+
+    public void testFrozenAndSpikeSamplesStayUsable() {
+        ExcelData data = dataset(POWER, VOLTAGE);
+        DataQuality quality = data.getDataQuality();
+        int id = data.getTrackerRegistry().getId("TR 1.1");
+        for (int row = 0; row < POWER.length; row++) {
+            assertEquals("row " + row, (FLAGS[row] & DataQuality.EXCLUDED) == 0, quality.isUsable(id, row));
+        }
+        assertTrue(quality.isUsable(id, 10)); // Spike only
+        assertTrue(quality.isUsable(id, 12)); // Frozen only
+        assertFalse(quality.isUsable(id, 8)); // Voltage out of range
+        assertEquals(2, quality.nextUsableRow(id, 0));
+        assertEquals(5, quality.nextUsableRow(id, 4));
+        assertEquals(7, quality.nextUsableRow(id, 6));
+        assertEquals(9, quality.nextUsableRow(id, 8));
+        assertEquals(19, quality.nextUsableRow(id, 19));
+        assertEquals(-1, quality.nextUsableRow(id, 20));
+    }
+
+    public void testMissingVoltageColumnIsAGap() {
+        ExcelData data = dataset(POWER, VOLTAGE);
+        DataQuality quality = data.getDataQuality();
+        int id = data.getTrackerRegistry().getId("TR 1.2");
+        for (int row = 0; row < POWER.length; row++) assertEquals(G, quality.getFlags(id, row));
+        assertEquals(-1, quality.nextUsableRow(id, 0));
+        assertEquals(POWER.length, quality.countRows(id, DataQuality.INVALID));
+    }
+
+    public void testNextUsableRowAcrossWords() {
+        Random random = new Random(4);
+        for (int rows : new int[]{63, 64, 65, 200}) {
+            double[] power = new double[rows], voltage = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                power[row] = random.nextInt(4) == 0 ? 0.0 : 1 + random.nextInt(50) / 10.0; // Many night samples
+                voltage[row] = 600 + random.nextInt(10);
+            }
+            for (int row = 60; row < Math.min(rows, 130); row++) power[row] = 0.0; // A long unusable stretch over a word edge
+            ExcelData data = dataset(power, voltage);
+            DataQuality quality = data.getDataQuality();
+            int id = data.getTrackerRegistry().getId("TR 1.1");
+            for (int from = 0; from <= rows; from++) {
+                int expected = -1;
+                for (int row = from; row < rows && expected < 0; row++) if (quality.isUsable(id, row)) expected = row;
+                assertEquals(rows + " rows, from " + from, expected, quality.nextUsableRow(id, from));
+            }
+        }
+    }
+
+    public void testExtendMatchesFullScan() {
+        ExcelData data = dataset(POWER, VOLTAGE);
+        TrackerRegistry registry = data.getTrackerRegistry();
+        DataQuality full = DataQuality.scan(data, registry, POWER.length);
+        for (int rows = 1; rows < POWER.length; rows++) {
+            DataQuality extended = DataQuality.scan(data, registry, rows).extend(data, registry, POWER.length);
+            for (int id = 0; id < registry.size(); id++) {
+                for (int row = 0; row < POWER.length; row++) {
+                    assertEquals("scanned " + rows + ", tracker " + id + ", row " + row, full.getFlags(id, row), extended.getFlags(id, row));
+                    assertEquals(full.isUsable(id, row), extended.isUsable(id, row));
+                }
+            }
+        }
+    }
+
+    /** TR 1.1 with power and voltage, TR 1.2 with power only (its voltage column is missing). */
+    private static ExcelData dataset(double[] power, double[] voltage) {
+        String[] timestamps = new String[power.length];
+        for (int row = 0; row < power.length; row++) timestamps[row] = TimestampAxis.format(29_064_960L + 5L * row);
+        List<String> headers = List.of("Datum", "TR 1.1/" + ExcelData.METRIC_DC_POWER, "TR 1.1/" + ExcelData.METRIC_DC_VOLTAGE,
+                "TR 1.2/" + ExcelData.METRIC_DC_POWER);
+        Map<String, TrackerInfo> trackers = new LinkedHashMap<>();
+        trackers.put("TR 1.1", new TrackerInfo("TR 1.1", 10.0, "Süd", 2));
+        trackers.put("TR 1.2", new TrackerInfo("TR 1.2", 10.0, "Süd", 2));
+        return ExcelData.Builder.wrap(headers, List.of(timestamps), new double[][]{null, power, voltage, power.clone()})
+                .trackerInfoMap(trackers)
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Round trip of {@link DatasetCache} entries and the cases in which an entry must no longer be used.
+ */
+public class DatasetCacheTest extends TestCase {
+
+    private static final long MTIME = 1_743_840_000_000L; // 05.04.2025, whole seconds for every file system
+
+    private Path dir;
+    private DatasetCache cache;
+    private File source;
+    private byte[] content;
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("dataset-cache-test");
+        cache = new DatasetCache(dir.resolve("cache"));
+        source = dir.resolve("TR-Analyse.xlsx").toFile();
+        content = new byte[3 * 1024 * 1024]; // Larger than both hash windows together
+        new Random(1).nextBytes(content);
+        writeSource(source, content);
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public void testRoundTrip() {
+        ExcelData data = dataset();
+        cache.write(source, "STREAMING", data);
+        ExcelData cached = cache.read(source, "STREAMING").orElseThrow();
+
+        assertEquals(data.getSheet1Headers(), cached.getSheet1Headers());
+        assertEquals(data.getTimestamps(), cached.getTimestamps());
+        assertEquals("unlesbar", cached.getTimestamps().get(2)); // Unparsable labels are kept as they were
+        for (int col = 1; col < data.getSheet1Headers().size(); col++) {
+            for (int row = 0; row < data.getRowCount(); row++) {
+                assertEquals(Double.doubleToLongBits(data.getValue(col, row)), Double.doubleToLongBits(cached.getValue(col, row)));
+            }
+        }
+        assertEquals(data.getTrackerInfoMap().keySet(), cached.getTrackerInfoMap().keySet());
+        assertEquals(12.5, cached.getTrackerInfoMap().get("TR 1.2").getNennleistungkWp(), 0.0);
+        assertEquals(4, cached.getTrackerInfoMap().get("TR 1.2").getAnzahlStrings());
+        assertEquals(0.43, cached.getModuleInfo().getPnennKWp(), 0.0);
+    }
+
+    public void testOtherVariantMisses() {
+        cache.write(source, "STREAMING", dataset());
+        assertFalse(cache.read(source, "WORKBOOK").isPresent());
+    }
+
+    public void testChangedSizeMisses() throws IOException {
+        cache.write(source, "STREAMING", dataset());
+        writeSource(source, Arrays.copyOf(content, content.length + 1));
+        assertFalse(cache.read(source, "STREAMING").isPresent());
+    }
+
+    public void testChangedMtimeMisses() {
+        cache.write(source, "STREAMING", dataset());
+        assertTrue(source.setLastModified(MTIME + 2000));
+        assertFalse(cache.read(source, "STREAMING").isPresent());
+    }
+
+    public void testChangedContentWithSameSizeAndMtimeMisses() throws IOException {
+        cache.write(source, "STREAMING", dataset());
+        byte[] head = content.clone();
+        head[10] ^= 1;
+        writeSource(source, head);
+        assertFalse(cache.read(source, "STREAMING").isPresent());
+
+        writeSource(source, content);
+        cache.write(source, "STREAMING", dataset());
+        byte[] tail = content.clone();
+        tail[tail.length - 10] ^= 1;
+        writeSource(source, tail);
+        assertFalse(cache.read(source, "STREAMING").isPresent());
+    }
+
+    public void testInvalidate() {
+        cache.write(source, "STREAMING", dataset());
+        assertTrue(cache.read(source, "STREAMING").isPresent());
+        cache.invalidate(source);
+        assertFalse(cache.read(source, "STREAMING").isPresent());
+        assertFalse(Files.exists(cache.entryPath(source)));
+    }
+
+    public void testEntryOfAnotherFileIsIgnored() throws IOException {
+        // Same name, content and mtime in another plant folder; the entry ends up under the other path
+        File copy = dir.resolve("Wolfsruh").resolve(source.getName()).toFile();
+        assertTrue(copy.getParentFile().mkdir());
+        writeSource(copy, content);
+        cache.write(source, "STREAMING", dataset());
+        Files.copy(cache.entryPath(source), cache.entryPath(copy), StandardCopyOption.REPLACE_EXISTING);
+        assertFalse(cache.read(copy, "STREAMING").isPresent());
+        assertTrue(cache.read(source, "STREAMING").isPresent());
+    }
+
+    public void testCorruptEntryIsDiscarded() throws IOException {
+        cache.write(source, "STREAMING", dataset());
+        Path entry = cache.entryPath(source);
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+        Optional<ExcelData> cached = cache.read(source, "STREAMING");
+        assertFalse(cached.isPresent());
+        assertFalse(Files.exists(entry));
+    }
+
+    private static void writeSource(File file, byte[] bytes) throws IOException {
+        Files.write(file.toPath(), bytes);
+        assertTrue(file.setLastModified(MTIME));
+    }
+
+    private static ExcelData dataset() {
+        List<String> headers = List.of("Datum/Zeit", "TR 1.1/" + ExcelData.METRIC_DC_POWER, "TR 1.1/" + ExcelData.METRIC_DC_VOLTAGE,
+                "TR 1.2/" + ExcelData.METRIC_DC_POWER, "TR 1.2/" + ExcelData.METRIC_DC_VOLTAGE);
+        List<String> timestamps = List.of("05.04.2025 10:00", "05.04.2025 10:05", "unlesbar", "05.04.2025 10:15");
+        double[][] columns = {null, {1.5, 2.5, Double.NaN, -0.0}, {600, 610, 620, 630}, {3.25, 4.0, 5.0, 6.0}, {700, Double.NaN, 720, 730}};
+        Map<String, TrackerInfo> trackers = new LinkedHashMap<>();
+        trackers.put("TR 1.1", new TrackerInfo("TR 1.1", 11.5, "Süd", 3));
+        trackers.put("TR 1.2", new TrackerInfo("TR 1.2", 12.5, "Ost", 4));
+        return ExcelData.Builder.wrap(headers, timestamps, columns)
+                .trackerInfoMap(trackers)
+                .moduleInfo(new ModuleInfo(0.43, 0.42, 41.5, 10.2))
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Round trips of {@link DeltaOfDeltaMinutes}: regular axes, gaps, negative steps and
+ * delta-of-delta values at both ends of every bucket.
+ */
+public class DeltaOfDeltaMinutesTest extends TestCase {
+
+    private static final long DAY_START = 29_064_960L; // 05.04.2025 00:00 in epoch minutes
+
+    public void testEmpty() {
+        DeltaOfDeltaMinutes minutes = assertRoundTrip(new long[0]);
+        assertEquals(-1, minutes.binarySearch(DAY_START));
+    }
+
+    public void testSingleValue() {
+        DeltaOfDeltaMinutes minutes = assertRoundTrip(new long[]{DAY_START});
+        assertEquals(0, minutes.binarySearch(DAY_START));
+        assertEquals(-1, minutes.binarySearch(DAY_START - 1));
+        assertEquals(-2, minutes.binarySearch(DAY_START + 1));
+    }
+
+    public void testRegularAxis() {
+        long[] values = new long[288 * 3]; // Three days of 5 minute data
+        for (int i = 0; i < values.length; i++) values[i] = DAY_START + 5L * i;
+        DeltaOfDeltaMinutes minutes = assertRoundTrip(values);
+        assertTrue("regular axis costs about one bit per row", minutes.serializedBytes() < values.length / 8 + 64);
+    }
+
+    public void testBucketBoundaries() {
+        // Each delta-of-delta at the edges of the 7, 9 and 12 bit buckets and just outside them
+        long[] dods = {-63, 64, -64, 65, -255, 256, -256, 257, -2047, 2048, -2048, 2049, 0, 1, -1};
+        for (long dod : dods) {
+            long[] values = {DAY_START, DAY_START + 5, DAY_START + 10 + dod, DAY_START + 15 + dod, DAY_START + 20 + dod};
+            assertRoundTrip(values);
+        }
+        // All of them in one sequence
+        long[] values = new long[dods.length + 1];
+        values[0] = DAY_START;
+        long delta = 0;
+        for (int i = 0; i < dods.length; i++) {
+            delta += dods[i];
+            values[i + 1] = values[i] + delta;
+        }
+        assertRoundTrip(values);
+    }
+
+    public void testGapsAndNegativeDeltas() {
+        long[] values = {
+                DAY_START, DAY_START + 5, DAY_START + 10,
+                DAY_START + 60 * 24, // Gap of almost a day
+                DAY_START + 60 * 24 + 5,
+                DAY_START + 3, // Step back (unsorted source)
+                DAY_START + 3, // Repeated timestamp
+                DAY_START - 525_600, // A year back
+                DAY_START + 5
+        };
+        assertRoundTrip(values);
+    }
+
+    public void testExtremeValues() {
+        long[] values = {TimestampAxis.INVALID, 0, Long.MAX_VALUE, TimestampAxis.INVALID, -1, Long.MAX_VALUE, Long.MIN_VALUE + 1, DAY_START};
+        assertRoundTrip(values);
+    }
+
+    public void testBlockBoundaries() {
+        for (int count : new int[]{DeltaOfDeltaMinutes.BLOCK_ROWS - 1, DeltaOfDeltaMinutes.BLOCK_ROWS, DeltaOfDeltaMinutes.BLOCK_ROWS + 1, 3 * DeltaOfDeltaMinutes.BLOCK_ROWS + 5}) {
+            long[] values = new long[count];
+            for (int i = 0; i < count; i++) values[i] = DAY_START + 5L * i + (i % 100 == 99 ? 2 : 0) + (i / 500) * 60L;
+            DeltaOfDeltaMinutes minutes = assertRoundTrip(values);
+            for (int i = 0; i < count; i += 37) {
+                assertEquals(i, minutes.binarySearch(values[i]));
+                assertEquals(Arrays.binarySearch(values, values[i] + 1), minutes.binarySearch(values[i] + 1));
+            }
+            assertEquals(count - 1, minutes.binarySearch(values[count - 1]));
+            assertEquals(-(count + 1), minutes.binarySearch(values[count - 1] + 1000));
+        }
+    }
+
+    public void testEncodesOnlyCount() {
+        DeltaOfDeltaMinutes minutes = DeltaOfDeltaMinutes.encode(new long[]{1, 2, 3, 4}, 3);
+        assertEquals(3, minutes.size());
+        assertEquals(3, minutes.get(2));
+    }
+
+    /** Checks get (forwards and backwards) and writeTo/readFrom; returns the encoded sequence. */
+    private static DeltaOfDeltaMinutes assertRoundTrip(long[] values) {
+        DeltaOfDeltaMinutes minutes = DeltaOfDeltaMinutes.encode(values, values.length);
+        assertEquals(values.length, minutes.size());
+        for (int i = 0; i < values.length; i++) assertEquals("index " + i, values[i], minutes.get(i));
+        for (int i = values.length - 1; i >= 0; i--) assertEquals("index " + i, values[i], minutes.get(i));
+
+        ByteBuffer buffer = ByteBuffer.allocate(minutes.serializedBytes());
+        minutes.writeTo(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        DeltaOfDeltaMinutes read = DeltaOfDeltaMinutes.readFrom(buffer);
+        assertEquals(values.length, read.size());
+        for (int i = 0; i < values.length; i++) assertEquals("index " + i, values[i], read.get(i));
+        return minutes;
+    }
+}
@@ -0,0 +1,79 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges daily exports whose headers and Sheet2 names spell the same trackers differently.
+ */
+public class ExcelDataMergerTest extends TestCase {
+
+    public void testDifferentlySpelledHeadersShareOneColumn() {
+        ExcelData first = dataset(
+                List.of("Datum/Zeit", "TR#02.1 /DC-Leistung(kW)", "TR#02.1 /DC-Spannung(V)", "TR 1.1/DC-Leistung(kW)"),
+                List.of("05.04.2025 10:00", "05.04.2025 10:05"),
+                new double[][]{null, {1, 2}, {601, 602}, {11, 12}},
+                "TR#02.1", "TR 1.1");
+        ExcelData second = dataset(
+                List.of("Zeit", "TR 1.1/DC-Leistung (kW)", "TR#2.1/dc-leistung(kW)", "TR 2.1/DC-Spannung(V)"),
+                List.of("04.04.2025 10:00", "05.04.2025 10:05", "06.04.2025 10:00"),
+                new double[][]{null, {21, 22, 23}, {31, 32, 33}, {701, 702, 703}},
+                "TR 2.1", "TR1.1");
+
+        ExcelData merged = ExcelDataMerger.merge(List.of(first, second));
+
+        assertEquals(first.getSheet1Headers(), merged.getSheet1Headers()); // First spelling, no extra columns
+        assertEquals(List.of("04.04.2025 10:00", "05.04.2025 10:00", "05.04.2025 10:05", "06.04.2025 10:00"), merged.getTimestamps());
+        // 05.04. 10:05 is in both files: the row of the first file is kept
+        assertColumn(merged, "TR#02.1 /DC-Leistung(kW)", 31, 1, 2, 33);
+        assertColumn(merged, "TR#02.1 /DC-Spannung(V)", 701, 601, 602, 703);
+        assertColumn(merged, "TR 1.1/DC-Leistung(kW)", 21, 11, 12, 23);
+
+        // The resolver finds the merged columns under the Sheet2 names of the first file
+        assertEquals(merged.getHeaderColumnIndex("TR#02.1 /DC-Leistung(kW)"), merged.getPowerColumn("TR#02.1"));
+        assertEquals(merged.getHeaderColumnIndex("TR 1.1/DC-Leistung(kW)"), merged.getPowerColumn("TR 1.1"));
+    }
+
+    public void testColumnMissingInOneSourceIsNaN() {
+        ExcelData first = dataset(List.of("Datum", "TR 1.1/DC-Leistung(kW)"), List.of("05.04.2025 10:00"),
+                new double[][]{null, {1}}, "TR 1.1");
+        ExcelData second = dataset(List.of("Datum", "TR 1.1/DC-Leistung(kW)", "TR 1.1/DC-Spannung(V)"), List.of("06.04.2025 10:00"),
+                new double[][]{null, {2}, {600}}, "TR 1.1");
+
+        ExcelData merged = ExcelDataMerger.merge(List.of(first, second));
+
+        assertEquals(List.of("Datum", "TR 1.1/DC-Leistung(kW)", "TR 1.1/DC-Spannung(V)"), merged.getSheet1Headers());
+        assertColumn(merged, "TR 1.1/DC-Spannung(V)", Double.NaN, 600);
+    }
+
+    public void testDifferentTrackerSetsAreRejected() {
+        ExcelData first = dataset(List.of("Datum", "TR 1.1/DC-Leistung(kW)"), List.of("05.04.2025 10:00"),
+                new double[][]{null, {1}}, "TR 1.1");
+        ExcelData second = dataset(List.of("Datum", "TR 1.2/DC-Leistung(kW)"), List.of("06.04.2025 10:00"),
+                new double[][]{null, {2}}, "TR 1.2");
+        try {
+            ExcelDataMerger.merge(List.of(first, second));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("TR1.2"));
+        }
+    }
+
+    private static void assertColumn(ExcelData data, String header, double... expected) {
+        int col = data.getHeaderColumnIndex(header);
+        assertTrue(header, col > 0);
+        assertEquals(header, expected.length, data.getRowCount());
+        for (int row = 0; row < expected.length; row++) {
+            assertEquals(header + ", row " + row, expected[row], data.getValue(col, row), 0.0);
+        }
+    }
+
+    private static ExcelData dataset(List<String> headers, List<String> timestamps, double[][] columns, String... trackers) {
+        Map<String, TrackerInfo> trackerInfo = new LinkedHashMap<>();
+        for (String tracker : trackers) trackerInfo.put(tracker, new TrackerInfo(tracker, 10.0, "Süd", 2));
+        return ExcelData.Builder.wrap(headers, timestamps, columns).trackerInfoMap(trackerInfo).build();
+    }
+}
@@ -0,0 +1,157 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Compares {@link NumberParser} with {@link Double#parseDouble} (numeric cell values) and with the
+ * former regex based lenient parsing of text cells, bit for bit.
+ */
+public class NumberParserTest extends TestCase {
+
+    public void testLenientExamples() {
+        assertParsed(12.5, "12,5 kWp", "kWp");
+        assertParsed(12.5, " 12.5KWP ", "kwp");
+        assertParsed(-3.0, " -3 V", "V");
+        assertParsed(1.234, "1.234", null);
+        assertParsed(1234.5, "1 234,5", null);
+        assertParsed(Double.NaN, "1.234,5", null); // Thousands separator and decimal comma
+        assertParsed(Double.NaN, "1,234.5", null);
+        assertParsed(Double.NaN, "", null);
+        assertParsed(Double.NaN, "   ", null);
+        assertParsed(Double.NaN, "-", null);
+        assertParsed(Double.NaN, "kWp", "kWp");
+        assertParsed(Double.NaN, "1-2", null);
+        assertParsed(-0.0, "-0", null);
+        assertParsed(Double.NaN, null, null);
+    }
+
+    public void testLenientMatchesLegacy() {
+        String[] inputs = {
+                "0", "00012", "1.", ".5", ",5", "-.5", "-,", ".", "+1", "--1", "1.5.", "1e5", "1E-3", "12 345 678,9",
+                "1'234.5", "€ 12,30", "12.30 €", "n/a", "0,000000000000000000001", "0.0000000000000000000001",
+                "0.00000000000000000000001", "123456789012345", "1234567890123456", "9007199254740993", "9007199254740992.5",
+                "123456789012345678", "1234567890123456789", "12345678901234567890123", "0.123456789012345", "0.1234567890123456",
+                "99999999999999999999,5", "-123456789.123456789", "4.35 kWp", "4,35kWp", "kWp 4,35", "4,35 kWpkWp"};
+        for (String input : inputs) {
+            assertParsed(legacyParse(input, null), input, null);
+            assertParsed(legacyParse(input, "kWp"), input, "kWp");
+        }
+    }
+
+    public void testRandomLenientMatchesLegacy() {
+        Random random = new Random(3);
+        String alphabet = "0123456789012345678901234567890123456789.,- kWpe+";
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 200_000; n++) {
+            sb.setLength(0);
+            int length = random.nextInt(26);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = sb.toString();
+            assertParsed(legacyParse(input, "kWp"), input, "kWp");
+        }
+    }
+
+    public void testRandomDecimalsMatchParseDouble() {
+        Random random = new Random(5);
+        for (int n = 0; n < 200_000; n++) {
+            int digits = 1 + random.nextInt(20);
+            StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) sb.append('-');
+            for (int i = 0; i < digits; i++) sb.append((char) ('0' + random.nextInt(10)));
+            sb.insert(sb.length() - random.nextInt(digits), '.');
+            String text = sb.toString();
+            double expected = Double.parseDouble(text);
+            assertParsed(expected, text, null);
+            assertParsed(expected, text.replace('.', ','), null);
+            assertNumeric(expected, text);
+        }
+    }
+
+    public void testNumericExamples() {
+        String[] inputs = {
+                "0", "-0", "0.0", "626.04", "-626.04", "+1.5", "1.5E-3", "1.5e+3", "2E0", "0.1", "0.30000000000000004",
+                "4.9E-324", "1.7976931348623157E308", "2.2250738585072014E-308", "1E400", "1E-400", "-1E400",
+                // Edges of the exact path: 15 significant digits, exponents up to +-22
+                "999999999999999", "9999999999999999", "123456789012345E22", "123456789012345E23", "1E22", "1E23",
+                "1E-22", "1E-23", "123456789012345E-22", "123456789012345E-23", "0.000000000000000000000123456789012345",
+                "9007199254740991", "9007199254740992", "9007199254740993", "9007199254740993E-10", "900719925474099.3",
+                // More than 19 digits
+                "12345678901234567890", "1234567890.1234567890123", "0.00000000000000000000000000001234567890123456789",
+                "000000000000000000000000000001", "1.00000000000000000000000000001"};
+        for (String input : inputs) assertNumeric(Double.parseDouble(input), input);
+    }
+
+    public void testRandomDoublesRoundTrip() {
+        Random random = new Random(9);
+        for (int n = 0; n < 200_000; n++) {
+            double value = n % 2 == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            if (Double.isNaN(value) || Double.isInfinite(value)) continue;
+            assertNumeric(value, Double.toString(value));
+            assertNumeric(Double.parseDouble(String.format("%.6f", value).replace(',', '.')), String.format("%.6f", value).replace(',', '.'));
+        }
+    }
+
+    public void testNumericFallsBackToLenient() {
+        // Not a plain number: handed to the lenient text parser, like the former parseDouble + fallback
+        String[] inputs = {"12,5", "", "-", "E5", "1E", "1E+", "1E+X5", "1.5.3", "--1", "NaN", "Infinity", "0x1p3", "1_000", " 42 "};
+        for (String input : inputs) {
+            double expected;
+            try {
+                expected = Double.parseDouble(input);
+            } catch (NumberFormatException e) {
+                expected = legacyParse(input, null);
+            }
+            assertNumeric(expected, input);
+        }
+    }
+
+    public void testByteSpanMatchesText() {
+        Random random = new Random(7);
+        String alphabet = "0123456789012345678901234567890123456789.,- \"\tkW";
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < 100_000; n++) {
+            sb.setLength(0);
+            int length = random.nextInt(26);
+            for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String text = sb.toString();
+            // The field sits between other bytes, as in a CSV line
+            byte[] line = (";1;" + text + ";2;").getBytes(StandardCharsets.US_ASCII);
+            double actual = new NumberParser.ByteSpan(ByteBuffer.wrap(line)).parse(3, 3 + text.length());
+            assertEquals("'" + text + "'", Double.doubleToLongBits(NumberParser.parse(text, null)), Double.doubleToLongBits(actual));
+        }
+        byte[] utf8 = "12,5 °C".getBytes(StandardCharsets.UTF_8);
+        assertEquals(12.5, new NumberParser.ByteSpan(ByteBuffer.wrap(utf8)).parse(0, utf8.length), 0.0);
+    }
+
+    private static void assertParsed(double expected, String text, String unit) {
+        double actual = NumberParser.parse(text, unit);
+        assertEquals("'" + text + "' (unit " + unit + ")", Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    private static void assertNumeric(double expected, String raw) {
+        double actual = NumberParser.parseNumeric(raw);
+        assertEquals("'" + raw + "'", Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    /** The former ExcelReader.parseDoubleWithOptionalUnit (trim, unit, regex cleanup, parseDouble). */
+    private static double legacyParse(String valueStr, String unitToRemove) {
+        if (valueStr == null || valueStr.trim().isEmpty() || valueStr.trim().equals("-")) return Double.NaN;
+        String cleanedValue = valueStr.trim().toLowerCase();
+        if (unitToRemove != null && !unitToRemove.isEmpty()) {
+            String lowerUnit = unitToRemove.toLowerCase();
+            if (cleanedValue.endsWith(lowerUnit)) cleanedValue = cleanedValue.substring(0, cleanedValue.length() - lowerUnit.length()).trim();
+        }
+        cleanedValue = cleanedValue.replace(',', '.');
+        cleanedValue = cleanedValue.replaceAll("[^\\d.-]", "");
+        if (cleanedValue.isEmpty() || cleanedValue.equals(".") || cleanedValue.equals("-")) return Double.NaN;
+        try {
+            return Double.parseDouble(cleanedValue);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
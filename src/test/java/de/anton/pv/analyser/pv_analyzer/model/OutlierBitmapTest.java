@@ -0,0 +1,161 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the word-wise queries of {@link OutlierBitmap} with per-bit reference loops, with
+ * ranges and runs that start, end or cross at word boundaries.
+ */
+public class OutlierBitmapTest extends TestCase {
+
+    public void testEmptyBitmap() {
+        OutlierBitmap bitmap = new OutlierBitmap.Builder(2, 0).build();
+        assertEquals(0, bitmap.countOutliers(0));
+        assertEquals(OutlierBitmap.Run.NONE, bitmap.longestRun(1, 0, 0));
+        assertTrue(bitmap.rank(0, 0).isEmpty());
+        assertEquals(0.0, bitmap.consensusScore(0, 0, 0));
+    }
+
+    public void testRunsAcrossWordBoundaries() {
+        OutlierBitmap.Builder builder = new OutlierBitmap.Builder(1, 256);
+        for (int t = 60; t < 200; t++) builder.set(0, t, true, t != 63); // 60..62 and 64..199 (crosses words 1|2 and 2|3)
+        OutlierBitmap bitmap = builder.build();
+        assertEquals(new OutlierBitmap.Run(64, 136), bitmap.longestRun(0, 0, 256));
+        assertEquals(new OutlierBitmap.Run(64, 64), bitmap.longestRun(0, 0, 128)); // Range ends at a word boundary
+        assertEquals(new OutlierBitmap.Run(128, 72), bitmap.longestRun(0, 128, 256));
+        assertEquals(new OutlierBitmap.Run(60, 3), bitmap.longestRun(0, 0, 64));
+        assertEquals(new OutlierBitmap.Run(64, 1), bitmap.longestRun(0, 64, 65));
+        assertEquals(OutlierBitmap.Run.NONE, bitmap.longestRun(0, 200, 256));
+        assertEquals(199, bitmap.longestRun(0, 0, 256).last());
+        assertEquals(139, bitmap.countOutliers(0));
+        assertEquals(64, bitmap.countOutliers(0, 64, 128));
+        assertEquals(140, bitmap.countSamples(0, 0, 256));
+    }
+
+    public void testRunToEndOfLastWord() {
+        for (int count : new int[]{64, 128, 130}) {
+            OutlierBitmap.Builder builder = new OutlierBitmap.Builder(1, count);
+            for (int t = 10; t < count; t++) builder.set(0, t, true, true);
+            OutlierBitmap bitmap = builder.build();
+            assertEquals(new OutlierBitmap.Run(10, count - 10), bitmap.longestRun(0, 0, count));
+            assertEquals(count - 10, bitmap.countOutliers(0, 0, count));
+            assertEquals(new OutlierBitmap.Run(count - 1, 1), bitmap.longestRun(0, count - 1, count));
+        }
+    }
+
+    public void testRandomQueriesMatchBitLoops() {
+        Random random = new Random(1);
+        for (int count : new int[]{1, 63, 64, 65, 127, 128, 129, 200, 320}) {
+            int trackers = 5;
+            boolean[][] outlier = new boolean[trackers][count], sample = new boolean[trackers][count];
+            OutlierBitmap.Builder builder = new OutlierBitmap.Builder(trackers, count);
+            for (int id = 0; id < trackers; id++) {
+                double density = id * 0.25; // 0 (never) .. 1 (always)
+                for (int t = 0; t < count; t++) {
+                    sample[id][t] = random.nextInt(8) != 0;
+                    outlier[id][t] = random.nextDouble() < density && (sample[id][t] || random.nextBoolean());
+                    builder.set(id, t, sample[id][t], outlier[id][t]);
+                    sample[id][t] |= outlier[id][t];
+                }
+            }
+            OutlierBitmap bitmap = builder.build();
+            List<int[]> ranges = new ArrayList<>();
+            for (int from = 0; from <= count; from += count > 70 ? 7 : 1) {
+                for (int to = from; to <= count; to += count > 70 ? 5 : 1) ranges.add(new int[]{from, to});
+            }
+            for (int edge = 0; edge <= count; edge += 64) ranges.add(new int[]{0, edge}); // 'to' a multiple of 64
+            for (int[] range : ranges) {
+                int from = range[0], to = range[1];
+                for (int id = 0; id < trackers; id++) {
+                    String where = "tracker " + id + " [" + from + ", " + to + ") of " + count;
+                    assertEquals(where, count(outlier[id], from, to), bitmap.countOutliers(id, from, to));
+                    assertEquals(where, count(sample[id], from, to), bitmap.countSamples(id, from, to));
+                    assertEquals(where, longestRun(outlier[id], from, to), bitmap.longestRun(id, from, to));
+                }
+                assertEquals(trackersWithRun(outlier, 3, from, to), bitmap.trackersWithRun(3, from, to));
+            }
+            for (int id = 0; id < trackers; id++) {
+                for (int t = 0; t < count; t++) {
+                    assertEquals(outlier[id][t], bitmap.isOutlier(id, t));
+                    assertEquals(sample[id][t], bitmap.isSample(id, t));
+                }
+            }
+        }
+    }
+
+    public void testConsensusAndRanking() {
+        OutlierBitmap.Builder builder = new OutlierBitmap.Builder(4, 100);
+        for (int t = 0; t < 100; t++) {
+            builder.set(0, t, true, t < 80);            // 80 %
+            builder.set(1, t, t < 50, t < 40);          // 80 % of 50 samples, 40 outliers
+            builder.set(2, t, true, t % 2 == 0);        // 50 %, runs of 1
+            builder.set(3, t, true, false);             // Never
+        }
+        OutlierBitmap bitmap = builder.build();
+        assertEquals(0.8, bitmap.consensusScore(0, 0, 100), 1e-12);
+        assertEquals(0.8, bitmap.consensusScore(1, 0, 100), 1e-12);
+        assertEquals(0.0, bitmap.consensusScore(1, 50, 100)); // No samples
+        assertEquals(List.of(0, 1), bitmap.trackersWithConsensus(0.7, 0, 100));
+        assertEquals(List.of(0, 1, 2), bitmap.trackersWithConsensus(0.5, 0, 100));
+        assertEquals(List.of(0, 1), bitmap.trackersWithRun(30, 0, 100));
+
+        List<OutlierBitmap.TrackerScore> ranking = bitmap.rank(0, 100);
+        assertEquals(3, ranking.size());
+        assertEquals(0, ranking.get(0).trackerId()); // Same score as tracker 1, more outliers
+        assertEquals(1, ranking.get(1).trackerId());
+        assertEquals(2, ranking.get(2).trackerId());
+        assertEquals(new OutlierBitmap.Run(0, 80), ranking.get(0).longestRun());
+        assertEquals(50, ranking.get(1).samples());
+    }
+
+    public void testOutlierCountsAsSample() {
+        OutlierBitmap bitmap = new OutlierBitmap.Builder(1, 3).set(0, 1, false, true).build();
+        assertTrue(bitmap.isSample(0, 1));
+        assertEquals(1.0, bitmap.consensusScore(0, 0, 3));
+    }
+
+    public void testBuilderChecks() {
+        OutlierBitmap.Builder builder = new OutlierBitmap.Builder(2, 10);
+        try {
+            builder.set(2, 0, true, true);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected
+        }
+        builder.build();
+        try {
+            builder.set(0, 0, true, true);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // Expected
+        }
+    }
+
+    private static int count(boolean[] bits, int from, int to) {
+        int count = 0;
+        for (int t = from; t < to; t++) if (bits[t]) count++;
+        return count;
+    }
+
+    /** Reference: first longest run of set bits in [from, to). */
+    private static OutlierBitmap.Run longestRun(boolean[] bits, int from, int to) {
+        int bestStart = -1, bestLength = 0;
+        for (int t = from; t < to; ) {
+            if (!bits[t]) { t++; continue; }
+            int start = t;
+            while (t < to && bits[t]) t++;
+            if (t - start > bestLength) { bestStart = start; bestLength = t - start; }
+        }
+        return bestLength == 0 ? OutlierBitmap.Run.NONE : new OutlierBitmap.Run(bestStart, bestLength);
+    }
+
+    private static List<Integer> trackersWithRun(boolean[][] outlier, int minLength, int from, int to) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < outlier.length; id++) if (longestRun(outlier[id], from, to).length() >= minLength) ids.add(id);
+        return ids;
+    }
+}
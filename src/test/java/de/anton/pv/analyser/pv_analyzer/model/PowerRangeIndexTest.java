@@ -0,0 +1,150 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the range queries of {@link PowerRangeIndex} (through {@link ExcelData#getMaxPowerRow}
+ * and {@link ExcelData#getMinPowerRow}) with a scan keeping the first extreme of the usable rows.
+ */
+public class PowerRangeIndexTest extends TestCase {
+
+    private static final long START_MINUTE = 29_064_960L; // 05.04.2025 00:00
+    private static final String[] TRACKERS = {"TR1", "TR2", "TR3"};
+
+    public void testSmallRowCounts() {
+        for (int rows : new int[]{1, 2, 63, 64, 65, 127, 128, 129}) {
+            ExcelData data = dataset(randomPower(rows, 1), 0, rows);
+            for (int from = 0; from <= rows; from++) {
+                for (int to = from; to <= rows; to++) assertQueries(data, from, to);
+            }
+        }
+    }
+
+    public void testLargeRowCount() {
+        int rows = 64 * 37 + 13; // Not a multiple of the block size
+        ExcelData data = dataset(randomPower(rows, 2), 0, rows);
+        Random random = new Random(3);
+        for (int n = 0; n < 3000; n++) {
+            int from = random.nextInt(rows + 1), to = from + random.nextInt(rows + 1 - from);
+            assertQueries(data, from, to);
+        }
+        for (int edge = 0; edge <= rows; edge += 64) { // Queries starting or ending exactly at block edges
+            for (int delta = -1; delta <= 1; delta++) {
+                int at = Math.max(0, Math.min(rows, edge + delta));
+                assertQueries(data, at, rows);
+                assertQueries(data, 0, at);
+                assertQueries(data, at, Math.min(rows, at + 64));
+            }
+        }
+    }
+
+    public void testTiesResolveToFirstRow() {
+        double[][] power = new double[TRACKERS.length][200];
+        for (double[] column : power) Arrays.fill(column, 5.0);
+        power[0][70] = 7.0;
+        power[0][130] = 7.0;
+        power[0][10] = 1.0;
+        power[0][150] = 1.0;
+        ExcelData data = dataset(power, 0, 200);
+        assertEquals(70, data.getMaxPowerRow(0, 0, 200));
+        assertEquals(130, data.getMaxPowerRow(0, 71, 200));
+        assertEquals(10, data.getMinPowerRow(0, 0, 200));
+        assertEquals(150, data.getMinPowerRow(0, 11, 200));
+        assertEquals(0, data.getMaxPowerRow(1, 0, 200)); // Constant: the first row
+        assertEquals(65, data.getMinPowerRow(1, 65, 200));
+        for (int from = 0; from < 200; from += 7) assertQueries(data, from, 200);
+    }
+
+    public void testNoUsableSample() {
+        ExcelData data = dataset(randomPower(150, 4), 0, 150);
+        assertEquals(-1, data.getMaxPowerRow(2, 0, 150)); // TR3 is always below the power threshold
+        assertEquals(-1, data.getMinPowerRow(2, 0, 150));
+        assertEquals(-1, data.getMaxPowerRow(0, 5, 5));
+    }
+
+    public void testAppendedRows() {
+        int rows = 64 * 5 + 21;
+        double[][] power = randomPower(rows, 5);
+        for (int initial : new int[]{1, 30, 64, 100, 128}) {
+            ExcelData data = dataset(power, 0, initial);
+            int appended = 0;
+            for (int end = initial; end < rows; end = Math.min(rows, end + 37)) {
+                appended += data.appendRows(dataset(power, end, Math.min(rows, end + 37)));
+                Random random = new Random(end);
+                for (int n = 0; n < 200; n++) {
+                    int count = data.getRowCount();
+                    int from = random.nextInt(count + 1), to = from + random.nextInt(count + 1 - from);
+                    assertQueries(data, from, to);
+                }
+            }
+            assertEquals(rows - initial, appended);
+            ExcelData fresh = dataset(power, 0, rows);
+            for (int from = 0; from < rows; from += 13) {
+                for (int id = 0; id < TRACKERS.length; id++) {
+                    assertEquals(fresh.getMaxPowerRow(id, from, rows), data.getMaxPowerRow(id, from, rows));
+                    assertEquals(fresh.getMinPowerRow(id, from, rows), data.getMinPowerRow(id, from, rows));
+                }
+            }
+        }
+    }
+
+    private static void assertQueries(ExcelData data, int from, int to) {
+        for (int id = 0; id < TRACKERS.length; id++) {
+            assertEquals("max " + TRACKERS[id] + " [" + from + ", " + to + ")", scan(data, id, from, to, true), data.getMaxPowerRow(id, from, to));
+            assertEquals("min " + TRACKERS[id] + " [" + from + ", " + to + ")", scan(data, id, from, to, false), data.getMinPowerRow(id, from, to));
+        }
+    }
+
+    /** Reference: first extreme of the usable rows in [from, to). */
+    private static int scan(ExcelData data, int id, int from, int to, boolean max) {
+        int column = data.getTrackerRegistry().getPowerColumn(id);
+        int best = -1;
+        for (int row = from; row < to; row++) {
+            if (!data.getDataQuality().isUsable(id, row)) continue;
+            double value = data.getValue(column, row);
+            if (best < 0 || (max ? value > data.getValue(column, best) : value < data.getValue(column, best))) best = row;
+        }
+        return best;
+    }
+
+    /** TR1: few distinct values (many ties), gaps and night rows; TR2: smooth day curve; TR3: no production. */
+    private static double[][] randomPower(int rows, long seed) {
+        Random random = new Random(seed);
+        double[][] power = new double[TRACKERS.length][rows];
+        for (int row = 0; row < rows; row++) {
+            int kind = random.nextInt(10);
+            power[0][row] = kind == 0 ? Double.NaN : kind == 1 ? 0.0 : kind == 2 ? -1.0 : random.nextInt(4) * 2.5;
+            power[1][row] = Math.max(0, 20 * Math.sin(Math.PI * row / rows)) + random.nextInt(3);
+            power[2][row] = 0.0;
+        }
+        return power;
+    }
+
+    /** Dataset of rows [from, to) with DC power and voltage columns per tracker, 5 minute steps. */
+    private static ExcelData dataset(double[][] power, int from, int to) {
+        int rows = to - from;
+        String[] headers = new String[1 + 2 * TRACKERS.length];
+        double[][] columns = new double[headers.length][];
+        headers[0] = "Zeit";
+        Map<String, TrackerInfo> trackers = new LinkedHashMap<>();
+        for (int t = 0; t < TRACKERS.length; t++) {
+            headers[1 + 2 * t] = TRACKERS[t] + "/" + ExcelData.METRIC_DC_POWER;
+            headers[2 + 2 * t] = TRACKERS[t] + "/" + ExcelData.METRIC_DC_VOLTAGE;
+            columns[1 + 2 * t] = Arrays.copyOfRange(power[t], from, to);
+            columns[2 + 2 * t] = new double[rows];
+            Arrays.fill(columns[2 + 2 * t], 600.0);
+            trackers.put(TRACKERS[t], new TrackerInfo(TRACKERS[t], 30.0, "Süd", 2));
+        }
+        long[] minutes = new long[rows];
+        for (int i = 0; i < rows; i++) minutes[i] = START_MINUTE + 5L * (from + i);
+        return ExcelData.Builder.wrap(List.of(headers), TimestampAxis.ofEpochMinutes(minutes, rows), columns)
+                .trackerInfoMap(trackers)
+                .build();
+    }
+}
@@ -0,0 +1,109 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends to a {@link SegmentStore}, reads the rows back (also after reopening the directory) and
+ * checks that a failed append leaves neither the store nor its index half updated.
+ */
+public class SegmentStoreTest extends TestCase {
+
+    private static final long START_MINUTE = 29_064_960L; // 06.04.2025 00:00
+    private static final String POWER = "TR 1.1/" + ExcelData.METRIC_DC_POWER;
+    private static final String VOLTAGE = "TR 1.1/" + ExcelData.METRIC_DC_VOLTAGE;
+
+    private Path dir;
+
+    @Override
+    protected void setUp() throws IOException {
+        dir = Files.createTempDirectory("segment-store-test");
+    }
+
+    @Override
+    protected void tearDown() throws IOException {
+        try (var paths = Files.walk(dir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public void testAppendAndRead() throws IOException {
+        SegmentStore store = new SegmentStore(dir);
+        assertEquals(400, store.append(dataset(START_MINUTE, 400, POWER))); // Spans two days
+        assertEquals(100, store.append(dataset(START_MINUTE + 2000, 100, POWER, VOLTAGE)));
+
+        for (SegmentStore s : List.of(store, new SegmentStore(dir))) {
+            assertEquals(List.of("Zeit", POWER, VOLTAGE), s.getHeaders());
+            assertEquals(500, s.getRowCount());
+            ExcelData data = s.read(START_MINUTE, START_MINUTE + 10_000, ColumnProjection.ALL);
+            assertEquals(500, data.getRowCount());
+            int power = data.getHeaderColumnIndex(POWER), voltage = data.getHeaderColumnIndex(VOLTAGE);
+            assertEquals(TimestampAxis.format(START_MINUTE), data.getTimestamps().get(0));
+            assertEquals(100.0, data.getValue(power, 0), 0.0);
+            assertEquals(499.0, data.getValue(power, 399), 0.0);
+            assertTrue(Double.isNaN(data.getValue(voltage, 399))); // Not in the first batch
+            assertEquals(200.0, data.getValue(voltage, 400), 0.0);
+        }
+    }
+
+    public void testFailedAppendLeavesStateUnchanged() throws IOException {
+        SegmentStore store = new SegmentStore(dir);
+        store.append(dataset(START_MINUTE, 400, POWER));
+        List<String> headers = store.getHeaders();
+        List<SegmentStore.SegmentInfo> segments = store.getSegments();
+        byte[] index = indexBytes();
+
+        // A non-empty directory blocks the segment file of the new day
+        long minute = START_MINUTE + 5000;
+        Path blocker = dir.resolve(DateTimeFormatter.ofPattern("yyyyMMdd").format(LocalDate.ofEpochDay(minute / 1440)) + "-000.seg");
+        Files.createDirectories(blocker.resolve("blocked"));
+        try {
+            store.append(dataset(minute, 10, POWER, VOLTAGE));
+            fail("Expected IOException");
+        } catch (IOException expected) {
+            // Expected
+        }
+        assertEquals(headers, store.getHeaders()); // The new column is not registered
+        assertEquals(segments, store.getSegments());
+        assertEquals(400, store.getRowCount());
+        assertTrue(Arrays.equals(index, indexBytes())); // Index not rewritten
+        assertEquals(headers, new SegmentStore(dir).getHeaders());
+
+        // Once the blocker is gone the same append succeeds
+        Files.delete(blocker.resolve("blocked"));
+        Files.delete(blocker);
+        assertEquals(10, store.append(dataset(minute, 10, POWER, VOLTAGE)));
+        assertEquals(List.of("Zeit", POWER, VOLTAGE), store.getHeaders());
+        assertEquals(410, new SegmentStore(dir).getRowCount());
+    }
+
+    private byte[] indexBytes() throws IOException {
+        return Files.readAllBytes(dir.resolve("index.bin"));
+    }
+
+    /** Rows every 5 minutes; the value of column k in row i is k * 100 + i. */
+    private static ExcelData dataset(long startMinute, int rows, String... valueHeaders) {
+        long[] minutes = new long[rows];
+        for (int i = 0; i < rows; i++) minutes[i] = startMinute + 5L * i;
+        double[][] columns = new double[valueHeaders.length + 1][];
+        for (int k = 1; k < columns.length; k++) {
+            columns[k] = new double[rows];
+            for (int i = 0; i < rows; i++) columns[k][i] = k * 100 + i;
+        }
+        List<String> headers = new ArrayList<>(List.of("Zeit"));
+        headers.addAll(List.of(valueHeaders));
+        Map<String, TrackerInfo> trackers = new LinkedHashMap<>();
+        trackers.put("TR 1.1", new TrackerInfo("TR 1.1", 10.0, "Süd", 2));
+        return ExcelData.Builder.wrap(headers, TimestampAxis.ofEpochMinutes(minutes, rows), columns).trackerInfoMap(trackers).build();
+    }
+}
@@ -0,0 +1,129 @@
+package de.anton.pv.analyser.pv_analyzer.model;
+
+import junit.framework.TestCase;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Round trips of {@link XorCompressedColumn}: values must come back bit-exact (NaN payloads, -0.0)
+ * through {@code get}, {@code copy} and the serialized form.
+ */
+public class XorCompressedColumnTest extends TestCase {
+
+    public void testEmptyColumn() {
+        XorCompressedColumn column = assertRoundTrip(new double[0]);
+        assertEquals(0, column.size());
+        try {
+            column.get(0);
+            fail("Expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            // Expected
+        }
+    }
+
+    public void testSingleValue() {
+        assertRoundTrip(new double[]{42.5});
+        assertRoundTrip(new double[]{Double.NaN});
+    }
+
+    public void testSpecialValues() {
+        assertRoundTrip(new double[]{
+                0.0, -0.0, 0.0, -0.0, Double.NaN, Double.NaN, Double.longBitsToDouble(0x7FF8_0000_0000_0001L), // NaN with payload
+                Double.longBitsToDouble(0xFFF0_0000_0000_0001L), Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.MIN_VALUE, -Double.MIN_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, Double.MIN_NORMAL, 1.0, -1.0});
+    }
+
+    public void testRepeatedValues() {
+        double[] values = new double[3000];
+        Arrays.fill(values, 0, 1000, 0.0); // Night
+        Arrays.fill(values, 1000, 2000, 123.456);
+        Arrays.fill(values, 2000, 3000, Double.NaN); // Gap
+        XorCompressedColumn column = assertRoundTrip(values);
+        assertTrue("repeated values cost about one bit", column.serializedBytes() < 1000);
+    }
+
+    public void testAllBitsChanging() {
+        // Every XOR is all ones: meaningful width 64 with no leading or trailing zeros
+        double[] values = new double[200];
+        for (int i = 0; i < values.length; i++) values[i] = Double.longBitsToDouble(i % 2 == 0 ? 0x5555_5555_5555_5555L : 0xAAAA_AAAA_AAAA_AAAAL);
+        assertRoundTrip(values);
+        // Alternating between a narrow and a full window
+        for (int i = 0; i < values.length; i++) values[i] = Double.longBitsToDouble(i % 3 == 0 ? -1L : i % 3 == 1 ? 0L : 1L);
+        assertRoundTrip(values);
+    }
+
+    public void testWindowReuse() {
+        // The first XOR opens a narrow window, later ones fit into it or need a new one
+        double[] values = {1.0, 1.0000000000000002, 1.0, 1.0000000000000004, 3.0, 1.0, -1.0, -1.0, 0.0};
+        assertRoundTrip(values);
+    }
+
+    public void testBlockBoundaries() {
+        Random random = new Random(7);
+        for (int count : new int[]{XorCompressedColumn.BLOCK_ROWS - 1, XorCompressedColumn.BLOCK_ROWS, XorCompressedColumn.BLOCK_ROWS + 1, 3 * XorCompressedColumn.BLOCK_ROWS + 17}) {
+            double[] values = new double[count];
+            for (int i = 0; i < count; i++) values[i] = i % 5 == 0 ? Double.NaN : Math.round(random.nextDouble() * 5000) / 100.0;
+            XorCompressedColumn column = assertRoundTrip(values);
+            if (count >= XorCompressedColumn.BLOCK_ROWS + 2) {
+                double[] dst = new double[4];
+                column.copy(XorCompressedColumn.BLOCK_ROWS - 2, XorCompressedColumn.BLOCK_ROWS + 2, dst, 0); // Across two blocks
+                assertBitsEqual(Arrays.copyOfRange(values, XorCompressedColumn.BLOCK_ROWS - 2, XorCompressedColumn.BLOCK_ROWS + 2), dst);
+            }
+        }
+    }
+
+    public void testRandomBits() {
+        Random random = new Random(11);
+        double[] values = new double[5000];
+        for (int i = 0; i < values.length; i++) values[i] = Double.longBitsToDouble(random.nextLong());
+        assertRoundTrip(values);
+    }
+
+    public void testEncodesOnlyCount() {
+        XorCompressedColumn column = XorCompressedColumn.encode(new double[]{1, 2, 3, 4}, 2);
+        assertEquals(2, column.size());
+        assertEquals(2.0, column.get(1));
+    }
+
+    public void testCorruptBlockCount() {
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Integer.BYTES);
+        buffer.putInt(XorCompressedColumn.BLOCK_ROWS + 1).putInt(0).putInt(1).flip();
+        try {
+            XorCompressedColumn.readFrom(buffer);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // Expected
+        }
+    }
+
+    /** Checks get (forwards and backwards), copy and writeTo/readFrom; returns the encoded column. */
+    private static XorCompressedColumn assertRoundTrip(double[] values) {
+        XorCompressedColumn column = XorCompressedColumn.encode(values, values.length);
+        assertEquals(values.length, column.size());
+        for (int i = 0; i < values.length; i++) assertBitsEqual(values[i], column.get(i), i);
+        for (int i = values.length - 1; i >= 0; i--) assertBitsEqual(values[i], column.get(i), i);
+        double[] copy = new double[values.length + 2];
+        column.copy(0, values.length, copy, 1);
+        assertBitsEqual(values, Arrays.copyOfRange(copy, 1, values.length + 1));
+
+        ByteBuffer buffer = ByteBuffer.allocate(column.serializedBytes());
+        column.writeTo(buffer);
+        assertFalse(buffer.hasRemaining());
+        buffer.flip();
+        XorCompressedColumn read = XorCompressedColumn.readFrom(buffer);
+        assertEquals(values.length, read.size());
+        for (int i = 0; i < values.length; i++) assertBitsEqual(values[i], read.get(i), i);
+        return column;
+    }
+
+    private static void assertBitsEqual(double[] expected, double[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) assertBitsEqual(expected[i], actual[i], i);
+    }
+
+    private static void assertBitsEqual(double expected, double actual, int row) {
+        assertEquals("row " + row, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+}
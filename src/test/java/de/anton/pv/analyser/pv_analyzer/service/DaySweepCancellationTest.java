@@ -0,0 +1,70 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import de.anton.pv.analyser.pv_analyzer.model.AnalysisModel.AnalysisMode;
+import de.anton.pv.analyser.pv_analyzer.model.CalculatedDataPoint;
+import de.anton.pv.analyser.pv_analyzer.model.ExcelData;
+import de.anton.pv.analyser.pv_analyzer.model.ScalingType;
+import de.anton.pv.analyser.pv_analyzer.model.TimestampAxis;
+import de.anton.pv.analyser.pv_analyzer.model.TrackerInfo;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An interrupted day sweep has to stop within a few timestamps, not after clustering the remaining ones.
+ */
+public class DaySweepCancellationTest extends TestCase {
+
+    private static final int TRACKERS = 200;
+    private static final int ROWS = 2000;
+
+    public void testInterruptStopsSweepPromptly() throws Exception {
+        ExcelData data = dataset();
+        AnalysisConfiguration config = new AnalysisConfiguration(data, AnalysisMode.DAY_SWEEP, null, data.getTimestamps().get(0), data.getTimestamps().get(ROWS - 1),
+                0.3, 4, ScalingType.MIN_MAX, 0.25, 3, ScalingType.MIN_MAX, "Spez. Leistung", "DC-Spannung",
+                CalculatedDataPoint::getSpezifischeLeistung, CalculatedDataPoint::getDcSpannungV, 0);
+        Object[] outcome = new Object[1];
+        Thread worker = new Thread(() -> {
+            try {
+                outcome[0] = new AnalysisService().runFullAnalysis(config);
+            } catch (Throwable e) {
+                outcome[0] = e;
+            }
+        }, "day-sweep");
+        worker.start();
+        Thread.sleep(50);
+        long interrupted = System.nanoTime();
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(2));
+        assertFalse("Sweep still running 2 s after the interrupt", worker.isAlive());
+        assertTrue("Expected InterruptedException, got " + outcome[0], outcome[0] instanceof InterruptedException);
+        assertTrue(System.nanoTime() - interrupted < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    /** 200 trackers in 5 min steps; one sweep over all 2000 timestamps takes several seconds. */
+    private static ExcelData dataset() {
+        Random random = new Random(3);
+        long[] minutes = new long[ROWS];
+        for (int row = 0; row < ROWS; row++) minutes[row] = 29_064_960L + 5L * row; // From 06.04.2025 00:00
+        List<String> headers = new ArrayList<>(List.of("Datum"));
+        double[][] columns = new double[1 + 2 * TRACKERS][];
+        Map<String, TrackerInfo> trackerInfo = new LinkedHashMap<>();
+        for (int k = 0; k < TRACKERS; k++) {
+            String name = String.format("TR %d.%d", 1 + k / 10, 1 + k % 10);
+            trackerInfo.put(name, new TrackerInfo(name, 10.0, k % 2 == 0 ? "Süd" : "Ost", 2));
+            headers.add(name + "/" + ExcelData.METRIC_DC_POWER);
+            headers.add(name + "/" + ExcelData.METRIC_DC_VOLTAGE);
+            double[] power = columns[1 + 2 * k] = new double[ROWS], voltage = columns[2 + 2 * k] = new double[ROWS];
+            for (int row = 0; row < ROWS; row++) {
+                power[row] = 1 + 8 * random.nextDouble();
+                voltage[row] = 550 + 100 * random.nextDouble();
+            }
+        }
+        return ExcelData.Builder.wrap(headers, TimestampAxis.ofEpochMinutes(minutes, ROWS), columns).trackerInfoMap(trackerInfo).build();
+    }
+}
@@ -0,0 +1,145 @@
+package de.anton.pv.analyser.pv_analyzer.service;
+
+import de.anton.pv.analyser.pv_analyzer.model.AnalysisModel.AnalysisMode;
+import de.anton.pv.analyser.pv_analyzer.model.CalculatedDataPoint;
+import de.anton.pv.analyser.pv_analyzer.model.DataQuality;
+import de.anton.pv.analyser.pv_analyzer.model.ExcelData;
+import de.anton.pv.analyser.pv_analyzer.model.ScalingType;
+import de.anton.pv.analyser.pv_analyzer.model.TimestampAxis;
+import de.anton.pv.analyser.pv_analyzer.model.TrackerInfo;
+import de.anton.pv.analyser.pv_analyzer.model.TrackerRegistry;
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the windows of the rolling-window mode with a brute-force scan of every window: window bounds,
+ * and per tracker the first maximum of the usable power (first usable row if the power is constant).
+ */
+public class RollingWindowAnalysisTest extends TestCase {
+
+    private static final long START_MINUTE = 29_064_960L; // 06.04.2025 00:00
+
+    public void testNarrowPlant() throws Exception {
+        ExcelData data = dataset(4, 400, 1);
+        for (int windowMinutes : new int[]{1, 5, 7, 60, 180, 100_000}) {
+            assertWindows(data, 0, data.getRowCount() - 1, windowMinutes);
+            assertWindows(data, 37, 311, windowMinutes);
+        }
+    }
+
+    public void testWidePlantSweptInParallel() throws Exception {
+        ExcelData data = dataset(130, 120, 2); // At least 128 trackers: one task per tracker on the common pool
+        assertWindows(data, 0, data.getRowCount() - 1, 30);
+        assertWindows(data, 10, 90, 45);
+    }
+
+    private static void assertWindows(ExcelData data, int fromRow, int toRow, int windowMinutes) throws Exception {
+        AnalysisService.AnalysisResult result = new AnalysisService().runFullAnalysis(config(data, fromRow, toRow, windowMinutes));
+        List<int[]> expected = bruteForceWindows(data, fromRow, toRow, windowMinutes);
+        String context = "rows " + fromRow + ".." + toRow + ", " + windowMinutes + " min";
+        assertEquals(context, expected.size(), result.windows.size());
+        for (int w = 0; w < expected.size(); w++) {
+            AnalysisService.WindowResult window = result.windows.get(w);
+            int lo = expected.get(w)[0], hi = expected.get(w)[1];
+            assertEquals(context, data.getTimestamps().get(lo), window.windowStart());
+            assertEquals(context, data.getTimestamps().get(hi), window.windowEnd());
+            assertEquals(context + ", window " + w, bruteForcePoints(data, lo, hi), describe(window.points()));
+        }
+    }
+
+    /**
+     * Window bounds [lo, hi] of the windows with usable samples: each row hi ends the window of the rows with
+     * timestamps in (t - W, t], from the first window that reaches back to one step before the interval start.
+     */
+    private static List<int[]> bruteForceWindows(ExcelData data, int fromRow, int toRow, int windowMinutes) {
+        TimestampAxis axis = data.getTimestampAxis();
+        long earliest = axis.getEpochMinute(fromRow) - axis.getTypicalStepMinutes();
+        List<int[]> windows = new ArrayList<>();
+        for (int hi = fromRow; hi <= toRow; hi++) {
+            long from = axis.getEpochMinute(hi) - windowMinutes;
+            if (from < earliest) continue;
+            int lo = fromRow;
+            while (axis.getEpochMinute(lo) <= from) lo++;
+            windows.add(new int[]{lo, hi});
+        }
+        if (windows.isEmpty()) windows.add(new int[]{fromRow, toRow}); // Interval shorter than the window
+        windows.removeIf(window -> bruteForcePoints(data, window[0], window[1]).isEmpty());
+        return windows;
+    }
+
+    /** Selected rows of all trackers in [lo, hi] as "tracker@timestamp=power" (tracker ID order). */
+    private static List<String> bruteForcePoints(ExcelData data, int lo, int hi) {
+        TrackerRegistry registry = data.getTrackerRegistry();
+        DataQuality quality = data.getDataQuality();
+        int[] maxRows = new int[registry.size()], firstRows = new int[registry.size()];
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < registry.size(); k++) {
+            maxRows[k] = firstRows[k] = -1;
+            for (int row = lo; row <= hi; row++) {
+                if (!quality.isUsable(k, row)) continue;
+                double power = data.getValue(registry.getPowerColumn(k), row);
+                if (firstRows[k] < 0) firstRows[k] = row;
+                if (maxRows[k] < 0 || power > data.getValue(registry.getPowerColumn(k), maxRows[k])) maxRows[k] = row;
+                min = Math.min(min, power);
+                max = Math.max(max, power);
+            }
+        }
+        boolean constant = max - min < 1e-9;
+        List<String> points = new ArrayList<>();
+        for (int k = 0; k < registry.size(); k++) {
+            int row = constant ? firstRows[k] : maxRows[k];
+            if (row >= 0) points.add(registry.getName(k) + "@" + data.getTimestamps().get(row) + "=" + data.getValue(registry.getPowerColumn(k), row));
+        }
+        return points;
+    }
+
+    private static List<String> describe(List<CalculatedDataPoint> points) {
+        List<String> result = new ArrayList<>();
+        for (CalculatedDataPoint point : points) result.add(point.getName() + "@" + point.getSourceTimestamp() + "=" + point.getDcLeistungKW());
+        return result;
+    }
+
+    private static AnalysisConfiguration config(ExcelData data, int fromRow, int toRow, int windowMinutes) {
+        return new AnalysisConfiguration(data, AnalysisMode.ROLLING_WINDOW, null, data.getTimestamps().get(fromRow), data.getTimestamps().get(toRow),
+                0.3, 3, ScalingType.MIN_MAX, 0.25, 3, ScalingType.MIN_MAX, "Spez. Leistung", "DC-Spannung",
+                CalculatedDataPoint::getSpezifischeLeistung, CalculatedDataPoint::getDcSpannungV, windowMinutes);
+    }
+
+    /**
+     * Mostly 5 min steps with some gaps; integer power levels (many ties), night and missing samples, and
+     * stretches where all trackers deliver the same power (constant-power windows).
+     */
+    private static ExcelData dataset(int trackers, int rows, long seed) {
+        Random random = new Random(seed);
+        long[] minutes = new long[rows];
+        long minute = START_MINUTE;
+        for (int row = 0; row < rows; row++) {
+            minutes[row] = minute;
+            minute += random.nextInt(10) == 0 ? 15 : 5;
+        }
+        List<String> headers = new ArrayList<>(List.of("Datum"));
+        double[][] columns = new double[1 + 2 * trackers][];
+        Map<String, TrackerInfo> trackerInfo = new LinkedHashMap<>();
+        for (int k = 0; k < trackers; k++) {
+            String name = String.format("TR %d.%d", 1 + k / 10, 1 + k % 10);
+            trackerInfo.put(name, new TrackerInfo(name, 10.0, k % 2 == 0 ? "Süd" : "Ost", 2));
+            headers.add(name + "/" + ExcelData.METRIC_DC_POWER);
+            headers.add(name + "/" + ExcelData.METRIC_DC_VOLTAGE);
+            double[] power = columns[1 + 2 * k] = new double[rows], voltage = columns[2 + 2 * k] = new double[rows];
+            for (int row = 0; row < rows; row++) {
+                int phase = row % 80;
+                if (phase < 10) power[row] = 0.0; // Night
+                else if (phase < 20) power[row] = 3.0; // Same power for all trackers
+                else power[row] = 1 + random.nextInt(5);
+                if (random.nextInt(25) == 0) power[row] = Double.NaN;
+                voltage[row] = 600 + random.nextInt(20);
+            }
+        }
+        return ExcelData.Builder.wrap(headers, TimestampAxis.ofEpochMinutes(minutes, rows), columns).trackerInfoMap(trackerInfo).build();
+    }
+}